@@ -14,6 +14,9 @@ public interface AuthLoginMapper {
 
 	/**
 	 * 会員ログイン情報を登録する。
+	 * <p>
+	 * 会員番号は登録前に設定しておくこと。
+	 * </p>
 	 *
 	 * @param authLogin 会員ログイン情報を含む会員情報
 	 * @return 登録件数
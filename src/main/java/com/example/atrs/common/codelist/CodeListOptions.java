@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.common.codelist;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.terasoluna.gfw.common.codelist.CodeList;
+
+import org.springframework.util.Assert;
+import org.springframework.web.util.HtmlUtils;
+
+/**
+ * コードリストの&lt;option&gt;要素を描画済みのHTMLとして提供するクラス。
+ * <p>
+ * 選択肢の多いセレクトボックスを画面表示のたびに描画しないよう、コードリストの全要素の&lt;option&gt;要素を連結したHTMLを、
+ * 選択状態の値ごとに保持する。 コードリストが再ロードされた場合は({@link CodeList#asMap()}が別のマップを返却した時点で)描画し直す。
+ * </p>
+ * <p>
+ * テンプレートではセレクトボックスの子要素として、th:utextで出力する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+public class CodeListOptions {
+
+	/**
+	 * コードリスト。
+	 */
+	private final CodeList codeList;
+
+	/**
+	 * 描画済みのHTML。未描画の場合はnull。
+	 */
+	private volatile Rendered rendered;
+
+	public CodeListOptions(CodeList codeList) {
+		Assert.notNull(codeList, "codeList is null");
+		this.codeList = codeList;
+	}
+
+	/**
+	 * &lt;option&gt;要素のHTMLを取得する。
+	 *
+	 * @param selectedValue 選択状態とする値。選択しない場合はnull。
+	 * @return &lt;option&gt;要素のHTML
+	 */
+	public String render(String selectedValue) {
+		Map<String, String> codeMap = codeList.asMap();
+		Rendered current = this.rendered;
+		if (current == null || current.codeMap != codeMap) {
+			current = new Rendered(codeMap);
+			this.rendered = current;
+		}
+		String html = selectedValue != null ? current.selectedHtml.get(selectedValue)
+				: null;
+		return html != null ? html : current.html;
+	}
+
+	/**
+	 * あるコードリストの内容から描画したHTML。
+	 */
+	private static final class Rendered {
+
+		/**
+		 * 描画元のコードリストの内容。
+		 */
+		private final Map<String, String> codeMap;
+
+		/**
+		 * 選択状態の要素がないHTML。
+		 */
+		private final String html;
+
+		/**
+		 * 選択状態とする値とHTMLの関係。
+		 */
+		private final Map<String, String> selectedHtml = new HashMap<>();
+
+		Rendered(Map<String, String> codeMap) {
+			this.codeMap = codeMap;
+			String[] values = new String[codeMap.size()];
+			String[] options = new String[codeMap.size()];
+			String[] selectedOptions = new String[codeMap.size()];
+			int i = 0;
+			for (Map.Entry<String, String> entry : codeMap.entrySet()) {
+				String value = HtmlUtils.htmlEscape(entry.getKey());
+				String label = HtmlUtils.htmlEscape(entry.getValue());
+				values[i] = entry.getKey();
+				options[i] = "<option value=\"" + value + "\">" + label + "</option>";
+				selectedOptions[i] = "<option value=\"" + value
+						+ "\" selected=\"selected\">" + label + "</option>";
+				i++;
+			}
+			this.html = join(options, -1, selectedOptions);
+			for (int selected = 0; selected < values.length; selected++) {
+				selectedHtml.put(values[selected],
+						join(options, selected, selectedOptions));
+			}
+		}
+
+		private static String join(String[] options, int selected,
+				String[] selectedOptions) {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < options.length; i++) {
+				sb.append(i == selected ? selectedOptions[i] : options[i]);
+			}
+			return sb.toString();
+		}
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.common.codelist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasoluna.gfw.common.codelist.ReloadableCodeList;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * DBから取得するコードリストを起動時にロードし、定期的に再ロードするクラス。
+ * <p>
+ * 起動時は全てのコードリストを別のスレッド(別のDB接続)で並列にロードする。 コードリストの取得時間は
+ * "codelist.load"(codeList=コードリストID) メトリクスとして公開する。 コードリストのBeanは遅延ロード(lazyInit)とし、
+ * Bean生成時に順にロードしないようにすること。
+ * </p>
+ * <p>
+ * 再ロードの間隔は "codelist.reload-cron" プロパティで指定する。 "-" を指定した場合は再ロードしない。
+ * 1つのコードリストの再ロードに失敗した場合も、他のコードリストの再ロードを続ける。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+public class CodeListReloader {
+
+	/**
+	 * ロガー。
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CodeListReloader.class);
+
+	/**
+	 * 再ロード可能なコードリスト。
+	 */
+	private final List<ReloadableCodeList> codeLists;
+
+	/**
+	 * メトリクスレジストリ。
+	 */
+	private final MeterRegistry meterRegistry;
+
+	/**
+	 * 起動時のロードにおけるコードリストIDと取得時間(ミリ秒)の関係。ロード前はnull。
+	 */
+	private volatile Map<String, Long> loadTimes;
+
+	public CodeListReloader(List<ReloadableCodeList> codeLists,
+			MeterRegistry meterRegistry) {
+		this.codeLists = codeLists;
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * 起動時のロードが完了したかどうかを判定する。
+	 *
+	 * @return ロードが完了した場合はtrue
+	 */
+	public boolean isLoaded() {
+		return loadTimes != null;
+	}
+
+	/**
+	 * 起動時のロードにおけるコードリストごとの取得時間を取得する。
+	 *
+	 * @return コードリストIDと取得時間(ミリ秒)の関係。ロード前は空のマップ。
+	 */
+	public Map<String, Long> getLoadTimes() {
+		Map<String, Long> times = loadTimes;
+		return times != null ? times : Collections.emptyMap();
+	}
+
+	/**
+	 * 起動時に全ての再ロード可能なコードリストを並列にロードする。
+	 * <p>
+	 * 起動時のウォームアップで参照データのロードと並行して呼び出される。
+	 * </p>
+	 */
+	public void load() {
+		if (codeLists.isEmpty()) {
+			this.loadTimes = Collections.emptyMap();
+			return;
+		}
+		long start = System.currentTimeMillis();
+
+		ExecutorService executor = Executors.newFixedThreadPool(codeLists.size(),
+				new CustomizableThreadFactory("codelist-"));
+		Map<String, Long> times = new ConcurrentHashMap<>();
+		try {
+			List<CompletableFuture<Void>> futures = new ArrayList<>();
+			for (ReloadableCodeList codeList : codeLists) {
+				futures.add(CompletableFuture
+						.runAsync(() -> refresh(codeList, times), executor));
+			}
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+		}
+		catch (CompletionException e) {
+			// ロード処理の例外をそのままスローする
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+		finally {
+			executor.shutdown();
+		}
+		this.loadTimes = Collections.unmodifiableMap(new TreeMap<>(times));
+
+		LOGGER.info("Code lists loaded. ({} code lists, load times {}, {} ms)",
+				codeLists.size(), loadTimes, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * 全ての再ロード可能なコードリストを再ロードする。
+	 * <p>
+	 * 起動時のロードに失敗していた場合は、全てのコードリストの再ロードに成功した時点でロード済みとする。
+	 * </p>
+	 */
+	@Scheduled(cron = "${codelist.reload-cron:-}")
+	public void reload() {
+		long start = System.currentTimeMillis();
+
+		Map<String, Long> times = new ConcurrentHashMap<>();
+		boolean failed = false;
+		for (ReloadableCodeList codeList : codeLists) {
+			try {
+				refresh(codeList, times);
+			}
+			catch (RuntimeException e) {
+				failed = true;
+				LOGGER.warn("Failed to reload code list. ({})", codeList.getCodeListId(),
+						e);
+			}
+		}
+		if (!failed && loadTimes == null) {
+			this.loadTimes = Collections.unmodifiableMap(new TreeMap<>(times));
+		}
+
+		LOGGER.info("Code lists reloaded. ({} code lists, {} ms)", codeLists.size(),
+				System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * コードリストをロードし、取得時間を記録する。
+	 *
+	 * @param codeList コードリスト
+	 * @param times コードリストIDと取得時間(ミリ秒)の関係
+	 */
+	private void refresh(ReloadableCodeList codeList, Map<String, Long> times) {
+		long start = System.nanoTime();
+		try {
+			codeList.refresh();
+		}
+		finally {
+			long elapsed = System.nanoTime() - start;
+			Timer.builder("codelist.load").tag("codeList", codeList.getCodeListId())
+					.register(meterRegistry).record(elapsed, TimeUnit.NANOSECONDS);
+			times.put(codeList.getCodeListId(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+		}
+	}
+}
@@ -35,6 +35,16 @@ public enum LogMessages {
 	 */
 	E_AR_A0_L9002("e.ar.a0.L9002", "データ更新件数({0})と予想件数({1})の不一致"),
 
+	/**
+	 * 予約ジャーナルの読み書きに失敗した事を通知するログメッセージ。
+	 */
+	E_AR_A0_L9003("e.ar.a0.L9003", "予約ジャーナルの読み書き失敗 {0}"),
+
+	/**
+	 * 予約ジャーナルのレコードをDBへ登録できず退避した事を通知するログメッセージ。
+	 */
+	E_AR_A0_L9004("e.ar.a0.L9004", "予約ジャーナルのレコードを登録できず退避 {0} {1}"),
+
 	/**
 	 * ログインが成功した事を通知するログメッセージ。
 	 */
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.common.sequence;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+/**
+ * シーケンスの値をブロック単位で確保して払い出すクラス。
+ * <p>
+ * シーケンスの増分(INCREMENT BY)をブロックサイズとし、NEXTVALで取得した値から増分-1個先までの値をメモリ上で払い出す(pooled-lo方式)。
+ * DBへの問い合わせはブロックを使い切った場合のみ行う。 複数のJVMが同じシーケンスを使用しても、ブロックが重複することはない。
+ * </p>
+ * <p>
+ * 再起動時には未使用の値が欠番となる。 ブロックサイズはシーケンスの定義から取得するため、増分の変更はマイグレーションで行うこと。
+ * </p>
+ * <p>
+ * 払い出しはロックを取得せず、ブロック内の次の値をCASで進める。 ブロックを使い切った場合は、最初に検知したスレッドのみがロックを保持せずに
+ * NEXTVALを実行し、他のスレッドはその結果(次のブロック)を待機する。 NEXTVALに失敗した場合は待機中のスレッドにも例外をスローし、
+ * 次の呼び出しで再度確保を試みる。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+public class SequenceAllocator {
+
+	/**
+	 * シーケンスリポジトリ。
+	 */
+	private final SequenceMapper sequenceMapper;
+
+	/**
+	 * シーケンス名とブロックの関係。
+	 */
+	private final ConcurrentMap<String, Block> blocks = new ConcurrentHashMap<>();
+
+	public SequenceAllocator(SequenceMapper sequenceMapper) {
+		this.sequenceMapper = sequenceMapper;
+	}
+
+	/**
+	 * シーケンスの次の値を取得する。
+	 *
+	 * @param sequenceName シーケンス名
+	 * @return シーケンスの次の値
+	 */
+	public long next(String sequenceName) {
+		Assert.hasText(sequenceName);
+
+		return blocks.computeIfAbsent(sequenceName, this::createBlock).next();
+	}
+
+	/**
+	 * シーケンスの次の値を10桁のゼロ埋め文字列で取得する。
+	 * <p>
+	 * TO_CHAR(NEXTVAL(...), 'FM0999999999')と同じ形式の番号を返却する。
+	 * </p>
+	 *
+	 * @param sequenceName シーケンス名
+	 * @return 10桁のゼロ埋め文字列
+	 */
+	public String nextNo(String sequenceName) {
+		return String.format("%010d", next(sequenceName));
+	}
+
+	/**
+	 * シーケンスの値を指定件数まとめて取得する。
+	 *
+	 * @param sequenceName シーケンス名
+	 * @param count 取得件数
+	 * @return シーケンスの値
+	 */
+	public long[] next(String sequenceName, int count) {
+		Assert.hasText(sequenceName);
+
+		return blocks.computeIfAbsent(sequenceName, this::createBlock).next(count);
+	}
+
+	/**
+	 * シーケンスの定義を取得してブロックを作成する。
+	 *
+	 * @param sequenceName シーケンス名
+	 * @return ブロック
+	 */
+	private Block createBlock(String sequenceName) {
+		SequenceDefinition definition = sequenceMapper.findDefinition(sequenceName);
+		Assert.notNull(definition, "Sequence not found: " + sequenceName);
+		return new Block(sequenceName, definition.getIncrement(),
+				definition.getMaximumValue());
+	}
+
+	/**
+	 * シーケンスごとの払い出し状態。
+	 */
+	private final class Block {
+
+		private final String sequenceName;
+
+		private final long increment;
+
+		private final long maximumValue;
+
+		/**
+		 * 払い出し中の範囲。
+		 */
+		private final AtomicReference<Range> current = new AtomicReference<>(
+				new Range(1, 0));
+
+		Block(String sequenceName, long increment, long maximumValue) {
+			this.sequenceName = sequenceName;
+			this.increment = increment;
+			this.maximumValue = maximumValue;
+		}
+
+		long next() {
+			Range range = current.get();
+			for (;;) {
+				long value = range.nextValue.getAndIncrement();
+				if (value <= range.lastValue) {
+					return value;
+				}
+				// 範囲を使い切った場合は次の範囲を確保
+				range = nextRange(range);
+			}
+		}
+
+		long[] next(int count) {
+			long[] values = new long[count];
+			for (int i = 0; i < count; i++) {
+				values[i] = next();
+			}
+			return values;
+		}
+
+		/**
+		 * 使い切った範囲の次の範囲を取得する。
+		 * <p>
+		 * 次の範囲の確保を開始していない場合は、このスレッドでNEXTVALを実行する。 確保中の場合は確保の完了を待機する。
+		 * </p>
+		 *
+		 * @param exhausted 使い切った範囲
+		 * @return 次の範囲
+		 */
+		private Range nextRange(Range exhausted) {
+			for (;;) {
+				CompletableFuture<Range> future = exhausted.successor.get();
+				if (future != null) {
+					return await(future);
+				}
+				CompletableFuture<Range> created = new CompletableFuture<>();
+				if (!exhausted.successor.compareAndSet(null, created)) {
+					continue;
+				}
+				try {
+					long lo = sequenceMapper.nextval(sequenceName);
+					Range range = new Range(lo, Math.min(lo + increment - 1, maximumValue));
+					current.compareAndSet(exhausted, range);
+					created.complete(range);
+					return range;
+				}
+				catch (RuntimeException | Error e) {
+					// 次の呼び出しで再度確保できるようにする
+					exhausted.successor.compareAndSet(created, null);
+					created.completeExceptionally(e);
+					throw e;
+				}
+			}
+		}
+
+		/**
+		 * 他のスレッドが確保中の範囲を待機する。
+		 *
+		 * @param future 確保中の範囲
+		 * @return 確保した範囲
+		 */
+		private Range await(CompletableFuture<Range> future) {
+			try {
+				return future.join();
+			}
+			catch (CompletionException e) {
+				// 確保したスレッドの例外をそのままスローする
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * 確保済みのシーケンスの値の範囲。
+	 */
+	private static final class Range {
+
+		/**
+		 * 次に払い出す値。 払い出し可能な最後の値を超えた場合は使い切ったことを示す。
+		 */
+		private final AtomicLong nextValue;
+
+		/**
+		 * 払い出し可能な最後の値。
+		 */
+		private final long lastValue;
+
+		/**
+		 * 次の範囲。 確保を開始していない場合はnull。
+		 */
+		private final AtomicReference<CompletableFuture<Range>> successor = new AtomicReference<>();
+
+		Range(long firstValue, long lastValue) {
+			this.nextValue = new AtomicLong(firstValue);
+			this.lastValue = lastValue;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.common.sequence;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * シーケンスの定義。
+ *
+ * @author NTT 電電太郎
+ */
+public class SequenceDefinition implements Serializable {
+
+	/**
+	 * serialVersionUID。
+	 */
+	private static final long serialVersionUID = 8432107756125993420L;
+
+	/**
+	 * 増分。
+	 */
+	private long increment;
+
+	/**
+	 * 最大値。
+	 */
+	private long maximumValue;
+
+	public long getIncrement() {
+		return increment;
+	}
+
+	public void setIncrement(long increment) {
+		this.increment = increment;
+	}
+
+	public long getMaximumValue() {
+		return maximumValue;
+	}
+
+	public void setMaximumValue(long maximumValue) {
+		this.maximumValue = maximumValue;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SIMPLE_STYLE);
+	}
+}
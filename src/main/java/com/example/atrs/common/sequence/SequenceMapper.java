@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.common.sequence;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * シーケンスにアクセスするリポジトリインターフェース。
+ *
+ * @author NTT 電電太郎
+ */
+@Mapper
+public interface SequenceMapper {
+
+	/**
+	 * シーケンスの定義を取得する。
+	 *
+	 * @param sequenceName シーケンス名
+	 * @return シーケンスの定義。存在しない場合はnull。
+	 */
+	SequenceDefinition findDefinition(@Param("sequenceName") String sequenceName);
+
+	/**
+	 * シーケンスの次の値を取得する。
+	 *
+	 * @param sequenceName シーケンス名
+	 * @return シーケンスの次の値
+	 */
+	long nextval(@Param("sequenceName") String sequenceName);
+
+}
@@ -0,0 +1,6 @@
+/**
+ * 採番パッケージ。
+ *
+ * @author NTT 電電太郎
+ */
+package com.example.atrs.common.sequence;
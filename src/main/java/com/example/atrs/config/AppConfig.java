@@ -1,15 +1,22 @@
 package com.example.atrs.config;
 
 import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 
 import com.example.atrs.common.codelist.AirportCodeList;
+import com.example.atrs.common.codelist.CodeListOptions;
+import com.example.atrs.ticket.TicketProperties;
+import org.flywaydb.core.api.Location;
 import org.terasoluna.gfw.common.codelist.JdbcCodeList;
 import org.terasoluna.gfw.common.codelist.NumberRangeCodeList;
 import org.terasoluna.gfw.common.codelist.SimpleMapCodeList;
 import org.terasoluna.gfw.common.exception.ExceptionLogger;
 import org.terasoluna.gfw.common.exception.SimpleMappingExceptionCodeResolver;
 
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
 import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,6 +32,20 @@ public class AppConfig {
 		return Clock.systemDefaultZone();
 	}
 
+	@Bean
+	public FlywayConfigurationCustomizer inventoryFlywayConfigurationCustomizer(
+			TicketProperties props) {
+		return configuration -> {
+			// 空席数の更新日時の記録は予約処理の更新コストを増やすため、インベントリを使用する場合のみ行う
+			if (props.getInventory().isEnabled()) {
+				List<Location> locations = new ArrayList<>(
+						Arrays.asList(configuration.getLocations()));
+				locations.add(new Location("classpath:db/inventory"));
+				configuration.locations(locations.toArray(new Location[0]));
+			}
+		};
+	}
+
 	@Bean
 	public ExceptionLogger exceptionLogger() {
 		SimpleMappingExceptionCodeResolver exceptionCodeResolver = new SimpleMappingExceptionCodeResolver();
@@ -50,6 +71,8 @@ public class AppConfig {
 			JdbcTemplate jdbcTemplate) {
 		AirportCodeList codeList = new AirportCodeList();
 		codeList.setJdbcTemplate(jdbcTemplate);
+		// 起動時はCodeListReloaderで並列にロードする
+		codeList.setLazyInit(true);
 		codeList.setQuerySql(
 				"SELECT airport_cd,airport_name,display_order FROM airport order by display_order ASC");
 		codeList.setValueColumn("airport_cd");
@@ -60,12 +83,19 @@ public class AppConfig {
 		return codeList;
 	}
 
+	@Bean
+	public CodeListOptions airportOptions(AirportCodeList airportCodeList) {
+		return new CodeListOptions(airportCodeList);
+	}
+
 	@Bean(name = "CL_BOARDINGCLASS")
 	public JdbcCodeList boardingClassCodeList(
 			FlywayMigrationInitializer flywayMigrationInitializer,
 			JdbcTemplate jdbcTemplate) {
 		JdbcCodeList codeList = new JdbcCodeList();
 		codeList.setJdbcTemplate(jdbcTemplate);
+		// 起動時はCodeListReloaderで並列にロードする
+		codeList.setLazyInit(true);
 		codeList.setQuerySql(
 				"SELECT boarding_class_cd,boarding_class_name FROM boarding_class ORDER BY display_order ASC");
 		codeList.setValueColumn("boarding_class_cd");
@@ -79,6 +109,8 @@ public class AppConfig {
 			JdbcTemplate jdbcTemplate) {
 		JdbcCodeList codeList = new JdbcCodeList();
 		codeList.setJdbcTemplate(jdbcTemplate);
+		// 起動時はCodeListReloaderで並列にロードする
+		codeList.setLazyInit(true);
 		codeList.setQuerySql(
 				"SELECT fare_type_cd, fare_type_name FROM fare_type ORDER BY display_order ASC");
 		codeList.setValueColumn("fare_type_cd");
@@ -124,6 +156,8 @@ public class AppConfig {
 			JdbcTemplate jdbcTemplate) {
 		JdbcCodeList codeList = new JdbcCodeList();
 		codeList.setJdbcTemplate(jdbcTemplate);
+		// 起動時はCodeListReloaderで並列にロードする
+		codeList.setLazyInit(true);
 		codeList.setQuerySql(
 				"SELECT credit_type_cd, credit_firm FROM credit_type ORDER BY display_order ASC");
 		codeList.setValueColumn("credit_type_cd");
@@ -2,6 +2,8 @@ package com.example.atrs.config;
 
 import java.util.regex.Pattern;
 
+import com.example.atrs.ticket.api.FlightVacantInfoCompactHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.terasoluna.gfw.web.codelist.CodeListInterceptor;
 import org.terasoluna.gfw.web.logging.TraceLoggingInterceptor;
 
@@ -15,16 +17,34 @@ public class MvcConfig implements WebMvcConfigurer {
 
 	@Override
 	public void addInterceptors(InterceptorRegistry registry) {
-		registry.addInterceptor(codeListInterceptor()).addPathPatterns("/**")
-				.excludePathPatterns("/resources/**");
+		// 画面で使用するコードリストのみ、画面のパスに限定して設定する
+		registry.addInterceptor(ticketCodeListInterceptor())
+				.addPathPatterns("/ticket/**");
+		registry.addInterceptor(memberCodeListInterceptor())
+				.addPathPatterns("/member/**");
 		registry.addInterceptor(new TraceLoggingInterceptor()).addPathPatterns("/**")
 				.excludePathPatterns("/resources/**");
 	}
 
 	@Bean
-	public CodeListInterceptor codeListInterceptor() {
+	public FlightVacantInfoCompactHttpMessageConverter flightVacantInfoCompactHttpMessageConverter(
+			ObjectMapper objectMapper) {
+		return new FlightVacantInfoCompactHttpMessageConverter(objectMapper.getFactory());
+	}
+
+	@Bean
+	public CodeListInterceptor ticketCodeListInterceptor() {
+		CodeListInterceptor codeListInterceptor = new CodeListInterceptor();
+		codeListInterceptor.setCodeListIdPattern(
+				Pattern.compile("CL_(AIRPORT|BOARDINGCLASS|FARETYPE|FLIGHTTYPE|GENDER)"));
+		return codeListInterceptor;
+	}
+
+	@Bean
+	public CodeListInterceptor memberCodeListInterceptor() {
 		CodeListInterceptor codeListInterceptor = new CodeListInterceptor();
-		codeListInterceptor.setCodeListIdPattern(Pattern.compile("CL_.+"));
+		codeListInterceptor.setCodeListIdPattern(
+				Pattern.compile("CL_(GENDER|CREDITTYPE|CREDITYEAR|CREDITMONTH)"));
 		return codeListInterceptor;
 	}
 }
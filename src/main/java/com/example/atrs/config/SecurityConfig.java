@@ -54,7 +54,8 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 				.logoutSuccessHandler(this.atrsLogoutSuccessHandler) //
 				.and() //
 				.authorizeRequests() //
-				.mvcMatchers("/member/update").hasRole("MEMBER");
+				.mvcMatchers("/member/update").hasRole("MEMBER") //
+				.mvcMatchers("/api/reservations").hasRole("MEMBER");
 	}
 
 	private UserIdMDCPutFilter userIdMDCPutFilter() {
@@ -16,7 +16,11 @@
  */
 package com.example.atrs.member;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 /**
  * カード会員情報テーブルにアクセスするリポジトリインターフェース。
@@ -34,6 +38,18 @@ public interface MemberMapper {
 	 */
 	Member findOne(String membershipNumber);
 
+	/**
+	 * 会員番号に該当するカード会員情報の氏名(フリガナ)・性別を1回のSQLでまとめて取得する。
+	 * <p>
+	 * 会員番号、氏名(フリガナ)、性別以外の項目は設定しない。 該当する会員情報が存在しない会員番号は結果に含まれない。
+	 * </p>
+	 *
+	 * @param membershipNumbers 会員番号
+	 * @return カード会員情報リスト
+	 */
+	List<Member> findKanaNameAndGenderList(
+			@Param("membershipNumbers") Collection<String> membershipNumbers);
+
 	/**
 	 * 会員情報を登録する。
 	 * <p>
@@ -19,6 +19,7 @@ package com.example.atrs.member;
 import com.example.atrs.auth.AuthLogin;
 import com.example.atrs.auth.AuthLoginMapper;
 import com.example.atrs.common.logging.LogMessages;
+import com.example.atrs.common.sequence.SequenceAllocator;
 import org.terasoluna.gfw.common.exception.SystemException;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -46,11 +47,18 @@ public class MemberRegisterService {
 	 */
 	private final PasswordEncoder passwordEncoder;
 
+	/**
+	 * シーケンス採番クラス。
+	 */
+	private final SequenceAllocator sequenceAllocator;
+
 	public MemberRegisterService(AuthLoginMapper authLoginMapper,
-			MemberMapper memberMapper, PasswordEncoder passwordEncoder) {
+			MemberMapper memberMapper, PasswordEncoder passwordEncoder,
+			SequenceAllocator sequenceAllocator) {
 		this.authLoginMapper = authLoginMapper;
 		this.memberMapper = memberMapper;
 		this.passwordEncoder = passwordEncoder;
+		this.sequenceAllocator = sequenceAllocator;
 	}
 
 	/**
@@ -77,8 +85,8 @@ public class MemberRegisterService {
 		authLogin.setLastPassword(hashedPassword);
 		authLogin.setLoginFlg(false);
 
-		// 会員ログイン情報登録
-		// (MyBatis3の機能(SelectKey)によりパラメータの会員情報に会員番号が格納される)
+		// 会員番号を採番し、会員ログイン情報登録
+		authLogin.setMembershipNumber(sequenceAllocator.nextNo("sq_member_1"));
 		int insertAuthLoginCount = authLoginMapper.insert(authLogin);
 		if (insertAuthLoginCount != 1) {
 			throw new SystemException(LogMessages.E_AR_A0_L9002.getCode(),
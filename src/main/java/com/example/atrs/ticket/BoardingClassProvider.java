@@ -16,13 +16,6 @@
  */
 package com.example.atrs.ticket;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-import javax.annotation.PostConstruct;
-
-import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
@@ -35,18 +28,12 @@ import org.springframework.util.Assert;
 public class BoardingClassProvider {
 
 	/**
-	 * 搭乗クラスコードと搭乗クラスの関係を保持するマップ。
-	 */
-	private final Map<BoardingClassCd, BoardingClass> boardingClassCodeMap = new HashMap<>();
-
-	/**
-	 * 搭乗クラス情報リポジトリ。
+	 * 参照データ保持クラス。
 	 */
-	private final BoardingClassMapper boardingClassMapper;
+	private final ReferenceDataRegistry referenceDataRegistry;
 
-	public BoardingClassProvider(BoardingClassMapper boardingClassMapper,
-			FlywayMigrationInitializer flywayMigrationInitializer) {
-		this.boardingClassMapper = boardingClassMapper;
+	public BoardingClassProvider(ReferenceDataRegistry referenceDataRegistry) {
+		this.referenceDataRegistry = referenceDataRegistry;
 	}
 
 	/**
@@ -57,18 +44,7 @@ public class BoardingClassProvider {
 	 */
 	public BoardingClass getBoardingClass(BoardingClassCd boardingClassCd) {
 		Assert.notNull(boardingClassCd);
-		return boardingClassCodeMap.get(boardingClassCd);
-	}
-
-	/**
-	 * 搭乗クラス情報をロードし、キャッシュする。
-	 */
-	@PostConstruct
-	public void load() {
-		List<BoardingClass> boardingClassList = boardingClassMapper.findAll();
-		for (BoardingClass boardingClass : boardingClassList) {
-			boardingClassCodeMap.put(boardingClass.getBoardingClassCd(), boardingClass);
-		}
+		return referenceDataRegistry.getSnapshot().getBoardingClass(boardingClassCd);
 	}
 
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+/**
+ * 参照データから派生したデータ(積算比率表・運賃表・空席数インベントリなど)を保持するクラス。
+ * <p>
+ * 参照データの再ロード時は、新しいスナップショットを公開する前に {@link #prepare(ReferenceData)} が呼び出される。
+ * 派生データは生成元のスナップショットと対応付けて保持し、参照時は呼び出し元が取得したスナップショットと一致する場合のみ使用すること。
+ * 一致しない場合は、呼び出し元のスナップショットから都度計算する。 これにより1つの処理の中で異なる世代の参照データと派生データが混在しない。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+public interface DerivedReferenceData {
+
+	/**
+	 * 参照データのスナップショットから派生データを生成し、置き換える。
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 */
+	void prepare(ReferenceData referenceData);
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.text.DecimalFormat;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.atrs.common.util.DateTimeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+/**
+ * (区間, 搭乗クラス, 搭乗日, 運賃種別)ごとの運賃を事前計算して保持するクラス。
+ * <p>
+ * 本日から予約可能限度日までの基本運賃・運賃・表示用の運賃文字列を参照データのロード時に計算し、空席照会・予約確認・予約登録で参照する。
+ * 保持期間外の搭乗日は {@link TicketSharedService} で都度計算する。
+ * </p>
+ * <p>
+ * 運賃表は生成元の参照データのスナップショットと対応付けて保持し、呼び出し元が指定したスナップショットと一致しない場合は
+ * 指定したスナップショットから都度計算する。 日付の経過に合わせて日次で再計算し、参照データの再ロード時はスナップショットの公開前に
+ * 積算比率表の後で再計算する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class FareMatrix implements DerivedReferenceData {
+
+	/**
+	 * ロガー。
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(FareMatrix.class);
+
+	/**
+	 * 搭乗クラス数。
+	 */
+	private static final int BOARDING_CLASS_NUM = BoardingClassCd.values().length;
+
+	/**
+	 * 運賃の表示形式。
+	 */
+	private static final String FARE_FORMAT = "###,###";
+
+	/**
+	 * 予約可能限度日数。
+	 */
+	private final int limitDay;
+
+	private final Clock clock;
+
+	/**
+	 * 参照データ保持クラス。
+	 */
+	private final ReferenceDataRegistry referenceDataRegistry;
+
+	/**
+	 * チケット予約共通サービス。
+	 */
+	private final TicketSharedService ticketSharedService;
+
+	/**
+	 * 現在の運賃表。未計算の場合はnull。
+	 */
+	private volatile Table table;
+
+	public FareMatrix(TicketProperties props, Clock clock,
+			ReferenceDataRegistry referenceDataRegistry,
+			TicketSharedService ticketSharedService) {
+		this.limitDay = props.getLimitDay();
+		this.clock = clock;
+		this.referenceDataRegistry = referenceDataRegistry;
+		this.ticketSharedService = ticketSharedService;
+	}
+
+	/**
+	 * 参照データのスナップショットにおける、指定した区間・搭乗クラス・搭乗日の運賃を取得する。
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 * @param route 区間情報
+	 * @param boardingClassCd 搭乗クラスコード
+	 * @param depDate 搭乗日
+	 * @return 運賃
+	 */
+	public Fares getFares(ReferenceData referenceData, Route route,
+			BoardingClassCd boardingClassCd, Date depDate) {
+		Assert.notNull(referenceData);
+		Assert.notNull(route);
+		Assert.notNull(boardingClassCd);
+		Assert.notNull(depDate);
+
+		Table current = this.table;
+		if (current != null && current.referenceData == referenceData) {
+			Fares fares = current.get(route.getRouteNo(), boardingClassCd,
+					DateTimeUtil.toLocalDate(depDate).toEpochDay());
+			if (fares != null) {
+				return fares;
+			}
+		}
+		return calculate(referenceData, route.getBasicFare(), boardingClassCd, depDate);
+	}
+
+	/**
+	 * 日付の経過に合わせて運賃表を再計算する。
+	 */
+	@Scheduled(cron = "0 0 0 * * *")
+	public void scheduledRebuild() {
+		referenceDataRegistry.prepare(this);
+	}
+
+	/**
+	 * 参照データのスナップショットから本日から予約可能限度日までの運賃表を計算し、置き換える。
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 */
+	@Override
+	public void prepare(ReferenceData referenceData) {
+		long start = System.currentTimeMillis();
+
+		LocalDate from = LocalDate.now(clock);
+		List<Route> routeList = new ArrayList<>();
+		referenceData.getRoutes().forEach(routeList::add);
+		Table built = new Table(referenceData, from.toEpochDay(), limitDay + 1,
+				routeList.size());
+		for (Route route : routeList) {
+			int routeIdx = built.routeIndex.size();
+			built.routeIndex.put(route.getRouteNo(), routeIdx);
+			for (BoardingClassCd boardingClassCd : BoardingClassCd.values()) {
+				for (int day = 0; day < built.days; day++) {
+					Date depDate = DateTimeUtil.toDate(from.plusDays(day));
+					built.fares[built.indexOf(routeIdx, boardingClassCd, day)] = calculate(
+							referenceData, route.getBasicFare(), boardingClassCd, depDate);
+				}
+			}
+		}
+		this.table = built;
+
+		LOGGER.info("Fare matrix built. (version {}, {} routes, {} days, {} ms)",
+				referenceData.getVersion(), routeList.size(), built.days,
+				System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * 参照データのスナップショットから運賃を計算する。
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 * @param basicFareOfRoute 区間の基本運賃
+	 * @param boardingClassCd 搭乗クラスコード
+	 * @param depDate 搭乗日
+	 * @return 運賃
+	 */
+	private Fares calculate(ReferenceData referenceData, int basicFareOfRoute,
+			BoardingClassCd boardingClassCd, Date depDate) {
+		int basicFare = ticketSharedService.calculateBasicFare(referenceData,
+				basicFareOfRoute, boardingClassCd, depDate);
+		FareTypeCd[] fareTypeCds = FareTypeCd.values();
+		int[] fares = new int[fareTypeCds.length];
+		String[] formattedFares = new String[fareTypeCds.length];
+		DecimalFormat fareFormatter = new DecimalFormat(FARE_FORMAT);
+		for (FareTypeCd fareTypeCd : fareTypeCds) {
+			FareType fareType = referenceData.getFareType(fareTypeCd);
+			if (fareType == null) {
+				continue;
+			}
+			int fare = ticketSharedService.calculateFare(basicFare,
+					fareType.getDiscountRate());
+			fares[fareTypeCd.ordinal()] = fare;
+			formattedFares[fareTypeCd.ordinal()] = fareFormatter.format(fare);
+		}
+		return new Fares(basicFare, fares, formattedFares);
+	}
+
+	/**
+	 * ある区間・搭乗クラス・搭乗日の運賃。
+	 */
+	public static final class Fares {
+
+		/**
+		 * 基本運賃。
+		 */
+		private final int basicFare;
+
+		/**
+		 * 運賃種別ごとの運賃。
+		 */
+		private final int[] fares;
+
+		/**
+		 * 運賃種別ごとの表示用の運賃。
+		 */
+		private final String[] formattedFares;
+
+		Fares(int basicFare, int[] fares, String[] formattedFares) {
+			this.basicFare = basicFare;
+			this.fares = fares;
+			this.formattedFares = formattedFares;
+		}
+
+		/**
+		 * 基本運賃を取得する。
+		 *
+		 * @return 基本運賃
+		 */
+		public int getBasicFare() {
+			return basicFare;
+		}
+
+		/**
+		 * 運賃種別の運賃を取得する。
+		 *
+		 * @param fareTypeCd 運賃種別コード
+		 * @return 運賃
+		 */
+		public int getFare(FareTypeCd fareTypeCd) {
+			return fares[fareTypeCd.ordinal()];
+		}
+
+		/**
+		 * 運賃種別の表示用の運賃("###,###"形式)を取得する。
+		 *
+		 * @param fareTypeCd 運賃種別コード
+		 * @return 表示用の運賃
+		 */
+		public String getFormattedFare(FareTypeCd fareTypeCd) {
+			return formattedFares[fareTypeCd.ordinal()];
+		}
+	}
+
+	/**
+	 * 運賃表。
+	 */
+	private static final class Table {
+
+		/**
+		 * 生成元の参照データのスナップショット。
+		 */
+		private final ReferenceData referenceData;
+
+		/**
+		 * 先頭の搭乗日(エポック日)。
+		 */
+		private final long baseEpochDay;
+
+		/**
+		 * 保持する日数。
+		 */
+		private final int days;
+
+		/**
+		 * 区間番号と添字の関係。
+		 */
+		private final Map<Integer, Integer> routeIndex = new HashMap<>();
+
+		/**
+		 * 運賃。
+		 */
+		private final Fares[] fares;
+
+		Table(ReferenceData referenceData, long baseEpochDay, int days, int routeNum) {
+			this.referenceData = referenceData;
+			this.baseEpochDay = baseEpochDay;
+			this.days = days;
+			this.fares = new Fares[routeNum * BOARDING_CLASS_NUM * days];
+		}
+
+		Fares get(Integer routeNo, BoardingClassCd boardingClassCd, long epochDay) {
+			Integer routeIdx = routeIndex.get(routeNo);
+			if (routeIdx == null || epochDay < baseEpochDay
+					|| epochDay >= baseEpochDay + days) {
+				return null;
+			}
+			return fares[indexOf(routeIdx, boardingClassCd,
+					(int) (epochDay - baseEpochDay))];
+		}
+
+		int indexOf(int routeIdx, BoardingClassCd boardingClassCd, int day) {
+			return (routeIdx * BOARDING_CLASS_NUM + boardingClassCd.ordinal()) * days
+					+ day;
+		}
+	}
+}
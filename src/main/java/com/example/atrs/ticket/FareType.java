@@ -38,6 +38,11 @@ public class FareType implements Serializable {
 	 */
 	private Integer discountRate;
 
+	/**
+	 * 表示順。
+	 */
+	private Integer displayOrder;
+
 	/**
 	 * 運賃種別コード。
 	 */
@@ -86,6 +91,14 @@ public class FareType implements Serializable {
 	 *
 	 * @return 運賃種別コード
 	 */
+	public Integer getDisplayOrder() {
+		return displayOrder;
+	}
+
+	public void setDisplayOrder(Integer displayOrder) {
+		this.displayOrder = displayOrder;
+	}
+
 	public FareTypeCd getFareTypeCd() {
 		return fareTypeCd;
 	}
@@ -16,12 +16,6 @@
  */
 package com.example.atrs.ticket;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-import javax.annotation.PostConstruct;
-
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
@@ -34,17 +28,12 @@ import org.springframework.util.Assert;
 public class FareTypeProvider {
 
 	/**
-	 * 運賃種別コードと運賃種別情報の関係を保持するマップ。
-	 */
-	private final Map<FareTypeCd, FareType> fareTypeMap = new HashMap<>();
-
-	/**
-	 * 運賃種別情報リポジトリ。
+	 * 参照データ保持クラス。
 	 */
-	private final FareTypeMapper fareTypeMapper;
+	private final ReferenceDataRegistry referenceDataRegistry;
 
-	public FareTypeProvider(FareTypeMapper fareTypeMapper) {
-		this.fareTypeMapper = fareTypeMapper;
+	public FareTypeProvider(ReferenceDataRegistry referenceDataRegistry) {
+		this.referenceDataRegistry = referenceDataRegistry;
 	}
 
 	/**
@@ -55,18 +44,7 @@ public class FareTypeProvider {
 	 */
 	public FareType getFareType(FareTypeCd fareTypeCd) {
 		Assert.notNull(fareTypeCd);
-		return fareTypeMap.get(fareTypeCd);
-	}
-
-	/**
-	 * 運賃種別情報をロードし、キャッシュする。
-	 */
-	@PostConstruct
-	public void load() {
-		List<FareType> fareTypeList = fareTypeMapper.findAll();
-		for (FareType fareType : fareTypeList) {
-			fareTypeMap.put(fareType.getFareTypeCd(), fareType);
-		}
+		return referenceDataRegistry.getSnapshot().getFareType(fareTypeCd);
 	}
 
 }
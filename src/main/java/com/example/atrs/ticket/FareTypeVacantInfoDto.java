@@ -18,6 +18,7 @@ package com.example.atrs.ticket;
 
 import java.io.Serializable;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
@@ -38,6 +39,11 @@ public class FareTypeVacantInfoDto implements Serializable {
 	 */
 	private final String fare;
 
+	/**
+	 * 運賃(数値)。
+	 */
+	private final int fareAmount;
+
 	/**
 	 * 運賃種別名。
 	 */
@@ -53,11 +59,14 @@ public class FareTypeVacantInfoDto implements Serializable {
 	 * 
 	 * @param fareTypeName 運賃種別名
 	 * @param fare 運賃
+	 * @param fareAmount 運賃(数値)
 	 * @param vacantNum 空席数
 	 */
-	public FareTypeVacantInfoDto(String fareTypeName, String fare, Integer vacantNum) {
+	public FareTypeVacantInfoDto(String fareTypeName, String fare, int fareAmount,
+			Integer vacantNum) {
 		this.fareTypeName = fareTypeName;
 		this.fare = fare;
+		this.fareAmount = fareAmount;
 		this.vacantNum = vacantNum;
 	}
 
@@ -70,6 +79,19 @@ public class FareTypeVacantInfoDto implements Serializable {
 		return fare;
 	}
 
+	/**
+	 * 運賃(数値)を取得する。
+	 * <p>
+	 * コンパクト形式のレスポンスでのみ使用し、通常のJSONには出力しない。
+	 * </p>
+	 *
+	 * @return 運賃(数値)
+	 */
+	@JsonIgnore
+	public int getFareAmount() {
+		return fareAmount;
+	}
+
 	/**
 	 * 運賃種別名を取得する。
 	 *
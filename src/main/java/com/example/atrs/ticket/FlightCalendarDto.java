@@ -0,0 +1,90 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.io.Serializable;
+import java.util.List;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 期間指定の空席照会結果を保持するクラス。
+ * <p>
+ * 空席数・運賃は[搭乗クラス][搭乗日][運賃種別]の3次元配列で保持する。 各添字は
+ * {@link #getBoardingClassCds()}、{@link #getDepDates()}、{@link #getFareTypeCds()} の順番に対応する。
+ * 該当するフライトが存在しない、または予約可能時期外の運賃種別の場合は -1 とする。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+public class FlightCalendarDto implements Serializable {
+
+	private static final long serialVersionUID = 2146373064815950447L;
+
+	private final List<BoardingClassCd> boardingClassCds;
+
+	private final List<String> depDates;
+
+	private final List<FareTypeCd> fareTypeCds;
+
+	private final List<String> fareTypeNames;
+
+	private final int[][][] fares;
+
+	private final int[][][] vacantNums;
+
+	public FlightCalendarDto(List<BoardingClassCd> boardingClassCds,
+			List<String> depDates, List<FareTypeCd> fareTypeCds,
+			List<String> fareTypeNames, int[][][] fares, int[][][] vacantNums) {
+		this.boardingClassCds = boardingClassCds;
+		this.depDates = depDates;
+		this.fareTypeCds = fareTypeCds;
+		this.fareTypeNames = fareTypeNames;
+		this.fares = fares;
+		this.vacantNums = vacantNums;
+	}
+
+	public List<BoardingClassCd> getBoardingClassCds() {
+		return boardingClassCds;
+	}
+
+	public List<String> getDepDates() {
+		return depDates;
+	}
+
+	public List<FareTypeCd> getFareTypeCds() {
+		return fareTypeCds;
+	}
+
+	public List<String> getFareTypeNames() {
+		return fareTypeNames;
+	}
+
+	public int[][][] getFares() {
+		return fares;
+	}
+
+	public int[][][] getVacantNums() {
+		return vacantNums;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SIMPLE_STYLE);
+	}
+}
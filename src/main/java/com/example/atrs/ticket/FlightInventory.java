@@ -0,0 +1,475 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.example.atrs.common.util.DateTimeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.Assert;
+
+/**
+ * 予約可能期間のフライト情報(空席数)をメモリ上に保持するクラス。
+ * <p>
+ * 空席数は(搭乗日, 便, 搭乗クラス, 運賃種別)を添字とするプリミティブ配列で保持し、空席照会をDBアクセスなしで行う。
+ * 予約による空席数の変更はトランザクションのコミット後に反映する。 再ロード中に反映した変更は保持し、スナップショットの置き換え後に新しいスナップショットにも反映する。
+ * 保持内容は日次で再ロードし、DBの値と同期する。
+ * </p>
+ * <p>
+ * スナップショットは生成元の参照データのスナップショットと対応付けて保持する。 参照データの再ロード時は新しい参照データの公開前に再ロードし、
+ * 呼び出し元が指定した参照データと一致しない場合は空席情報を返却しない(呼び出し元はDBから取得する)。
+ * </p>
+ * <p>
+ * 他のJVMやSQLで直接行った更新は、空席数の更新日時を "ticket.inventory.refresh-delay" ごとに問い合わせて反映する。
+ * 更新日時を記録するトリガーと索引は、インベントリを使用する場合のみ db/inventory のマイグレーションで作成する。
+ * 問い合わせは前回の問い合わせ日時から "ticket.inventory.refresh-overlap" だけ遡って行い、問い合わせ時点で未コミットだった更新の見落としを防ぐ。
+ * 問い合わせ結果は空席数の増減ではなくDBの値で上書きするため、再ロードと予約の競合による一時的なずれも次の問い合わせで解消する。
+ * 空席数が変わったフライトは、空席照会結果のETagが変わるよう {@link FlightVacantNumVersionRegistry} のバージョンを進める。
+ * </p>
+ * <p>
+ * 空席照会の結果は表示用であり、予約時の空席数チェックは引き続きDBの排他ロック下で行う。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class FlightInventory implements DerivedReferenceData {
+
+	/**
+	 * ロガー。
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(FlightInventory.class);
+
+	/**
+	 * フライト情報が存在しないことを示す値。
+	 */
+	private static final int ABSENT = -1;
+
+	/**
+	 * 搭乗クラス数。
+	 */
+	private static final int BOARDING_CLASS_NUM = BoardingClassCd.values().length;
+
+	/**
+	 * 運賃種別数。
+	 */
+	private static final int FARE_TYPE_NUM = FareTypeCd.values().length;
+
+	/**
+	 * 出発時刻順の比較器。
+	 */
+	private static final Comparator<FlightMaster> DEPARTURE_TIME_ORDER = Comparator
+			.comparing(FlightMaster::getDepartureTime)
+			.thenComparing(FlightMaster::getFlightName);
+
+	/**
+	 * 表示順の比較器。
+	 */
+	private static final Comparator<FareType> DISPLAY_ORDER = Comparator
+			.comparing(FareType::getDisplayOrder);
+
+	/**
+	 * インベントリを使用するかどうか。
+	 */
+	private final boolean enabled;
+
+	/**
+	 * 予約可能限度日数。
+	 */
+	private final int limitDay;
+
+	private final Clock clock;
+
+	/**
+	 * フライト情報リポジトリ。
+	 */
+	private final FlightMapper flightMapper;
+
+	/**
+	 * 参照データ保持クラス。
+	 */
+	private final ReferenceDataRegistry referenceDataRegistry;
+
+	/**
+	 * 空席数バージョン管理クラス。
+	 */
+	private final FlightVacantNumVersionRegistry flightVacantNumVersionRegistry;
+
+	/**
+	 * DBの更新日時を遡って問い合わせる時間。
+	 */
+	private final Duration refreshOverlap;
+
+	/**
+	 * 再ロード中の空席数変更イベントの保持と、スナップショットの置き換えを排他するロック。
+	 */
+	private final Object pendingLock = new Object();
+
+	/**
+	 * 再ロード中に反映した空席数変更イベント。再ロード中でない場合はnull。
+	 */
+	private List<FlightVacantNumChangedEvent> pendingEvents;
+
+	/**
+	 * 現在の空席数スナップショット。未ロードの場合はnull。
+	 */
+	private volatile Snapshot snapshot;
+
+	/**
+	 * 前回DBの更新日時を問い合わせた日時(DBの日時)。
+	 */
+	private Date refreshedAt;
+
+	public FlightInventory(TicketProperties props, Clock clock,
+			FlightMapper flightMapper, ReferenceDataRegistry referenceDataRegistry,
+			FlightVacantNumVersionRegistry flightVacantNumVersionRegistry) {
+		this.enabled = props.getInventory().isEnabled();
+		this.refreshOverlap = props.getInventory().getRefreshOverlap();
+		this.limitDay = props.getLimitDay();
+		this.clock = clock;
+		this.flightMapper = flightMapper;
+		this.referenceDataRegistry = referenceDataRegistry;
+		this.flightVacantNumVersionRegistry = flightVacantNumVersionRegistry;
+	}
+
+	/**
+	 * 空席情報検索条件に該当する空席情報を取得する。
+	 * <p>
+	 * 返却するフライト情報には、指定した参照データのスナップショットのフライト基本情報・搭乗クラス情報・運賃種別情報が設定済みである。 並び順は
+	 * {@link FlightMapper#findByVacantSeatSearchCriteria(VacantSeatSearchCriteriaDto)} と同じく運賃種別の表示順、出発時刻順とする。
+	 * </p>
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 * @param criteria 空席情報検索条件
+	 * @return 空席情報リスト。搭乗日の空席情報を保持していない場合、指定したスナップショットから生成していない場合はnull。
+	 */
+	public List<Flight> findByVacantSeatSearchCriteria(ReferenceData referenceData,
+			VacantSeatSearchCriteriaDto criteria) {
+		Assert.notNull(referenceData);
+		Assert.notNull(criteria);
+
+		Snapshot current = this.snapshot;
+		long epochDay = DateTimeUtil.toLocalDate(criteria.getDepDate()).toEpochDay();
+		if (current == null || current.referenceData != referenceData
+				|| !current.covers(epochDay)) {
+			return null;
+		}
+
+		FlightMaster[] flightMasters = current.routeFlights
+				.get(criteria.getRoute().getRouteNo());
+		if (flightMasters == null) {
+			return new ArrayList<>();
+		}
+
+		// 予約可能時期範囲内の運賃種別を表示順に並べる
+		int beforeDayNum = criteria.getBeforeDayNum();
+		List<FareType> fareTypeList = new ArrayList<>();
+		for (FareTypeCd fareTypeCd : criteria.getFareTypeList()) {
+			FareType fareType = referenceData.getFareType(fareTypeCd);
+			if (fareType != null
+					&& fareType.getRsrvAvailableEndDayNum() <= beforeDayNum
+					&& beforeDayNum <= fareType.getRsrvAvailableStartDayNum()) {
+				fareTypeList.add(fareType);
+			}
+		}
+		fareTypeList.sort(DISPLAY_ORDER);
+
+		BoardingClassCd boardingClassCd = criteria.getBoardingClass();
+		BoardingClass boardingClass = referenceData.getBoardingClass(boardingClassCd);
+
+		List<Flight> flightList = new ArrayList<>();
+		for (FareType fareType : fareTypeList) {
+			for (FlightMaster flightMaster : flightMasters) {
+				int vacantNum = current.vacantNums.get(current.indexOf(epochDay,
+						current.flightIndex.get(flightMaster.getFlightName()),
+						boardingClassCd, fareType.getFareTypeCd()));
+				if (vacantNum == ABSENT) {
+					continue;
+				}
+				Flight flight = new Flight();
+				flight.setDepartureDate(criteria.getDepDate());
+				flight.setFlightMaster(flightMaster);
+				flight.setBoardingClass(boardingClass);
+				flight.setFareType(fareType);
+				flight.setVacantNum(vacantNum);
+				flightList.add(flight);
+			}
+		}
+		return flightList;
+	}
+
+	/**
+	 * 空席数の変更をインベントリに反映する。
+	 * <p>
+	 * 変更を行ったトランザクションのコミット後、他のリスナーより先に呼び出される。
+	 * </p>
+	 *
+	 * @param event 空席数変更イベント
+	 */
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	@TransactionalEventListener
+	public void onVacantNumChanged(FlightVacantNumChangedEvent event) {
+		Snapshot current;
+		synchronized (pendingLock) {
+			if (pendingEvents != null) {
+				// 再ロード中の場合は置き換え後のスナップショットにも反映する
+				pendingEvents.add(event);
+			}
+			current = this.snapshot;
+		}
+		if (current != null) {
+			current.apply(event);
+		}
+	}
+
+	/**
+	 * 日次で空席情報を再ロードする。
+	 */
+	@Scheduled(cron = "${ticket.inventory.reload-cron:0 5 0 * * *}")
+	public void scheduledReload() {
+		if (enabled) {
+			referenceDataRegistry.prepare(this);
+		}
+	}
+
+	/**
+	 * 他のJVMやSQLで直接行った空席数の更新を定期的に反映する。
+	 */
+	@Scheduled(fixedDelayString = "${ticket.inventory.refresh-delay:PT5S}")
+	public void scheduledRefresh() {
+		if (enabled) {
+			refresh();
+		}
+	}
+
+	/**
+	 * 参照データのスナップショットから空席情報を再ロードする。
+	 * <p>
+	 * フライト基本情報の追加・削除により、便名の添字が変わるため。
+	 * </p>
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 */
+	@Override
+	public void prepare(ReferenceData referenceData) {
+		if (enabled) {
+			reload(referenceData);
+		}
+	}
+
+	/**
+	 * 前回の問い合わせ以降にDBで空席数が更新されたフライトについて、空席数をDBの値で上書きする。
+	 * <p>
+	 * 空席数が変わったフライトは、上書き後に空席数のバージョンを進める。
+	 * </p>
+	 */
+	public synchronized void refresh() {
+		Snapshot current = this.snapshot;
+		if (current == null) {
+			return;
+		}
+		Date now = flightMapper.findCurrentTimestamp();
+		Date since = new Date(refreshedAt.getTime() - refreshOverlap.toMillis());
+		List<Flight> flightList = flightMapper.findByVacantNumUpdatedSince(since,
+				DateTimeUtil.toDate(LocalDate.ofEpochDay(current.baseEpochDay)),
+				DateTimeUtil.toDate(
+						LocalDate.ofEpochDay(current.baseEpochDay + current.days - 1)));
+		for (Flight flight : flightList) {
+			if (current.set(flight)) {
+				flightVacantNumVersionRegistry.increment(flight.getDepartureDate(),
+						flight.getFlightMaster().getFlightName(),
+						flight.getBoardingClass().getBoardingClassCd());
+			}
+		}
+		this.refreshedAt = now;
+	}
+
+	/**
+	 * 本日から予約可能限度日までの空席情報をDBからロードし、スナップショットを置き換える。
+	 * <p>
+	 * ロード中に反映した空席数の変更は、置き換え後のスナップショットに反映し直す。
+	 * </p>
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 */
+	public synchronized void reload(ReferenceData referenceData) {
+		long start = System.currentTimeMillis();
+
+		LocalDate from = LocalDate.now(clock);
+		LocalDate to = from.plusDays(limitDay);
+
+		// 便名に添字を割り当て、区間ごとに出発時刻順で並べる
+		List<FlightMaster> flightMasterList = new ArrayList<>();
+		referenceData.getFlightMasters().forEach(flightMasterList::add);
+		flightMasterList.sort(DEPARTURE_TIME_ORDER);
+		Map<String, Integer> flightIndex = new HashMap<>();
+		Map<Integer, List<FlightMaster>> routeFlightList = new HashMap<>();
+		for (FlightMaster flightMaster : flightMasterList) {
+			flightIndex.put(flightMaster.getFlightName(), flightIndex.size());
+			routeFlightList
+					.computeIfAbsent(flightMaster.getRoute().getRouteNo(),
+							k -> new ArrayList<>())
+					.add(flightMaster);
+		}
+		Map<Integer, FlightMaster[]> routeFlights = new HashMap<>();
+		routeFlightList.forEach((routeNo, list) -> routeFlights.put(routeNo,
+				list.toArray(new FlightMaster[0])));
+
+		Snapshot loaded = new Snapshot(referenceData, from.toEpochDay(), limitDay + 1,
+				flightIndex, routeFlights);
+		synchronized (pendingLock) {
+			pendingEvents = new ArrayList<>();
+		}
+		try {
+			Date loadedAt = flightMapper.findCurrentTimestamp();
+			flightMapper.findByDepartureDateRange(DateTimeUtil.toDate(from),
+					DateTimeUtil.toDate(to),
+					context -> loaded.set(context.getResultObject()));
+			synchronized (pendingLock) {
+				for (FlightVacantNumChangedEvent event : pendingEvents) {
+					loaded.apply(event);
+				}
+				this.snapshot = loaded;
+			}
+			this.refreshedAt = loadedAt;
+		}
+		finally {
+			synchronized (pendingLock) {
+				pendingEvents = null;
+			}
+		}
+
+		LOGGER.info("Flight inventory loaded. (version {}, {} - {}, {} flights, {} ms)",
+				referenceData.getVersion(), from, to, flightIndex.size(),
+				System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * ある時点の空席数を保持するスナップショット。
+	 */
+	private static final class Snapshot {
+
+		/**
+		 * 生成元の参照データのスナップショット。
+		 */
+		private final ReferenceData referenceData;
+
+		/**
+		 * 先頭の搭乗日(エポック日)。
+		 */
+		private final long baseEpochDay;
+
+		/**
+		 * 保持する日数。
+		 */
+		private final int days;
+
+		/**
+		 * 便名と添字の関係。
+		 */
+		private final Map<String, Integer> flightIndex;
+
+		/**
+		 * 区間番号と出発時刻順のフライト基本情報の関係。
+		 */
+		private final Map<Integer, FlightMaster[]> routeFlights;
+
+		/**
+		 * 空席数。
+		 */
+		private final AtomicIntegerArray vacantNums;
+
+		Snapshot(ReferenceData referenceData, long baseEpochDay, int days,
+				Map<String, Integer> flightIndex, Map<Integer, FlightMaster[]> routeFlights) {
+			this.referenceData = referenceData;
+			this.baseEpochDay = baseEpochDay;
+			this.days = days;
+			this.flightIndex = flightIndex;
+			this.routeFlights = routeFlights;
+			this.vacantNums = new AtomicIntegerArray(
+					days * flightIndex.size() * BOARDING_CLASS_NUM * FARE_TYPE_NUM);
+			for (int i = 0; i < vacantNums.length(); i++) {
+				vacantNums.lazySet(i, ABSENT);
+			}
+		}
+
+		boolean covers(long epochDay) {
+			return baseEpochDay <= epochDay && epochDay < baseEpochDay + days;
+		}
+
+		/**
+		 * フライト情報の空席数を設定する。
+		 *
+		 * @param flight フライト情報
+		 * @return 空席数が変わった場合はtrue
+		 */
+		boolean set(Flight flight) {
+			long epochDay = DateTimeUtil.toLocalDate(flight.getDepartureDate())
+					.toEpochDay();
+			Integer flightIdx = flightIndex.get(flight.getFlightMaster().getFlightName());
+			if (!covers(epochDay) || flightIdx == null) {
+				return false;
+			}
+			int vacantNum = flight.getVacantNum();
+			return vacantNums.getAndSet(indexOf(epochDay, flightIdx,
+					flight.getBoardingClass().getBoardingClassCd(),
+					flight.getFareType().getFareTypeCd()), vacantNum) != vacantNum;
+		}
+
+		/**
+		 * 空席数の変更を反映する。
+		 *
+		 * @param event 空席数変更イベント
+		 */
+		void apply(FlightVacantNumChangedEvent event) {
+			long epochDay = DateTimeUtil.toLocalDate(event.getDepartureDate())
+					.toEpochDay();
+			Integer flightIdx = flightIndex.get(event.getFlightName());
+			if (!covers(epochDay) || flightIdx == null) {
+				return;
+			}
+			int delta = event.getDelta();
+			vacantNums.updateAndGet(indexOf(epochDay, flightIdx,
+					event.getBoardingClassCd(), event.getFareTypeCd()),
+					v -> v == ABSENT ? ABSENT : Math.max(v + delta, 0));
+		}
+
+		int indexOf(long epochDay, int flightIdx, BoardingClassCd boardingClassCd,
+				FareTypeCd fareTypeCd) {
+			int day = (int) (epochDay - baseEpochDay);
+			return ((day * flightIndex.size() + flightIdx) * BOARDING_CLASS_NUM
+					+ boardingClassCd.ordinal()) * FARE_TYPE_NUM + fareTypeCd.ordinal();
+		}
+	}
+}
@@ -21,6 +21,7 @@ import java.util.List;
 
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 /**
  * フライト情報テーブルにアクセスするリポジトリインターフェース。
@@ -61,8 +62,101 @@ public interface FlightMapper {
 	List<Flight> findByVacantSeatSearchCriteria(
 			@Param("criteria") VacantSeatSearchCriteriaDto criteria);
 
+	/**
+	 * 空席情報検索条件に該当する空席情報を、指定した出発時刻より後の出発時刻から指定件数の出発時刻分取得する。
+	 * <p>
+	 * 出発時刻、便名、運賃種別の表示順でソートされる。 1つの出発時刻の空席情報が複数回に分かれることはない。
+	 * </p>
+	 *
+	 * @param criteria 空席情報検索条件
+	 * @param afterDepartureTime 前回取得した最後の出発時刻。最初の取得ではnull。
+	 * @param limit 取得する出発時刻の件数
+	 * @return 空席情報リスト
+	 */
+	List<Flight> findChunkByVacantSeatSearchCriteria(
+			@Param("criteria") VacantSeatSearchCriteriaDto criteria,
+			@Param("afterDepartureTime") String afterDepartureTime,
+			@Param("limit") int limit);
+
+	/**
+	 * 往路・復路の空席情報検索条件のいずれかに該当する空席情報を取得する。
+	 * <p>
+	 * 往路・復路は区間番号で判別する。
+	 * </p>
+	 *
+	 * @param outward 往路の空席情報検索条件
+	 * @param homeward 復路の空席情報検索条件
+	 * @return 空席情報リスト
+	 */
+	List<Flight> findByRoundTripVacantSeatSearchCriteria(
+			@Param("outward") VacantSeatSearchCriteriaDto outward,
+			@Param("homeward") VacantSeatSearchCriteriaDto homeward);
+
+	/**
+	 * 複数の区間について、空席情報検索条件に該当するフライト情報を取得する。
+	 * <p>
+	 * 検索条件の区間は使用せず、区間番号リストのいずれかに該当するフライト情報を取得する。
+	 * </p>
+	 *
+	 * @param routeNoList 区間番号リスト
+	 * @param criteria 空席情報検索条件
+	 * @return フライト情報リスト
+	 */
+	List<Flight> findByRouteNoListAndVacantSeatSearchCriteria(
+			@Param("routeNoList") List<Integer> routeNoList,
+			@Param("criteria") VacantSeatSearchCriteriaDto criteria);
+
+	/**
+	 * 搭乗日が指定期間内のフライト情報を取得し、1件ずつハンドラに渡す。
+	 *
+	 * @param fromDate 搭乗日(開始)
+	 * @param toDate 搭乗日(終了)
+	 * @param handler フライト情報を受け取るハンドラ
+	 */
+	void findByDepartureDateRange(@Param("fromDate") Date fromDate,
+			@Param("toDate") Date toDate, ResultHandler<Flight> handler);
+
+	/**
+	 * 搭乗日が指定期間内で、指定日時以降に空席数(人気便は空席数バケットを含む)が更新されたフライト情報を取得する。
+	 *
+	 * @param since 更新日時(開始)
+	 * @param fromDate 搭乗日(開始)
+	 * @param toDate 搭乗日(終了)
+	 * @return フライト情報リスト(空席数は空席数バケットを合算済み)
+	 */
+	List<Flight> findByVacantNumUpdatedSince(@Param("since") Date since,
+			@Param("fromDate") Date fromDate, @Param("toDate") Date toDate);
+
+	/**
+	 * DBの現在日時を取得する。
+	 *
+	 * @return 現在日時
+	 */
+	Date findCurrentTimestamp();
+
+	/**
+	 * 区間・搭乗日の期間・運賃種別に該当し、予約可能時期内のフライト情報を取得し、1件ずつハンドラに渡す。
+	 * <p>
+	 * 全ての搭乗クラスを対象とする。
+	 * </p>
+	 *
+	 * @param routeNo 区間番号
+	 * @param fromDate 搭乗日(開始)
+	 * @param toDate 搭乗日(終了)
+	 * @param today システム日付
+	 * @param fareTypeList 運賃種別コードリスト
+	 * @param handler フライト情報を受け取るハンドラ
+	 */
+	void findByRouteAndDepartureDateRange(@Param("routeNo") Integer routeNo,
+			@Param("fromDate") Date fromDate, @Param("toDate") Date toDate,
+			@Param("today") Date today,
+			@Param("fareTypeList") List<FareTypeCd> fareTypeList,
+			ResultHandler<Flight> handler);
+
 	/**
 	 * 指定したフライトのフライト情報を排他ロックをかけて取得する。
+	 * <p>
+	 * 空席数はフライト情報テーブルの空席数とし、人気便の空席数バケットの空席数は含まない。
 	 * </p>
 	 *
 	 * @param departureDate 搭乗日
@@ -76,6 +170,18 @@ public interface FlightMapper {
 			@Param("boardingClass") BoardingClass boardingClass,
 			@Param("fareType") FareType fareType);
 
+	/**
+	 * 空席数が減算数以上の場合のみ、フライト情報テーブルの空席数を減算する。
+	 * <p>
+	 * 空席数の確認と更新を1回のSQLで行う。
+	 * </p>
+	 *
+	 * @param flight フライト情報
+	 * @param num 減算数
+	 * @return 減算後の空席数。空席数が減算数未満の場合はnull。
+	 */
+	Integer decrementVacantNum(@Param("flight") Flight flight, @Param("num") int num);
+
 	/**
 	 * フライト情報テーブルの空席数を更新する。
 	 *
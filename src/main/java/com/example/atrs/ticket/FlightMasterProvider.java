@@ -16,13 +16,6 @@
  */
 package com.example.atrs.ticket;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-import javax.annotation.PostConstruct;
-
-import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
@@ -35,18 +28,12 @@ import org.springframework.util.Assert;
 public class FlightMasterProvider {
 
 	/**
-	 * 便名とフライト基本情報の関係を保持するキャッシュ。
-	 */
-	private final Map<String, FlightMaster> flightMasterMap = new HashMap<>();
-
-	/**
-	 * フライト基本情報リポジトリ。
+	 * 参照データ保持クラス。
 	 */
-	private final FlightMapper flightMapper;
+	private final ReferenceDataRegistry referenceDataRegistry;
 
-	public FlightMasterProvider(FlightMapper flightMapper,
-			FlywayMigrationInitializer flywayMigrationInitializer) {
-		this.flightMapper = flightMapper;
+	public FlightMasterProvider(ReferenceDataRegistry referenceDataRegistry) {
+		this.referenceDataRegistry = referenceDataRegistry;
 	}
 
 	/**
@@ -57,17 +44,6 @@ public class FlightMasterProvider {
 	 */
 	public FlightMaster getFlightMaster(String flightName) {
 		Assert.hasText(flightName);
-		return this.flightMasterMap.get(flightName);
-	}
-
-	/**
-	 * フライト基本情報をロードし、キャッシュする。
-	 */
-	@PostConstruct
-	public void load() {
-		List<FlightMaster> flightMasterList = flightMapper.findAllFlightMaster();
-		for (FlightMaster flightMaster : flightMasterList) {
-			flightMasterMap.put(flightMaster.getFlightName(), flightMaster);
-		}
+		return referenceDataRegistry.getSnapshot().getFlightMaster(flightName);
 	}
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import com.example.atrs.common.exception.AtrsBusinessException;
+
+import static com.example.atrs.ticket.TicketErrorCode.E_AR_B1_2004;
+
+/**
+ * 空席照会混雑業務例外クラス。
+ * <p>
+ * 空席照会の実行待ちが上限に達した場合、または上限時間内に空席照会が完了しない場合にスローする。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+public class FlightSearchBusyException extends AtrsBusinessException {
+
+	/**
+	 * serialVersionUID。
+	 */
+	private static final long serialVersionUID = 5203819934712240417L;
+
+	/**
+	 * コンストラクタ。
+	 */
+	public FlightSearchBusyException() {
+		super(E_AR_B1_2004);
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.example.atrs.common.util.DateTimeUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.Assert;
+
+/**
+ * 空席照会結果のキャッシュ。
+ * <p>
+ * (搭乗日, 区間, 搭乗クラス, 予約可能時期, 運賃種別)をキーとして空席照会結果を保持する。 キャッシュは件数の上限を持ち、参照頻度に基づいて追い出しを行う(W-TinyLFU)。
+ * 空席数が変更されるとトランザクションのコミット後に該当するエントリを削除する。 他のJVMやSQLで直接行った更新は検知できないため、有効期間を短く設定すること。
+ * </p>
+ * <p>
+ * ヒット率・追い出し件数・ロード時間は "cache.*" メトリクス(name=flightSearchResult)として公開する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+public class FlightSearchResultCache {
+
+	/**
+	 * メトリクスのキャッシュ名。
+	 */
+	private static final String CACHE_NAME = "flightSearchResult";
+
+	/**
+	 * キャッシュを使用するかどうか。
+	 */
+	private final boolean enabled;
+
+	private final Clock clock;
+
+	/**
+	 * 参照データ保持クラス。
+	 */
+	private final ReferenceDataRegistry referenceDataRegistry;
+
+	/**
+	 * 空席照会結果。該当する空席情報が存在しない場合は空のリストを保持する。
+	 */
+	private final Cache<Key, List<FlightVacantInfoDto>> cache;
+
+	public FlightSearchResultCache(TicketProperties props, Clock clock,
+			ReferenceDataRegistry referenceDataRegistry, MeterRegistry meterRegistry) {
+		TicketProperties.SearchCacheProperties cacheProps = props.getSearchCache();
+		this.enabled = cacheProps.isEnabled();
+		this.clock = clock;
+		this.referenceDataRegistry = referenceDataRegistry;
+		this.cache = Caffeine.newBuilder().maximumSize(cacheProps.getMaximumSize())
+				.expireAfterWrite(cacheProps.getExpireAfterWrite().toMillis(),
+						TimeUnit.MILLISECONDS)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+	}
+
+	/**
+	 * 参照データのスナップショットにおける、空席情報検索条件に該当する空席照会結果を取得する。
+	 * <p>
+	 * キャッシュに存在しない場合はローダーで取得してキャッシュする。 ローダーの実行中に該当するエントリの削除が要求された場合、削除はロード完了後に行われるため、
+	 * コミット前の空席数がキャッシュに残ることはない。
+	 * 照会結果はスナップショットのバージョンごとに保持するため、再ロード前に開始したロードの結果を再ロード後に返却することはない。
+	 * </p>
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 * @param criteria 空席情報検索条件
+	 * @param loader 空席照会結果のローダー。該当する空席情報が存在しない場合は空のリストを返却すること。
+	 * @return 空席照会結果(変更不可)。該当する空席情報が存在しない場合は空のリスト。
+	 */
+	public List<FlightVacantInfoDto> get(ReferenceData referenceData,
+			VacantSeatSearchCriteriaDto criteria,
+			Function<VacantSeatSearchCriteriaDto, List<FlightVacantInfoDto>> loader) {
+		Assert.notNull(referenceData);
+		Assert.notNull(criteria);
+		Assert.notNull(loader);
+
+		if (!enabled) {
+			return Collections.unmodifiableList(loader.apply(criteria));
+		}
+		Key key = new Key(referenceData.getVersion(),
+				DateTimeUtil.toLocalDate(criteria.getDepDate()).toEpochDay(),
+				criteria.getRoute().getRouteNo(), criteria.getBoardingClass(),
+				criteria.getBeforeDayNum(), criteria.getFareTypeList());
+		return cache.get(key,
+				k -> Collections.unmodifiableList(loader.apply(criteria)));
+	}
+
+	/**
+	 * 空席数が変更されたフライトを含む空席照会結果を削除する。
+	 * <p>
+	 * 変更を行ったトランザクションのコミット後、インベントリへの反映が済んでから呼び出される。
+	 * </p>
+	 *
+	 * @param event 空席数変更イベント
+	 */
+	@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+	@TransactionalEventListener
+	public void onVacantNumChanged(FlightVacantNumChangedEvent event) {
+		if (!enabled) {
+			return;
+		}
+		ReferenceData referenceData = referenceDataRegistry.getSnapshot();
+		FlightMaster flightMaster = referenceData.getFlightMaster(event.getFlightName());
+		if (flightMaster == null) {
+			return;
+		}
+		long epochDay = DateTimeUtil.toLocalDate(event.getDepartureDate()).toEpochDay();
+		int beforeDayNum = (int) (epochDay - LocalDate.now(clock).toEpochDay());
+		for (FlightType flightType : FlightType.values()) {
+			List<FareTypeCd> fareTypeList = flightType.getFareTypeCdList();
+			if (fareTypeList.contains(event.getFareTypeCd())) {
+				cache.invalidate(new Key(referenceData.getVersion(), epochDay,
+						flightMaster.getRoute().getRouteNo(), event.getBoardingClassCd(),
+						beforeDayNum, fareTypeList));
+			}
+		}
+	}
+
+	/**
+	 * 参照データの再ロード時に全ての空席照会結果を削除する。
+	 *
+	 * @param event 参照データ再ロードイベント
+	 */
+	@EventListener
+	public void onReferenceDataReloaded(ReferenceDataReloadedEvent event) {
+		if (enabled) {
+			cache.invalidateAll();
+		}
+	}
+
+	/**
+	 * キャッシュのキー。
+	 */
+	private static final class Key {
+
+		private final long version;
+
+		private final long epochDay;
+
+		private final int routeNo;
+
+		private final BoardingClassCd boardingClassCd;
+
+		private final int beforeDayNum;
+
+		private final List<FareTypeCd> fareTypeList;
+
+		Key(long version, long epochDay, int routeNo, BoardingClassCd boardingClassCd,
+				int beforeDayNum, List<FareTypeCd> fareTypeList) {
+			this.version = version;
+			this.epochDay = epochDay;
+			this.routeNo = routeNo;
+			this.boardingClassCd = boardingClassCd;
+			this.beforeDayNum = beforeDayNum;
+			this.fareTypeList = fareTypeList;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key that = (Key) o;
+			return version == that.version && epochDay == that.epochDay && routeNo == that.routeNo
+					&& boardingClassCd == that.boardingClassCd
+					&& beforeDayNum == that.beforeDayNum
+					&& fareTypeList.equals(that.fareTypeList);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(version, epochDay, routeNo, boardingClassCd, beforeDayNum,
+					fareTypeList);
+		}
+	}
+}
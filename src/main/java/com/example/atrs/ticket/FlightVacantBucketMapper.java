@@ -0,0 +1,132 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.util.Date;
+import java.util.List;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 人気便・空席数バケットテーブルにアクセスするリポジトリインターフェース。
+ * <p>
+ * 人気便のフライトの空席数は、フライト情報の空席数と空席数バケットの空席数の合計とする。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Mapper
+public interface FlightVacantBucketMapper {
+
+	/**
+	 * 人気便情報を全件取得する。
+	 *
+	 * @return 人気便情報リスト
+	 */
+	List<HotFlight> findAllHotFlight();
+
+	/**
+	 * 空席数が指定数以上の空席数バケットのうち、ロックされていないものを1つ選んで空席数を減算する。
+	 * <p>
+	 * 開始バケット番号以降のバケットから順に選択し、末尾に達した場合は先頭のバケットから選択する。
+	 * </p>
+	 *
+	 * @param flight フライト情報
+	 * @param num 減算する数
+	 * @param startBucketNo 開始バケット番号
+	 * @return 減算後の空席数。 該当するバケットが存在しない場合はnull
+	 */
+	Integer decrementAnyBucket(@Param("flight") Flight flight, @Param("num") int num,
+			@Param("startBucketNo") int startBucketNo);
+
+	/**
+	 * ロックされていない空席数バケットのうち、空席数が最少のバケットに加算する。
+	 *
+	 * @param flight フライト情報
+	 * @param num 加算数
+	 * @return 加算後の空席数。 加算できるバケットがない場合はnull
+	 */
+	Integer incrementAnyBucket(@Param("flight") Flight flight, @Param("num") int num);
+
+	/**
+	 * フライトの空席数バケットの空席数を、排他ロックをかけてバケット番号順に取得する。
+	 *
+	 * @param flight フライト情報
+	 * @return 空席数リスト
+	 */
+	List<Integer> findVacantNumListForUpdate(@Param("flight") Flight flight);
+
+	/**
+	 * フライトの全ての空席数バケットの空席数を更新する。
+	 *
+	 * @param flight フライト情報
+	 * @param vacantNum 空席数
+	 * @return 更新件数
+	 */
+	int updateVacantNum(@Param("flight") Flight flight,
+			@Param("vacantNum") int vacantNum);
+
+	/**
+	 * 人気便のフライトに不足している空席数バケットを空席数0で登録する。
+	 *
+	 * @param hotFlight 人気便情報
+	 * @param fromDate 搭乗日(開始)
+	 * @return 登録件数
+	 */
+	int insertMissingBucket(@Param("hotFlight") HotFlight hotFlight,
+			@Param("fromDate") Date fromDate);
+
+	/**
+	 * 人気便の指定日以降のフライトのうち、空席数バケットの空席数に偏りがあるものをロックせずに取得する。
+	 * <p>
+	 * バケット間の空席数の差がしきい値以上のフライト、フライト情報の空席数がバケット数以上のフライトを対象とし、
+	 * ロック順(搭乗日、搭乗クラスコード、運賃種別コード)に並べて返却する。
+	 * </p>
+	 *
+	 * @param flightName 便名
+	 * @param fromDate 搭乗日(開始)
+	 * @param threshold 再配分するバケット間の空席数の差
+	 * @return フライト情報リスト(空席数はフライト情報の空席数)
+	 */
+	List<Flight> findSkewedFlightList(@Param("flightName") String flightName,
+			@Param("fromDate") Date fromDate, @Param("threshold") int threshold);
+
+	/**
+	 * フライトの空席数を、フライト情報と空席数バケットの間で均等に再配分する。
+	 * <p>
+	 * 空席数の合計をバケット数で割った数を各バケットに、余りをフライト情報に設定する。 フライト情報・空席数バケットはロックを待機せずに取得し、
+	 * いずれかが他のトランザクションにロックされている場合、偏りが解消済みの場合は更新しない。
+	 * </p>
+	 *
+	 * @param flight フライト情報
+	 * @param threshold 再配分するバケット間の空席数の差
+	 * @return 更新したフライト数(0または1)
+	 */
+	int rebalance(@Param("flight") Flight flight, @Param("threshold") int threshold);
+
+	/**
+	 * 不要になった空席数バケットを削除し、空席数をフライト情報に戻す。
+	 * <p>
+	 * 人気便の指定が解除されたフライト、バケット数を減らしたフライトの超過分、搭乗日が開始日より前のフライトのバケットを対象とする。
+	 * </p>
+	 *
+	 * @param fromDate 搭乗日(開始)
+	 * @return 更新したフライト数
+	 */
+	int mergeObsoleteBucket(@Param("fromDate") Date fromDate);
+}
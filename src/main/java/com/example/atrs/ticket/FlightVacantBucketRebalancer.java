@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+import com.example.atrs.common.util.DateTimeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 人気便の空席数バケットを定期的に再配分するクラス。
+ * <p>
+ * 人気便情報を再ロードし、指定が解除された便のバケットを統合した後、空席数に偏りがあるフライト(搭乗日, 搭乗クラス, 運賃種別)のみを
+ * ロックせずに抽出し、フライトごとに別の短いトランザクションで空席数を再配分する。
+ * 再配分は予約中のトランザクションがロックしている行をスキップするため、予約を待たせることはない。 スキップしたフライトは次回の再配分で対象となる。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+public class FlightVacantBucketRebalancer {
+
+	/**
+	 * ロガー。
+	 */
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(FlightVacantBucketRebalancer.class);
+
+	/**
+	 * 空席数バケットを使用するかどうか。
+	 */
+	private final boolean enabled;
+
+	private final Clock clock;
+
+	/**
+	 * 空席数バケットサービス。
+	 */
+	private final FlightVacantBucketService flightVacantBucketService;
+
+	/**
+	 * 予約登録の再実行クラス。
+	 */
+	private final TicketReserveRetryTemplate ticketReserveRetryTemplate;
+
+	public FlightVacantBucketRebalancer(TicketProperties props, Clock clock,
+			FlightVacantBucketService flightVacantBucketService,
+			TicketReserveRetryTemplate ticketReserveRetryTemplate) {
+		this.enabled = props.getVacantBucket().isEnabled();
+		this.clock = clock;
+		this.flightVacantBucketService = flightVacantBucketService;
+		this.ticketReserveRetryTemplate = ticketReserveRetryTemplate;
+	}
+
+	/**
+	 * 人気便の空席数バケットを再配分する。
+	 */
+	@Scheduled(fixedDelayString = "${ticket.vacant-bucket.rebalance-delay:PT1M}")
+	public void rebalance() {
+		if (!enabled) {
+			return;
+		}
+		long start = System.currentTimeMillis();
+		Date today = DateTimeUtil.toDate(LocalDate.now(clock));
+
+		flightVacantBucketService.load();
+		List<HotFlight> hotFlightList = flightVacantBucketService.getHotFlightList();
+		int merged = ticketReserveRetryTemplate
+				.execute(() -> flightVacantBucketService.mergeObsoleteBucket(today));
+		int rebalanced = 0;
+		int skipped = 0;
+		for (HotFlight hotFlight : hotFlightList) {
+			try {
+				flightVacantBucketService.insertMissingBucket(hotFlight, today);
+				for (Flight flight : flightVacantBucketService
+						.findSkewedFlightList(hotFlight, today)) {
+					if (ticketReserveRetryTemplate
+							.execute(() -> flightVacantBucketService.rebalance(flight))) {
+						rebalanced++;
+					}
+					else {
+						skipped++;
+					}
+				}
+			}
+			catch (DataAccessException e) {
+				// 他の便の再配分は継続する
+				LOGGER.warn("Failed to rebalance vacant buckets. ({})", hotFlight, e);
+			}
+		}
+
+		if (merged > 0 || rebalanced > 0 || skipped > 0) {
+			LOGGER.info(
+					"Vacant buckets rebalanced. ({} hot flights, {} merged, {} rebalanced, {} skipped, {} ms)",
+					hotFlightList.size(), merged, rebalanced, skipped,
+					System.currentTimeMillis() - start);
+		}
+	}
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.annotation.PostConstruct;
+
+import com.example.atrs.common.exception.AtrsBusinessException;
+import com.example.atrs.common.logging.LogMessages;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.terasoluna.gfw.common.exception.BusinessException;
+import org.terasoluna.gfw.common.exception.SystemException;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+
+import static com.example.atrs.ticket.TicketErrorCode.E_AR_B2_2009;
+
+/**
+ * 人気便の空席数を空席数バケットに分割して管理するサービス。
+ * <p>
+ * 人気便のフライトの空席数は、フライト情報の空席数と複数の空席数バケットの空席数の合計とする。 予約時は空席数が足りるバケットのうち
+ * ロックされていないものを1つ選んで減算し、同じフライトへの予約が1行の行ロックで直列化されることを防ぐ。 空席照会では全てのバケットを合算する。
+ * </p>
+ * <p>
+ * 予約を続けるとバケット間で空席数に偏りが生じるため、{@link #rebalance(HotFlight, Date)} により定期的に均等に再配分する。
+ * 空席数が残っていても足りるバケットがない場合は、フライト情報とバケットをロックして再配分しながら減算する。
+ * </p>
+ * <p>
+ * 減算の経路ごとの件数は "ticket.inventory.bucket.decrement"(path=bucket|base|rebalance) メトリクスとして公開する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Service
+@Transactional
+public class FlightVacantBucketService {
+
+	/**
+	 * 空席数バケットを使用するかどうか。
+	 */
+	private final boolean enabled;
+
+	/**
+	 * 再配分するバケット間の空席数の差。
+	 */
+	private final int rebalanceThreshold;
+
+	/**
+	 * フライト情報リポジトリ。
+	 */
+	private final FlightMapper flightMapper;
+
+	/**
+	 * 空席数バケットリポジトリ。
+	 */
+	private final FlightVacantBucketMapper flightVacantBucketMapper;
+
+	/**
+	 * 空席数バケットから減算した件数。
+	 */
+	private final Counter bucketCounter;
+
+	/**
+	 * フライト情報の空席数から減算した件数。
+	 */
+	private final Counter baseCounter;
+
+	/**
+	 * 再配分しながら減算した件数。
+	 */
+	private final Counter rebalanceCounter;
+
+	/**
+	 * 人気便情報リスト。
+	 */
+	private volatile List<HotFlight> hotFlightList = Collections.emptyList();
+
+	/**
+	 * 便名とバケット数の関係。
+	 */
+	private volatile Map<String, Integer> bucketNums = Collections.emptyMap();
+
+	public FlightVacantBucketService(TicketProperties props, FlightMapper flightMapper,
+			FlightVacantBucketMapper flightVacantBucketMapper,
+			MeterRegistry meterRegistry,
+			FlywayMigrationInitializer flywayMigrationInitializer) {
+		this.enabled = props.getVacantBucket().isEnabled();
+		this.rebalanceThreshold = props.getVacantBucket().getRebalanceThreshold();
+		this.flightMapper = flightMapper;
+		this.flightVacantBucketMapper = flightVacantBucketMapper;
+		this.bucketCounter = Counter.builder("ticket.inventory.bucket.decrement")
+				.tag("path", "bucket").register(meterRegistry);
+		this.baseCounter = Counter.builder("ticket.inventory.bucket.decrement")
+				.tag("path", "base").register(meterRegistry);
+		this.rebalanceCounter = Counter.builder("ticket.inventory.bucket.decrement")
+				.tag("path", "rebalance").register(meterRegistry);
+	}
+
+	/**
+	 * 人気便情報をロードする。
+	 * <p>
+	 * 空席数バケットを使用しない場合はロードせず、全ての便の空席数をフライト情報の空席数から減算する。 既存のバケットの空席数は空席照会で合算される。
+	 * </p>
+	 */
+	@PostConstruct
+	public void load() {
+		if (!enabled) {
+			return;
+		}
+		List<HotFlight> loadedList = flightVacantBucketMapper.findAllHotFlight();
+		Map<String, Integer> loaded = new HashMap<>();
+		for (HotFlight hotFlight : loadedList) {
+			loaded.put(hotFlight.getFlightName(), hotFlight.getBucketNum());
+		}
+		this.hotFlightList = Collections.unmodifiableList(loadedList);
+		this.bucketNums = loaded;
+	}
+
+	/**
+	 * ロード済みの人気便情報を取得する。
+	 *
+	 * @return 人気便情報リスト
+	 */
+	public List<HotFlight> getHotFlightList() {
+		return hotFlightList;
+	}
+
+	/**
+	 * 空席数を空席数バケットに分割して管理する便かどうかを判定する。
+	 *
+	 * @param flightName 便名
+	 * @return 人気便の場合はtrue
+	 */
+	public boolean isHotFlight(String flightName) {
+		return bucketNums.containsKey(flightName);
+	}
+
+	/**
+	 * 人気便のフライトの空席数から搭乗者数を減算する。
+	 * <p>
+	 * 空席数が足りる空席数バケット、フライト情報の空席数の順に減算を試み、どちらもない場合はフライト情報と全てのバケットを
+	 * ロックして空席数の合計から減算し、残りを均等に再配分する。
+	 * </p>
+	 *
+	 * @param flight フライト情報
+	 * @param passengerNum 搭乗者数
+	 * @throws BusinessException 空席数の合計が搭乗者数未満の場合にスローする例外
+	 */
+	public void decrementVacantNum(Flight flight, int passengerNum)
+			throws BusinessException {
+		Assert.notNull(flight);
+
+		Integer bucketNum = bucketNums.get(flight.getFlightMaster().getFlightName());
+		if (bucketNum != null) {
+			// 開始バケットを分散させ、同時に予約するトランザクションが同じバケットを選ばないようにする
+			int startBucketNo = ThreadLocalRandom.current().nextInt(bucketNum);
+			if (flightVacantBucketMapper.decrementAnyBucket(flight, passengerNum,
+					startBucketNo) != null) {
+				bucketCounter.increment();
+				return;
+			}
+		}
+
+		if (flightMapper.decrementVacantNum(flight, passengerNum) != null) {
+			baseCounter.increment();
+			return;
+		}
+
+		decrementVacantNumWithRebalance(flight, passengerNum);
+		rebalanceCounter.increment();
+	}
+
+	/**
+	 * 人気便のフライトの空席数に座席数を戻す。
+	 * <p>
+	 * ロックされていない空席数バケットに加算する。 ロックを待機しないため、呼び出し元が保持するロックとの間でデッドロックは発生しない。
+	 * </p>
+	 *
+	 * @param flight フライト情報
+	 * @param num 座席数
+	 * @return 空席数バケットに加算した場合はtrue。 加算できるバケットがない場合はfalse(フライト情報の空席数に戻すこと)
+	 */
+	public boolean incrementVacantNum(Flight flight, int num) {
+		Assert.notNull(flight);
+
+		if (!isHotFlight(flight.getFlightMaster().getFlightName())) {
+			return false;
+		}
+		return flightVacantBucketMapper.incrementAnyBucket(flight, num) != null;
+	}
+
+	/**
+	 * フライト情報と全ての空席数バケットをロックし、空席数の合計から搭乗者数を減算して残りを均等に再配分する。
+	 * <p>
+	 * ロックはフライト情報、空席数バケット(バケット番号順)の順に取得する。
+	 * </p>
+	 *
+	 * @param flight フライト情報
+	 * @param passengerNum 搭乗者数
+	 * @throws BusinessException 空席数の合計が搭乗者数未満の場合にスローする例外
+	 */
+	private void decrementVacantNumWithRebalance(Flight flight, int passengerNum)
+			throws BusinessException {
+
+		Flight lockedFlight = flightMapper.findOneForUpdate(flight.getDepartureDate(),
+				flight.getFlightMaster().getFlightName(), flight.getBoardingClass(),
+				flight.getFareType());
+		List<Integer> bucketVacantNumList = flightVacantBucketMapper
+				.findVacantNumListForUpdate(flight);
+
+		int totalNum = lockedFlight.getVacantNum();
+		for (Integer bucketVacantNum : bucketVacantNumList) {
+			totalNum += bucketVacantNum;
+		}
+		if (totalNum < passengerNum) {
+			// 空席数の合計が搭乗者数未満の場合、業務例外をスロー
+			throw new AtrsBusinessException(E_AR_B2_2009);
+		}
+
+		int remainingNum = totalNum - passengerNum;
+		int bucketNum = bucketVacantNumList.size();
+		if (bucketNum > 0) {
+			int bucketUpdateCount = flightVacantBucketMapper.updateVacantNum(flight,
+					remainingNum / bucketNum);
+			if (bucketUpdateCount != bucketNum) {
+				throw new SystemException(LogMessages.E_AR_A0_L9002.getCode(),
+						LogMessages.E_AR_A0_L9002.getMessage(bucketUpdateCount,
+								bucketNum));
+			}
+			remainingNum %= bucketNum;
+		}
+		lockedFlight.setVacantNum(remainingNum);
+		int flightUpdateCount = flightMapper.update(lockedFlight);
+		if (flightUpdateCount != 1) {
+			throw new SystemException(LogMessages.E_AR_A0_L9002.getCode(),
+					LogMessages.E_AR_A0_L9002.getMessage(flightUpdateCount, 1));
+		}
+	}
+
+	/**
+	 * 人気便の指定日以降のフライトについて、不足している空席数バケットを空席数0で登録する。
+	 *
+	 * @param hotFlight 人気便情報
+	 * @param fromDate 搭乗日(開始)
+	 * @return 登録件数
+	 */
+	public int insertMissingBucket(HotFlight hotFlight, Date fromDate) {
+		Assert.notNull(hotFlight);
+		Assert.notNull(fromDate);
+
+		return flightVacantBucketMapper.insertMissingBucket(hotFlight, fromDate);
+	}
+
+	/**
+	 * 人気便の指定日以降のフライトのうち、空席数バケットの空席数に偏りがあるものを取得する。
+	 * <p>
+	 * ロックを取得しないため、返却したフライトの偏りは {@link #rebalance(Flight)} で再度確認する。
+	 * </p>
+	 *
+	 * @param hotFlight 人気便情報
+	 * @param fromDate 搭乗日(開始)
+	 * @return フライト情報リスト
+	 */
+	@Transactional(readOnly = true)
+	public List<Flight> findSkewedFlightList(HotFlight hotFlight, Date fromDate) {
+		Assert.notNull(hotFlight);
+		Assert.notNull(fromDate);
+
+		return flightVacantBucketMapper.findSkewedFlightList(hotFlight.getFlightName(),
+				fromDate, rebalanceThreshold);
+	}
+
+	/**
+	 * 1つのフライトの空席数を、フライト情報と空席数バケットの間で均等に再配分する。
+	 * <p>
+	 * 空席数の合計は変わらないため、空席数の変更は通知しない。 予約中のトランザクションがいずれかの行をロックしている場合はロックを待機せずに
+	 * 何もしないため、予約を待たせることはない。 スキップしたフライトは次回の再配分で対象となる。
+	 * </p>
+	 *
+	 * @param flight フライト情報
+	 * @return 再配分した場合はtrue。 ロック済みの行がある場合、偏りが解消済みの場合はfalse
+	 */
+	public boolean rebalance(Flight flight) {
+		Assert.notNull(flight);
+
+		return flightVacantBucketMapper.rebalance(flight, rebalanceThreshold) > 0;
+	}
+
+	/**
+	 * 不要になった空席数バケットの空席数をフライト情報に戻し、バケットを削除する。
+	 *
+	 * @param fromDate 搭乗日(開始)。 これより前の搭乗日のバケットは削除する。
+	 * @return 更新したフライト数
+	 */
+	public int mergeObsoleteBucket(Date fromDate) {
+		Assert.notNull(fromDate);
+
+		return flightVacantBucketMapper.mergeObsoleteBucket(fromDate);
+	}
+}
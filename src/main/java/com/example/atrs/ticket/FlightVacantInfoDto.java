@@ -17,6 +17,7 @@
 package com.example.atrs.ticket;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -25,6 +26,10 @@ import org.apache.commons.lang3.builder.ToStringStyle;
 
 /**
  * 便ごとの空席状況を格納するDTO。
+ * <p>
+ * 空席照会結果はキャッシュして複数のリクエストで共有するため、変更不可とする。 運賃種別群は便ごとにまとめて作成し、
+ * コンストラクタで指定する。
+ * </p>
  * 
  * @author NTT 電電次郎
  */
@@ -38,53 +43,67 @@ public class FlightVacantInfoDto implements Serializable {
 	/**
 	 * 到着空港。
 	 */
-	private String arrAirportName;
+	private final String arrAirportName;
 
 	/**
 	 * 到着時刻。
 	 */
-	private String arrTime;
+	private final String arrTime;
 
 	/**
 	 * 搭乗クラスコード。
 	 */
-	private BoardingClassCd boardingClassCd;
+	private final BoardingClassCd boardingClassCd;
 
 	/**
 	 * 出発空港。
 	 */
-	private String depAirportName;
+	private final String depAirportName;
 
 	/**
 	 * 搭乗日。
 	 */
-	private String depDate;
+	private final String depDate;
 
 	/**
 	 * 出発時刻。
 	 */
-	private String depTime;
+	private final String depTime;
 
 	/**
-	 * 運賃種別群。
+	 * 運賃種別群(変更不可)。
 	 */
-	private Map<String, FareTypeVacantInfoDto> fareTypes = new LinkedHashMap<>();
+	private final Map<String, FareTypeVacantInfoDto> fareTypes;
 
 	/**
 	 * 便名。
 	 */
-	private String flightName;
+	private final String flightName;
 
 	/**
-	 * 運賃種別群に運賃種別を追加する。
+	 * コンストラクタ。
 	 *
-	 * @param fareTypeCd 運賃種別コード
-	 * @param fareTypeVacantInfo 運賃種別に対応する空席照会結果DTO
+	 * @param flightName 便名
+	 * @param depAirportName 出発空港
+	 * @param arrAirportName 到着空港
+	 * @param depDate 搭乗日
+	 * @param depTime 出発時刻
+	 * @param arrTime 到着時刻
+	 * @param boardingClassCd 搭乗クラスコード
+	 * @param fareTypes 運賃種別群
 	 */
-	public void addFareTypeVacantInfo(FareTypeCd fareTypeCd,
-			FareTypeVacantInfoDto fareTypeVacantInfo) {
-
-		fareTypes.put(fareTypeCd.getCode(), fareTypeVacantInfo);
+	public FlightVacantInfoDto(String flightName, String depAirportName,
+			String arrAirportName, String depDate, String depTime, String arrTime,
+			BoardingClassCd boardingClassCd,
+			Map<String, FareTypeVacantInfoDto> fareTypes) {
+		this.flightName = flightName;
+		this.depAirportName = depAirportName;
+		this.arrAirportName = arrAirportName;
+		this.depDate = depDate;
+		this.depTime = depTime;
+		this.arrTime = arrTime;
+		this.boardingClassCd = boardingClassCd;
+		this.fareTypes = Collections.unmodifiableMap(new LinkedHashMap<>(fareTypes));
 	}
 
 	/**
@@ -96,15 +115,6 @@ public class FlightVacantInfoDto implements Serializable {
 		return arrAirportName;
 	}
 
-	/**
-	 * 到着空港を設定する。
-	 *
-	 * @param arrAirportName 到着空港
-	 */
-	public void setArrAirportName(String arrAirportName) {
-		this.arrAirportName = arrAirportName;
-	}
-
 	/**
 	 * 到着時刻を取得する。
 	 *
@@ -114,15 +124,6 @@ public class FlightVacantInfoDto implements Serializable {
 		return arrTime;
 	}
 
-	/**
-	 * 到着時刻を設定する。
-	 *
-	 * @param arrTime 到着時刻
-	 */
-	public void setArrTime(String arrTime) {
-		this.arrTime = arrTime;
-	}
-
 	/**
 	 * 搭乗クラスコードを取得する。
 	 *
@@ -132,15 +133,6 @@ public class FlightVacantInfoDto implements Serializable {
 		return boardingClassCd;
 	}
 
-	/**
-	 * 搭乗クラスコードを設定する。
-	 *
-	 * @param boardingClassCd 搭乗クラスコード
-	 */
-	public void setBoardingClassCd(BoardingClassCd boardingClassCd) {
-		this.boardingClassCd = boardingClassCd;
-	}
-
 	/**
 	 * 出発空港を取得する。
 	 *
@@ -150,15 +142,6 @@ public class FlightVacantInfoDto implements Serializable {
 		return depAirportName;
 	}
 
-	/**
-	 * 出発空港を設定する。
-	 *
-	 * @param depAirportName 出発空港
-	 */
-	public void setDepAirportName(String depAirportName) {
-		this.depAirportName = depAirportName;
-	}
-
 	/**
 	 * 搭乗日を取得する。
 	 *
@@ -168,15 +151,6 @@ public class FlightVacantInfoDto implements Serializable {
 		return depDate;
 	}
 
-	/**
-	 * 搭乗日を設定する。
-	 *
-	 * @param depDate 搭乗日
-	 */
-	public void setDepDate(String depDate) {
-		this.depDate = depDate;
-	}
-
 	/**
 	 * 出発時刻を取得する。
 	 *
@@ -186,33 +160,15 @@ public class FlightVacantInfoDto implements Serializable {
 		return depTime;
 	}
 
-	/**
-	 * 出発時刻を設定する。
-	 *
-	 * @param depTime 出発時刻
-	 */
-	public void setDepTime(String depTime) {
-		this.depTime = depTime;
-	}
-
 	/**
 	 * 運賃種別群を取得する。
 	 *
-	 * @return 運賃種別群
+	 * @return 運賃種別群(変更不可)
 	 */
 	public Map<String, FareTypeVacantInfoDto> getFareTypes() {
 		return fareTypes;
 	}
 
-	/**
-	 * 運賃種別群を設定する。
-	 *
-	 * @param fareTypes 運賃種別群
-	 */
-	public void setFareTypes(Map<String, FareTypeVacantInfoDto> fareTypes) {
-		this.fareTypes = fareTypes;
-	}
-
 	/**
 	 * 便名を取得する。
 	 *
@@ -222,15 +178,6 @@ public class FlightVacantInfoDto implements Serializable {
 		return flightName;
 	}
 
-	/**
-	 * 便名を設定する。
-	 *
-	 * @param flightName 便名
-	 */
-	public void setFlightName(String flightName) {
-		this.flightName = flightName;
-	}
-
 	/**
 	 * {@inheritDoc}
 	 */
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * フライト情報の空席数が変化したことを通知するイベント。
+ * <p>
+ * 予約などで空席数を更新したトランザクション内で発行され、コミット後にリスナーへ配信される。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+public class FlightVacantNumChangedEvent implements Serializable {
+
+	private static final long serialVersionUID = -2935102655364071127L;
+
+	/**
+	 * 搭乗クラスコード。
+	 */
+	private final BoardingClassCd boardingClassCd;
+
+	/**
+	 * 搭乗日。
+	 */
+	private final Date departureDate;
+
+	/**
+	 * 運賃種別コード。
+	 */
+	private final FareTypeCd fareTypeCd;
+
+	/**
+	 * 便名。
+	 */
+	private final String flightName;
+
+	/**
+	 * 空席数の増減数(減少の場合は負数)。
+	 */
+	private final int delta;
+
+	public FlightVacantNumChangedEvent(Date departureDate, String flightName,
+			BoardingClassCd boardingClassCd, FareTypeCd fareTypeCd, int delta) {
+		this.departureDate = departureDate;
+		this.flightName = flightName;
+		this.boardingClassCd = boardingClassCd;
+		this.fareTypeCd = fareTypeCd;
+		this.delta = delta;
+	}
+
+	/**
+	 * フライト情報と増減数からイベントを作成する。
+	 *
+	 * @param flight フライト情報
+	 * @param delta 空席数の増減数
+	 * @return 空席数変更イベント
+	 */
+	public static FlightVacantNumChangedEvent of(Flight flight, int delta) {
+		return new FlightVacantNumChangedEvent(flight.getDepartureDate(),
+				flight.getFlightMaster().getFlightName(),
+				flight.getBoardingClass().getBoardingClassCd(),
+				flight.getFareType().getFareTypeCd(), delta);
+	}
+
+	public BoardingClassCd getBoardingClassCd() {
+		return boardingClassCd;
+	}
+
+	public Date getDepartureDate() {
+		return departureDate;
+	}
+
+	public FareTypeCd getFareTypeCd() {
+		return fareTypeCd;
+	}
+
+	public String getFlightName() {
+		return flightName;
+	}
+
+	public int getDelta() {
+		return delta;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SIMPLE_STYLE);
+	}
+}
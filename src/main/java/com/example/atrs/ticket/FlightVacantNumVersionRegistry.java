@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.example.atrs.common.util.DateTimeUtil;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.Assert;
+
+/**
+ * (搭乗日, 区間, 搭乗クラス)ごとの空席数のバージョンを管理するクラス。
+ * <p>
+ * 空席数が変更されるとトランザクションのコミット後にバージョンを進める。 バージョンは空席照会結果のETagとして使用する。
+ * </p>
+ * <p>
+ * バージョンはストライプ化した配列で保持するため、異なるキーが同じ要素を共有する場合がある。 その場合は不要なバージョン更新が発生するだけで、変更の見落としは発生しない。
+ * ETagには起動ごとの乱数を含め、再起動前のETagとは一致しないようにしている。 運賃種別などの参照データも照会結果に含まれるため、
+ * 参照データのスナップショットのバージョンもETagに含める。
+ * </p>
+ * <p>
+ * 他のJVMやSQLで直接行った更新は、インベントリ({@link FlightInventory})がDBへの問い合わせで検知した時点でバージョンを進める。
+ * インベントリを使用しない場合は検知できないため、ETagに "ticket.search-etag.max-age" ごとに変わる値を含め、検知できない更新を
+ * 照会結果に反映するまでの時間を制限する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+public class FlightVacantNumVersionRegistry {
+
+	/**
+	 * ストライプ数(2のべき乗)。
+	 */
+	private static final int STRIPES = 1 << 12;
+
+	private final Clock clock;
+
+	/**
+	 * フライト基本情報提供クラス。
+	 */
+	private final FlightMasterProvider flightMasterProvider;
+
+	/**
+	 * 参照データ保持クラス。
+	 */
+	private final ReferenceDataRegistry referenceDataRegistry;
+
+	/**
+	 * ETagの有効期間(ミリ秒)。他のJVMやSQLで直接行った更新を検知する場合は0。
+	 */
+	private final long maxAgeMillis;
+
+	/**
+	 * 起動ごとの識別子。
+	 */
+	private final String instanceId = Long
+			.toHexString(ThreadLocalRandom.current().nextLong());
+
+	/**
+	 * バージョン。
+	 */
+	private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+	public FlightVacantNumVersionRegistry(TicketProperties props, Clock clock,
+			FlightMasterProvider flightMasterProvider,
+			ReferenceDataRegistry referenceDataRegistry) {
+		this.maxAgeMillis = props.getInventory().isEnabled() ? 0
+				: props.getSearchEtag().getMaxAge().toMillis();
+		this.clock = clock;
+		this.flightMasterProvider = flightMasterProvider;
+		this.referenceDataRegistry = referenceDataRegistry;
+	}
+
+	/**
+	 * 指定した搭乗日・区間・搭乗クラスの空席照会結果のETagを取得する。
+	 * <p>
+	 * 予約可能な運賃種別はシステム日付によって変わるため、ETagにはシステム日付を含める。 インベントリを使用しない場合は、
+	 * 有効期間ごとに変わる値も含める。
+	 * </p>
+	 *
+	 * @param depDate 搭乗日
+	 * @param route 区間情報
+	 * @param boardingClassCd 搭乗クラスコード
+	 * @return ETag
+	 */
+	public String getETag(Date depDate, Route route, BoardingClassCd boardingClassCd) {
+		Assert.notNull(depDate);
+		Assert.notNull(route);
+		Assert.notNull(boardingClassCd);
+
+		long epochDay = DateTimeUtil.toLocalDate(depDate).toEpochDay();
+		long version = versions
+				.get(stripeOf(epochDay, route.getRouteNo(), boardingClassCd));
+		long period = maxAgeMillis > 0 ? clock.millis() / maxAgeMillis : 0;
+		return "\"" + instanceId + "-" + Long.toHexString(LocalDate.now(clock).toEpochDay())
+				+ "-" + Long.toHexString(referenceDataRegistry.getSnapshot().getVersion())
+				+ "-" + Long.toHexString(period) + "-" + Long.toHexString(version) + "\"";
+	}
+
+	/**
+	 * 空席数が変更されたフライトのバージョンを進める。
+	 * <p>
+	 * 変更を行ったトランザクションのコミット後、インベントリへの反映と照会結果キャッシュの削除が済んでから呼び出される。
+	 * </p>
+	 *
+	 * @param event 空席数変更イベント
+	 */
+	@TransactionalEventListener
+	public void onVacantNumChanged(FlightVacantNumChangedEvent event) {
+		increment(event.getDepartureDate(), event.getFlightName(),
+				event.getBoardingClassCd());
+	}
+
+	/**
+	 * 指定したフライトのバージョンを進める。
+	 * <p>
+	 * 他のJVMやSQLで直接行った空席数の更新を検知した場合に呼び出す。
+	 * </p>
+	 *
+	 * @param departureDate 搭乗日
+	 * @param flightName 便名
+	 * @param boardingClassCd 搭乗クラスコード
+	 */
+	public void increment(Date departureDate, String flightName,
+			BoardingClassCd boardingClassCd) {
+		FlightMaster flightMaster = flightMasterProvider.getFlightMaster(flightName);
+		if (flightMaster == null) {
+			return;
+		}
+		long epochDay = DateTimeUtil.toLocalDate(departureDate).toEpochDay();
+		versions.incrementAndGet(stripeOf(epochDay,
+				flightMaster.getRoute().getRouteNo(), boardingClassCd));
+	}
+
+	/**
+	 * キーに対応するストライプを求める。
+	 *
+	 * @param epochDay 搭乗日(エポック日)
+	 * @param routeNo 区間番号
+	 * @param boardingClassCd 搭乗クラスコード
+	 * @return ストライプ
+	 */
+	private int stripeOf(long epochDay, int routeNo, BoardingClassCd boardingClassCd) {
+		int h = (int) epochDay;
+		h = 31 * h + routeNo;
+		h = 31 * h + boardingClassCd.ordinal();
+		h ^= (h >>> 16);
+		return h & (STRIPES - 1);
+	}
+}
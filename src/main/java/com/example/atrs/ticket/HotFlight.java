@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 空席数を分割管理するフライト(人気便)情報。
+ * <p>
+ * 人気便のフライトは空席数を複数の空席数バケットに分割して保持し、予約時の行ロックの競合を分散する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+public class HotFlight implements Serializable {
+
+	private static final long serialVersionUID = 5918244707623814051L;
+
+	/**
+	 * 便名。
+	 */
+	private String flightName;
+
+	/**
+	 * 空席数バケット数。
+	 */
+	private int bucketNum;
+
+	public String getFlightName() {
+		return flightName;
+	}
+
+	public void setFlightName(String flightName) {
+		this.flightName = flightName;
+	}
+
+	public int getBucketNum() {
+		return bucketNum;
+	}
+
+	public void setBucketNum(int bucketNum) {
+		this.bucketNum = bucketNum;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SIMPLE_STYLE);
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 予約ジャーナルのレコードを追記したトランザクションの状態。
+ * <p>
+ * 状態はPostgreSQLの txid_status() の結果("committed"、"aborted"、"in progress")とする。
+ * トランザクションIDが古く状態を判定できない場合はnullとなる。
+ * </p>
+ * @author NTT 電電太郎
+ */
+public class JournalTransactionStatus implements Serializable {
+
+	private static final long serialVersionUID = -3816294072351184620L;
+
+	/**
+	 * コミット済み。
+	 */
+	public static final String COMMITTED = "committed";
+
+	/**
+	 * ロールバック済み。
+	 */
+	public static final String ABORTED = "aborted";
+
+	/**
+	 * トランザクションID。
+	 */
+	private long txid;
+
+	/**
+	 * 状態。
+	 */
+	private String status;
+
+	public long getTxid() {
+		return txid;
+	}
+
+	public void setTxid(long txid) {
+		this.txid = txid;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SIMPLE_STYLE);
+	}
+}
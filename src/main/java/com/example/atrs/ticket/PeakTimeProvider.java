@@ -16,69 +16,224 @@
  */
 package com.example.atrs.ticket;
 
+import java.time.Clock;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Date;
+import java.util.Arrays;
 import java.util.List;
 
-import javax.annotation.PostConstruct;
-
 import com.example.atrs.common.util.DateTimeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.util.Assert;
 
 /**
- * ピーク時期情報を提供するクラス。
+ * ピーク時期の料金積算比率を提供するクラス。
+ * <p>
+ * 本日から予約可能限度日までの搭乗日(エポック日)ごとの積算比率を配列に事前計算し、参照時は添字の計算のみで返却する。
+ * 保持期間外の搭乗日は、ピーク時期情報の期間(開始日・終了日を含む)を都度走査して求める。
+ * 複数のピーク時期が重なる搭乗日は、積算比率が最も大きいピーク時期を適用する。
+ * </p>
+ * <p>
+ * 積算比率表は生成元の参照データのスナップショットと対応付けて保持する。 日付の経過に合わせて日次で再計算し、
+ * 参照データの再ロード時はスナップショットの公開前に、運賃表より先に再計算する。
+ * </p>
  * 
  * @author NTT 電電太郎
  */
 @Component
-public class PeakTimeProvider {
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class PeakTimeProvider implements DerivedReferenceData {
+
+	/**
+	 * ロガー。
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(PeakTimeProvider.class);
+
+	/**
+	 * 通常時のピーク時期積算比率(%)。
+	 */
+	private static final int MULTIPLICATION_RATIO_IN_NORMAL_TIME = 100;
+
+	/**
+	 * 予約可能限度日数。
+	 */
+	private final int limitDay;
+
+	private final Clock clock;
 
 	/**
-	 * ピーク時期リストのリスト。
+	 * 参照データ保持クラス。
 	 */
-	private final List<PeakTime> peakTimeList = new ArrayList<>();
+	private final ReferenceDataRegistry referenceDataRegistry;
 
 	/**
-	 * ピーク時期情報リポジトリ。
+	 * 現在の積算比率表。未計算の場合はnull。
 	 */
-	private final PeakTimeMapper peakTimeMapper;
+	private volatile RatioTable table;
 
-	public PeakTimeProvider(PeakTimeMapper peakTimeMapper,
-			FlywayMigrationInitializer flywayMigrationInitializer) {
-		this.peakTimeMapper = peakTimeMapper;
+	public PeakTimeProvider(TicketProperties props, Clock clock,
+			ReferenceDataRegistry referenceDataRegistry) {
+		this.limitDay = props.getLimitDay();
+		this.clock = clock;
+		this.referenceDataRegistry = referenceDataRegistry;
 	}
 
 	/**
-	 * 指定搭乗日に該当するピーク時期情報を取得する。
+	 * 現在の参照データから指定搭乗日の料金積算比率を取得する。
 	 *
-	 * @param depDate 搭乗日
-	 * @return ピーク時期情報。該当するピーク時期情報が存在しない場合null。
+	 * @param epochDay 搭乗日(エポック日)
+	 * @return 料金積算比率(%)。該当するピーク時期が存在しない場合は通常時の積算比率。
 	 */
-	public PeakTime getPeakTime(Date depDate) {
-		Assert.notNull(depDate);
-
-		for (PeakTime peakTime : peakTimeList) {
-			LocalDate startDate = DateTimeUtil.toLocalDate(peakTime.getPeakStartDate());
-			LocalDate endDate = DateTimeUtil.toLocalDate(peakTime.getPeakEndDate());
-			// 搭乗日が該当するピーク時期積算比率を返却
-			LocalDate departureDate = DateTimeUtil.toLocalDate(depDate);
-			if (!(departureDate.isBefore(startDate) && departureDate.isAfter(endDate))) {
-				return peakTime;
-			}
+	public int ratioFor(long epochDay) {
+		return ratioFor(referenceDataRegistry.getSnapshot(), epochDay);
+	}
+
+	/**
+	 * 参照データのスナップショットから指定搭乗日の料金積算比率を取得する。
+	 * <p>
+	 * 積算比率表が指定したスナップショットから生成されたものでない場合は、スナップショットのピーク時期情報を走査して求める。
+	 * </p>
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 * @param epochDay 搭乗日(エポック日)
+	 * @return 料金積算比率(%)。該当するピーク時期が存在しない場合は通常時の積算比率。
+	 */
+	public int ratioFor(ReferenceData referenceData, long epochDay) {
+		RatioTable current = this.table;
+		if (current == null || current.referenceData != referenceData) {
+			current = build(referenceData, epochDay, 0);
 		}
-		return null;
+		return current.ratioFor(epochDay);
+	}
+
+	/**
+	 * 日付の経過に合わせて積算比率表を再計算する。
+	 */
+	@Scheduled(cron = "0 0 0 * * *")
+	public void scheduledRebuild() {
+		referenceDataRegistry.prepare(this);
 	}
 
 	/**
-	 * ピーク時期情報をロードし、キャッシュする。
+	 * 参照データのスナップショットから本日から予約可能限度日までの積算比率表を計算し、置き換える。
+	 *
+	 * @param referenceData 参照データのスナップショット
 	 */
-	@PostConstruct
-	public void load() {
-		peakTimeList.addAll(peakTimeMapper.findAll());
+	@Override
+	public void prepare(ReferenceData referenceData) {
+		long start = System.currentTimeMillis();
+
+		RatioTable built = build(referenceData, LocalDate.now(clock).toEpochDay(),
+				limitDay + 1);
+		this.table = built;
+
+		LOGGER.info("Peak time ratio table built. (version {}, {} peak times, {} days, {} ms)",
+				referenceData.getVersion(), built.startEpochDays.length,
+				built.ratios.length, System.currentTimeMillis() - start);
 	}
 
+	/**
+	 * 参照データのスナップショットから積算比率表を計算する。
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 * @param baseEpochDay 先頭の搭乗日(エポック日)
+	 * @param days 事前計算する日数
+	 * @return 積算比率表
+	 */
+	static RatioTable build(ReferenceData referenceData, long baseEpochDay, int days) {
+		List<PeakTime> peakTimeList = referenceData.getPeakTimeList();
+		int size = peakTimeList.size();
+		long[] startEpochDays = new long[size];
+		long[] endEpochDays = new long[size];
+		int[] peakRatios = new int[size];
+		for (int i = 0; i < size; i++) {
+			PeakTime peakTime = peakTimeList.get(i);
+			startEpochDays[i] = DateTimeUtil.toLocalDate(peakTime.getPeakStartDate())
+					.toEpochDay();
+			endEpochDays[i] = DateTimeUtil.toLocalDate(peakTime.getPeakEndDate())
+					.toEpochDay();
+			peakRatios[i] = peakTime.getMultiplicationRatio();
+		}
+		return new RatioTable(referenceData, baseEpochDay, days, startEpochDays,
+				endEpochDays, peakRatios);
+	}
+
+	/**
+	 * 積算比率表。
+	 */
+	static final class RatioTable {
+
+		/**
+		 * 生成元の参照データのスナップショット。
+		 */
+		private final ReferenceData referenceData;
+
+		/**
+		 * 先頭の搭乗日(エポック日)。
+		 */
+		private final long baseEpochDay;
+
+		/**
+		 * 搭乗日ごとの積算比率。
+		 */
+		private final int[] ratios;
+
+		/**
+		 * ピーク時期ごとの開始日(エポック日)。
+		 */
+		private final long[] startEpochDays;
+
+		/**
+		 * ピーク時期ごとの終了日(エポック日)。
+		 */
+		private final long[] endEpochDays;
+
+		/**
+		 * ピーク時期ごとの積算比率。
+		 */
+		private final int[] peakRatios;
+
+		RatioTable(ReferenceData referenceData, long baseEpochDay, int days,
+				long[] startEpochDays, long[] endEpochDays, int[] peakRatios) {
+			this.referenceData = referenceData;
+			this.baseEpochDay = baseEpochDay;
+			this.startEpochDays = startEpochDays;
+			this.endEpochDays = endEpochDays;
+			this.peakRatios = peakRatios;
+			this.ratios = new int[days];
+			Arrays.fill(this.ratios, -1);
+			for (int i = 0; i < peakRatios.length; i++) {
+				// 保持期間と重なる部分のみ設定し、重なる場合は大きい積算比率を優先
+				long from = Math.max(startEpochDays[i], baseEpochDay);
+				long to = Math.min(endEpochDays[i], baseEpochDay + days - 1);
+				for (long day = from; day <= to; day++) {
+					int idx = (int) (day - baseEpochDay);
+					ratios[idx] = Math.max(ratios[idx], peakRatios[i]);
+				}
+			}
+			for (int idx = 0; idx < days; idx++) {
+				if (ratios[idx] < 0) {
+					ratios[idx] = MULTIPLICATION_RATIO_IN_NORMAL_TIME;
+				}
+			}
+		}
+
+		int ratioFor(long epochDay) {
+			if (epochDay >= baseEpochDay && epochDay < baseEpochDay + ratios.length) {
+				return ratios[(int) (epochDay - baseEpochDay)];
+			}
+			// 保持期間外の場合はピーク時期を走査
+			int ratio = -1;
+			for (int i = 0; i < peakRatios.length; i++) {
+				if (startEpochDays[i] <= epochDay && epochDay <= endEpochDays[i]) {
+					ratio = Math.max(ratio, peakRatios[i]);
+				}
+			}
+			return ratio < 0 ? MULTIPLICATION_RATIO_IN_NORMAL_TIME : ratio;
+		}
+	}
 }
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 参照データ(搭乗クラス・運賃種別・フライト基本情報・区間・ピーク時期)のスナップショット。
+ * <p>
+ * 生成後は変更しない。 再ロード時は新しいスナップショットを生成して置き換えるため、1つのスナップショットから取得した参照データは
+ * 常に同じ時点のものとなる。
+ * </p>
+ * <p>
+ * 搭乗クラス・運賃種別はコードの序数を添字とする配列、区間は空港コードに割り当てた添字による2次元配列で保持し、
+ * 参照時にキー文字列の生成やボクシングを行わない。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+public final class ReferenceData {
+
+	/**
+	 * スナップショットのバージョン(ロードごとに1増加)。
+	 */
+	private final long version;
+
+	/**
+	 * ロード日時(エポックミリ秒)。
+	 */
+	private final long loadedAt;
+
+	/**
+	 * 搭乗クラスコードの序数ごとの搭乗クラス情報。
+	 */
+	private final BoardingClass[] boardingClasses;
+
+	/**
+	 * 運賃種別コードの序数ごとの運賃種別情報。
+	 */
+	private final FareType[] fareTypes;
+
+	/**
+	 * 便名とフライト基本情報の関係。
+	 */
+	private final Map<String, FlightMaster> flightMasterMap;
+
+	/**
+	 * 空港コードと添字の関係。
+	 */
+	private final Map<String, Integer> airportIndex;
+
+	/**
+	 * [出発空港の添字][到着空港の添字]ごとの区間情報。
+	 */
+	private final Route[][] routes;
+
+	/**
+	 * 区間情報リスト。
+	 */
+	private final List<Route> routeList;
+
+	/**
+	 * ピーク時期情報リスト。
+	 */
+	private final List<PeakTime> peakTimeList;
+
+	ReferenceData(long version, long loadedAt, List<BoardingClass> boardingClassList,
+			List<FareType> fareTypeList, List<FlightMaster> flightMasterList,
+			List<Route> routeList, List<PeakTime> peakTimeList) {
+		this.version = version;
+		this.loadedAt = loadedAt;
+		this.boardingClasses = new BoardingClass[BoardingClassCd.values().length];
+		for (BoardingClass boardingClass : boardingClassList) {
+			boardingClasses[boardingClass.getBoardingClassCd().ordinal()] = boardingClass;
+		}
+		this.fareTypes = new FareType[FareTypeCd.values().length];
+		for (FareType fareType : fareTypeList) {
+			fareTypes[fareType.getFareTypeCd().ordinal()] = fareType;
+		}
+		Map<String, FlightMaster> flightMasters = new HashMap<>();
+		for (FlightMaster flightMaster : flightMasterList) {
+			flightMasters.put(flightMaster.getFlightName(), flightMaster);
+		}
+		this.flightMasterMap = Collections.unmodifiableMap(flightMasters);
+		Map<String, Integer> airports = new HashMap<>();
+		for (Route route : routeList) {
+			airports.putIfAbsent(route.getDepartureAirport().getCode(), airports.size());
+			airports.putIfAbsent(route.getArrivalAirport().getCode(), airports.size());
+		}
+		this.airportIndex = Collections.unmodifiableMap(airports);
+		this.routes = new Route[airports.size()][airports.size()];
+		for (Route route : routeList) {
+			routes[airports.get(route.getDepartureAirport().getCode())][airports
+					.get(route.getArrivalAirport().getCode())] = route;
+		}
+		this.routeList = Collections.unmodifiableList(new ArrayList<>(routeList));
+		this.peakTimeList = Collections.unmodifiableList(new ArrayList<>(peakTimeList));
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public long getLoadedAt() {
+		return loadedAt;
+	}
+
+	/**
+	 * 搭乗クラスコードに該当する搭乗クラス情報を取得する。
+	 *
+	 * @param boardingClassCd 搭乗クラスコード
+	 * @return 搭乗クラス情報。該当する搭乗クラス情報がない場合はnull。
+	 */
+	public BoardingClass getBoardingClass(BoardingClassCd boardingClassCd) {
+		return boardingClasses[boardingClassCd.ordinal()];
+	}
+
+	/**
+	 * 運賃種別コードに該当する運賃種別情報を取得する。
+	 *
+	 * @param fareTypeCd 運賃種別コード
+	 * @return 運賃種別情報。該当する運賃種別情報がない場合はnull。
+	 */
+	public FareType getFareType(FareTypeCd fareTypeCd) {
+		return fareTypes[fareTypeCd.ordinal()];
+	}
+
+	/**
+	 * 便名に該当するフライト基本情報を取得する。
+	 *
+	 * @param flightName 便名
+	 * @return フライト基本情報。該当するフライト基本情報がない場合はnull。
+	 */
+	public FlightMaster getFlightMaster(String flightName) {
+		return flightMasterMap.get(flightName);
+	}
+
+	/**
+	 * 全てのフライト基本情報を取得する。
+	 *
+	 * @return フライト基本情報(変更不可)
+	 */
+	public Iterable<FlightMaster> getFlightMasters() {
+		return flightMasterMap.values();
+	}
+
+	/**
+	 * 出発空港コード、到着空港コードに該当する区間情報を取得する。
+	 *
+	 * @param departureAirportCd 出発空港コード
+	 * @param arrivalAirportCd 到着空港コード
+	 * @return 区間情報。該当する区間情報がない場合はnull。
+	 */
+	public Route getRoute(String departureAirportCd, String arrivalAirportCd) {
+		Integer depIdx = airportIndex.get(departureAirportCd);
+		Integer arrIdx = airportIndex.get(arrivalAirportCd);
+		if (depIdx == null || arrIdx == null) {
+			return null;
+		}
+		return routes[depIdx][arrIdx];
+	}
+
+	/**
+	 * 全ての区間情報を取得する。
+	 *
+	 * @return 区間情報(変更不可)
+	 */
+	public Iterable<Route> getRoutes() {
+		return routeList;
+	}
+
+	/**
+	 * 全てのピーク時期情報を取得する。
+	 *
+	 * @return ピーク時期情報リスト(変更不可)
+	 */
+	public List<PeakTime> getPeakTimeList() {
+		return peakTimeList;
+	}
+
+	/**
+	 * 件数の概要を取得する。
+	 *
+	 * @return 参照データの種類と件数の関係
+	 */
+	public Map<String, Integer> getCounts() {
+		Map<String, Integer> counts = new HashMap<>();
+		counts.put("boardingClass", countNonNull(boardingClasses));
+		counts.put("fareType", countNonNull(fareTypes));
+		counts.put("flightMaster", flightMasterMap.size());
+		counts.put("airport", airportIndex.size());
+		counts.put("route", routeList.size());
+		counts.put("peakTime", peakTimeList.size());
+		return counts;
+	}
+
+	/**
+	 * 配列の要素のうちnullでないものを数える。
+	 *
+	 * @param values 配列
+	 * @return nullでない要素の数
+	 */
+	private static int countNonNull(Object[] values) {
+		int count = 0;
+		for (Object value : values) {
+			if (value != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
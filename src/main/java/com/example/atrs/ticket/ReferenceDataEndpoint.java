@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * 参照データのスナップショットを参照・再ロードするActuatorエンドポイント。
+ * <p>
+ * GETで現在のスナップショットの概要を返却し、POSTで再ロードする。 HTTPで公開する場合は
+ * management.endpoints.web.exposure.include に "referencedata" を追加し、管理用のネットワークに限定すること。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+@Endpoint(id = "referencedata")
+public class ReferenceDataEndpoint {
+
+	/**
+	 * 参照データ保持クラス。
+	 */
+	private final ReferenceDataRegistry referenceDataRegistry;
+
+	public ReferenceDataEndpoint(ReferenceDataRegistry referenceDataRegistry) {
+		this.referenceDataRegistry = referenceDataRegistry;
+	}
+
+	/**
+	 * 現在のスナップショットの概要を取得する。
+	 *
+	 * @return スナップショットの概要
+	 */
+	@ReadOperation
+	public Map<String, Object> snapshot() {
+		return describe(referenceDataRegistry.getSnapshot());
+	}
+
+	/**
+	 * 参照データを再ロードする。
+	 *
+	 * @return 置き換え後のスナップショットの概要
+	 */
+	@WriteOperation
+	public Map<String, Object> reload() {
+		return describe(referenceDataRegistry.reload());
+	}
+
+	/**
+	 * スナップショットの概要を生成する。
+	 *
+	 * @param snapshot スナップショット
+	 * @return スナップショットの概要
+	 */
+	private Map<String, Object> describe(ReferenceData snapshot) {
+		Map<String, Object> description = new LinkedHashMap<>();
+		description.put("version", snapshot.getVersion());
+		description.put("loadedAt", snapshot.getLoadedAt());
+		description.put("counts", snapshot.getCounts());
+		description.put("loadTimes", referenceDataRegistry.getLoadTimes());
+		return description;
+	}
+}
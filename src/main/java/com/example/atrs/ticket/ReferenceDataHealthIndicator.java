@@ -0,0 +1,74 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import com.example.atrs.common.codelist.CodeListReloader;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+/**
+ * 参照データとコードリストのロード状態を示すヘルスインジケータ。
+ * <p>
+ * 参照データのスナップショット(派生データを含む)とコードリストのロードが全て完了している場合にUPとする。 起動時のロード
+ * ({@link ReferenceDataWarmUp})はWebサーバの起動前に完了するため、通常はUPとなる。 詳細にはロードの状態と、ロードごとの取得時間(ミリ秒)を含める。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+public class ReferenceDataHealthIndicator extends AbstractHealthIndicator {
+
+	/**
+	 * 参照データ保持クラス。
+	 */
+	private final ReferenceDataRegistry referenceDataRegistry;
+
+	/**
+	 * コードリスト再ロードクラス。
+	 */
+	private final CodeListReloader codeListReloader;
+
+	/**
+	 * 起動時のロードクラス。
+	 */
+	private final ReferenceDataWarmUp referenceDataWarmUp;
+
+	public ReferenceDataHealthIndicator(ReferenceDataRegistry referenceDataRegistry,
+			CodeListReloader codeListReloader, ReferenceDataWarmUp referenceDataWarmUp) {
+		super("Reference data health check failed");
+		this.referenceDataRegistry = referenceDataRegistry;
+		this.codeListReloader = codeListReloader;
+		this.referenceDataWarmUp = referenceDataWarmUp;
+	}
+
+	@Override
+	protected void doHealthCheck(Health.Builder builder) {
+		if (referenceDataRegistry.isLoaded() && codeListReloader.isLoaded()) {
+			builder.up().withDetail("version",
+					referenceDataRegistry.getSnapshot().getVersion());
+		}
+		else {
+			builder.down();
+		}
+		builder.withDetail("warmUp", referenceDataWarmUp.getState())
+				.withDetail("warmUpTime", referenceDataWarmUp.getElapsed())
+				.withDetail("referenceDataLoadTimes", referenceDataRegistry.getLoadTimes())
+				.withDetail("codeListLoadTimes", codeListReloader.getLoadTimes());
+	}
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * 参照データのスナップショットを保持し、再ロードするクラス。
+ * <p>
+ * 参照はvolatileフィールドの読み取りのみで、ロックを取得しない。 再ロードは呼び出し元のスレッド(スケジューラまたはActuatorエンドポイント)で
+ * 新しいスナップショットを生成し、生成が完了してから置き換える。 置き換え前に開始した処理は、取得済みのスナップショットを最後まで参照できる。
+ * 再ロードに失敗した場合は現在のスナップショットを使用し続ける。
+ * </p>
+ * <p>
+ * 運賃表など参照データから派生したデータ({@link DerivedReferenceData})は、新しいスナップショットから置き換え前に生成し、
+ * スナップショットと同時に参照可能とする。 派生データの生成に失敗した場合は、現在のスナップショットから派生データを生成し直す。
+ * 置き換え後に {@link ReferenceDataReloadedEvent} を発行し、キャッシュの削除などを通知する。
+ * </p>
+ * <p>
+ * スナップショットの生成時は、参照データの種類ごとに別のスレッド(別のDB接続)で並列に取得する。 種類ごとの取得時間は
+ * "referencedata.load"(source=boardingClass|fareType|flightMaster|route|peakTime) メトリクスとして公開する。
+ * </p>
+ * <p>
+ * 起動時のロードは {@link ReferenceDataWarmUp} がWebサーバの起動前に {@link #loadAsync(Executor)} で開始し、完了を待機する。
+ * 起動時は派生データも派生データごとに別のスレッドで並列に生成し、取得時間は同じメトリクス(source=peakTimeProvider|fareMatrix|flightInventoryなど)
+ * として公開する。 {@link #getSnapshot()} はロードの完了を待機しない。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+public class ReferenceDataRegistry {
+
+	/**
+	 * ロガー。
+	 */
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(ReferenceDataRegistry.class);
+
+	/**
+	 * 並列に取得する参照データの種類の数。
+	 */
+	private static final int LOADER_THREADS = 5;
+
+	/**
+	 * 搭乗クラス情報リポジトリ。
+	 */
+	private final BoardingClassMapper boardingClassMapper;
+
+	/**
+	 * 運賃種別情報リポジトリ。
+	 */
+	private final FareTypeMapper fareTypeMapper;
+
+	/**
+	 * フライト情報リポジトリ。
+	 */
+	private final FlightMapper flightMapper;
+
+	/**
+	 * 区間情報リポジトリ。
+	 */
+	private final RouteMapper routeMapper;
+
+	/**
+	 * ピーク時期情報リポジトリ。
+	 */
+	private final PeakTimeMapper peakTimeMapper;
+
+	/**
+	 * 派生データ保持クラス。
+	 */
+	private final ObjectProvider<DerivedReferenceData> derivedReferenceData;
+
+	/**
+	 * イベント発行クラス。
+	 */
+	private final ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * メトリクスレジストリ。
+	 */
+	private final MeterRegistry meterRegistry;
+
+	/**
+	 * 現在のスナップショット。ロード前はnull。
+	 */
+	private volatile ReferenceData snapshot;
+
+	/**
+	 * 起動時のロード。開始前はnull。
+	 */
+	private volatile CompletableFuture<ReferenceData> initialLoad;
+
+	/**
+	 * 直近のロードにおける参照データの種類と取得時間(ミリ秒)の関係。
+	 */
+	private volatile Map<String, Long> loadTimes = Collections.emptyMap();
+
+	public ReferenceDataRegistry(BoardingClassMapper boardingClassMapper,
+			FareTypeMapper fareTypeMapper, FlightMapper flightMapper,
+			RouteMapper routeMapper, PeakTimeMapper peakTimeMapper,
+			ObjectProvider<DerivedReferenceData> derivedReferenceData,
+			ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+			FlywayMigrationInitializer flywayMigrationInitializer) {
+		this.boardingClassMapper = boardingClassMapper;
+		this.fareTypeMapper = fareTypeMapper;
+		this.flightMapper = flightMapper;
+		this.routeMapper = routeMapper;
+		this.peakTimeMapper = peakTimeMapper;
+		this.derivedReferenceData = derivedReferenceData;
+		this.eventPublisher = eventPublisher;
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * 現在のスナップショットを取得する。
+	 * <p>
+	 * 1つの処理の中で複数の参照データを参照する場合は、取得したスナップショットを使い回すこと。
+	 * </p>
+	 *
+	 * @return スナップショット
+	 * @throws IllegalStateException ロードが完了していない場合
+	 */
+	public ReferenceData getSnapshot() {
+		ReferenceData current = this.snapshot;
+		if (current == null) {
+			throw new IllegalStateException("Reference data has not been loaded yet.");
+		}
+		return current;
+	}
+
+	/**
+	 * スナップショットのロードが完了したかどうかを判定する。
+	 *
+	 * @return ロードが完了した場合はtrue
+	 */
+	public boolean isLoaded() {
+		return snapshot != null;
+	}
+
+	/**
+	 * 直近のロードにおける参照データの種類ごとの取得時間を取得する。
+	 *
+	 * @return 参照データの種類と取得時間(ミリ秒)の関係
+	 */
+	public Map<String, Long> getLoadTimes() {
+		return loadTimes;
+	}
+
+	/**
+	 * 起動時のロードを非同期に開始する。 開始済みの場合は開始済みのロードを返却する。
+	 *
+	 * @param executor ロードを実行するスレッドプール
+	 * @return ロード後のスナップショット
+	 */
+	public synchronized CompletableFuture<ReferenceData> loadAsync(Executor executor) {
+		if (initialLoad == null) {
+			initialLoad = CompletableFuture.supplyAsync(this::load, executor);
+		}
+		return initialLoad;
+	}
+
+	/**
+	 * 参照データをロードし、派生データを並列に生成してからスナップショットを公開する。
+	 *
+	 * @return ロード後のスナップショット
+	 */
+	private synchronized ReferenceData load() {
+		long start = System.currentTimeMillis();
+
+		Map<String, Long> times = new ConcurrentHashMap<>();
+		ReferenceData loaded = build(1, times);
+		prepareInParallel(loaded, times);
+		this.loadTimes = Collections.unmodifiableMap(new TreeMap<>(times));
+		this.snapshot = loaded;
+
+		LOGGER.info("Reference data loaded. (version {}, {}, load times {}, {} ms)",
+				loaded.getVersion(), loaded.getCounts(), loadTimes,
+				System.currentTimeMillis() - start);
+		return loaded;
+	}
+
+	/**
+	 * 定期的に参照データを再ロードする。
+	 */
+	@Scheduled(cron = "${ticket.reference-data.reload-cron:-}")
+	public void scheduledReload() {
+		try {
+			reload();
+		}
+		catch (RuntimeException e) {
+			LOGGER.warn("Failed to reload reference data.", e);
+		}
+	}
+
+	/**
+	 * 参照データを再ロードし、スナップショットを置き換える。
+	 * <p>
+	 * 同時に呼び出された場合は順に実行する。 参照側はこのロックを取得しない。 起動時のロードに失敗していた場合は改めてロードする。
+	 * </p>
+	 *
+	 * @return 置き換え後のスナップショット
+	 */
+	public synchronized ReferenceData reload() {
+		if (snapshot == null) {
+			return load();
+		}
+		long start = System.currentTimeMillis();
+
+		Map<String, Long> times = new ConcurrentHashMap<>();
+		ReferenceData reloaded = build(snapshot.getVersion() + 1, times);
+		try {
+			derivedReferenceData.orderedStream()
+					.forEach(derived -> derived.prepare(reloaded));
+		}
+		catch (RuntimeException e) {
+			// 生成済みの派生データを現在のスナップショットのものに戻す
+			derivedReferenceData.orderedStream()
+					.forEach(derived -> derived.prepare(snapshot));
+			throw e;
+		}
+		this.loadTimes = Collections.unmodifiableMap(new TreeMap<>(times));
+		this.snapshot = reloaded;
+		eventPublisher.publishEvent(new ReferenceDataReloadedEvent(reloaded.getVersion()));
+
+		LOGGER.info("Reference data reloaded. (version {}, {}, {} ms)",
+				reloaded.getVersion(), reloaded.getCounts(),
+				System.currentTimeMillis() - start);
+		return reloaded;
+	}
+
+	/**
+	 * 現在のスナップショットから派生データを生成し、置き換える。
+	 * <p>
+	 * 日付の経過に合わせた再計算など、再ロード以外の契機で派生データを置き換える場合に呼び出す。
+	 * 再ロードと同時に実行されないよう、再ロードと同じロックを取得する。 ロード前の場合は、ロード時に生成するため何もしない。
+	 * </p>
+	 *
+	 * @param derived 派生データ保持クラス
+	 */
+	public synchronized void prepare(DerivedReferenceData derived) {
+		if (snapshot != null) {
+			derived.prepare(snapshot);
+		}
+	}
+
+	/**
+	 * 参照データをDBから取得してスナップショットを生成する。
+	 *
+	 * @param version スナップショットのバージョン
+	 * @param times 参照データの種類と取得時間(ミリ秒)の関係
+	 * @return スナップショット
+	 */
+	private ReferenceData build(long version, Map<String, Long> times) {
+		ExecutorService executor = Executors.newFixedThreadPool(LOADER_THREADS,
+				new CustomizableThreadFactory("reference-data-"));
+		try {
+			CompletableFuture<List<BoardingClass>> boardingClassList = fetch(
+					"boardingClass", boardingClassMapper::findAll, executor, times);
+			CompletableFuture<List<FareType>> fareTypeList = fetch("fareType",
+					fareTypeMapper::findAll, executor, times);
+			CompletableFuture<List<FlightMaster>> flightMasterList = fetch(
+					"flightMaster", flightMapper::findAllFlightMaster, executor, times);
+			CompletableFuture<List<Route>> routeList = fetch("route",
+					routeMapper::findAll, executor, times);
+			CompletableFuture<List<PeakTime>> peakTimeList = fetch("peakTime",
+					peakTimeMapper::findAll, executor, times);
+			return new ReferenceData(version, System.currentTimeMillis(),
+					boardingClassList.join(), fareTypeList.join(),
+					flightMasterList.join(), routeList.join(), peakTimeList.join());
+		}
+		catch (CompletionException e) {
+			// 取得処理の例外をそのままスローする
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * スナップショットから全ての派生データを派生データごとに別のスレッドで並列に生成する。
+	 * <p>
+	 * 他の派生データを参照する派生データ(運賃表における積算比率など)は、参照先の生成が完了していない場合もスナップショットから都度計算するため、
+	 * 生成順序に依存しない。
+	 * </p>
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 * @param times 派生データの種類と生成時間(ミリ秒)の関係
+	 */
+	private void prepareInParallel(ReferenceData referenceData, Map<String, Long> times) {
+		List<DerivedReferenceData> derivedList = derivedReferenceData.orderedStream()
+				.collect(Collectors.toList());
+		if (derivedList.isEmpty()) {
+			return;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(derivedList.size(),
+				new CustomizableThreadFactory("reference-data-"));
+		try {
+			List<CompletableFuture<Void>> futures = derivedList.stream()
+					.map(derived -> fetch(
+							StringUtils.uncapitalize(
+									ClassUtils.getUserClass(derived).getSimpleName()),
+							() -> {
+								derived.prepare(referenceData);
+								return (Void) null;
+							}, executor, times))
+					.collect(Collectors.toList());
+			join(CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])));
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * 別のスレッドの処理の完了を待機する。
+	 *
+	 * @param future 処理結果
+	 * @param <T> 処理結果の型
+	 * @return 処理結果
+	 */
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		}
+		catch (CompletionException e) {
+			// 処理の例外をそのままスローする
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * 参照データを別のスレッドで取得し、取得時間を記録する。
+	 *
+	 * @param source 参照データの種類
+	 * @param loader 取得処理
+	 * @param executor 取得処理を実行するスレッドプール
+	 * @param times 参照データの種類と取得時間(ミリ秒)の関係
+	 * @param <T> 参照データの型
+	 * @return 取得結果
+	 */
+	private <T> CompletableFuture<T> fetch(String source, Supplier<T> loader,
+			ExecutorService executor, Map<String, Long> times) {
+		Timer timer = Timer.builder("referencedata.load").tag("source", source)
+				.register(meterRegistry);
+		return CompletableFuture.supplyAsync(() -> {
+			long start = System.nanoTime();
+			try {
+				return loader.get();
+			}
+			finally {
+				long elapsed = System.nanoTime() - start;
+				timer.record(elapsed, TimeUnit.NANOSECONDS);
+				times.put(source, TimeUnit.NANOSECONDS.toMillis(elapsed));
+			}
+		}, executor);
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 参照データのスナップショットが置き換えられたことを通知するイベント。
+ * <p>
+ * 参照データから派生したデータ(運賃表など)は置き換え前に {@link DerivedReferenceData} として生成済みである。
+ * リスナーは以前のスナップショットから作成したキャッシュの削除などを行う。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+public class ReferenceDataReloadedEvent implements Serializable {
+
+	private static final long serialVersionUID = -6710264513049838275L;
+
+	/**
+	 * 置き換え後のスナップショットのバージョン。
+	 */
+	private final long version;
+
+	public ReferenceDataReloadedEvent(long version) {
+		this.version = version;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SIMPLE_STYLE);
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.example.atrs.common.codelist.CodeListReloader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * 起動時に参照データとコードリストをロードするクラス。
+ * <p>
+ * 参照データ(派生データの生成を含む)とコードリストのロードを別のスレッドで並行して実行し、両方の完了を待機する。
+ * {@link SmartLifecycle} としてWebサーバの起動前に開始するため、ロードが完了するまでポートを開かず、処理を受け付けない。
+ * ロードに失敗した場合は例外をスローし、アプリケーションの起動を中止する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+public class ReferenceDataWarmUp implements SmartLifecycle {
+
+	/**
+	 * ロガー。
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceDataWarmUp.class);
+
+	/**
+	 * 並行してロードする処理の数(参照データ・コードリスト)。
+	 */
+	private static final int WARM_UP_THREADS = 2;
+
+	/**
+	 * 開始順序。 Webサーバの起動({@code Integer.MAX_VALUE - 1})より前に開始する。
+	 */
+	private static final int WARM_UP_PHASE = 0;
+
+	/**
+	 * 参照データ保持クラス。
+	 */
+	private final ReferenceDataRegistry referenceDataRegistry;
+
+	/**
+	 * コードリスト再ロードクラス。
+	 */
+	private final CodeListReloader codeListReloader;
+
+	/**
+	 * ロード処理。開始前はnull。
+	 */
+	private volatile CompletableFuture<Void> warmUp;
+
+	/**
+	 * ロードに要した時間(ミリ秒)。完了前は-1。
+	 */
+	private volatile long elapsed = -1;
+
+	public ReferenceDataWarmUp(ReferenceDataRegistry referenceDataRegistry,
+			CodeListReloader codeListReloader) {
+		this.referenceDataRegistry = referenceDataRegistry;
+		this.codeListReloader = codeListReloader;
+	}
+
+	/**
+	 * ロードを開始し、完了を待機する。 開始済みの場合は何もしない。
+	 *
+	 * @throws IllegalStateException ロードに失敗した場合
+	 */
+	@Override
+	public synchronized void start() {
+		if (warmUp != null) {
+			return;
+		}
+		long start = System.currentTimeMillis();
+		ExecutorService executor = Executors.newFixedThreadPool(WARM_UP_THREADS,
+				new CustomizableThreadFactory("warm-up-"));
+		CompletableFuture<ReferenceData> referenceData = referenceDataRegistry
+				.loadAsync(executor);
+		CompletableFuture<Void> codeLists = CompletableFuture
+				.runAsync(codeListReloader::load, executor);
+		CompletableFuture<Void> all = CompletableFuture.allOf(referenceData, codeLists);
+		this.warmUp = all;
+		try {
+			all.join();
+		}
+		catch (CompletionException e) {
+			Throwable cause = e.getCause() != null ? e.getCause() : e;
+			throw new IllegalStateException("Failed to warm up reference data.", cause);
+		}
+		finally {
+			executor.shutdown();
+			this.elapsed = System.currentTimeMillis() - start;
+		}
+		LOGGER.info("Reference data warmed up. ({} ms)", elapsed);
+	}
+
+	/**
+	 * 停止時は何もしない。
+	 */
+	@Override
+	public void stop() {
+	}
+
+	@Override
+	public boolean isRunning() {
+		return warmUp != null;
+	}
+
+	@Override
+	public int getPhase() {
+		return WARM_UP_PHASE;
+	}
+
+	/**
+	 * ロードの状態を取得する。
+	 *
+	 * @return ロードの状態(NOT_STARTED|LOADING|FAILED|COMPLETED)
+	 */
+	public String getState() {
+		CompletableFuture<Void> current = this.warmUp;
+		if (current == null) {
+			return "NOT_STARTED";
+		}
+		if (!current.isDone()) {
+			return "LOADING";
+		}
+		return current.isCompletedExceptionally() ? "FAILED" : "COMPLETED";
+	}
+
+	/**
+	 * ロードに要した時間を取得する。
+	 *
+	 * @return ロードに要した時間(ミリ秒)。完了前は-1。
+	 */
+	public long getElapsed() {
+		return elapsed;
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 予約履歴の1ページ分を格納するDTO。
+ * <p>
+ * 次ページが存在する場合は、次ページの取得に指定する予約日・予約番号(このページ最後の予約情報のキー)を保持する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+public class ReservationHistoryDto implements Serializable {
+
+	private static final long serialVersionUID = -3186022914574062870L;
+
+	/**
+	 * 予約情報リスト(予約日・予約番号の降順)。
+	 */
+	private List<Reservation> reservationList;
+
+	/**
+	 * 次ページの取得に指定する予約日。 次ページが存在しない場合はnull。
+	 */
+	private Date nextReserveDate;
+
+	/**
+	 * 次ページの取得に指定する予約番号。 次ページが存在しない場合はnull。
+	 */
+	private String nextReserveNo;
+
+	public List<Reservation> getReservationList() {
+		return reservationList;
+	}
+
+	public void setReservationList(List<Reservation> reservationList) {
+		this.reservationList = reservationList;
+	}
+
+	public Date getNextReserveDate() {
+		return nextReserveDate;
+	}
+
+	public void setNextReserveDate(Date nextReserveDate) {
+		this.nextReserveDate = nextReserveDate;
+	}
+
+	public String getNextReserveNo() {
+		return nextReserveNo;
+	}
+
+	public void setNextReserveNo(String nextReserveNo) {
+		this.nextReserveNo = nextReserveNo;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SIMPLE_STYLE);
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+
+/**
+ * 会員の予約履歴を取得するサービス。
+ * <p>
+ * 予約履歴は予約日・予約番号の降順で、前ページ最後の予約日・予約番号をキーとして次ページを取得する(キーセットページング)。
+ * OFFSETを使用しないため、予約件数が多い会員でもページの位置によらず同じコストで取得できる。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Service
+@Transactional(readOnly = true)
+public class ReservationHistoryService {
+
+	/**
+	 * 予約情報リポジトリ。
+	 */
+	private final ReservationMapper reservationMapper;
+
+	public ReservationHistoryService(ReservationMapper reservationMapper) {
+		this.reservationMapper = reservationMapper;
+	}
+
+	/**
+	 * 予約代表者の会員番号に該当する予約履歴を1ページ分取得する。
+	 *
+	 * @param membershipNumber 予約代表者の会員番号
+	 * @param afterReserveDate 前ページ最後の予約日。 先頭ページの場合はnull
+	 * @param afterReserveNo 前ページ最後の予約番号。 先頭ページの場合はnull
+	 * @param size 1ページの件数
+	 * @return 予約履歴
+	 */
+	public ReservationHistoryDto findHistory(String membershipNumber,
+			Date afterReserveDate, String afterReserveNo, int size) {
+		Assert.hasText(membershipNumber);
+		Assert.isTrue((afterReserveDate == null) == (afterReserveNo == null),
+				"afterReserveDate and afterReserveNo must be specified together");
+		Assert.isTrue(size > 0, "size must be greater than 0");
+
+		// 次ページの有無を判定するため1件多く取得
+		List<Reservation> reservationList = reservationMapper
+				.findHistoryByRepMembershipNumber(membershipNumber, afterReserveDate,
+						afterReserveNo, size + 1);
+
+		ReservationHistoryDto historyDto = new ReservationHistoryDto();
+		if (reservationList.size() > size) {
+			reservationList = new ArrayList<>(reservationList.subList(0, size));
+			Reservation last = reservationList.get(size - 1);
+			historyDto.setNextReserveDate(last.getReserveDate());
+			historyDto.setNextReserveNo(last.getReserveNo());
+		}
+		historyDto.setReservationList(reservationList);
+		return historyDto;
+	}
+}
@@ -0,0 +1,769 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.example.atrs.common.logging.LogMessages;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasoluna.gfw.common.exception.SystemException;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+/**
+ * 予約情報のジャーナル(先行書き込みログ)。
+ * <p>
+ * 予約情報をローカルのメモリマップドファイルに追記し、fsync後に呼び出し元へ応答する。 追記は専用のスレッドでまとめて行い、
+ * 1回のfsyncで複数の予約情報を永続化する(グループコミット)。 DBへの登録は {@link ReservationJournalPersister} が非同期で行う。
+ * </p>
+ * <p>
+ * ジャーナルは固定長のセグメントファイルで構成し、位置は(セグメント番号 × セグメント長 + オフセット)で表す。 レコードは(長さ, CRC32, 本体)の形式とし、
+ * 本体の形式は {@link ReservationJournalCodec} で定める。 起動時には最後のチェックポイントから各セグメントを1回ずつ走査し、
+ * 長さが0のレコードまたはCRCが一致しないレコードの手前を末尾とする。 DBへの登録が済んだ位置はチェックポイントファイルに記録し、それより前のセグメントは削除する。
+ * </p>
+ * <p>
+ * 書き込みに失敗したまとまりは書き込み位置を戻してゼロで消去し、以降のfsyncで永続化されないようにする。 停止時は追記待ちのレコードを全て書き込んでからfsyncする。
+ * </p>
+ * <p>
+ * 追記の待ち時間は "ticket.journal.append"、1回のfsyncでまとめた件数は "ticket.journal.flush.batch" メトリクスとして公開する。
+ * </p>
+ * @author NTT 電電太郎
+ */
+@Component
+public class ReservationJournal {
+
+	/**
+	 * ロガー。
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReservationJournal.class);
+
+	/**
+	 * レコードヘッダ長(長さ + CRC32)。
+	 */
+	private static final int HEADER_LENGTH = 8;
+
+	/**
+	 * セグメントの終端を示す長さ。
+	 */
+	private static final int END_OF_SEGMENT = -1;
+
+	/**
+	 * チェックポイントファイル名。
+	 */
+	private static final String CHECKPOINT_FILE_NAME = "checkpoint";
+
+	/**
+	 * 登録できなかったレコードを退避するディレクトリ名。
+	 */
+	private static final String DEAD_LETTER_DIRECTORY_NAME = "dead-letter";
+
+	/**
+	 * 追記待ちのレコードを待機する間隔(ミリ秒)。
+	 */
+	private static final long POLL_INTERVAL_MILLIS = 100;
+
+	/**
+	 * 停止時に追記待ちのレコードの書き込みを待機する時間(ミリ秒)。
+	 */
+	private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+
+	/**
+	 * ジャーナルを使用するかどうか。
+	 */
+	private final boolean enabled;
+
+	/**
+	 * ジャーナルのディレクトリ。
+	 */
+	private final Path directory;
+
+	/**
+	 * セグメント長。
+	 */
+	private final int segmentSize;
+
+	/**
+	 * 1回のfsyncでまとめる最大件数。
+	 */
+	private final int flushBatchSize;
+
+	/**
+	 * 追記待ちのレコード。
+	 */
+	private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+
+	/**
+	 * 追記の受け付けと停止を排他するロック。
+	 */
+	private final Object appendLock = new Object();
+
+	/**
+	 * まとめて書き込む間に切り替えたセグメント(書き込みスレッドのみが参照する)。
+	 */
+	private final List<MappedByteBuffer> switchedSegments = new ArrayList<>();
+
+	/**
+	 * 追記の待ち時間。
+	 */
+	private final Timer appendTimer;
+
+	/**
+	 * 1回のfsyncでまとめた件数。
+	 */
+	private final DistributionSummary flushBatchSummary;
+
+	/**
+	 * 書き込みスレッド。
+	 */
+	private Thread writer;
+
+	/**
+	 * 停止済みかどうか。
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * 書き込み中のセグメント(書き込みスレッドのみが参照する)。
+	 */
+	private MappedByteBuffer segment;
+
+	/**
+	 * 書き込み中のセグメント番号(書き込みスレッドのみが参照する)。
+	 */
+	private long segmentIndex;
+
+	/**
+	 * fsync済みの末尾の位置。
+	 */
+	private volatile long durablePosition;
+
+	/**
+	 * DBへの登録が済んだ位置。
+	 */
+	private volatile long checkpointPosition;
+
+	public ReservationJournal(TicketProperties props, MeterRegistry meterRegistry) {
+		TicketProperties.JournalProperties journalProps = props.getJournal();
+		this.enabled = journalProps.isEnabled();
+		this.directory = Paths.get(journalProps.getDirectory());
+		this.segmentSize = journalProps.getSegmentSize();
+		this.flushBatchSize = journalProps.getFlushBatchSize();
+		this.appendTimer = Timer.builder("ticket.journal.append")
+				.description("Time to append a reservation to the journal and fsync it")
+				.register(meterRegistry);
+		this.flushBatchSummary = DistributionSummary
+				.builder("ticket.journal.flush.batch")
+				.description("Reservations written per fsync").register(meterRegistry);
+	}
+
+	/**
+	 * ジャーナルを使用するかどうかを判定する。
+	 *
+	 * @return 使用する場合はtrue
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * ジャーナルを開き、末尾を復元して書き込みスレッドを開始する。
+	 *
+	 * @throws IOException ジャーナルの読み込みに失敗した場合
+	 */
+	@PostConstruct
+	public void open() throws IOException {
+		if (!enabled) {
+			return;
+		}
+		Files.createDirectories(directory);
+		this.checkpointPosition = readCheckpoint();
+
+		// チェックポイントから読み進めて末尾を求める
+		long end = recover(checkpointPosition);
+		this.durablePosition = end;
+
+		// 末尾以降(書きかけのレコード)を消去して書き込みを再開
+		this.segmentIndex = end / segmentSize;
+		this.segment = mapSegment(segmentIndex);
+		int offset = (int) (end % segmentSize);
+		zero(segment, offset, segmentSize);
+		segment.force();
+		segment.position(offset);
+
+		this.writer = new Thread(this::writeLoop, "reservation-journal-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+
+		LOGGER.info("Reservation journal opened. ({}, checkpoint={}, end={})", directory,
+				checkpointPosition, end);
+	}
+
+	/**
+	 * 追記の受け付けを停止し、追記待ちのレコードを全て書き込んでから書き込みスレッドを停止する。
+	 *
+	 * @throws InterruptedException 停止の待機中に割り込まれた場合
+	 */
+	@PreDestroy
+	public void close() throws InterruptedException {
+		if (writer == null) {
+			return;
+		}
+		synchronized (appendLock) {
+			closed = true;
+		}
+		writer.join(CLOSE_TIMEOUT_MILLIS);
+		if (writer.isAlive()) {
+			LOGGER.warn("Reservation journal writer did not stop in {} ms.",
+					CLOSE_TIMEOUT_MILLIS);
+			writer.interrupt();
+		}
+	}
+
+	/**
+	 * 予約情報をジャーナルに追記する。
+	 * <p>
+	 * fsyncが完了するまで待機する。 本メソッドが正常に復帰した予約情報は、プロセスが異常終了しても次回起動時にDBへ登録される。
+	 * ただし、登録するのはトランザクションIDのトランザクションがコミットされた予約情報のみとする。
+	 * </p>
+	 *
+	 * @param reservation 予約情報(予約番号・予約フライト番号・搭乗者番号を採番済みであること)
+	 * @param txid 空席数を減算したトランザクションのID
+	 * @throws SystemException 追記に失敗した場合
+	 */
+	public void append(Reservation reservation, long txid) {
+		Assert.state(enabled, "Reservation journal is disabled.");
+		Assert.notNull(reservation);
+
+		byte[] payload = ReservationJournalCodec.encode(reservation, txid);
+		Assert.isTrue(payload.length + HEADER_LENGTH * 2 <= segmentSize,
+				"Reservation is too large for a journal segment.");
+		PendingRecord record = new PendingRecord(payload);
+		long start = System.nanoTime();
+		try {
+			synchronized (appendLock) {
+				if (closed) {
+					throw new IllegalStateException("Reservation journal is closed.");
+				}
+				queue.add(record);
+			}
+			record.future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SystemException(LogMessages.E_AR_A0_L9003.getCode(),
+					LogMessages.E_AR_A0_L9003.getMessage(reservation.getReserveNo()), e);
+		}
+		catch (ExecutionException e) {
+			throw new SystemException(LogMessages.E_AR_A0_L9003.getCode(),
+					LogMessages.E_AR_A0_L9003.getMessage(reservation.getReserveNo()),
+					e.getCause());
+		}
+		catch (IllegalStateException e) {
+			throw new SystemException(LogMessages.E_AR_A0_L9003.getCode(),
+					LogMessages.E_AR_A0_L9003.getMessage(reservation.getReserveNo()), e);
+		}
+		finally {
+			appendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * DBへの登録が済んだ位置を取得する。
+	 *
+	 * @return チェックポイントの位置
+	 */
+	public long getCheckpointPosition() {
+		return checkpointPosition;
+	}
+
+	/**
+	 * 指定した位置からfsync済みのレコードを読み込む。
+	 *
+	 * @param position 読み込みを開始する位置
+	 * @param maxCount 最大件数
+	 * @return 読み込み結果
+	 */
+	public Batch read(long position, int maxCount) {
+		Assert.state(enabled, "Reservation journal is disabled.");
+
+		List<Record> recordList = new ArrayList<>();
+		long current = position;
+		long end = durablePosition;
+		try {
+			while (current < end && recordList.size() < maxCount) {
+				long segmentStart = (current / segmentSize) * segmentSize;
+				try (FileChannel channel = FileChannel.open(
+						segmentPath(current / segmentSize), StandardOpenOption.READ)) {
+					ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+							segmentSize);
+					while (current < end && current < segmentStart + segmentSize
+							&& recordList.size() < maxCount) {
+						int offset = (int) (current - segmentStart);
+						int length = segmentSize - offset < HEADER_LENGTH ? END_OF_SEGMENT
+								: buffer.getInt(offset);
+						if (length == END_OF_SEGMENT) {
+							current = segmentStart + segmentSize;
+							break;
+						}
+						byte[] payload = new byte[length];
+						ByteBuffer slice = buffer.duplicate();
+						slice.position(offset + HEADER_LENGTH);
+						slice.get(payload);
+						long next = current + HEADER_LENGTH + length;
+						recordList.add(new Record(current, next, payload));
+						current = next;
+					}
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return new Batch(recordList, current);
+	}
+
+	/**
+	 * DBへの登録が済んだ位置を記録し、不要になったセグメントを削除する。
+	 *
+	 * @param position DBへの登録が済んだ位置
+	 */
+	public void checkpoint(long position) {
+		Assert.state(enabled, "Reservation journal is disabled.");
+		Assert.isTrue(position >= checkpointPosition && position <= durablePosition,
+				"Invalid checkpoint position: " + position);
+
+		try {
+			Path temp = directory.resolve(CHECKPOINT_FILE_NAME + ".tmp");
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+				buffer.putLong(position).flip();
+				channel.write(buffer);
+				channel.force(true);
+			}
+			Files.move(temp, directory.resolve(CHECKPOINT_FILE_NAME),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			long oldSegmentIndex = checkpointPosition / segmentSize;
+			this.checkpointPosition = position;
+			for (long i = oldSegmentIndex; i < position / segmentSize; i++) {
+				Files.deleteIfExists(segmentPath(i));
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * DBへ登録できなかったレコードを退避用のディレクトリに書き出す。
+	 * <p>
+	 * ファイル名はレコードの位置とし、本体(.record)と理由(.reason)を書き出す。 本体は {@link ReservationJournalCodec}
+	 * の形式のまま保存するため、原因を取り除いた後に登録し直すことができる。
+	 * </p>
+	 *
+	 * @param record レコード
+	 * @param reason 登録できなかった理由
+	 * @return 本体を書き出したファイルのパス
+	 */
+	public Path deadLetter(Record record, String reason) {
+		Assert.state(enabled, "Reservation journal is disabled.");
+		Assert.notNull(record);
+
+		try {
+			Path deadLetterDirectory = directory.resolve(DEAD_LETTER_DIRECTORY_NAME);
+			Files.createDirectories(deadLetterDirectory);
+			String name = String.format("%020d", record.getPosition());
+			Path path = deadLetterDirectory.resolve(name + ".record");
+			writeDurably(path, record.payload);
+			writeDurably(deadLetterDirectory.resolve(name + ".reason"),
+					String.valueOf(reason).getBytes(StandardCharsets.UTF_8));
+			return path;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * 追記待ちのレコードをまとめて書き込み、fsyncする。 停止後は追記待ちのレコードがなくなるまで書き込みを続ける。
+	 */
+	private void writeLoop() {
+		List<PendingRecord> batch = new ArrayList<>(flushBatchSize);
+		for (;;) {
+			PendingRecord first;
+			try {
+				first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException e) {
+				break;
+			}
+			if (first == null) {
+				if (closed) {
+					break;
+				}
+				continue;
+			}
+			batch.add(first);
+			queue.drainTo(batch, flushBatchSize - 1);
+			writeBatch(batch);
+			batch.clear();
+		}
+		for (PendingRecord record : queue) {
+			record.future.completeExceptionally(
+					new IllegalStateException("Reservation journal is closed."));
+		}
+		try {
+			segment.force();
+		}
+		catch (RuntimeException e) {
+			LOGGER.error("Failed to force reservation journal on close.", e);
+		}
+	}
+
+	/**
+	 * レコードをまとめて書き込み、fsyncする。 失敗した場合は書き込んだ範囲を消去して書き込み位置を戻す。
+	 *
+	 * @param batch 追記待ちのレコード
+	 */
+	private void writeBatch(List<PendingRecord> batch) {
+		MappedByteBuffer startSegment = segment;
+		long startIndex = segmentIndex;
+		int startOffset = segment.position();
+		switchedSegments.clear();
+		try {
+			for (PendingRecord record : batch) {
+				write(record.payload);
+			}
+			// 切り替え前のセグメントから順にfsyncする
+			for (MappedByteBuffer switched : switchedSegments) {
+				switched.force();
+			}
+			segment.force();
+			durablePosition = segmentIndex * segmentSize + segment.position();
+			flushBatchSummary.record(batch.size());
+			for (PendingRecord record : batch) {
+				record.future.complete(null);
+			}
+		}
+		catch (IOException | RuntimeException e) {
+			LOGGER.error("Failed to write reservation journal.", e);
+			rollback(startSegment, startIndex, startOffset);
+			for (PendingRecord record : batch) {
+				record.future.completeExceptionally(e);
+			}
+		}
+		finally {
+			switchedSegments.clear();
+		}
+	}
+
+	/**
+	 * 失敗したまとまりで書き込んだ範囲をゼロで消去し、書き込み位置をまとまりの先頭に戻す。
+	 * <p>
+	 * 消去しない場合、失敗を応答したレコードが以降のfsyncで永続化され、次回起動時に登録されてしまう。
+	 * </p>
+	 *
+	 * @param startSegment まとまりの先頭のセグメント
+	 * @param startIndex まとまりの先頭のセグメント番号
+	 * @param startOffset まとまりの先頭のオフセット
+	 */
+	private void rollback(MappedByteBuffer startSegment, long startIndex,
+			int startOffset) {
+		if (segment != startSegment) {
+			zero(segment, 0, segment.position());
+			for (MappedByteBuffer switched : switchedSegments) {
+				if (switched != startSegment) {
+					zero(switched, 0, segmentSize);
+				}
+			}
+			zero(startSegment, startOffset, segmentSize);
+		}
+		else {
+			zero(startSegment, startOffset, startSegment.position());
+		}
+		this.segment = startSegment;
+		this.segmentIndex = startIndex;
+		startSegment.position(startOffset);
+		try {
+			startSegment.force();
+		}
+		catch (RuntimeException e) {
+			LOGGER.warn("Failed to force the rolled back reservation journal.", e);
+		}
+	}
+
+	/**
+	 * レコードを書き込む。 セグメントの残りが不足する場合は終端を書き込んで次のセグメントに切り替える。
+	 * <p>
+	 * 切り替え前のセグメントはまとまりの書き込みが全て成功してからfsyncする。
+	 * </p>
+	 *
+	 * @param payload レコード本体
+	 * @throws IOException セグメントの作成に失敗した場合
+	 */
+	private void write(byte[] payload) throws IOException {
+		if (segment.remaining() < HEADER_LENGTH + payload.length) {
+			if (segment.remaining() >= HEADER_LENGTH) {
+				segment.putInt(END_OF_SEGMENT);
+			}
+			switchedSegments.add(segment);
+			// 前回起動時に作成された同じ番号のセグメントが残っている場合は作り直す
+			Files.deleteIfExists(segmentPath(segmentIndex + 1));
+			segment = mapSegment(segmentIndex + 1);
+			segmentIndex++;
+		}
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		segment.putInt(payload.length);
+		segment.putInt((int) crc.getValue());
+		segment.put(payload);
+	}
+
+	/**
+	 * 指定した位置から有効なレコードを読み進め、末尾の位置を求める。
+	 * <p>
+	 * セグメントごとに1回だけマップし、セグメント内のレコードを順に検証する。
+	 * </p>
+	 *
+	 * @param position 読み込みを開始する位置
+	 * @return 末尾の位置
+	 * @throws IOException セグメントの読み込みに失敗した場合
+	 */
+	private long recover(long position) throws IOException {
+		long current = position;
+		for (;;) {
+			long index = current / segmentSize;
+			Path path = segmentPath(index);
+			if (!Files.exists(path)) {
+				return current;
+			}
+			long segmentStart = index * segmentSize;
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				if (channel.size() < segmentSize) {
+					return current;
+				}
+				ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+						segmentSize);
+				int offset = (int) (current - segmentStart);
+				for (;;) {
+					int length = segmentSize - offset < HEADER_LENGTH ? END_OF_SEGMENT
+							: buffer.getInt(offset);
+					if (length == END_OF_SEGMENT) {
+						long next = segmentStart + segmentSize;
+						if (!Files.exists(segmentPath(index + 1))) {
+							return segmentStart + offset;
+						}
+						current = next;
+						break;
+					}
+					if (length <= 0 || length > segmentSize - offset - HEADER_LENGTH) {
+						return segmentStart + offset;
+					}
+					byte[] payload = new byte[length];
+					ByteBuffer slice = buffer.duplicate();
+					slice.position(offset + HEADER_LENGTH);
+					slice.get(payload);
+					CRC32 crc = new CRC32();
+					crc.update(payload);
+					if ((int) crc.getValue() != buffer.getInt(offset + Integer.BYTES)) {
+						return segmentStart + offset;
+					}
+					offset += HEADER_LENGTH + length;
+				}
+			}
+		}
+	}
+
+	/**
+	 * チェックポイントを読み込む。
+	 *
+	 * @return チェックポイントの位置。チェックポイントファイルが存在しない場合は0。
+	 * @throws IOException チェックポイントファイルの読み込みに失敗した場合
+	 */
+	private long readCheckpoint() throws IOException {
+		Path path = directory.resolve(CHECKPOINT_FILE_NAME);
+		if (!Files.exists(path)) {
+			return 0L;
+		}
+		return ByteBuffer.wrap(Files.readAllBytes(path)).getLong();
+	}
+
+	/**
+	 * セグメントファイルを書き込み用にマップする。 存在しない場合はセグメント長のファイルを作成する。
+	 *
+	 * @param index セグメント番号
+	 * @return セグメント
+	 * @throws IOException セグメントファイルの作成に失敗した場合
+	 */
+	private MappedByteBuffer mapSegment(long index) throws IOException {
+		try (FileChannel channel = FileChannel.open(segmentPath(index),
+				StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		}
+	}
+
+	/**
+	 * セグメントファイルのパスを取得する。
+	 *
+	 * @param index セグメント番号
+	 * @return セグメントファイルのパス
+	 */
+	private Path segmentPath(long index) {
+		return directory.resolve(String.format("reservation-%016d.journal", index));
+	}
+
+	private static void zero(MappedByteBuffer buffer, int from, int to) {
+		for (int i = from; i < to; i++) {
+			buffer.put(i, (byte) 0);
+		}
+	}
+
+	private static void writeDurably(Path path, byte[] bytes) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			channel.write(ByteBuffer.wrap(bytes));
+			channel.force(true);
+		}
+	}
+
+	/**
+	 * 追記待ちのレコード。
+	 */
+	private static final class PendingRecord {
+
+		private final byte[] payload;
+
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+		PendingRecord(byte[] payload) {
+			this.payload = payload;
+		}
+	}
+
+	/**
+	 * ジャーナルのレコード。
+	 */
+	public static final class Record {
+
+		/**
+		 * レコードの位置。
+		 */
+		private final long position;
+
+		/**
+		 * 次のレコードの位置。
+		 */
+		private final long nextPosition;
+
+		/**
+		 * レコード本体。
+		 */
+		private final byte[] payload;
+
+		Record(long position, long nextPosition, byte[] payload) {
+			this.position = position;
+			this.nextPosition = nextPosition;
+			this.payload = payload;
+		}
+
+		public long getPosition() {
+			return position;
+		}
+
+		public long getNextPosition() {
+			return nextPosition;
+		}
+
+		/**
+		 * 空席数を減算したトランザクションのIDを取得する。
+		 *
+		 * @return トランザクションID
+		 * @throws IllegalStateException 本体の形式が未対応の場合
+		 */
+		public long getTxid() {
+			return ReservationJournalCodec.txidOf(payload);
+		}
+
+		/**
+		 * 予約情報を取得する。
+		 *
+		 * @return 予約情報
+		 * @throws IllegalStateException 本体の形式が未対応の場合
+		 */
+		public Reservation getReservation() {
+			return ReservationJournalCodec.decode(payload);
+		}
+	}
+
+	/**
+	 * ジャーナルの読み込み結果。
+	 */
+	public static final class Batch {
+
+		/**
+		 * レコードリスト。
+		 */
+		private final List<Record> recordList;
+
+		/**
+		 * 次に読み込む位置。
+		 */
+		private final long nextPosition;
+
+		Batch(List<Record> recordList, long nextPosition) {
+			this.recordList = Collections.unmodifiableList(recordList);
+			this.nextPosition = nextPosition;
+		}
+
+		public List<Record> getRecordList() {
+			return recordList;
+		}
+
+		public long getNextPosition() {
+			return nextPosition;
+		}
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.example.atrs.member.Gender;
+import com.example.atrs.member.Member;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * 予約ジャーナルのレコード本体を読み書きするクラス。
+ * <p>
+ * レコード本体は形式バージョンから始まる明示的なバイナリ形式とし、予約情報・予約フライト情報・搭乗者情報の登録に必要な項目のみを保持する。
+ * エンティティクラスの変更によって、デプロイ前に追記したレコードが読めなくなることはない。 形式を変更する場合はバージョンを上げ、旧バージョンの読み込みを残すこと。
+ * </p>
+ * <p>
+ * 形式(バージョン1、数値はビッグエンディアン、文字列は修正UTF-8、null可の項目は有無を示す1バイトを前置):
+ * </p>
+ * <ul>
+ * <li>バージョン(byte)、トランザクションID(long)</li>
+ * <li>予約番号、予約日時(エポックミリ秒)、合計金額(int)、代表者の姓・名・年齢(int)・性別コード・電話番号(null可)・メールアドレス(null可)・会員番号(null可)</li>
+ * <li>予約フライト数(int)、予約フライトごとに予約フライト番号(int)・搭乗日(エポックミリ秒)・便名・搭乗クラスコード・運賃種別コード</li>
+ * <li>搭乗者数(int)、搭乗者ごとに搭乗者番号(int)・姓・名・年齢(int)・性別コード・会員番号(null可)</li>
+ * </ul>
+ *
+ * @author NTT 電電太郎
+ */
+final class ReservationJournalCodec {
+
+	/**
+	 * 形式バージョン。
+	 */
+	static final byte FORMAT_VERSION = 1;
+
+	private ReservationJournalCodec() {
+	}
+
+	/**
+	 * 予約情報をレコード本体に変換する。
+	 *
+	 * @param reservation 予約情報(予約番号・予約フライト番号・搭乗者番号を採番済みであること)
+	 * @param txid 予約情報を登録するトランザクションのID
+	 * @return レコード本体
+	 */
+	static byte[] encode(Reservation reservation, long txid) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(FORMAT_VERSION);
+			out.writeLong(txid);
+			out.writeUTF(reservation.getReserveNo());
+			out.writeLong(reservation.getReserveDate().getTime());
+			out.writeInt(reservation.getTotalFare());
+			out.writeUTF(reservation.getRepFamilyName());
+			out.writeUTF(reservation.getRepGivenName());
+			out.writeInt(reservation.getRepAge());
+			out.writeUTF(reservation.getRepGender().getCode());
+			writeNullable(out, reservation.getRepTel());
+			writeNullable(out, reservation.getRepMail());
+			writeNullable(out, membershipNumberOf(reservation.getRepMember()));
+			List<ReserveFlight> reserveFlightList = reservation.getReserveFlightList();
+			out.writeInt(reserveFlightList.size());
+			for (ReserveFlight reserveFlight : reserveFlightList) {
+				Flight flight = reserveFlight.getFlight();
+				out.writeInt(reserveFlight.getReserveFlightNo());
+				out.writeLong(flight.getDepartureDate().getTime());
+				out.writeUTF(flight.getFlightMaster().getFlightName());
+				out.writeUTF(flight.getBoardingClass().getBoardingClassCd().getCode());
+				out.writeUTF(flight.getFareType().getFareTypeCd().getCode());
+				List<Passenger> passengerList = reserveFlight.getPassengerList();
+				out.writeInt(passengerList.size());
+				for (Passenger passenger : passengerList) {
+					out.writeInt(passenger.getPassengerNo());
+					out.writeUTF(passenger.getFamilyName());
+					out.writeUTF(passenger.getGivenName());
+					out.writeInt(passenger.getAge());
+					out.writeUTF(passenger.getGender().getCode());
+					writeNullable(out, membershipNumberOf(passenger.getMember()));
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * レコード本体のトランザクションIDを取得する。
+	 *
+	 * @param payload レコード本体
+	 * @return トランザクションID
+	 */
+	static long txidOf(byte[] payload) {
+		try (DataInputStream in = new DataInputStream(
+				new ByteArrayInputStream(payload))) {
+			checkVersion(in.readByte());
+			return in.readLong();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * レコード本体を予約情報に変換する。
+	 * <p>
+	 * フライト情報・会員情報は、登録に必要なキー項目のみを設定する。
+	 * </p>
+	 *
+	 * @param payload レコード本体
+	 * @return 予約情報
+	 */
+	static Reservation decode(byte[] payload) {
+		try (DataInputStream in = new DataInputStream(
+				new ByteArrayInputStream(payload))) {
+			checkVersion(in.readByte());
+			in.readLong();
+			Reservation reservation = new Reservation();
+			reservation.setReserveNo(in.readUTF());
+			reservation.setReserveDate(new Date(in.readLong()));
+			reservation.setTotalFare(in.readInt());
+			reservation.setRepFamilyName(in.readUTF());
+			reservation.setRepGivenName(in.readUTF());
+			reservation.setRepAge(in.readInt());
+			reservation.setRepGender(Gender.valueOf(in.readUTF()));
+			reservation.setRepTel(readNullable(in));
+			reservation.setRepMail(readNullable(in));
+			reservation.setRepMember(memberOf(readNullable(in)));
+			int reserveFlightNum = in.readInt();
+			List<ReserveFlight> reserveFlightList = new ArrayList<>(reserveFlightNum);
+			for (int i = 0; i < reserveFlightNum; i++) {
+				ReserveFlight reserveFlight = new ReserveFlight();
+				reserveFlight.setReserveNo(reservation.getReserveNo());
+				reserveFlight.setReserveFlightNo(in.readInt());
+				Flight flight = new Flight();
+				flight.setDepartureDate(new Date(in.readLong()));
+				FlightMaster flightMaster = new FlightMaster();
+				flightMaster.setFlightName(in.readUTF());
+				flight.setFlightMaster(flightMaster);
+				BoardingClass boardingClass = new BoardingClass();
+				boardingClass.setBoardingClassCd(BoardingClassCd.valueOf(in.readUTF()));
+				flight.setBoardingClass(boardingClass);
+				FareType fareType = new FareType();
+				fareType.setFareTypeCd(FareTypeCd.valueOf(in.readUTF()));
+				flight.setFareType(fareType);
+				reserveFlight.setFlight(flight);
+				int passengerNum = in.readInt();
+				List<Passenger> passengerList = new ArrayList<>(passengerNum);
+				for (int j = 0; j < passengerNum; j++) {
+					Passenger passenger = new Passenger();
+					passenger.setReserveFlightNo(reserveFlight.getReserveFlightNo());
+					passenger.setPassengerNo(in.readInt());
+					passenger.setFamilyName(in.readUTF());
+					passenger.setGivenName(in.readUTF());
+					passenger.setAge(in.readInt());
+					passenger.setGender(Gender.valueOf(in.readUTF()));
+					passenger.setMember(memberOf(readNullable(in)));
+					passengerList.add(passenger);
+				}
+				reserveFlight.setPassengerList(passengerList);
+				reserveFlightList.add(reserveFlight);
+			}
+			reservation.setReserveFlightList(reserveFlightList);
+			return reservation;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void checkVersion(byte version) {
+		Assert.state(version == FORMAT_VERSION,
+				"Unsupported journal record version: " + version);
+	}
+
+	private static String membershipNumberOf(Member member) {
+		if (member == null || !StringUtils.hasLength(member.getMembershipNumber())) {
+			return null;
+		}
+		return member.getMembershipNumber();
+	}
+
+	private static Member memberOf(String membershipNumber) {
+		if (membershipNumber == null) {
+			return null;
+		}
+		Member member = new Member();
+		member.setMembershipNumber(membershipNumber);
+		return member;
+	}
+
+	private static void writeNullable(DataOutputStream out, String value)
+			throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readNullable(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+
+import com.example.atrs.common.logging.LogMessages;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/**
+ * ジャーナルに追記された予約情報をDBへ登録するクラス。
+ * <p>
+ * チェックポイントから予約情報をまとめて読み込み、1回のトランザクションで登録してからチェックポイントを進める。 起動時には前回停止時までに登録できなかった予約情報を再登録する。
+ * 登録済みの予約番号は読み飛ばすため、チェックポイントの記録前に停止した場合も二重に登録されることはない。
+ * </p>
+ * <p>
+ * 予約情報は空席数を減算したトランザクションのコミットを確認してから登録する。 ロールバックされたトランザクションのレコードは読み飛ばし、
+ * 実行中のトランザクションのレコードに達した場合はその手前までを登録して次回に持ち越す。
+ * </p>
+ * <p>
+ * 接続障害などの一時的な失敗は次回に再試行する。 それ以外の失敗はレコードごとに登録し直して原因のレコードを特定し、
+ * "ticket.journal.persist-max-attempts" 回失敗したレコードは退避用のディレクトリに書き出して後続のレコードの登録を続ける。
+ * 退避した件数は "ticket.journal.dead.letter" メトリクスとして公開し、エラーログを出力する。
+ * </p>
+ * @author NTT 電電太郎
+ */
+@Component
+public class ReservationJournalPersister {
+
+	/**
+	 * ロガー。
+	 */
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(ReservationJournalPersister.class);
+
+	/**
+	 * 1回のトランザクションで登録する最大件数。
+	 */
+	private final int batchSize;
+
+	/**
+	 * レコードごとの登録の最大試行回数。
+	 */
+	private final int maxAttempts;
+
+	/**
+	 * 予約ジャーナル。
+	 */
+	private final ReservationJournal reservationJournal;
+
+	/**
+	 * チケット予約サービス。
+	 */
+	private final TicketReserveService ticketReserveService;
+
+	/**
+	 * 予約情報マッパー。
+	 */
+	private final ReservationMapper reservationMapper;
+
+	/**
+	 * 退避したレコードの件数。
+	 */
+	private final Counter deadLetterCounter;
+
+	/**
+	 * 登録に失敗したレコードの位置と失敗回数。
+	 */
+	private final Map<Long, Integer> failureCounts = new HashMap<>();
+
+	public ReservationJournalPersister(TicketProperties props,
+			ReservationJournal reservationJournal,
+			TicketReserveService ticketReserveService,
+			ReservationMapper reservationMapper, MeterRegistry meterRegistry) {
+		this.batchSize = props.getJournal().getPersistBatchSize();
+		this.maxAttempts = props.getJournal().getPersistMaxAttempts();
+		this.reservationJournal = reservationJournal;
+		this.ticketReserveService = ticketReserveService;
+		this.reservationMapper = reservationMapper;
+		this.deadLetterCounter = Counter.builder("ticket.journal.dead.letter")
+				.description("Journal records moved to the dead-letter directory")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * 起動時に未登録の予約情報をDBへ登録する。
+	 */
+	@PostConstruct
+	public void replay() {
+		if (!reservationJournal.isEnabled()) {
+			return;
+		}
+		long start = System.currentTimeMillis();
+		int count = persist();
+		LOGGER.info("Reservation journal replayed. ({} reservations, {} ms)", count,
+				System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * ジャーナルに追記された予約情報を定期的にDBへ登録する。
+	 */
+	@Scheduled(fixedDelayString = "${ticket.journal.persist-delay:PT1S}")
+	public void scheduledPersist() {
+		if (reservationJournal.isEnabled()) {
+			persist();
+		}
+	}
+
+	/**
+	 * チェックポイントからfsync済みの末尾までの予約情報をDBへ登録する。
+	 *
+	 * @return 登録した予約情報の件数
+	 */
+	public synchronized int persist() {
+		int count = 0;
+		long position = reservationJournal.getCheckpointPosition();
+		for (;;) {
+			ReservationJournal.Batch batch = reservationJournal.read(position, batchSize);
+			List<ReservationJournal.Record> recordList = batch.getRecordList();
+			if (recordList.isEmpty()) {
+				if (batch.getNextPosition() != position) {
+					// セグメントの終端のみを読み進めた場合
+					position = batch.getNextPosition();
+					reservationJournal.checkpoint(position);
+					continue;
+				}
+				return count;
+			}
+
+			// コミット済みのレコードを抽出(実行中のトランザクションのレコードの手前まで)
+			Map<Long, String> statuses;
+			try {
+				statuses = findTransactionStatuses(recordList);
+			}
+			catch (RuntimeException e) {
+				if (isTransient(e)) {
+					LOGGER.warn("Failed to check journal transactions. Retry later.", e);
+					return count;
+				}
+				throw e;
+			}
+			// 実行中のトランザクションのレコードの手前までを登録
+			List<ReservationJournal.Record> targetList = new ArrayList<>();
+			long next = batch.getNextPosition();
+			boolean pending = false;
+			for (ReservationJournal.Record record : recordList) {
+				String status = statusOf(record, statuses);
+				if (status != null && !JournalTransactionStatus.COMMITTED.equals(status)
+						&& !JournalTransactionStatus.ABORTED.equals(status)) {
+					next = record.getPosition();
+					pending = true;
+					break;
+				}
+				targetList.add(record);
+			}
+
+			Outcome outcome = register(targetList, statuses);
+			count += outcome.count;
+			if (outcome.stopPosition >= 0) {
+				next = outcome.stopPosition;
+				pending = true;
+			}
+			if (next != position) {
+				long checkpoint = next;
+				position = checkpoint;
+				reservationJournal.checkpoint(checkpoint);
+				failureCounts.keySet().removeIf(p -> p < checkpoint);
+			}
+			if (pending) {
+				return count;
+			}
+		}
+	}
+
+	/**
+	 * レコードのトランザクションの状態を取得する。
+	 *
+	 * @param recordList レコードリスト
+	 * @return トランザクションIDと状態
+	 */
+	private Map<Long, String> findTransactionStatuses(
+			List<ReservationJournal.Record> recordList) {
+		Set<Long> txids = new LinkedHashSet<>();
+		for (ReservationJournal.Record record : recordList) {
+			try {
+				txids.add(record.getTxid());
+			}
+			catch (IllegalStateException e) {
+				// 未対応の形式のレコードは登録時に退避する
+			}
+		}
+		Map<Long, String> statuses = new HashMap<>();
+		if (txids.isEmpty()) {
+			return statuses;
+		}
+		for (JournalTransactionStatus status : reservationMapper
+				.findTransactionStatusList(new ArrayList<>(txids))) {
+			statuses.put(status.getTxid(), status.getStatus());
+		}
+		return statuses;
+	}
+
+	/**
+	 * レコードの状態に応じて予約情報を登録する。
+	 * <p>
+	 * コミット済みのレコードはまとめて登録し、ロールバック済みのレコードは読み飛ばし、状態を判定できないレコードは退避する。
+	 * まとめて登録できない場合はレコードごとに登録し直す。 一時的な失敗の場合、または最大試行回数に達していないレコードで失敗した場合は、そのレコードの位置で登録を中断する。
+	 * </p>
+	 *
+	 * @param recordList レコードリスト
+	 * @param statuses トランザクションIDと状態
+	 * @return 登録結果
+	 */
+	private Outcome register(List<ReservationJournal.Record> recordList,
+			Map<Long, String> statuses) {
+		try {
+			List<Reservation> reservationList = new ArrayList<>(recordList.size());
+			List<ReservationJournal.Record> unknownList = new ArrayList<>();
+			for (ReservationJournal.Record record : recordList) {
+				String status = statusOf(record, statuses);
+				if (JournalTransactionStatus.COMMITTED.equals(status)) {
+					reservationList.add(record.getReservation());
+				}
+				else if (status == null) {
+					unknownList.add(record);
+				}
+			}
+			ticketReserveService.registerJournaledReservations(reservationList);
+			for (ReservationJournal.Record record : unknownList) {
+				deadLetter(record, "Unknown transaction status");
+			}
+			return new Outcome(reservationList.size(), -1);
+		}
+		catch (RuntimeException e) {
+			if (isTransient(e)) {
+				LOGGER.warn("Failed to persist journaled reservations. Retry later.", e);
+				return new Outcome(0, recordList.get(0).getPosition());
+			}
+			LOGGER.warn("Failed to persist journaled reservations in a batch. "
+					+ "Retry one by one.", e);
+		}
+
+		int count = 0;
+		for (ReservationJournal.Record record : recordList) {
+			String status = statusOf(record, statuses);
+			if (JournalTransactionStatus.ABORTED.equals(status)) {
+				continue;
+			}
+			Reservation reservation;
+			try {
+				reservation = record.getReservation();
+			}
+			catch (RuntimeException e) {
+				deadLetter(record, "Undecodable record: " + e);
+				continue;
+			}
+			if (status == null) {
+				deadLetter(record, "Unknown transaction status");
+				continue;
+			}
+			try {
+				ticketReserveService.registerJournaledReservations(
+						Collections.singletonList(reservation));
+				count++;
+			}
+			catch (RuntimeException e) {
+				if (isTransient(e)) {
+					LOGGER.warn("Failed to persist journaled reservation. Retry later.", e);
+					return new Outcome(count, record.getPosition());
+				}
+				int attempts = failureCounts.merge(record.getPosition(), 1, Integer::sum);
+				if (attempts < maxAttempts) {
+					LOGGER.warn("Failed to persist journaled reservation. ({}, attempt {}/{})",
+							reservation.getReserveNo(), attempts, maxAttempts, e);
+					return new Outcome(count, record.getPosition());
+				}
+				deadLetter(record, e.toString());
+			}
+		}
+		return new Outcome(count, -1);
+	}
+
+	/**
+	 * レコードのトランザクションの状態を取得する。
+	 *
+	 * @param record レコード
+	 * @param statuses トランザクションIDと状態
+	 * @return 状態。 判定できない場合、または未対応の形式のレコードの場合はnull
+	 */
+	private static String statusOf(ReservationJournal.Record record,
+			Map<Long, String> statuses) {
+		try {
+			return statuses.get(record.getTxid());
+		}
+		catch (IllegalStateException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 登録できないレコードを退避し、エラーログを出力する。
+	 *
+	 * @param record レコード
+	 * @param reason 登録できない理由
+	 */
+	private void deadLetter(ReservationJournal.Record record, String reason) {
+		reservationJournal.deadLetter(record, reason);
+		failureCounts.remove(record.getPosition());
+		deadLetterCounter.increment();
+		LOGGER.error(LogMessages.E_AR_A0_L9004.getMessage(record.getPosition(), reason));
+	}
+
+	/**
+	 * 次回に再試行すべき一時的な失敗かどうかを判定する。
+	 *
+	 * @param e 例外
+	 * @return 一時的な失敗の場合はtrue
+	 */
+	private static boolean isTransient(RuntimeException e) {
+		return e instanceof TransientDataAccessException
+				|| e instanceof RecoverableDataAccessException
+				|| e instanceof DataAccessResourceFailureException
+				|| e instanceof CannotCreateTransactionException;
+	}
+
+	/**
+	 * 登録結果。
+	 */
+	private static final class Outcome {
+
+		/**
+		 * 登録した件数。
+		 */
+		private final int count;
+
+		/**
+		 * 登録を中断した位置。 中断しなかった場合は-1。
+		 */
+		private final long stopPosition;
+
+		Outcome(int count, long stopPosition) {
+			this.count = count;
+			this.stopPosition = stopPosition;
+		}
+	}
+}
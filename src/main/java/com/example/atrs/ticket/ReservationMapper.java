@@ -16,7 +16,11 @@
  */
 package com.example.atrs.ticket;
 
+import java.util.Date;
+import java.util.List;
+
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 /**
  * 予約テーブルにアクセスするリポジトリインターフェース。
@@ -29,7 +33,7 @@ public interface ReservationMapper {
 	/**
 	 * 予約情報を登録する。
 	 * <p>
-	 * 登録時に発出された予約番号が引数の予約情報に格納される。
+	 * 予約番号は登録前に設定しておくこと。
 	 * </p>
 	 * 
 	 * @param reservation 予約情報
@@ -39,6 +43,9 @@ public interface ReservationMapper {
 
 	/**
 	 * 搭乗者情報を登録する。
+	 * <p>
+	 * 搭乗者番号は登録前に設定しておくこと。
+	 * </p>
 	 *
 	 * @param passenger 搭乗者情報
 	 * @return 登録件数
@@ -47,10 +54,92 @@ public interface ReservationMapper {
 
 	/**
 	 * 予約フライト情報を登録する。
+	 * <p>
+	 * 予約フライト番号は登録前に設定しておくこと。
+	 * </p>
 	 *
 	 * @param reserveFlight 予約フライト情報
 	 * @return 登録件数
 	 */
 	int insertReserveFlight(ReserveFlight reserveFlight);
 
+	/**
+	 * 予約フライト情報を1回のSQLでまとめて登録する。
+	 * <p>
+	 * 予約フライト番号は登録前に設定しておくこと。
+	 * </p>
+	 *
+	 * @param reserveFlightList 予約フライト情報リスト
+	 * @return 登録件数
+	 */
+	int insertReserveFlightList(
+			@Param("reserveFlightList") List<ReserveFlight> reserveFlightList);
+
+	/**
+	 * 搭乗者情報を1回のSQLでまとめて登録する。
+	 * <p>
+	 * 搭乗者番号は登録前に設定しておくこと。
+	 * </p>
+	 *
+	 * @param passengerList 搭乗者情報リスト
+	 * @return 登録件数
+	 */
+	int insertPassengerList(@Param("passengerList") List<Passenger> passengerList);
+
+	/**
+	 * 予約情報を1回のSQLでまとめて登録する。
+	 * <p>
+	 * 予約番号は登録前に設定しておくこと。
+	 * </p>
+	 *
+	 * @param reservationList 予約情報リスト
+	 * @return 登録件数
+	 */
+	int insertList(@Param("reservationList") List<Reservation> reservationList);
+
+	/**
+	 * 予約番号リストのうち、登録済みの予約番号を取得する。
+	 *
+	 * @param reserveNoList 予約番号リスト
+	 * @return 登録済みの予約番号リスト
+	 */
+	List<String> findReserveNoList(@Param("reserveNoList") List<String> reserveNoList);
+
+	/**
+	 * 予約代表者の会員番号に該当する予約情報を、予約フライト情報・搭乗者情報とあわせて取得する。
+	 * <p>
+	 * 予約日・予約番号の降順で並べ、指定した予約日・予約番号より後(古い方)の予約情報を最大件数まで取得する(キーセットページング)。
+	 * 予約フライト情報のフライト情報にはキー項目のみ設定する。
+	 * </p>
+	 *
+	 * @param membershipNumber 予約代表者の会員番号
+	 * @param afterReserveDate 前ページ最後の予約日。 先頭ページの場合はnull
+	 * @param afterReserveNo 前ページ最後の予約番号。 先頭ページの場合はnull
+	 * @param limit 最大件数
+	 * @return 予約情報リスト
+	 */
+	List<Reservation> findHistoryByRepMembershipNumber(
+			@Param("membershipNumber") String membershipNumber,
+			@Param("afterReserveDate") Date afterReserveDate,
+			@Param("afterReserveNo") String afterReserveNo, @Param("limit") int limit);
+
+	/**
+	 * 実行中のトランザクションのIDを取得する。
+	 * <p>
+	 * IDが割り当てられていない場合は割り当てる。
+	 * </p>
+	 *
+	 * @return トランザクションID
+	 */
+	long findCurrentTxid();
+
+	/**
+	 * トランザクションIDリストに該当するトランザクションの状態を取得する。
+	 *
+	 * @param txidList トランザクションIDリスト
+	 * @return トランザクションの状態リスト
+	 */
+	List<JournalTransactionStatus> findTransactionStatusList(
+			@Param("txidList") List<Long> txidList);
+
 }
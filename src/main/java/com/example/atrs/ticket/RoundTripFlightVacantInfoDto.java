@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 往復の空席照会結果を保持するクラス。
+ * <p>
+ * 復路の空席状況一覧には、いずれかの往路フライトと組み合わせて予約可能なフライトのみを含む。
+ * 組み合わせは往路の便名をキー、予約可能な復路の便名リストを値とするマップで保持する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+public class RoundTripFlightVacantInfoDto implements Serializable {
+
+	private static final long serialVersionUID = -4930542120713356187L;
+
+	private final List<FlightVacantInfoDto> homewardFlights;
+
+	private final List<FlightVacantInfoDto> outwardFlights;
+
+	private final Map<String, List<String>> pairings;
+
+	public RoundTripFlightVacantInfoDto(List<FlightVacantInfoDto> outwardFlights,
+			List<FlightVacantInfoDto> homewardFlights,
+			Map<String, List<String>> pairings) {
+		this.outwardFlights = outwardFlights;
+		this.homewardFlights = homewardFlights;
+		this.pairings = pairings;
+	}
+
+	public List<FlightVacantInfoDto> getHomewardFlights() {
+		return homewardFlights;
+	}
+
+	public List<FlightVacantInfoDto> getOutwardFlights() {
+		return outwardFlights;
+	}
+
+	public Map<String, List<String>> getPairings() {
+		return pairings;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SIMPLE_STYLE);
+	}
+}
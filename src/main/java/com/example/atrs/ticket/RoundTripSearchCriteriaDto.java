@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 往復の空席照会の検索条件を保持するクラス。
+ *
+ * @author NTT 電電太郎
+ */
+public class RoundTripSearchCriteriaDto implements Serializable {
+
+	private static final long serialVersionUID = 8342871250437717465L;
+
+	private String arrivalAirportCd;
+
+	private BoardingClassCd boardingClassCd;
+
+	private String departureAirportCd;
+
+	private Date homewardDate;
+
+	private Date outwardDate;
+
+	public String getArrivalAirportCd() {
+		return arrivalAirportCd;
+	}
+
+	public void setArrivalAirportCd(String arrivalAirportCd) {
+		this.arrivalAirportCd = arrivalAirportCd;
+	}
+
+	public BoardingClassCd getBoardingClassCd() {
+		return boardingClassCd;
+	}
+
+	public void setBoardingClassCd(BoardingClassCd boardingClassCd) {
+		this.boardingClassCd = boardingClassCd;
+	}
+
+	public String getDepartureAirportCd() {
+		return departureAirportCd;
+	}
+
+	public void setDepartureAirportCd(String departureAirportCd) {
+		this.departureAirportCd = departureAirportCd;
+	}
+
+	public Date getHomewardDate() {
+		return homewardDate;
+	}
+
+	public void setHomewardDate(Date homewardDate) {
+		this.homewardDate = homewardDate;
+	}
+
+	public Date getOutwardDate() {
+		return outwardDate;
+	}
+
+	public void setOutwardDate(Date outwardDate) {
+		this.outwardDate = outwardDate;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SIMPLE_STYLE);
+	}
+}
@@ -16,12 +16,11 @@
  */
 package com.example.atrs.ticket;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-import javax.annotation.PostConstruct;
-
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
@@ -34,17 +33,19 @@ import org.springframework.util.Assert;
 public class RouteProvider {
 
 	/**
-	 * 区間情報マップ。
+	 * 空港グループコードと空港コードリストの関係。
 	 */
-	private final Map<String, Route> routeMap = new HashMap<>();
+	private final Map<String, List<String>> airportGroups;
 
 	/**
-	 * 区間情報リポジトリ。
+	 * 参照データ保持クラス。
 	 */
-	private final RouteMapper routeMapper;
+	private final ReferenceDataRegistry referenceDataRegistry;
 
-	public RouteProvider(RouteMapper routeMapper) {
-		this.routeMapper = routeMapper;
+	public RouteProvider(ReferenceDataRegistry referenceDataRegistry,
+			TicketProperties props) {
+		this.referenceDataRegistry = referenceDataRegistry;
+		this.airportGroups = props.getAirportGroups();
 	}
 
 	/**
@@ -55,39 +56,67 @@ public class RouteProvider {
 	 * @return 区間情報。該当する区間情報が見つからない場合はnull。
 	 */
 	public Route getRouteByAirportCd(String departureAirportCd, String arrivalAirportCd) {
+		return getRouteByAirportCd(referenceDataRegistry.getSnapshot(),
+				departureAirportCd, arrivalAirportCd);
+	}
 
+	/**
+	 * 参照データのスナップショットから、出発空港コード、到着空港コードに該当する区間情報を取得する。
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 * @param departureAirportCd 出発空港コード
+	 * @param arrivalAirportCd 到着空港コード
+	 * @return 区間情報。該当する区間情報が見つからない場合はnull。
+	 */
+	public Route getRouteByAirportCd(ReferenceData referenceData,
+			String departureAirportCd, String arrivalAirportCd) {
+
+		Assert.notNull(referenceData);
 		Assert.hasText(departureAirportCd);
 		Assert.hasText(arrivalAirportCd);
 
-		String searchKey = makeCacheKey(departureAirportCd, arrivalAirportCd);
-		return routeMap.get(searchKey);
+		return referenceData.getRoute(departureAirportCd, arrivalAirportCd);
 	}
 
 	/**
-	 * 区間情報をロードし、キャッシュする。
+	 * 参照データのスナップショットから、出発空港、到着空港に該当する区間情報を全て取得する。
+	 * <p>
+	 * 空港グループコードを指定した場合は、グループに属する全ての空港を対象とする。
+	 * </p>
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 * @param departureAirportCd 出発空港コードまたは空港グループコード
+	 * @param arrivalAirportCd 到着空港コードまたは空港グループコード
+	 * @return 区間情報リスト。該当する区間情報が見つからない場合は空のリスト。
 	 */
-	@PostConstruct
-	public void load() {
-		List<Route> routeList = routeMapper.findAll();
-		for (Route route : routeList) {
-			String cacheKey = makeCacheKey(route.getDepartureAirport().getCode(),
-					route.getArrivalAirport().getCode());
-			routeMap.put(cacheKey, route);
+	public List<Route> getRouteListByAirportGroupCd(ReferenceData referenceData,
+			String departureAirportCd, String arrivalAirportCd) {
+
+		Assert.notNull(referenceData);
+		Assert.hasText(departureAirportCd);
+		Assert.hasText(arrivalAirportCd);
+
+		List<Route> routeList = new ArrayList<>();
+		for (String depAirportCd : resolveAirportCds(departureAirportCd)) {
+			for (String arrAirportCd : resolveAirportCds(arrivalAirportCd)) {
+				Route route = referenceData.getRoute(depAirportCd, arrAirportCd);
+				if (route != null) {
+					routeList.add(route);
+				}
+			}
 		}
+		return routeList;
 	}
 
 	/**
-	 * 区間情報マップにキャッシュするためのキー値を生成する。
-	 * <p>
-	 * キー値は、"[出発空港コード]-[到着空港コード]"形式の文字列となる。
-	 * </p>
-	 * 
-	 * @param departureAirportCd 出発空港コード
-	 * @param arrivalAirportCd 到着空港コード
-	 * @return 区間情報マップにキャッシュするためのキー値
+	 * 空港グループコードに属する空港コードを取得する。
+	 *
+	 * @param airportCd 空港コードまたは空港グループコード
+	 * @return 空港コードリスト。空港グループコードでない場合は指定した空港コードのみ。
 	 */
-	private String makeCacheKey(String departureAirportCd, String arrivalAirportCd) {
-		return departureAirportCd + "-" + arrivalAirportCd;
+	private List<String> resolveAirportCds(String airportCd) {
+		List<String> airportCds = airportGroups.get(airportCd);
+		return airportCds != null ? airportCds : Collections.singletonList(airportCd);
 	}
 
 }
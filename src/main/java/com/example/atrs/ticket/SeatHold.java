@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 座席確保情報。
+ * <p>
+ * 申し込み内容確認から予約確定までの間、フライトの空席を一定時間確保する。 確保した座席数はフライト情報の空席数から減算済みであり、
+ * 予約確定時に予約へ引き継がれ、期限切れの場合は空席数に戻される。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+public class SeatHold implements Serializable {
+
+	private static final long serialVersionUID = 3460921836271640127L;
+
+	/**
+	 * 座席確保ID。
+	 */
+	private String holdId;
+
+	/**
+	 * 搭乗日。
+	 */
+	private Date departureDate;
+
+	/**
+	 * 便名。
+	 */
+	private String flightName;
+
+	/**
+	 * 搭乗クラスコード。
+	 */
+	private BoardingClassCd boardingClassCd;
+
+	/**
+	 * 運賃種別コード。
+	 */
+	private FareTypeCd fareTypeCd;
+
+	/**
+	 * 確保座席数。
+	 */
+	private int holdNum;
+
+	/**
+	 * 有効期限。
+	 */
+	private Date expiryDateTime;
+
+	public String getHoldId() {
+		return holdId;
+	}
+
+	public void setHoldId(String holdId) {
+		this.holdId = holdId;
+	}
+
+	public Date getDepartureDate() {
+		return departureDate;
+	}
+
+	public void setDepartureDate(Date departureDate) {
+		this.departureDate = departureDate;
+	}
+
+	public String getFlightName() {
+		return flightName;
+	}
+
+	public void setFlightName(String flightName) {
+		this.flightName = flightName;
+	}
+
+	public BoardingClassCd getBoardingClassCd() {
+		return boardingClassCd;
+	}
+
+	public void setBoardingClassCd(BoardingClassCd boardingClassCd) {
+		this.boardingClassCd = boardingClassCd;
+	}
+
+	public FareTypeCd getFareTypeCd() {
+		return fareTypeCd;
+	}
+
+	public void setFareTypeCd(FareTypeCd fareTypeCd) {
+		this.fareTypeCd = fareTypeCd;
+	}
+
+	public int getHoldNum() {
+		return holdNum;
+	}
+
+	public void setHoldNum(int holdNum) {
+		this.holdNum = holdNum;
+	}
+
+	public Date getExpiryDateTime() {
+		return expiryDateTime;
+	}
+
+	public void setExpiryDateTime(Date expiryDateTime) {
+		this.expiryDateTime = expiryDateTime;
+	}
+
+	/**
+	 * フライト情報と同じフライトの座席確保情報かどうかを判定する。
+	 *
+	 * @param flight フライト情報
+	 * @return 同じフライトの場合はtrue
+	 */
+	public boolean isFor(Flight flight) {
+		return departureDate.getTime() == flight.getDepartureDate().getTime()
+				&& flightName.equals(flight.getFlightMaster().getFlightName())
+				&& boardingClassCd == flight.getBoardingClass().getBoardingClassCd()
+				&& fareTypeCd == flight.getFareType().getFareTypeCd();
+	}
+
+	/**
+	 * 主キー項目のみを設定したフライト情報を作成する。
+	 *
+	 * @return フライト情報
+	 */
+	public Flight toFlight() {
+		FlightMaster flightMaster = new FlightMaster();
+		flightMaster.setFlightName(flightName);
+		BoardingClass boardingClass = new BoardingClass();
+		boardingClass.setBoardingClassCd(boardingClassCd);
+		FareType fareType = new FareType();
+		fareType.setFareTypeCd(fareTypeCd);
+		Flight flight = new Flight();
+		flight.setDepartureDate(departureDate);
+		flight.setFlightMaster(flightMaster);
+		flight.setBoardingClass(boardingClass);
+		flight.setFareType(fareType);
+		return flight;
+	}
+
+	/**
+	 * 空席数の変更イベントを作成する。
+	 *
+	 * @param delta 空席数の増減数
+	 * @return 空席数変更イベント
+	 */
+	public FlightVacantNumChangedEvent toVacantNumChangedEvent(int delta) {
+		return new FlightVacantNumChangedEvent(departureDate, flightName,
+				boardingClassCd, fareTypeCd, delta);
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SIMPLE_STYLE);
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.util.Date;
+import java.util.List;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 座席確保テーブルにアクセスするリポジトリインターフェース。
+ *
+ * @author NTT 電電太郎
+ */
+@Mapper
+public interface SeatHoldMapper {
+
+	/**
+	 * 座席確保情報を1回のSQLでまとめて登録する。
+	 * <p>
+	 * 確保座席数はフライト情報の空席数から減算しておくこと。
+	 * </p>
+	 *
+	 * @param seatHoldList 座席確保情報リスト
+	 * @return 登録件数
+	 */
+	int insertList(@Param("seatHoldList") List<SeatHold> seatHoldList);
+
+	/**
+	 * 座席確保IDに該当する有効期限内の座席確保情報を排他ロックをかけて取得する。
+	 *
+	 * @param holdId 座席確保ID
+	 * @param now 現在日時
+	 * @return 座席確保情報リスト
+	 */
+	List<SeatHold> findByHoldIdForUpdate(@Param("holdId") String holdId,
+			@Param("now") Date now);
+
+	/**
+	 * 座席確保IDに該当する座席確保情報を削除する。
+	 * <p>
+	 * 確保座席数はフライト情報の空席数に戻さない。 予約へ引き継ぐ場合に使用する。
+	 * </p>
+	 *
+	 * @param holdId 座席確保ID
+	 * @return 削除件数
+	 */
+	int deleteByHoldId(@Param("holdId") String holdId);
+
+	/**
+	 * 座席確保IDに該当する座席確保情報を削除し、削除した座席確保情報を取得する。
+	 * <p>
+	 * 確保座席数は {@link #restoreVacantNum(List)} などで空席数に戻すこと。
+	 * </p>
+	 *
+	 * @param holdId 座席確保ID
+	 * @return 削除した座席確保情報リスト
+	 */
+	List<SeatHold> deleteAndFindByHoldId(@Param("holdId") String holdId);
+
+	/**
+	 * 有効期限切れの座席確保情報を指定件数まで削除し、確保座席数をフライト単位で合算して取得する。
+	 * <p>
+	 * 座席確保テーブルは有効期限のインデックスで検索する。 予約確定処理がロックしている座席確保情報は読み飛ばす。
+	 * 確保座席数は {@link #restoreVacantNum(List)} などで空席数に戻すこと。
+	 * </p>
+	 *
+	 * @param now 現在日時
+	 * @param limit 最大件数
+	 * @return 削除した座席確保情報リスト(フライト単位で合算済み)
+	 */
+	List<SeatHold> deleteExpired(@Param("now") Date now, @Param("limit") int limit);
+
+	/**
+	 * 座席確保情報の確保座席数をフライト情報の空席数に戻す。
+	 * <p>
+	 * フライト情報は主キー(搭乗日, 便名, 搭乗クラスコード, 運賃種別コード)の順にロックしてから更新し、予約処理と同じロック順とする。
+	 * </p>
+	 *
+	 * @param seatHoldList 座席確保情報リスト
+	 * @return 更新件数
+	 */
+	int restoreVacantNum(@Param("seatHoldList") List<SeatHold> seatHoldList);
+
+}
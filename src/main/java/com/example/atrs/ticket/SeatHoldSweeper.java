@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 有効期限切れの座席確保を定期的に解放するクラス。
+ * <p>
+ * 1回のトランザクションで解放する件数に上限を設け、期限切れの座席確保がなくなるまで繰り返す。 複数のJVMで同時に実行しても、
+ * 同じ座席確保を二重に解放することはない。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+public class SeatHoldSweeper {
+
+	/**
+	 * ロガー。
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(SeatHoldSweeper.class);
+
+	/**
+	 * 座席確保を使用するかどうか。
+	 */
+	private final boolean enabled;
+
+	/**
+	 * 1回のトランザクションで解放する最大件数。
+	 */
+	private final int batchSize;
+
+	/**
+	 * チケット予約サービス。
+	 */
+	private final TicketReserveService ticketReserveService;
+
+	/**
+	 * 予約登録の再実行クラス。
+	 */
+	private final TicketReserveRetryTemplate ticketReserveRetryTemplate;
+
+	public SeatHoldSweeper(TicketProperties props,
+			TicketReserveService ticketReserveService,
+			TicketReserveRetryTemplate ticketReserveRetryTemplate) {
+		this.enabled = props.getSeatHold().isEnabled();
+		this.batchSize = props.getSeatHold().getSweepBatchSize();
+		this.ticketReserveService = ticketReserveService;
+		this.ticketReserveRetryTemplate = ticketReserveRetryTemplate;
+	}
+
+	/**
+	 * 有効期限切れの座席確保を解放する。
+	 */
+	@Scheduled(fixedDelayString = "${ticket.seat-hold.sweep-delay:PT30S}")
+	public void sweep() {
+		if (!enabled) {
+			return;
+		}
+		long start = System.currentTimeMillis();
+		int total = 0;
+		int released;
+		do {
+			released = ticketReserveRetryTemplate.execute(
+					() -> ticketReserveService.releaseExpiredSeatHolds(batchSize));
+			total += released;
+		}
+		while (released > 0);
+
+		if (total > 0) {
+			LOGGER.info("Expired seat holds released. ({} flights, {} ms)", total,
+					System.currentTimeMillis() - start);
+		}
+	}
+}
@@ -39,6 +39,11 @@ public enum TicketErrorCode implements AtrsErrorCode {
 	 */
 	E_AR_B1_2003("e.ar.b1.2003"),
 
+	/**
+	 * 空席照会が混み合っている事を通知するためのエラーコード。
+	 */
+	E_AR_B1_2004("e.ar.b1.2004"),
+
 	/**
 	 * 出発空港と到着空港に同じ空港が指定された事を通知するためのエラーコード。
 	 */
@@ -49,6 +54,11 @@ public enum TicketErrorCode implements AtrsErrorCode {
 	 */
 	E_AR_B1_5002("e.ar.b1.5002"),
 
+	/**
+	 * 照会期間の終了日に開始日より前の日付が指定された事を通知するためのエラーコード。
+	 */
+	E_AR_B1_5003("e.ar.b1.5003"),
+
 	/**
 	 * 往路の到着時刻と復路の出発時刻の間が一定間隔以上経過していない事を通知するためのエラーコード。
 	 */
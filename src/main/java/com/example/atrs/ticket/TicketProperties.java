@@ -1,6 +1,9 @@
 package com.example.atrs.ticket;
 
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
@@ -20,8 +23,32 @@ public class TicketProperties {
 
 	private Duration reserveIntervalTime;
 
+	private VacantNumUpdateMode vacantNumUpdateMode = VacantNumUpdateMode.CONDITIONAL_UPDATE;
+
 	private DefaultProperties defaults;
 
+	private Map<String, List<String>> airportGroups = new LinkedHashMap<>();
+
+	private InventoryProperties inventory = new InventoryProperties();
+
+	private SearchCacheProperties searchCache = new SearchCacheProperties();
+
+	private SearchExecutorProperties searchExecutor = new SearchExecutorProperties();
+
+	private SearchStreamProperties searchStream = new SearchStreamProperties();
+
+	private ReserveRetryProperties reserveRetry = new ReserveRetryProperties();
+
+	private SeatHoldProperties seatHold = new SeatHoldProperties();
+
+	private JournalProperties journal = new JournalProperties();
+
+	private VacantBucketProperties vacantBucket = new VacantBucketProperties();
+
+	private IdempotencyProperties idempotency = new IdempotencyProperties();
+
+	private SearchETagProperties searchEtag = new SearchETagProperties();
+
 	public int getAdultPassengerMinAge() {
 		return adultPassengerMinAge;
 	}
@@ -62,6 +89,14 @@ public class TicketProperties {
 		this.reserveIntervalTime = reserveIntervalTime;
 	}
 
+	public VacantNumUpdateMode getVacantNumUpdateMode() {
+		return vacantNumUpdateMode;
+	}
+
+	public void setVacantNumUpdateMode(VacantNumUpdateMode vacantNumUpdateMode) {
+		this.vacantNumUpdateMode = vacantNumUpdateMode;
+	}
+
 	public DefaultProperties getDefaults() {
 		return defaults;
 	}
@@ -70,6 +105,94 @@ public class TicketProperties {
 		this.defaults = defaults;
 	}
 
+	public Map<String, List<String>> getAirportGroups() {
+		return airportGroups;
+	}
+
+	public void setAirportGroups(Map<String, List<String>> airportGroups) {
+		this.airportGroups = airportGroups;
+	}
+
+	public InventoryProperties getInventory() {
+		return inventory;
+	}
+
+	public void setInventory(InventoryProperties inventory) {
+		this.inventory = inventory;
+	}
+
+	public SearchCacheProperties getSearchCache() {
+		return searchCache;
+	}
+
+	public void setSearchCache(SearchCacheProperties searchCache) {
+		this.searchCache = searchCache;
+	}
+
+	public SearchExecutorProperties getSearchExecutor() {
+		return searchExecutor;
+	}
+
+	public void setSearchExecutor(SearchExecutorProperties searchExecutor) {
+		this.searchExecutor = searchExecutor;
+	}
+
+	public SearchStreamProperties getSearchStream() {
+		return searchStream;
+	}
+
+	public void setSearchStream(SearchStreamProperties searchStream) {
+		this.searchStream = searchStream;
+	}
+
+	public ReserveRetryProperties getReserveRetry() {
+		return reserveRetry;
+	}
+
+	public void setReserveRetry(ReserveRetryProperties reserveRetry) {
+		this.reserveRetry = reserveRetry;
+	}
+
+	public SeatHoldProperties getSeatHold() {
+		return seatHold;
+	}
+
+	public void setSeatHold(SeatHoldProperties seatHold) {
+		this.seatHold = seatHold;
+	}
+
+	public JournalProperties getJournal() {
+		return journal;
+	}
+
+	public void setJournal(JournalProperties journal) {
+		this.journal = journal;
+	}
+
+	public VacantBucketProperties getVacantBucket() {
+		return vacantBucket;
+	}
+
+	public void setVacantBucket(VacantBucketProperties vacantBucket) {
+		this.vacantBucket = vacantBucket;
+	}
+
+	public IdempotencyProperties getIdempotency() {
+		return idempotency;
+	}
+
+	public void setIdempotency(IdempotencyProperties idempotency) {
+		this.idempotency = idempotency;
+	}
+
+	public SearchETagProperties getSearchEtag() {
+		return searchEtag;
+	}
+
+	public void setSearchEtag(SearchETagProperties searchEtag) {
+		this.searchEtag = searchEtag;
+	}
+
 	@Override
 	public String toString() {
 		return ToStringBuilder.reflectionToString(this);
@@ -121,4 +244,404 @@ public class TicketProperties {
 			return ToStringBuilder.reflectionToString(this);
 		}
 	}
+
+	public static class InventoryProperties {
+		private boolean enabled = false;
+
+		private String reloadCron = "0 5 0 * * *";
+
+		private Duration refreshDelay = Duration.ofSeconds(5);
+
+		private Duration refreshOverlap = Duration.ofMinutes(1);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getReloadCron() {
+			return reloadCron;
+		}
+
+		public void setReloadCron(String reloadCron) {
+			this.reloadCron = reloadCron;
+		}
+
+		public Duration getRefreshDelay() {
+			return refreshDelay;
+		}
+
+		public void setRefreshDelay(Duration refreshDelay) {
+			this.refreshDelay = refreshDelay;
+		}
+
+		public Duration getRefreshOverlap() {
+			return refreshOverlap;
+		}
+
+		public void setRefreshOverlap(Duration refreshOverlap) {
+			this.refreshOverlap = refreshOverlap;
+		}
+
+		@Override
+		public String toString() {
+			return ToStringBuilder.reflectionToString(this);
+		}
+	}
+
+	public static class SearchCacheProperties {
+		private boolean enabled = true;
+
+		private long maximumSize = 10000;
+
+		private Duration expireAfterWrite = Duration.ofSeconds(10);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public long getMaximumSize() {
+			return maximumSize;
+		}
+
+		public void setMaximumSize(long maximumSize) {
+			this.maximumSize = maximumSize;
+		}
+
+		public Duration getExpireAfterWrite() {
+			return expireAfterWrite;
+		}
+
+		public void setExpireAfterWrite(Duration expireAfterWrite) {
+			this.expireAfterWrite = expireAfterWrite;
+		}
+
+		@Override
+		public String toString() {
+			return ToStringBuilder.reflectionToString(this);
+		}
+	}
+
+	public static class SearchStreamProperties {
+		private int chunkSize = 20;
+
+		public int getChunkSize() {
+			return chunkSize;
+		}
+
+		public void setChunkSize(int chunkSize) {
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		public String toString() {
+			return ToStringBuilder.reflectionToString(this);
+		}
+	}
+
+	public static class SearchExecutorProperties {
+		private int poolSize = 8;
+
+		private int queueCapacity = 64;
+
+		private Duration timeout = Duration.ofSeconds(5);
+
+		public int getPoolSize() {
+			return poolSize;
+		}
+
+		public void setPoolSize(int poolSize) {
+			this.poolSize = poolSize;
+		}
+
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+		public Duration getTimeout() {
+			return timeout;
+		}
+
+		public void setTimeout(Duration timeout) {
+			this.timeout = timeout;
+		}
+
+		@Override
+		public String toString() {
+			return ToStringBuilder.reflectionToString(this);
+		}
+	}
+
+	public static class ReserveRetryProperties {
+		private int maxAttempts = 3;
+
+		private Duration initialBackoff = Duration.ofMillis(20);
+
+		private Duration maxBackoff = Duration.ofMillis(200);
+
+		public int getMaxAttempts() {
+			return maxAttempts;
+		}
+
+		public void setMaxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+		}
+
+		public Duration getInitialBackoff() {
+			return initialBackoff;
+		}
+
+		public void setInitialBackoff(Duration initialBackoff) {
+			this.initialBackoff = initialBackoff;
+		}
+
+		public Duration getMaxBackoff() {
+			return maxBackoff;
+		}
+
+		public void setMaxBackoff(Duration maxBackoff) {
+			this.maxBackoff = maxBackoff;
+		}
+
+		@Override
+		public String toString() {
+			return ToStringBuilder.reflectionToString(this);
+		}
+	}
+
+	public static class SeatHoldProperties {
+		private boolean enabled = false;
+
+		private Duration ttl = Duration.ofMinutes(10);
+
+		private Duration sweepDelay = Duration.ofSeconds(30);
+
+		private int sweepBatchSize = 500;
+
+		private int maxPerSession = 3;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Duration getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(Duration ttl) {
+			this.ttl = ttl;
+		}
+
+		public Duration getSweepDelay() {
+			return sweepDelay;
+		}
+
+		public void setSweepDelay(Duration sweepDelay) {
+			this.sweepDelay = sweepDelay;
+		}
+
+		public int getSweepBatchSize() {
+			return sweepBatchSize;
+		}
+
+		public void setSweepBatchSize(int sweepBatchSize) {
+			this.sweepBatchSize = sweepBatchSize;
+		}
+
+		public int getMaxPerSession() {
+			return maxPerSession;
+		}
+
+		public void setMaxPerSession(int maxPerSession) {
+			this.maxPerSession = maxPerSession;
+		}
+
+		@Override
+		public String toString() {
+			return ToStringBuilder.reflectionToString(this);
+		}
+	}
+
+	public static class JournalProperties {
+		private boolean enabled = false;
+
+		private String directory = "journal";
+
+		private int segmentSize = 64 * 1024 * 1024;
+
+		private int flushBatchSize = 256;
+
+		private int persistBatchSize = 500;
+
+		private Duration persistDelay = Duration.ofSeconds(1);
+
+		private int persistMaxAttempts = 5;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getDirectory() {
+			return directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+
+		public int getSegmentSize() {
+			return segmentSize;
+		}
+
+		public void setSegmentSize(int segmentSize) {
+			this.segmentSize = segmentSize;
+		}
+
+		public int getFlushBatchSize() {
+			return flushBatchSize;
+		}
+
+		public void setFlushBatchSize(int flushBatchSize) {
+			this.flushBatchSize = flushBatchSize;
+		}
+
+		public int getPersistBatchSize() {
+			return persistBatchSize;
+		}
+
+		public void setPersistBatchSize(int persistBatchSize) {
+			this.persistBatchSize = persistBatchSize;
+		}
+
+		public Duration getPersistDelay() {
+			return persistDelay;
+		}
+
+		public void setPersistDelay(Duration persistDelay) {
+			this.persistDelay = persistDelay;
+		}
+
+		public int getPersistMaxAttempts() {
+			return persistMaxAttempts;
+		}
+
+		public void setPersistMaxAttempts(int persistMaxAttempts) {
+			this.persistMaxAttempts = persistMaxAttempts;
+		}
+
+		@Override
+		public String toString() {
+			return ToStringBuilder.reflectionToString(this);
+		}
+	}
+
+	public static class VacantBucketProperties {
+		private boolean enabled = true;
+
+		private Duration rebalanceDelay = Duration.ofMinutes(1);
+
+		private int rebalanceThreshold = 2;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Duration getRebalanceDelay() {
+			return rebalanceDelay;
+		}
+
+		public void setRebalanceDelay(Duration rebalanceDelay) {
+			this.rebalanceDelay = rebalanceDelay;
+		}
+
+		public int getRebalanceThreshold() {
+			return rebalanceThreshold;
+		}
+
+		public void setRebalanceThreshold(int rebalanceThreshold) {
+			this.rebalanceThreshold = rebalanceThreshold;
+		}
+
+		@Override
+		public String toString() {
+			return ToStringBuilder.reflectionToString(this);
+		}
+	}
+
+	public static class IdempotencyProperties {
+		private boolean enabled = true;
+
+		private long maximumSize = 100000;
+
+		private Duration ttl = Duration.ofMinutes(30);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public long getMaximumSize() {
+			return maximumSize;
+		}
+
+		public void setMaximumSize(long maximumSize) {
+			this.maximumSize = maximumSize;
+		}
+
+		public Duration getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(Duration ttl) {
+			this.ttl = ttl;
+		}
+
+		@Override
+		public String toString() {
+			return ToStringBuilder.reflectionToString(this);
+		}
+	}
+
+	public static class SearchETagProperties {
+		private Duration maxAge = Duration.ofSeconds(10);
+
+		public Duration getMaxAge() {
+			return maxAge;
+		}
+
+		public void setMaxAge(Duration maxAge) {
+			this.maxAge = maxAge;
+		}
+
+		@Override
+		public String toString() {
+			return ToStringBuilder.reflectionToString(this);
+		}
+	}
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.CannotSerializeTransactionException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+/**
+ * 予約登録をデッドロック・直列化失敗時に再実行するクラス。
+ * <p>
+ * トランザクションがデッドロックや直列化失敗によりロールバックされた場合、指数バックオフにジッタを加えた時間だけ待機して再実行する。
+ * 再実行は上限回数までとし、上限に達した場合は最後の例外をそのままスローする。 再実行する処理はトランザクション境界の外側から呼び出すこと。
+ * </p>
+ * <p>
+ * 中断した試行の件数は "ticket.reserve.aborted"(cause=deadlock|serialization|lock|other)、再実行の件数は "ticket.reserve.retry"、
+ * 上限到達の件数は "ticket.reserve.retry.exhausted" メトリクスとして公開する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+public class TicketReserveRetryTemplate {
+
+	/**
+	 * 最大試行回数。
+	 */
+	private final int maxAttempts;
+
+	/**
+	 * 初回の待機時間の上限(ミリ秒)。
+	 */
+	private final long initialBackoffMillis;
+
+	/**
+	 * 待機時間の上限(ミリ秒)。
+	 */
+	private final long maxBackoffMillis;
+
+	/**
+	 * メトリクスレジストリ。
+	 */
+	private final MeterRegistry meterRegistry;
+
+	/**
+	 * 再実行の件数。
+	 */
+	private final Counter retryCounter;
+
+	/**
+	 * 再実行の上限に達した件数。
+	 */
+	private final Counter exhaustedCounter;
+
+	public TicketReserveRetryTemplate(TicketProperties props,
+			MeterRegistry meterRegistry) {
+		TicketProperties.ReserveRetryProperties retryProps = props.getReserveRetry();
+		Assert.isTrue(retryProps.getMaxAttempts() >= 1,
+				"maxAttempts must be greater than or equal to 1");
+		this.maxAttempts = retryProps.getMaxAttempts();
+		this.initialBackoffMillis = retryProps.getInitialBackoff().toMillis();
+		this.maxBackoffMillis = retryProps.getMaxBackoff().toMillis();
+		this.meterRegistry = meterRegistry;
+		this.retryCounter = Counter.builder("ticket.reserve.retry")
+				.register(meterRegistry);
+		this.exhaustedCounter = Counter.builder("ticket.reserve.retry.exhausted")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * 処理を実行し、デッドロック・直列化失敗の場合は再実行する。
+	 *
+	 * @param action 処理。呼び出しごとに新しいトランザクションで実行されること。
+	 * @param <T> 処理結果の型
+	 * @return 処理結果
+	 * @throws ConcurrencyFailureException 再実行の上限に達した場合、または待機中に割り込まれた場合
+	 */
+	public <T> T execute(Supplier<T> action) {
+		Assert.notNull(action);
+
+		for (int attempt = 1;; attempt++) {
+			try {
+				return action.get();
+			}
+			catch (ConcurrencyFailureException e) {
+				countAborted(e);
+				if (attempt >= maxAttempts) {
+					exhaustedCounter.increment();
+					throw e;
+				}
+				retryCounter.increment();
+				if (!backoff(attempt)) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 中断した試行を原因ごとに計上する。
+	 *
+	 * @param e 例外
+	 */
+	private void countAborted(ConcurrencyFailureException e) {
+		String cause;
+		if (e instanceof DeadlockLoserDataAccessException) {
+			cause = "deadlock";
+		}
+		else if (e instanceof CannotSerializeTransactionException) {
+			cause = "serialization";
+		}
+		else if (e instanceof CannotAcquireLockException) {
+			cause = "lock";
+		}
+		else {
+			cause = "other";
+		}
+		meterRegistry.counter("ticket.reserve.aborted", "cause", cause).increment();
+	}
+
+	/**
+	 * 再実行までの時間待機する。
+	 * <p>
+	 * 待機時間は0から(初回の待機時間の上限 × 2^(試行回数-1))までの乱数とし(Full Jitter)、待機時間の上限を超えないようにする。
+	 * 同時に中断したトランザクションが同じタイミングで再実行され、再びデッドロックすることを防ぐ。
+	 * </p>
+	 *
+	 * @param attempt 試行回数
+	 * @return 待機中に割り込まれた場合はfalse
+	 */
+	private boolean backoff(int attempt) {
+		long ceiling = Math.min(maxBackoffMillis,
+				initialBackoffMillis << Math.min(attempt - 1, 30));
+		// 待機時間が0の場合はsleepで割り込みを検知できないため、先に割り込み状態を確認する
+		if (Thread.currentThread().isInterrupted()) {
+			return false;
+		}
+		if (ceiling <= 0) {
+			return true;
+		}
+		try {
+			TimeUnit.MILLISECONDS
+					.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+			return true;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
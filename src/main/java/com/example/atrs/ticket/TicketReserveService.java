@@ -16,11 +16,23 @@
  */
 package com.example.atrs.ticket;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 import com.example.atrs.common.exception.AtrsBusinessException;
 import com.example.atrs.common.logging.LogMessages;
+import com.example.atrs.common.sequence.SequenceAllocator;
 import com.example.atrs.common.util.FareUtil;
 import com.example.atrs.member.Gender;
 import com.example.atrs.member.Member;
@@ -28,8 +40,11 @@ import com.example.atrs.member.MemberMapper;
 import org.terasoluna.gfw.common.exception.BusinessException;
 import org.terasoluna.gfw.common.exception.SystemException;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
@@ -52,6 +67,29 @@ import static com.example.atrs.ticket.TicketErrorCode.E_AR_B2_2010;
 @Transactional
 public class TicketReserveService {
 
+	/**
+	 * 1回のSQLで登録する最大件数。
+	 */
+	private static final int INSERT_CHUNK_SIZE = 1000;
+
+	/**
+	 * フライト情報のロック順。
+	 * <p>
+	 * FLIGHTテーブルの主キー項目の順とし、コードはSQLのORDER BYと同じく文字列として比較する。
+	 * </p>
+	 */
+	private static final Comparator<Flight> FLIGHT_LOCK_ORDER = Comparator
+			.comparing(Flight::getDepartureDate)
+			.thenComparing(f -> f.getFlightMaster().getFlightName())
+			.thenComparing(f -> f.getBoardingClass().getBoardingClassCd().getCode())
+			.thenComparing(f -> f.getFareType().getFareTypeCd().getCode());
+
+	/**
+	 * 予約フライト情報のロック順。
+	 */
+	private static final Comparator<ReserveFlight> LOCK_ORDER = Comparator
+			.comparing(ReserveFlight::getFlight, FLIGHT_LOCK_ORDER);
+
 	/**
 	 * 大人運賃が適用される最小年齢。
 	 */
@@ -62,11 +100,28 @@ public class TicketReserveService {
 	 */
 	private final int childFareRate;
 
+	private final Clock clock;
+
+	/**
+	 * イベント発行クラス。
+	 */
+	private final ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * 運賃表。
+	 */
+	private final FareMatrix fareMatrix;
+
 	/**
 	 * フライト情報リポジトリ。
 	 */
 	private final FlightMapper flightMapper;
 
+	/**
+	 * 空席数バケットサービス。
+	 */
+	private final FlightVacantBucketService flightVacantBucketService;
+
 	/**
 	 * カード会員情報リポジトリ。
 	 */
@@ -77,31 +132,80 @@ public class TicketReserveService {
 	 */
 	private final int representativeMinAge;
 
+	/**
+	 * 参照データ保持クラス。
+	 */
+	private final ReferenceDataRegistry referenceDataRegistry;
+
 	/**
 	 * 予約情報リポジトリ。
 	 */
 	private final ReservationMapper reservationMapper;
 
+	/**
+	 * 予約ジャーナル。
+	 */
+	private final ReservationJournal reservationJournal;
+
+	/**
+	 * 座席確保情報リポジトリ。
+	 */
+	private final SeatHoldMapper seatHoldMapper;
+
+	/**
+	 * 座席確保の有効期間。
+	 */
+	private final Duration seatHoldTtl;
+
+	/**
+	 * シーケンス採番クラス。
+	 */
+	private final SequenceAllocator sequenceAllocator;
+
 	/**
 	 * チケット共通サービス。
 	 */
 	private final TicketSharedService ticketSharedService;
 
-	public TicketReserveService(TicketProperties props, FlightMapper flightMapper,
-			MemberMapper memberMapper,
-			ReservationMapper reservationMapper,
-			TicketSharedService ticketSharedService) {
+	/**
+	 * 空席数更新方式。
+	 */
+	private final VacantNumUpdateMode vacantNumUpdateMode;
+
+	public TicketReserveService(TicketProperties props, Clock clock,
+			FareMatrix fareMatrix,
+			FlightMapper flightMapper,
+			FlightVacantBucketService flightVacantBucketService,
+			MemberMapper memberMapper, ReferenceDataRegistry referenceDataRegistry,
+			ReservationMapper reservationMapper, ReservationJournal reservationJournal,
+			SeatHoldMapper seatHoldMapper,
+			SequenceAllocator sequenceAllocator,
+			TicketSharedService ticketSharedService,
+			ApplicationEventPublisher eventPublisher) {
 		this.representativeMinAge = props.getRepresentativeMinAge();
 		this.adultPassengerMinAge = props.getAdultPassengerMinAge();
 		this.childFareRate = props.getChildFareRate();
+		this.vacantNumUpdateMode = props.getVacantNumUpdateMode();
+		this.seatHoldTtl = props.getSeatHold().getTtl();
+		this.clock = clock;
+		this.fareMatrix = fareMatrix;
 		this.flightMapper = flightMapper;
+		this.flightVacantBucketService = flightVacantBucketService;
 		this.memberMapper = memberMapper;
+		this.referenceDataRegistry = referenceDataRegistry;
 		this.reservationMapper = reservationMapper;
+		this.reservationJournal = reservationJournal;
+		this.seatHoldMapper = seatHoldMapper;
+		this.sequenceAllocator = sequenceAllocator;
 		this.ticketSharedService = ticketSharedService;
+		this.eventPublisher = eventPublisher;
 	}
 
 	/**
 	 * 予約チケットの合計金額を計算する。
+	 * <p>
+	 * 運賃・割引率は、計算の開始時に取得した1つの参照データのスナップショットから求める。
+	 * </p>
 	 *
 	 * @param flightList 予約するフライトのリスト
 	 * @param passengerList 搭乗者リスト
@@ -134,18 +238,21 @@ public class TicketReserveService {
 		// 運賃種別ごとの割引額 = 基本運賃 × 割引率
 
 		// 合計金額にフライト単位の合計金額を加算
+		ReferenceData referenceData = referenceDataRegistry.getSnapshot();
 		int totalFare = 0;
 		for (Flight flight : flightList) {
 			// リスト要素の null チェック
 			Assert.notNull(flight);
 
 			Route route = flight.getFlightMaster().getRoute();
-			int baseFare = ticketSharedService.calculateBasicFare(route.getBasicFare(),
+			FareMatrix.Fares fares = fareMatrix.getFares(referenceData, route,
 					flight.getBoardingClass().getBoardingClassCd(),
 					flight.getDepartureDate());
+			int baseFare = fares.getBasicFare();
 
-			int discountRate = flight.getFareType().getDiscountRate();
-			int boardingFare = ticketSharedService.calculateFare(baseFare, discountRate);
+			FareTypeCd fareTypeCd = flight.getFareType().getFareTypeCd();
+			int discountRate = referenceData.getFareType(fareTypeCd).getDiscountRate();
+			int boardingFare = fares.getFare(fareTypeCd);
 
 			int fare = boardingFare * adultNum
 					+ baseFare * (childFareRate - discountRate) / 100 * childNum;
@@ -173,14 +280,97 @@ public class TicketReserveService {
 		return memberMapper.findOne(membershipNumber);
 	}
 
+	/**
+	 * 予約情報の座席を一定時間確保する。
+	 * <p>
+	 * 各フライトの空席数から搭乗者数を減算し、座席確保情報を登録する。 確保中の座席は空席照会の結果に含まれない。 解放対象の座席確保IDがある場合は解放してから確保する。
+	 * 確保した座席は有効期限内であれば {@link #registerReservation(Reservation, String)} で予約へ引き継がれ、期限切れの場合は
+	 * {@link #releaseExpiredSeatHolds(int)} で解放される。
+	 * </p>
+	 *
+	 * @param reservation 予約情報
+	 * @param releaseHoldIds 解放対象の座席確保IDリスト(以前に確保した座席、セッションの上限を超えた座席)
+	 * @return 座席確保ID
+	 * @throws BusinessException 空席数が搭乗者数未満の場合にスローする例外
+	 */
+	public String holdSeats(Reservation reservation, List<String> releaseHoldIds)
+			throws BusinessException {
+
+		Assert.notNull(reservation);
+		Assert.notNull(releaseHoldIds);
+
+		// 予約フライト情報一覧
+		List<ReserveFlight> reserveFlightList = reservation.getReserveFlightList();
+		Assert.notEmpty(reserveFlightList);
+
+		// 以前に確保した座席確保情報を削除
+		List<SeatHold> releasedList = new ArrayList<>();
+		for (String releaseHoldId : releaseHoldIds) {
+			releasedList.addAll(seatHoldMapper.deleteAndFindByHoldId(releaseHoldId));
+		}
+
+		// 解放した座席を空席数に戻し、空席数から搭乗者数を減算
+		changeVacantNum(releasedList, reserveFlightList);
+
+		String holdId = UUID.randomUUID().toString();
+		Date expiryDateTime = Date.from(Instant.now(clock).plus(seatHoldTtl));
+		List<SeatHold> seatHoldList = new ArrayList<>(reserveFlightList.size());
+		for (ReserveFlight reserveFlight : reserveFlightList) {
+
+			Flight flight = reserveFlight.getFlight();
+
+			// 搭乗者数
+			int passengerNum = reserveFlight.getPassengerList().size();
+
+			SeatHold seatHold = new SeatHold();
+			seatHold.setHoldId(holdId);
+			seatHold.setDepartureDate(flight.getDepartureDate());
+			seatHold.setFlightName(flight.getFlightMaster().getFlightName());
+			seatHold.setBoardingClassCd(flight.getBoardingClass().getBoardingClassCd());
+			seatHold.setFareTypeCd(flight.getFareType().getFareTypeCd());
+			seatHold.setHoldNum(passengerNum);
+			seatHold.setExpiryDateTime(expiryDateTime);
+			seatHoldList.add(seatHold);
+		}
+
+		// 座席確保情報を登録
+		int seatHoldInsertCount = seatHoldMapper.insertList(seatHoldList);
+		if (seatHoldInsertCount != seatHoldList.size()) {
+			throw new SystemException(LogMessages.E_AR_A0_L9002.getCode(),
+					LogMessages.E_AR_A0_L9002.getMessage(seatHoldInsertCount,
+							seatHoldList.size()));
+		}
+
+		return holdId;
+	}
+
+	/**
+	 * 有効期限切れの座席確保情報を解放し、確保座席数を空席数に戻す。
+	 *
+	 * @param limit 1回の処理で解放する座席確保情報の最大件数
+	 * @return 空席数を戻したフライト数
+	 */
+	public int releaseExpiredSeatHolds(int limit) {
+
+		Date now = Date.from(Instant.now(clock));
+		List<SeatHold> releasedList = seatHoldMapper.deleteExpired(now, limit);
+		restoreVacantNum(releasedList);
+		return releasedList.size();
+	}
+
 	/**
 	 * 予約情報を登録し、予約したチケット料金の支払期限を決定する。
+	 * <p>
+	 * 有効期限内の座席確保情報が予約内容と一致する場合は、確保済みの座席を予約へ引き継ぎ、空席数は更新しない。
+	 * 座席確保情報が期限切れまたは予約内容と一致しない場合は、確保した座席を解放してから空席数を減算する。
+	 * </p>
 	 *
 	 * @param reservation 予約情報
+	 * @param holdId 座席確保ID(座席を確保していない場合はnull)
 	 * @return 予約番号と予約したチケット料金の支払期限
 	 * @throws BusinessException 空席数が搭乗者数未満の場合にスローする例外
 	 */
-	public TicketReserveDto registerReservation(Reservation reservation)
+	public TicketReserveDto registerReservation(Reservation reservation, String holdId)
 			throws BusinessException {
 
 		Assert.notNull(reservation);
@@ -189,88 +379,448 @@ public class TicketReserveService {
 		List<ReserveFlight> reserveFlightList = reservation.getReserveFlightList();
 		Assert.notEmpty(reserveFlightList);
 
-		// 予約フライト情報に対して空席数の確認および更新を実施
+		// 確保済みの座席を予約へ引き継ぐ
+		boolean seatHeld = StringUtils.hasText(holdId)
+				&& takeOverSeatHold(holdId, reserveFlightList);
+
 		for (ReserveFlight reserveFlight : reserveFlightList) {
-			Assert.notNull(reserveFlight);
 
 			Flight flight = reserveFlight.getFlight();
-			Assert.notNull(flight);
 
 			// 搭乗日が運賃種別予約可能時期範囲内かチェック
 			if (!ticketSharedService.isAvailableFareType(flight.getFareType(),
 					flight.getDepartureDate())) {
 				throw new AtrsBusinessException(E_AR_B2_2008);
 			}
+		}
 
-			// 空席数を更新するために、フライト情報を取得する(排他)
-			flight = flightMapper.findOneForUpdate(flight.getDepartureDate(),
-					flight.getFlightMaster().getFlightName(), flight.getBoardingClass(),
-					flight.getFareType());
-			int vacantNum = flight.getVacantNum();
-
-			// 搭乗者数
-			int passengerNum = reserveFlight.getPassengerList().size();
+		if (!seatHeld) {
+			// 引き継げなかった座席確保情報を削除
+			List<SeatHold> releasedList = StringUtils.hasText(holdId)
+					? seatHoldMapper.deleteAndFindByHoldId(holdId)
+					: Collections.<SeatHold> emptyList();
 
-			// 取得した空席数が搭乗者数以上であることを確認
-			if (vacantNum < passengerNum) {
-				// 空席数が搭乗者数未満の場合、業務例外をスロー
-				throw new AtrsBusinessException(E_AR_B2_2009);
-			}
+			// 解放した座席を空席数に戻し、空席数から搭乗者数を減算
+			// (往路・復路によらずロック順序を一定にし、逆区間の予約同士のデッドロックを防ぐ)
+			changeVacantNum(releasedList, reserveFlightList);
+		}
 
-			// 取得した空席数から搭乗者数を引いた数を、フライト情報の空席数に設定
-			flight.setVacantNum(vacantNum - passengerNum);
+		// 予約番号を採番
+		reservation.setReserveNo(sequenceAllocator.nextNo("sq_reservation_1"));
+		// 予約番号を取得
+		String reserveNo = reservation.getReserveNo();
 
-			// 空席数を更新
-			int flightUpdateCount = flightMapper.update(flight);
-			if (flightUpdateCount != 1) {
+		if (reservationJournal.isEnabled()) {
+			// 予約フライト番号、搭乗者番号を採番し、予約情報はコミット前にジャーナルへ追記
+			// (追記に失敗した場合は空席数の減算もロールバックする。
+			// DBへの登録はReservationJournalPersisterがトランザクションのコミットを確認してから非同期で行う)
+			assignReserveFlightNos(reserveNo, reserveFlightList);
+			long txid = reservationMapper.findCurrentTxid();
+			TransactionSynchronizationManager
+					.registerSynchronization(new TransactionSynchronizationAdapter() {
+						@Override
+						public void beforeCommit(boolean readOnly) {
+							reservationJournal.append(reservation, txid);
+						}
+					});
+		}
+		else {
+			// 予約情報を登録
+			int reservationInsertCount = reservationMapper.insert(reservation);
+			if (reservationInsertCount != 1) {
 				throw new SystemException(LogMessages.E_AR_A0_L9002.getCode(),
-						LogMessages.E_AR_A0_L9002.getMessage(flightUpdateCount, 1));
+						LogMessages.E_AR_A0_L9002.getMessage(reservationInsertCount, 1));
 			}
+
+			// 予約フライト情報、搭乗者情報の登録
+			registerReserveFlightList(reserveNo, reserveFlightList);
 		}
 
-		// 予約情報を登録
-		// (パラメータの予約情報に予約番号が格納される)
-		int reservationInsertCount = reservationMapper.insert(reservation);
-		if (reservationInsertCount != 1) {
-			throw new SystemException(LogMessages.E_AR_A0_L9002.getCode(),
-					LogMessages.E_AR_A0_L9002.getMessage(reservationInsertCount, 1));
+		// 往路搭乗日を支払期限とする
+		Date paymentDate = reserveFlightList.get(0).getFlight().getDepartureDate();
+
+		return new TicketReserveDto(reserveNo, paymentDate);
+
+	}
+
+	/**
+	 * 確保済みの座席を予約へ引き継ぐ。
+	 * <p>
+	 * 有効期限内の座席確保情報が全ての予約フライト情報のフライト・搭乗者数と一致する場合は、座席確保情報を削除するのみとし、フライト情報は更新しない。
+	 * 一致しない場合は何もしない。 呼び出し元が座席確保情報を削除し、空席数の減算と同じロック順で確保座席数を空席数に戻す。
+	 * </p>
+	 *
+	 * @param holdId 座席確保ID
+	 * @param reserveFlightList 予約フライト情報リスト
+	 * @return 引き継いだ場合はtrue
+	 */
+	private boolean takeOverSeatHold(String holdId,
+			List<ReserveFlight> reserveFlightList) {
+
+		List<SeatHold> seatHoldList = seatHoldMapper.findByHoldIdForUpdate(holdId,
+				Date.from(Instant.now(clock)));
+		if (matchesSeatHold(seatHoldList, reserveFlightList)) {
+			seatHoldMapper.deleteByHoldId(holdId);
+			return true;
 		}
-		// 予約番号を取得
-		String reserveNo = reservation.getReserveNo();
+		return false;
+	}
+
+	/**
+	 * 座席確保情報が予約フライト情報のフライト・搭乗者数と一致するかどうかを判定する。
+	 *
+	 * @param seatHoldList 座席確保情報リスト
+	 * @param reserveFlightList 予約フライト情報リスト
+	 * @return 一致する場合はtrue
+	 */
+	private boolean matchesSeatHold(List<SeatHold> seatHoldList,
+			List<ReserveFlight> reserveFlightList) {
 
-		// 予約フライト情報、搭乗者情報の登録
+		if (seatHoldList.size() != reserveFlightList.size()) {
+			return false;
+		}
 		for (ReserveFlight reserveFlight : reserveFlightList) {
+			boolean matched = false;
+			for (SeatHold seatHold : seatHoldList) {
+				if (seatHold.isFor(reserveFlight.getFlight()) && seatHold
+						.getHoldNum() == reserveFlight.getPassengerList().size()) {
+					matched = true;
+					break;
+				}
+			}
+			if (!matched) {
+				return false;
+			}
+		}
+		return true;
+	}
 
-			// 予約フライト情報に予約番号を設定
-			reserveFlight.setReserveNo(reserveNo);
+	/**
+	 * 削除した座席確保情報の確保座席数を空席数に戻し、空席数の変更を通知する。
+	 * <p>
+	 * 人気便は先にロックされていない空席数バケットへロックを待機せずに戻す。 全てのバケットがロックされている場合と人気便以外は、
+	 * 1回のSQLでフライト情報を主キーの順にロックしてから更新し、予約処理と同じロック順とする。
+	 * </p>
+	 *
+	 * @param releasedList 削除した座席確保情報リスト
+	 */
+	private void restoreVacantNum(List<SeatHold> releasedList) {
 
-			// 予約フライト情報を登録
-			int reserveFlightInsertCount = reservationMapper
-					.insertReserveFlight(reserveFlight);
-			if (reserveFlightInsertCount != 1) {
-				throw new SystemException(LogMessages.E_AR_A0_L9002.getCode(),
-						LogMessages.E_AR_A0_L9002.getMessage(reserveFlightInsertCount,
-								1));
+		List<SeatHold> flightList = restoreVacantNumToBucket(releasedList);
+		if (!flightList.isEmpty()) {
+			seatHoldMapper.restoreVacantNum(flightList);
+		}
+		publishRestoredEvents(releasedList);
+	}
+
+	/**
+	 * 削除した座席確保情報の確保座席数を空席数に戻し、予約フライト情報の搭乗者数を空席数から減算する。
+	 * <p>
+	 * 人気便の確保座席数は先にロックされていない空席数バケットへロックを待機せずに戻す。 フライト情報を更新する確保座席数の戻しと減算は
+	 * 1つのロック順({@link #FLIGHT_LOCK_ORDER})に並べ、同じフライトは戻してから減算する。 フライト情報のロックは1回の走査で取得され、
+	 * 他の予約処理・座席確保の解放とロック順が一致する。
+	 * </p>
+	 *
+	 * @param releasedList 削除した座席確保情報リスト
+	 * @param reserveFlightList 予約フライト情報リスト
+	 * @throws BusinessException 空席数が搭乗者数未満の場合にスローする例外
+	 */
+	private void changeVacantNum(List<SeatHold> releasedList,
+			List<ReserveFlight> reserveFlightList) throws BusinessException {
+
+		// フライト情報に戻す座席確保情報をロック順に並べる
+		List<SeatHold> restoreList = restoreVacantNumToBucket(releasedList);
+		restoreList.sort(Comparator.comparing(SeatHold::toFlight, FLIGHT_LOCK_ORDER));
+
+		int restored = 0;
+		for (ReserveFlight reserveFlight : sortInLockOrder(reserveFlightList)) {
+			Flight flight = reserveFlight.getFlight();
+
+			// ロック順が同じか前のフライトに確保座席数を戻す
+			int from = restored;
+			while (restored < restoreList.size() && FLIGHT_LOCK_ORDER
+					.compare(restoreList.get(restored).toFlight(), flight) <= 0) {
+				restored++;
+			}
+			if (restored > from) {
+				seatHoldMapper.restoreVacantNum(restoreList.subList(from, restored));
 			}
 
-			// 全搭乗者情報を登録
+			// 空席数から搭乗者数を減算
+			reserveVacantNum(flight, reserveFlight.getPassengerList().size());
+		}
+		if (restored < restoreList.size()) {
+			seatHoldMapper
+					.restoreVacantNum(restoreList.subList(restored, restoreList.size()));
+		}
+
+		publishRestoredEvents(releasedList);
+	}
+
+	/**
+	 * 人気便の確保座席数を、ロックされていない空席数バケットへロックを待機せずに戻す。
+	 *
+	 * @param releasedList 削除した座席確保情報リスト
+	 * @return フライト情報に戻す座席確保情報リスト(人気便以外、全てのバケットがロックされている人気便)
+	 */
+	private List<SeatHold> restoreVacantNumToBucket(List<SeatHold> releasedList) {
+
+		List<SeatHold> flightList = new ArrayList<>(releasedList.size());
+		for (SeatHold released : releasedList) {
+			if (!flightVacantBucketService.isHotFlight(released.getFlightName())
+					|| !flightVacantBucketService.incrementVacantNum(released.toFlight(),
+							released.getHoldNum())) {
+				flightList.add(released);
+			}
+		}
+		return flightList;
+	}
+
+	/**
+	 * 削除した座席確保情報の確保座席数の分、空席数の変更を通知する。
+	 *
+	 * @param releasedList 削除した座席確保情報リスト
+	 */
+	private void publishRestoredEvents(List<SeatHold> releasedList) {
+
+		for (SeatHold released : releasedList) {
+			// 空席数の変更を通知(コミット後に配信)
+			eventPublisher
+					.publishEvent(released.toVacantNumChangedEvent(released.getHoldNum()));
+		}
+	}
+
+	/**
+	 * 空席数から搭乗者数を減算し、空席数の変更を通知する。
+	 *
+	 * @param flight フライト情報
+	 * @param passengerNum 搭乗者数
+	 * @throws BusinessException 空席数が搭乗者数未満の場合にスローする例外
+	 */
+	private void reserveVacantNum(Flight flight, int passengerNum)
+			throws BusinessException {
+
+		if (flightVacantBucketService
+				.isHotFlight(flight.getFlightMaster().getFlightName())) {
+			// 人気便は空席数バケットから減算
+			flightVacantBucketService.decrementVacantNum(flight, passengerNum);
+		}
+		else if (vacantNumUpdateMode == VacantNumUpdateMode.CONDITIONAL_UPDATE) {
+			decrementVacantNum(flight, passengerNum);
+		}
+		else {
+			flight = decrementVacantNumForUpdate(flight, passengerNum);
+		}
+
+		// 空席数の変更を通知(コミット後に配信)
+		eventPublisher.publishEvent(FlightVacantNumChangedEvent.of(flight, -passengerNum));
+	}
+
+	/**
+	 * 予約フライト情報リストをフライト情報のロック順に並べ替える。
+	 * <p>
+	 * ロック順はFLIGHTテーブルの主キー項目(搭乗日, 便名, 搭乗クラスコード, 運賃種別コード)の順とする。 全てのトランザクションで同じ順序であればよく、
+	 * 予約フライト情報の登録順(往路・復路の順)は変更しない。
+	 * </p>
+	 *
+	 * @param reserveFlightList 予約フライト情報リスト
+	 * @return ロック順に並べ替えた予約フライト情報リスト
+	 */
+	private List<ReserveFlight> sortInLockOrder(List<ReserveFlight> reserveFlightList) {
+		List<ReserveFlight> sorted = new ArrayList<>(reserveFlightList.size());
+		for (ReserveFlight reserveFlight : reserveFlightList) {
+			Assert.notNull(reserveFlight);
+			Assert.notNull(reserveFlight.getFlight());
+			sorted.add(reserveFlight);
+		}
+		sorted.sort(LOCK_ORDER);
+		return sorted;
+	}
+
+	/**
+	 * 予約フライト情報と搭乗者情報をまとめて登録する。
+	 * <p>
+	 * 予約フライト番号と搭乗者番号は確保済みのシーケンスの値から採番し、予約フライト情報と搭乗者情報はそれぞれ1回のSQLで登録する。
+	 * 搭乗者数によらずSQLの実行回数は一定となる。
+	 * </p>
+	 *
+	 * @param reserveNo 予約番号
+	 * @param reserveFlightList 予約フライト情報リスト
+	 */
+	private void registerReserveFlightList(String reserveNo,
+			List<ReserveFlight> reserveFlightList) {
+
+		// 予約フライト番号、搭乗者番号を採番
+		List<Passenger> passengerList = assignReserveFlightNos(reserveNo,
+				reserveFlightList);
+
+		// 予約フライト情報を登録
+		int reserveFlightInsertCount = reservationMapper
+				.insertReserveFlightList(reserveFlightList);
+		if (reserveFlightInsertCount != reserveFlightList.size()) {
+			throw new SystemException(LogMessages.E_AR_A0_L9002.getCode(),
+					LogMessages.E_AR_A0_L9002.getMessage(reserveFlightInsertCount,
+							reserveFlightList.size()));
+		}
+
+		// 全搭乗者情報を登録
+		int passengerInsertCount = reservationMapper.insertPassengerList(passengerList);
+		if (passengerInsertCount != passengerList.size()) {
+			throw new SystemException(LogMessages.E_AR_A0_L9002.getCode(),
+					LogMessages.E_AR_A0_L9002.getMessage(passengerInsertCount,
+							passengerList.size()));
+		}
+	}
+
+	/**
+	 * 予約フライト番号と搭乗者番号を採番し、予約番号とともに設定する。
+	 *
+	 * @param reserveNo 予約番号
+	 * @param reserveFlightList 予約フライト情報リスト
+	 * @return 全予約フライト情報の搭乗者リスト
+	 */
+	private List<Passenger> assignReserveFlightNos(String reserveNo,
+			List<ReserveFlight> reserveFlightList) {
+
+		// 予約フライト番号を採番し、予約番号とともに設定
+		long[] reserveFlightNos = sequenceAllocator.next("sq_reserve_flight_1",
+				reserveFlightList.size());
+		List<Passenger> passengerList = new ArrayList<>();
+		for (int i = 0; i < reserveFlightList.size(); i++) {
+			ReserveFlight reserveFlight = reserveFlightList.get(i);
+			reserveFlight.setReserveNo(reserveNo);
+			reserveFlight.setReserveFlightNo((int) reserveFlightNos[i]);
 			for (Passenger passenger : reserveFlight.getPassengerList()) {
 				passenger.setReserveFlightNo(reserveFlight.getReserveFlightNo());
-				int passengerInsertCount = reservationMapper
-						.insertPassenger(passenger);
-				if (passengerInsertCount != 1) {
-					throw new SystemException(LogMessages.E_AR_A0_L9002.getCode(),
-							LogMessages.E_AR_A0_L9002.getMessage(passengerInsertCount,
-									1));
-				}
+				passengerList.add(passenger);
 			}
 		}
 
-		// 往路搭乗日を支払期限とする
-		Date paymentDate = reserveFlightList.get(0).getFlight().getDepartureDate();
+		// 搭乗者番号を採番
+		long[] passengerNos = sequenceAllocator.next("sq_passenger_1",
+				passengerList.size());
+		for (int i = 0; i < passengerList.size(); i++) {
+			passengerList.get(i).setPassengerNo((int) passengerNos[i]);
+		}
+		return passengerList;
+	}
 
-		return new TicketReserveDto(reserveNo, paymentDate);
+	/**
+	 * ジャーナルに追記された予約情報をまとめて登録する。
+	 * <p>
+	 * 登録済みの予約番号の予約情報は読み飛ばす。 予約情報、予約フライト情報、搭乗者情報はそれぞれ一定件数ごとに1回のSQLで登録する。
+	 * </p>
+	 *
+	 * @param reservationList 予約情報リスト(採番済みであること)
+	 */
+	public void registerJournaledReservations(List<Reservation> reservationList) {
+
+		Assert.notNull(reservationList);
+		if (reservationList.isEmpty()) {
+			return;
+		}
+
+		// 登録済みの予約番号を取得
+		List<String> reserveNoList = new ArrayList<>(reservationList.size());
+		for (Reservation reservation : reservationList) {
+			reserveNoList.add(reservation.getReserveNo());
+		}
+		Set<String> registeredReserveNos = new HashSet<>(
+				reservationMapper.findReserveNoList(reserveNoList));
+
+		// 未登録の予約情報を集約
+		List<Reservation> newReservationList = new ArrayList<>();
+		List<ReserveFlight> reserveFlightList = new ArrayList<>();
+		List<Passenger> passengerList = new ArrayList<>();
+		for (Reservation reservation : reservationList) {
+			if (!registeredReserveNos.add(reservation.getReserveNo())) {
+				continue;
+			}
+			newReservationList.add(reservation);
+			for (ReserveFlight reserveFlight : reservation.getReserveFlightList()) {
+				reserveFlightList.add(reserveFlight);
+				passengerList.addAll(reserveFlight.getPassengerList());
+			}
+		}
+
+		// 予約情報、予約フライト情報、搭乗者情報の順に登録
+		for (List<Reservation> chunk : chunk(newReservationList)) {
+			reservationMapper.insertList(chunk);
+		}
+		for (List<ReserveFlight> chunk : chunk(reserveFlightList)) {
+			reservationMapper.insertReserveFlightList(chunk);
+		}
+		for (List<Passenger> chunk : chunk(passengerList)) {
+			reservationMapper.insertPassengerList(chunk);
+		}
+	}
+
+	/**
+	 * 1回のSQLで登録する件数ごとにリストを分割する。
+	 *
+	 * @param list リスト
+	 * @param <T> 要素の型
+	 * @return 分割したリスト
+	 */
+	private static <T> List<List<T>> chunk(List<T> list) {
+		List<List<T>> chunks = new ArrayList<>();
+		for (int i = 0; i < list.size(); i += INSERT_CHUNK_SIZE) {
+			chunks.add(list.subList(i, Math.min(i + INSERT_CHUNK_SIZE, list.size())));
+		}
+		return chunks;
+	}
+
+	/**
+	 * 条件付き更新により、空席数から搭乗者数を減算する。
+	 *
+	 * @param flight フライト情報
+	 * @param passengerNum 搭乗者数
+	 * @throws BusinessException 空席数が搭乗者数未満の場合にスローする例外
+	 */
+	private void decrementVacantNum(Flight flight, int passengerNum)
+			throws BusinessException {
+
+		// 空席数が搭乗者数以上の場合のみ減算
+		Integer vacantNum = flightMapper.decrementVacantNum(flight, passengerNum);
+		if (vacantNum == null) {
+			// 空席数が搭乗者数未満の場合、業務例外をスロー
+			throw new AtrsBusinessException(E_AR_B2_2009);
+		}
+	}
+
+	/**
+	 * フライト情報を排他ロックをかけて取得し、空席数から搭乗者数を減算する。
+	 *
+	 * @param flight フライト情報
+	 * @param passengerNum 搭乗者数
+	 * @return 更新後のフライト情報
+	 * @throws BusinessException 空席数が搭乗者数未満の場合にスローする例外
+	 */
+	private Flight decrementVacantNumForUpdate(Flight flight, int passengerNum)
+			throws BusinessException {
+
+		// 空席数を更新するために、フライト情報を取得する(排他)
+		Flight lockedFlight = flightMapper.findOneForUpdate(flight.getDepartureDate(),
+				flight.getFlightMaster().getFlightName(), flight.getBoardingClass(),
+				flight.getFareType());
+		int vacantNum = lockedFlight.getVacantNum();
 
+		// 取得した空席数が搭乗者数以上であることを確認
+		if (vacantNum < passengerNum) {
+			// 空席数が搭乗者数未満の場合、業務例外をスロー
+			throw new AtrsBusinessException(E_AR_B2_2009);
+		}
+
+		// 取得した空席数から搭乗者数を引いた数を、フライト情報の空席数に設定
+		lockedFlight.setVacantNum(vacantNum - passengerNum);
+
+		// 空席数を更新
+		int flightUpdateCount = flightMapper.update(lockedFlight);
+		if (flightUpdateCount != 1) {
+			throw new SystemException(LogMessages.E_AR_A0_L9002.getCode(),
+					LogMessages.E_AR_A0_L9002.getMessage(flightUpdateCount, 1));
+		}
+		return lockedFlight;
 	}
 
 	/**
@@ -293,11 +843,49 @@ public class TicketReserveService {
 		// 運賃種別の適用可否を検証
 		validateFareType(reserveFlightList);
 
+		// 予約代表者・搭乗者の会員情報をまとめて取得
+		Map<String, Member> memberMap = findMemberMap(reservation);
+
 		// 予約者代表者の検証
-		validateRepresentativeMemberInfo(reservation);
+		validateRepresentativeMemberInfo(reservation, memberMap);
 
 		// 搭乗者情報と登録されている会員情報を照合
-		validatePassengerMemberInfo(reserveFlightList);
+		validatePassengerMemberInfo(reserveFlightList, memberMap);
+	}
+
+	/**
+	 * 予約代表者・搭乗者に入力された会員番号に該当するカード会員情報を1回のSQLで取得する。
+	 * <p>
+	 * 照合に使用する氏名(フリガナ)・性別のみ取得する。
+	 * </p>
+	 *
+	 * @param reservation 予約情報
+	 * @return 会員番号とカード会員情報の関係
+	 */
+	private Map<String, Member> findMemberMap(Reservation reservation) {
+
+		Set<String> membershipNumbers = new HashSet<>();
+		String repMembershipNumber = reservation.getRepMember().getMembershipNumber();
+		if (StringUtils.hasLength(repMembershipNumber)) {
+			membershipNumbers.add(repMembershipNumber);
+		}
+		for (ReserveFlight reserveFlight : reservation.getReserveFlightList()) {
+			for (Passenger passenger : reserveFlight.getPassengerList()) {
+				String membershipNumber = passenger.getMember().getMembershipNumber();
+				if (StringUtils.hasLength(membershipNumber)) {
+					membershipNumbers.add(membershipNumber);
+				}
+			}
+		}
+
+		Map<String, Member> memberMap = new HashMap<>();
+		if (membershipNumbers.isEmpty()) {
+			return memberMap;
+		}
+		for (Member member : memberMapper.findKanaNameAndGenderList(membershipNumbers)) {
+			memberMap.put(member.getMembershipNumber(), member);
+		}
+		return memberMap;
 	}
 
 	/**
@@ -351,10 +939,11 @@ public class TicketReserveService {
 	 * 搭乗者情報とカード会員情報の照合を行う。
 	 *
 	 * @param reserveFlightList 予約フライト情報一覧
+	 * @param memberMap 会員番号とカード会員情報の関係
 	 * @throws AtrsBusinessException 照合失敗例外
 	 */
-	private void validatePassengerMemberInfo(List<ReserveFlight> reserveFlightList)
-			throws AtrsBusinessException {
+	private void validatePassengerMemberInfo(List<ReserveFlight> reserveFlightList,
+			Map<String, Member> memberMap) throws AtrsBusinessException {
 
 		for (ReserveFlight reserveFlight : reserveFlightList) {
 
@@ -376,7 +965,7 @@ public class TicketReserveService {
 				if (StringUtils.hasLength(membershipNumber)) {
 
 					// 搭乗者のカード会員情報取得
-					Member passengerMember = memberMapper.findOne(membershipNumber);
+					Member passengerMember = memberMap.get(membershipNumber);
 
 					// 会員情報が存在することを確認
 					if (passengerMember == null) {
@@ -415,10 +1004,11 @@ public class TicketReserveService {
 	 * 予約代表者の情報をチェックする。
 	 *
 	 * @param reservation 予約情報
+	 * @param memberMap 会員番号とカード会員情報の関係
 	 * @throws AtrsBusinessException チェック失敗例外
 	 */
-	private void validateRepresentativeMemberInfo(Reservation reservation)
-			throws AtrsBusinessException {
+	private void validateRepresentativeMemberInfo(Reservation reservation,
+			Map<String, Member> memberMap) throws AtrsBusinessException {
 
 		String repMembershipNumber = reservation.getRepMember().getMembershipNumber();
 
@@ -426,7 +1016,7 @@ public class TicketReserveService {
 		if (StringUtils.hasLength(repMembershipNumber)) {
 
 			// 予約代表者の会員情報を取得
-			Member repMember = memberMapper.findOne(repMembershipNumber);
+			Member repMember = memberMap.get(repMembershipNumber);
 
 			// 該当する会員情報が存在することを確認
 			if (repMember == null) {
@@ -16,22 +16,28 @@
  */
 package com.example.atrs.ticket;
 
-import java.text.DecimalFormat;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import com.example.atrs.common.exception.AtrsBusinessException;
 import com.example.atrs.common.util.DateTimeUtil;
 import org.terasoluna.gfw.common.exception.BusinessException;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
@@ -45,65 +51,216 @@ import static com.example.atrs.ticket.TicketErrorCode.E_AR_B1_2002;
 @Service
 @Transactional
 public class TicketSearchService {
-	/**
-	 * 搭乗クラス情報提供クラス。
-	 */
-	private final BoardingClassProvider boardingClassProvider;
 
 	private final Clock clock;
 
 	/**
-	 * 運賃種別情報提供クラス。
+	 * ストリーミングの空席照会で1回に取得する出発時刻の件数。
 	 */
-	private final FareTypeProvider fareTypeProvider;
+	private final int streamChunkSize;
 
 	/**
-	 * フライト基本情報提供クラス。
+	 * 運賃表。
 	 */
-	private final FlightMasterProvider flightMasterProvider;
+	private final FareMatrix fareMatrix;
 
 	/**
 	 * フライト情報リポジトリ。
 	 */
 	private final FlightMapper flightMapper;
 
+	/**
+	 * フライト空席数インベントリ。
+	 */
+	private final FlightInventory flightInventory;
+
+	/**
+	 * 空席照会結果のキャッシュ。
+	 */
+	private final FlightSearchResultCache flightSearchResultCache;
+
+	/**
+	 * 参照データ保持クラス。
+	 */
+	private final ReferenceDataRegistry referenceDataRegistry;
+
 	/**
 	 * 区間情報提供クラス。
 	 */
 	private final RouteProvider routeProvider;
 
+	/**
+	 * 空席数バージョン管理クラス。
+	 */
+	private final FlightVacantNumVersionRegistry flightVacantNumVersionRegistry;
+
 	/**
 	 * チケット予約共通サービス。
 	 */
 	private final TicketSharedService ticketSharedService;
 
-	public TicketSearchService(Clock clock, FlightMapper flightMapper,
-							   RouteProvider routeProvider, FareTypeProvider fareTypeProvider,
-							   FlightMasterProvider flightMasterProvider,
-							   BoardingClassProvider boardingClassProvider,
-							   TicketSharedService ticketSharedService) {
+	public TicketSearchService(TicketProperties props, Clock clock,
+							   FlightMapper flightMapper,
+							   FlightInventory flightInventory, FareMatrix fareMatrix,
+							   ReferenceDataRegistry referenceDataRegistry,
+							   RouteProvider routeProvider,
+							   TicketSharedService ticketSharedService,
+							   FlightVacantNumVersionRegistry flightVacantNumVersionRegistry,
+							   FlightSearchResultCache flightSearchResultCache) {
+		this.streamChunkSize = props.getSearchStream().getChunkSize();
 		this.clock = clock;
 		this.flightMapper = flightMapper;
+		this.flightInventory = flightInventory;
+		this.fareMatrix = fareMatrix;
+		this.referenceDataRegistry = referenceDataRegistry;
 		this.routeProvider = routeProvider;
-		this.fareTypeProvider = fareTypeProvider;
-		this.flightMasterProvider = flightMasterProvider;
-		this.boardingClassProvider = boardingClassProvider;
 		this.ticketSharedService = ticketSharedService;
+		this.flightVacantNumVersionRegistry = flightVacantNumVersionRegistry;
+		this.flightSearchResultCache = flightSearchResultCache;
 	}
 
 	/**
 	 * 空席照会を行う。
 	 * <p>
 	 * 検索条件に合致する便と、その便の運賃種別ごとの運賃・空席数を返却する。 便は出発時刻の昇順でソートされる。
+	 * 照会結果は {@link FlightSearchResultCache} にキャッシュされるため、返却するリストとその要素(空席状況・運賃種別群)は変更不可である。
+	 * 区間・運賃種別・運賃などの参照データは、照会の開始時に取得した1つのスナップショットから求める。
 	 * </p>
 	 *
 	 * @param searchCriteria 空席照会の検索条件
 	 * @return 空席照会の検索結果
 	 * @throws BusinessException 該当する空席情報が存在しない場合の業務例外
 	 */
+	@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
 	public List<FlightVacantInfoDto> searchFlight(TicketSearchCriteriaDto searchCriteria)
 			throws BusinessException {
 
+		ReferenceData referenceData = referenceDataRegistry.getSnapshot();
+		VacantSeatSearchCriteriaDto criteria = createVacantSeatSearchCriteria(
+				referenceData, searchCriteria);
+
+		// キャッシュから照会結果を取得し、存在しない場合は照会を行う
+		List<FlightVacantInfoDto> flightVacantInfoList = flightSearchResultCache.get(
+				referenceData, criteria, c -> loadFlightVacantInfoList(referenceData, c));
+
+		// 照会結果件数をチェック
+		if (flightVacantInfoList.isEmpty()) {
+			throw new FlightNotFoundException();
+		}
+
+		return flightVacantInfoList;
+	}
+
+	/**
+	 * 空席照会結果のETagを取得する。
+	 * <p>
+	 * ETagは搭乗日・区間・搭乗クラスの空席数のバージョンから求めるため、空席照会を行わずに取得できる。
+	 * 該当する区間が存在しない場合はnullを返却する。
+	 * </p>
+	 *
+	 * @param searchCriteria 空席照会の検索条件
+	 * @return ETag。該当する区間が存在しない場合はnull。
+	 */
+	@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+	public String getSearchResultETag(TicketSearchCriteriaDto searchCriteria) {
+
+		Assert.notNull(searchCriteria);
+		Assert.notNull(searchCriteria.getDepDate());
+		Assert.notNull(searchCriteria.getBoardingClassCd());
+		Assert.hasText(searchCriteria.getDepartureAirportCd());
+		Assert.hasText(searchCriteria.getArrivalAirportCd());
+
+		Route route = routeProvider.getRouteByAirportCd(
+				searchCriteria.getDepartureAirportCd(),
+				searchCriteria.getArrivalAirportCd());
+		if (route == null) {
+			return null;
+		}
+		return flightVacantNumVersionRegistry.getETag(searchCriteria.getDepDate(), route,
+				searchCriteria.getBoardingClassCd());
+	}
+
+	/**
+	 * 空席照会を行い、照会結果を1件ずつハンドラに渡す。
+	 * <p>
+	 * 検索条件に合致する便と、その便の運賃種別ごとの運賃・空席数を出発時刻の昇順でハンドラに渡す。
+	 * 照会結果は出発時刻の昇順に "ticket.search-stream.chunk-size" 件の出発時刻分ずつ、前回の最後の出発時刻をキーに取得するため、
+	 * 該当する便の件数によらず使用メモリは一定となる。 トランザクションは開始せず、DB接続は1回の取得の間のみ使用するため、
+	 * ハンドラの処理(低速なクライアントへの書き込みなど)に時間がかかってもDB接続を占有しない。 そのため、異なる取得の間で
+	 * 他のトランザクションによる空席数の更新が反映される場合がある。
+	 * </p>
+	 * <p>
+	 * 検索条件が不正な場合、該当する空席情報が存在しない場合はハンドラを呼び出す前に業務例外をスローする。
+	 * ハンドラを呼び出した後に取得やハンドラの処理に失敗した場合は、例外をそのままスローする。 この時点でハンドラが受け取った照会結果は
+	 * 一部のみであるため、呼び出し元で照会結果が不完全であることを通知すること。
+	 * </p>
+	 *
+	 * @param searchCriteria 空席照会の検索条件
+	 * @param handler 空席照会結果を受け取るハンドラ
+	 * @throws BusinessException 該当する空席情報が存在しない場合の業務例外
+	 */
+	@Transactional(propagation = Propagation.NOT_SUPPORTED, readOnly = true)
+	public void searchFlight(TicketSearchCriteriaDto searchCriteria,
+			Consumer<FlightVacantInfoDto> handler) throws BusinessException {
+
+		Assert.notNull(handler);
+
+		ReferenceData referenceData = referenceDataRegistry.getSnapshot();
+		VacantSeatSearchCriteriaDto criteria = createVacantSeatSearchCriteria(
+				referenceData, searchCriteria);
+
+		// 運賃の取得
+		FareMatrix.Fares fares = fareMatrix.getFares(referenceData, criteria.getRoute(),
+				criteria.getBoardingClass(), criteria.getDepDate());
+
+		// インベントリが保持している搭乗日の場合はインベントリから取得
+		List<Flight> flightList = flightInventory
+				.findByVacantSeatSearchCriteria(referenceData, criteria);
+		if (flightList != null) {
+			if (flightList.isEmpty()) {
+				throw new FlightNotFoundException();
+			}
+			createFlightVacantInfoList(flightList, fares).forEach(handler);
+			return;
+		}
+
+		// 出発時刻の昇順にチャンク単位で空席状況を作成し、ハンドラに渡す
+		String afterDepartureTime = null;
+		List<FlightVacantInfoDto> chunk;
+		do {
+			List<Flight> chunkFlightList = flightMapper.findChunkByVacantSeatSearchCriteria(
+					criteria, afterDepartureTime, streamChunkSize);
+			if (chunkFlightList.isEmpty()) {
+				// 照会結果件数をチェック
+				if (afterDepartureTime == null) {
+					throw new FlightNotFoundException();
+				}
+				return;
+			}
+			setRelatedEntities(referenceData, chunkFlightList);
+			chunk = createFlightVacantInfoList(chunkFlightList, fares);
+			chunk.forEach(handler);
+			afterDepartureTime = chunkFlightList.get(chunkFlightList.size() - 1)
+					.getFlightMaster().getDepartureTime();
+		}
+		while (chunk.size() >= streamChunkSize);
+	}
+
+	/**
+	 * 空港グループを指定して空席照会を行う。
+	 * <p>
+	 * 出発空港・到着空港に空港グループコードを指定した場合は、グループに属する空港間の全ての区間を対象とする。
+	 * 全ての区間のフライト情報は1回の検索で取得し、出発時刻の昇順に並べた1つの空席状況一覧として返却する。
+	 * </p>
+	 *
+	 * @param searchCriteria 空席照会の検索条件
+	 * @return 空席照会の検索結果
+	 * @throws BusinessException 該当する空席情報が存在しない場合の業務例外
+	 */
+	@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+	public List<FlightVacantInfoDto> searchFlightByAirportGroup(
+			TicketSearchCriteriaDto searchCriteria) throws BusinessException {
+
 		// 引数チェック
 		Assert.notNull(searchCriteria);
 
@@ -123,11 +280,366 @@ public class TicketSearchService {
 		ticketSharedService.validateDepatureDate(depDate);
 
 		// 指定された出発空港・到着空港に該当する区間が存在するかどうかチェック
-		Route route = routeProvider.getRouteByAirportCd(depAirportCd, arrAirportCd);
+		ReferenceData referenceData = referenceDataRegistry.getSnapshot();
+		List<Route> routeList = routeProvider.getRouteListByAirportGroupCd(referenceData,
+				depAirportCd, arrAirportCd);
+		if (routeList.isEmpty()) {
+			throw new AtrsBusinessException(E_AR_B1_2002);
+		}
+
+		// インベントリから全ての区間の照会結果を取得し、保持していない搭乗日の場合はリポジトリからまとめて取得
+		List<Flight> flightList = new ArrayList<>();
+		List<Integer> routeNoList = new ArrayList<>();
+		Map<Integer, FareMatrix.Fares> faresMap = new LinkedHashMap<>();
+		VacantSeatSearchCriteriaDto criteria = null;
+		for (Route route : routeList) {
+			criteria = createVacantSeatSearchCriteria(depDate, route, boardingClassCd,
+					flightType);
+			routeNoList.add(route.getRouteNo());
+			faresMap.put(route.getRouteNo(),
+					fareMatrix.getFares(referenceData, route, boardingClassCd, depDate));
+			if (flightList != null) {
+				List<Flight> routeFlightList = flightInventory
+						.findByVacantSeatSearchCriteria(referenceData, criteria);
+				if (routeFlightList != null) {
+					flightList.addAll(routeFlightList);
+				}
+				else {
+					flightList = null;
+				}
+			}
+		}
+		if (flightList == null) {
+			flightList = flightMapper.findByRouteNoListAndVacantSeatSearchCriteria(
+					routeNoList, criteria);
+			setRelatedEntities(referenceData, flightList);
+		}
+
+		// 照会結果件数をチェック
+		if (flightList.isEmpty()) {
+			throw new FlightNotFoundException();
+		}
+
+		// 便ごとにフライト情報をまとめ、空席状況を作成
+		Map<String, List<Flight>> flightListMap = new LinkedHashMap<>();
+		for (Flight flight : flightList) {
+			flightListMap.computeIfAbsent(flight.getFlightMaster().getFlightName(),
+					k -> new ArrayList<>()).add(flight);
+		}
+		List<FlightVacantInfoDto> flightVacantInfoList = new ArrayList<>(
+				flightListMap.size());
+		for (List<Flight> sameFlightList : flightListMap.values()) {
+			Route route = sameFlightList.get(0).getFlightMaster().getRoute();
+			flightVacantInfoList.add(createFlightVacantInfo(sameFlightList,
+					faresMap.get(route.getRouteNo())));
+		}
+
+		// 出発時刻の昇順に並べて返却
+		flightVacantInfoList.sort(Comparator.comparing(FlightVacantInfoDto::getDepTime)
+				.thenComparing(FlightVacantInfoDto::getFlightName));
+		return flightVacantInfoList;
+	}
+
+	/**
+	 * 往復の空席照会を行う。
+	 * <p>
+	 * 往路・復路のフライト情報を1回の検索で取得し、往路・復路それぞれの空席状況一覧を返却する。
+	 * 復路はいずれかの往路フライトの到着時刻から予約可能時間間隔以上経過して出発するフライトのみとし、
+	 * 往路フライトごとに予約可能な復路フライトの組み合わせを返却する。
+	 * </p>
+	 *
+	 * @param searchCriteria 往復の空席照会の検索条件
+	 * @return 往復の空席照会の検索結果
+	 * @throws BusinessException 該当する空席情報が存在しない場合の業務例外
+	 */
+	@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+	public RoundTripFlightVacantInfoDto searchRoundTripFlight(
+			RoundTripSearchCriteriaDto searchCriteria) throws BusinessException {
+
+		// 引数チェック
+		Assert.notNull(searchCriteria);
+
+		Date outwardDate = searchCriteria.getOutwardDate();
+		Date homewardDate = searchCriteria.getHomewardDate();
+		BoardingClassCd boardingClassCd = searchCriteria.getBoardingClassCd();
+		String depAirportCd = searchCriteria.getDepartureAirportCd();
+		String arrAirportCd = searchCriteria.getArrivalAirportCd();
+
+		Assert.notNull(outwardDate);
+		Assert.notNull(homewardDate);
+		Assert.isTrue(!homewardDate.before(outwardDate));
+		Assert.notNull(boardingClassCd);
+		Assert.hasText(depAirportCd);
+		Assert.hasText(arrAirportCd);
+
+		// 搭乗日が照会可能な範囲かチェック
+		ticketSharedService.validateDepatureDate(outwardDate);
+		ticketSharedService.validateDepatureDate(homewardDate);
+
+		// 往路・復路の区間が存在するかどうかチェック
+		ReferenceData referenceData = referenceDataRegistry.getSnapshot();
+		Route outwardRoute = routeProvider.getRouteByAirportCd(referenceData,
+				depAirportCd, arrAirportCd);
+		Route homewardRoute = routeProvider.getRouteByAirportCd(referenceData,
+				arrAirportCd, depAirportCd);
+		if (outwardRoute == null || homewardRoute == null) {
+			throw new AtrsBusinessException(E_AR_B1_2002);
+		}
+
+		VacantSeatSearchCriteriaDto outwardCriteria = createVacantSeatSearchCriteria(
+				outwardDate, outwardRoute, boardingClassCd, FlightType.RT);
+		VacantSeatSearchCriteriaDto homewardCriteria = createVacantSeatSearchCriteria(
+				homewardDate, homewardRoute, boardingClassCd, FlightType.RT);
+
+		// インベントリから照会結果を取得し、保持していない搭乗日の場合は往路・復路をまとめてリポジトリから取得
+		List<Flight> outwardFlightList = flightInventory
+				.findByVacantSeatSearchCriteria(referenceData, outwardCriteria);
+		List<Flight> homewardFlightList = flightInventory
+				.findByVacantSeatSearchCriteria(referenceData, homewardCriteria);
+		if (outwardFlightList == null || homewardFlightList == null) {
+			outwardFlightList = new ArrayList<>();
+			homewardFlightList = new ArrayList<>();
+			for (Flight flight : findByRoundTripVacantSeatSearchCriteria(referenceData,
+					outwardCriteria, homewardCriteria)) {
+				if (outwardRoute.getRouteNo()
+						.equals(flight.getFlightMaster().getRoute().getRouteNo())) {
+					outwardFlightList.add(flight);
+				}
+				else {
+					homewardFlightList.add(flight);
+				}
+			}
+		}
+
+		// 往路フライトごとに予約可能な復路フライトを求める
+		Map<String, List<String>> pairings = new LinkedHashMap<>();
+		Map<String, Flight> homewardFlightMap = new LinkedHashMap<>();
+		for (Flight homewardFlight : homewardFlightList) {
+			homewardFlightMap.putIfAbsent(
+					homewardFlight.getFlightMaster().getFlightName(), homewardFlight);
+		}
+		Set<String> pairedHomewardFlightNames = new HashSet<>();
+		for (Flight outwardFlight : outwardFlightList) {
+			String outwardFlightName = outwardFlight.getFlightMaster().getFlightName();
+			if (pairings.containsKey(outwardFlightName)) {
+				continue;
+			}
+			List<String> homewardFlightNames = new ArrayList<>();
+			for (Flight homewardFlight : homewardFlightMap.values()) {
+				if (ticketSharedService.isReservableHomewardFlight(outwardFlight,
+						homewardFlight)) {
+					homewardFlightNames
+							.add(homewardFlight.getFlightMaster().getFlightName());
+				}
+			}
+			pairings.put(outwardFlightName, homewardFlightNames);
+			pairedHomewardFlightNames.addAll(homewardFlightNames);
+		}
+
+		// 往路と組み合わせられない復路フライトを除外
+		homewardFlightList.removeIf(flight -> !pairedHomewardFlightNames
+				.contains(flight.getFlightMaster().getFlightName()));
+
+		// 照会結果件数をチェック
+		if (outwardFlightList.isEmpty() || homewardFlightList.isEmpty()) {
+			throw new FlightNotFoundException();
+		}
+
+		// 照会結果のリストを作成
+		List<FlightVacantInfoDto> outwardFlights = createFlightVacantInfoList(
+				outwardFlightList,
+				fareMatrix.getFares(referenceData, outwardRoute, boardingClassCd,
+						outwardDate));
+		List<FlightVacantInfoDto> homewardFlights = createFlightVacantInfoList(
+				homewardFlightList,
+				fareMatrix.getFares(referenceData, homewardRoute, boardingClassCd,
+						homewardDate));
+
+		return new RoundTripFlightVacantInfoDto(outwardFlights, homewardFlights,
+				pairings);
+	}
+
+	/**
+	 * 期間指定の空席照会を行う。
+	 * <p>
+	 * 検索条件の照会期間・全搭乗クラスについて、搭乗日・運賃種別ごとの空席数(全便の合計)と運賃を返却する。
+	 * フライト情報は1回のSQLで取得し、1件ずつ集計する。
+	 * </p>
+	 *
+	 * @param searchCriteria 期間指定の空席照会の検索条件
+	 * @return 期間指定の空席照会の検索結果
+	 * @throws BusinessException 該当する空席情報が存在しない場合の業務例外
+	 */
+	@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+	public FlightCalendarDto searchFlightCalendar(FlightCalendarCriteriaDto searchCriteria)
+			throws BusinessException {
+
+		// 引数チェック
+		Assert.notNull(searchCriteria);
+
+		Date fromDate = searchCriteria.getFromDate();
+		Date toDate = searchCriteria.getToDate();
+		String depAirportCd = searchCriteria.getDepartureAirportCd();
+		String arrAirportCd = searchCriteria.getArrivalAirportCd();
+		FlightType flightType = searchCriteria.getFlightType();
+
+		Assert.notNull(fromDate);
+		Assert.notNull(toDate);
+		Assert.isTrue(!toDate.before(fromDate));
+		Assert.hasText(depAirportCd);
+		Assert.hasText(arrAirportCd);
+		Assert.notNull(flightType);
+
+		// 照会期間が照会可能な範囲かチェック
+		ticketSharedService.validateDepatureDate(fromDate);
+		ticketSharedService.validateDepatureDate(toDate);
+
+		// 指定された出発空港・到着空港に該当する区間が存在するかどうかチェック
+		ReferenceData referenceData = referenceDataRegistry.getSnapshot();
+		Route route = routeProvider.getRouteByAirportCd(referenceData, depAirportCd,
+				arrAirportCd);
+		if (route == null) {
+			throw new AtrsBusinessException(E_AR_B1_2002);
+		}
+
+		LocalDate today = LocalDate.now(this.clock);
+		LocalDate from = DateTimeUtil.toLocalDate(fromDate);
+		int days = (int) ChronoUnit.DAYS.between(from, DateTimeUtil.toLocalDate(toDate))
+				+ 1;
+
+		// 運賃種別を表示順に並べ、添字を割り当てる
+		List<FareType> fareTypeList = new ArrayList<>();
+		for (FareTypeCd fareTypeCd : flightType.getFareTypeCdList()) {
+			FareType fareType = referenceData.getFareType(fareTypeCd);
+			if (fareType != null) {
+				fareTypeList.add(fareType);
+			}
+		}
+		fareTypeList.sort(Comparator.comparing(FareType::getDisplayOrder));
+		int[] fareTypeIndex = new int[FareTypeCd.values().length];
+		List<FareTypeCd> fareTypeCds = new ArrayList<>();
+		List<String> fareTypeNames = new ArrayList<>();
+		for (FareType fareType : fareTypeList) {
+			fareTypeIndex[fareType.getFareTypeCd().ordinal()] = fareTypeCds.size();
+			fareTypeCds.add(fareType.getFareTypeCd());
+			fareTypeNames.add(fareType.getFareTypeName());
+		}
+
+		BoardingClassCd[] boardingClassCds = BoardingClassCd.values();
+		int[][][] vacantNums = new int[boardingClassCds.length][days][fareTypeCds
+				.size()];
+		for (int[][] classVacantNums : vacantNums) {
+			for (int[] dayVacantNums : classVacantNums) {
+				Arrays.fill(dayVacantNums, -1);
+			}
+		}
+
+		// リポジトリから照会結果を取得し、[搭乗クラス][搭乗日][運賃種別]ごとに空席数を集計
+		long fromEpochDay = from.toEpochDay();
+		flightMapper.findByRouteAndDepartureDateRange(route.getRouteNo(), fromDate,
+				toDate, DateTimeUtil.toDate(today), fareTypeCds, context -> {
+					Flight flight = context.getResultObject();
+					int day = (int) (DateTimeUtil.toLocalDate(flight.getDepartureDate())
+							.toEpochDay() - fromEpochDay);
+					int[] dayVacantNums = vacantNums[flight.getBoardingClass()
+							.getBoardingClassCd().ordinal()][day];
+					int fareTypeIdx = fareTypeIndex[flight.getFareType().getFareTypeCd()
+							.ordinal()];
+					dayVacantNums[fareTypeIdx] = Math.max(dayVacantNums[fareTypeIdx], 0)
+							+ flight.getVacantNum();
+				});
+
+		// 空席情報が存在する搭乗日・運賃種別の運賃を設定
+		boolean found = false;
+		int[][][] fares = new int[boardingClassCds.length][days][fareTypeCds.size()];
+		List<String> depDates = new ArrayList<>();
+		for (int day = 0; day < days; day++) {
+			depDates.add(from.plusDays(day).format(DateTimeUtil.DATE_FORMATTER));
+		}
+		for (BoardingClassCd boardingClassCd : boardingClassCds) {
+			int classIdx = boardingClassCd.ordinal();
+			for (int day = 0; day < days; day++) {
+				int[] dayVacantNums = vacantNums[classIdx][day];
+				int[] dayFares = fares[classIdx][day];
+				Arrays.fill(dayFares, -1);
+				FareMatrix.Fares dayFareMatrix = null;
+				for (int i = 0; i < dayVacantNums.length; i++) {
+					if (dayVacantNums[i] < 0) {
+						continue;
+					}
+					if (dayFareMatrix == null) {
+						dayFareMatrix = fareMatrix.getFares(referenceData, route,
+								boardingClassCd,
+								DateTimeUtil.toDate(from.plusDays(day)));
+					}
+					dayFares[i] = dayFareMatrix.getFare(fareTypeCds.get(i));
+					found = true;
+				}
+			}
+		}
+
+		// 照会結果件数をチェック
+		if (!found) {
+			throw new FlightNotFoundException();
+		}
+
+		return new FlightCalendarDto(Arrays.asList(boardingClassCds), depDates,
+				fareTypeCds, fareTypeNames, fares, vacantNums);
+	}
+
+	/**
+	 * 空席照会の検索条件をチェックし、空席情報検索条件を作成する。
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 * @param searchCriteria 空席照会の検索条件
+	 * @return 空席情報検索条件
+	 * @throws BusinessException 検索条件が不正な場合の業務例外
+	 */
+	private VacantSeatSearchCriteriaDto createVacantSeatSearchCriteria(
+			ReferenceData referenceData, TicketSearchCriteriaDto searchCriteria)
+			throws BusinessException {
+
+		// 引数チェック
+		Assert.notNull(searchCriteria);
+
+		Date depDate = searchCriteria.getDepDate();
+		BoardingClassCd boardingClassCd = searchCriteria.getBoardingClassCd();
+		String depAirportCd = searchCriteria.getDepartureAirportCd();
+		String arrAirportCd = searchCriteria.getArrivalAirportCd();
+		FlightType flightType = searchCriteria.getFlightType();
+
+		Assert.notNull(depDate);
+		Assert.notNull(boardingClassCd);
+		Assert.hasText(depAirportCd);
+		Assert.hasText(arrAirportCd);
+		Assert.notNull(flightType);
+
+		// 搭乗日が照会可能な範囲かチェック
+		ticketSharedService.validateDepatureDate(depDate);
+
+		// 指定された出発空港・到着空港に該当する区間が存在するかどうかチェック
+		Route route = routeProvider.getRouteByAirportCd(referenceData, depAirportCd,
+				arrAirportCd);
 		if (route == null) {
 			throw new AtrsBusinessException(E_AR_B1_2002);
 		}
 
+		return createVacantSeatSearchCriteria(depDate, route, boardingClassCd,
+				flightType);
+	}
+
+	/**
+	 * 空席情報検索条件を作成する。
+	 *
+	 * @param depDate 搭乗日
+	 * @param route 区間情報
+	 * @param boardingClassCd 搭乗クラスコード
+	 * @param flightType フライト種別
+	 * @return 空席情報検索条件
+	 */
+	private VacantSeatSearchCriteriaDto createVacantSeatSearchCriteria(Date depDate,
+			Route route, BoardingClassCd boardingClassCd, FlightType flightType) {
+
 		// システム日付が搭乗日から何日前かを計算
 		LocalDateTime today = LocalDate.now(this.clock).atTime(0, 0);
 		LocalDateTime depLocalDate = DateTimeUtil.toLocalDate(depDate).atTime(0, 0);
@@ -137,103 +649,159 @@ public class TicketSearchService {
 		// フライト種別に応じて運賃種別コードを空席照会条件Dtoに設定
 		List<FareTypeCd> fareTypeList = flightType.getFareTypeCdList();
 
-		VacantSeatSearchCriteriaDto criteria = new VacantSeatSearchCriteriaDto(depDate,
-				route, boardingClassCd, beforeDayNum, fareTypeList);
-
-		// リポジトリから照会結果を取得
-		List<Flight> flightList = flightMapper
-				.findByVacantSeatSearchCriteria(criteria);
+		return new VacantSeatSearchCriteriaDto(depDate, route, boardingClassCd,
+				beforeDayNum, fareTypeList);
+	}
 
-		// 照会結果件数をチェック
-		if (flightList.isEmpty()) {
-			throw new FlightNotFoundException();
+	/**
+	 * 空席情報検索条件に該当する空席状況一覧を作成する。
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 * @param criteria 空席情報検索条件
+	 * @return 空席状況一覧。該当する空席情報が存在しない場合は空のリスト。
+	 */
+	private List<FlightVacantInfoDto> loadFlightVacantInfoList(
+			ReferenceData referenceData, VacantSeatSearchCriteriaDto criteria) {
+
+		// インベントリから照会結果を取得し、保持していない搭乗日の場合はリポジトリから取得
+		List<Flight> flightList = flightInventory
+				.findByVacantSeatSearchCriteria(referenceData, criteria);
+		if (flightList == null) {
+			flightList = findByVacantSeatSearchCriteria(referenceData, criteria);
 		}
-
-		// 取得したフライトに関連するエンティティを設定
-		for (Flight flight : flightList) {
-			FareTypeCd fareTypeCd = flight.getFareType().getFareTypeCd();
-			flight.setFareType(fareTypeProvider.getFareType(fareTypeCd));
-			flight.setFlightMaster(flightMasterProvider
-					.getFlightMaster(flight.getFlightMaster().getFlightName()));
-			flight.setBoardingClass(boardingClassProvider
-					.getBoardingClass(flight.getBoardingClass().getBoardingClassCd()));
+		if (flightList.isEmpty()) {
+			return new ArrayList<>();
 		}
 
-		// 基本運賃の計算
-		int basicFare = ticketSharedService.calculateBasicFare(route.getBasicFare(),
-				boardingClassCd, depDate);
+		// 運賃の取得
+		FareMatrix.Fares fares = fareMatrix.getFares(referenceData, criteria.getRoute(),
+				criteria.getBoardingClass(), criteria.getDepDate());
 
 		// 照会結果のリストを作成
-		List<FlightVacantInfoDto> flightVacantInfoList = createFlightVacantInfoList(
-				flightList, basicFare);
+		return createFlightVacantInfoList(flightList, fares);
+	}
 
-		return flightVacantInfoList;
+	/**
+	 * リポジトリから空席情報を取得し、関連するエンティティを設定する。
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 * @param criteria 空席情報検索条件
+	 * @return 空席情報リスト
+	 */
+	private List<Flight> findByVacantSeatSearchCriteria(ReferenceData referenceData,
+			VacantSeatSearchCriteriaDto criteria) {
+
+		List<Flight> flightList = flightMapper.findByVacantSeatSearchCriteria(criteria);
+		setRelatedEntities(referenceData, flightList);
+		return flightList;
+	}
+
+	/**
+	 * リポジトリから往路・復路の空席情報を取得し、関連するエンティティを設定する。
+	 *
+	 * @param referenceData 参照データのスナップショット
+	 * @param outwardCriteria 往路の空席情報検索条件
+	 * @param homewardCriteria 復路の空席情報検索条件
+	 * @return 空席情報リスト
+	 */
+	private List<Flight> findByRoundTripVacantSeatSearchCriteria(
+			ReferenceData referenceData, VacantSeatSearchCriteriaDto outwardCriteria,
+			VacantSeatSearchCriteriaDto homewardCriteria) {
+
+		List<Flight> flightList = flightMapper
+				.findByRoundTripVacantSeatSearchCriteria(outwardCriteria, homewardCriteria);
+		setRelatedEntities(referenceData, flightList);
+		return flightList;
 	}
 
 	/**
-	 * 空席状況情報を作成する。
+	 * フライト情報に関連するエンティティを設定する。
 	 *
+	 * @param referenceData 参照データのスナップショット
+	 * @param flightList フライト情報リスト
+	 */
+	private void setRelatedEntities(ReferenceData referenceData,
+			List<Flight> flightList) {
+
+		// 取得したフライトに関連するエンティティを設定
+		for (Flight flight : flightList) {
+			setRelatedEntities(referenceData, flight);
+		}
+	}
+
+	/**
+	 * フライト情報に関連するエンティティを設定する。
+	 *
+	 * @param referenceData 参照データのスナップショット
 	 * @param flight フライト情報
+	 */
+	private void setRelatedEntities(ReferenceData referenceData, Flight flight) {
+		FareTypeCd fareTypeCd = flight.getFareType().getFareTypeCd();
+		flight.setFareType(referenceData.getFareType(fareTypeCd));
+		flight.setFlightMaster(referenceData
+				.getFlightMaster(flight.getFlightMaster().getFlightName()));
+		flight.setBoardingClass(referenceData
+				.getBoardingClass(flight.getBoardingClass().getBoardingClassCd()));
+	}
+
+	/**
+	 * 同じ便の運賃種別ごとのフライト情報から、空席状況情報を作成する。
+	 *
+	 * @param sameFlightList 同じ便のフライト情報リスト(運賃種別ごと)
+	 * @param fares 運賃
 	 * @return 空席照会結果
 	 */
-	private FlightVacantInfoDto createFlightVacantInfo(Flight flight) {
+	private FlightVacantInfoDto createFlightVacantInfo(List<Flight> sameFlightList,
+			FareMatrix.Fares fares) {
 
-		FlightVacantInfoDto vacantInfo = new FlightVacantInfoDto();
+		// 運賃種別ごとの運賃・空席数
+		Map<String, FareTypeVacantInfoDto> fareTypes = new LinkedHashMap<>();
+		for (Flight flight : sameFlightList) {
+			FareType fareType = flight.getFareType();
+			fareTypes.put(fareType.getFareTypeCd().getCode(),
+					new FareTypeVacantInfoDto(fareType.getFareTypeName(),
+							fares.getFormattedFare(fareType.getFareTypeCd()),
+							fares.getFare(fareType.getFareTypeCd()),
+							flight.getVacantNum()));
+		}
 
+		Flight flight = sameFlightList.get(0);
 		FlightMaster flightMaster = flight.getFlightMaster();
-		vacantInfo.setFlightName(flightMaster.getFlightName());
 		Route route = flightMaster.getRoute();
-		vacantInfo.setDepAirportName(route.getDepartureAirport().getName());
-		vacantInfo.setArrAirportName(route.getArrivalAirport().getName());
 		String depTime = DateTimeUtil.toFormatTimeString(flightMaster.getDepartureTime());
-		vacantInfo.setDepTime(depTime);
 		String arrTime = DateTimeUtil.toFormatTimeString(flightMaster.getArrivalTime());
-		vacantInfo.setArrTime(arrTime);
-		vacantInfo.setDepDate(DateTimeUtil.toFormatDateString(flight.getDepartureDate()));
-		vacantInfo.setBoardingClassCd(flight.getBoardingClass().getBoardingClassCd());
 
-		return vacantInfo;
+		return new FlightVacantInfoDto(flightMaster.getFlightName(),
+				route.getDepartureAirport().getName(),
+				route.getArrivalAirport().getName(),
+				DateTimeUtil.toFormatDateString(flight.getDepartureDate()), depTime,
+				arrTime, flight.getBoardingClass().getBoardingClassCd(), fareTypes);
 	}
 
 	/**
 	 * フライトリストから空席状況一覧リストを作成する。
 	 *
 	 * @param flightList フライトリスト
-	 * @param basicFare 基本運賃
+	 * @param fares 運賃
 	 * @return 空席状況一覧リスト
 	 */
 	private List<FlightVacantInfoDto> createFlightVacantInfoList(List<Flight> flightList,
-			int basicFare) {
-
-		// 空席状況一覧Map
-		Map<String, FlightVacantInfoDto> vacantInfoMap = new LinkedHashMap<>();
-
-		DecimalFormat fareFormatter = new DecimalFormat("###,###");
+			FareMatrix.Fares fares) {
 
+		// 出発時刻ごとにフライト情報をまとめる
+		Map<String, List<Flight>> flightListMap = new LinkedHashMap<>();
 		for (Flight flight : flightList) {
-
-			FlightMaster flightMaster = flight.getFlightMaster();
-			String departureTime = flightMaster.getDepartureTime();
-			FlightVacantInfoDto vacantInfo = vacantInfoMap.get(departureTime);
-			if (vacantInfo == null) {
-				vacantInfo = createFlightVacantInfo(flight);
-				vacantInfoMap.put(departureTime, vacantInfo);
-			}
-
-			// 運賃種別情報を設定
-			FareType fareType = flight.getFareType();
-			int fare = ticketSharedService.calculateFare(basicFare,
-					fareType.getDiscountRate());
-			FareTypeVacantInfoDto fareTypeVacantInfo = new FareTypeVacantInfoDto(
-					fareType.getFareTypeName(), fareFormatter.format(fare),
-					flight.getVacantNum());
-
-			vacantInfo.addFareTypeVacantInfo(fareType.getFareTypeCd(),
-					fareTypeVacantInfo);
+			flightListMap.computeIfAbsent(flight.getFlightMaster().getDepartureTime(),
+					k -> new ArrayList<>()).add(flight);
 		}
 
-		// リストに変換して返却
-		return new ArrayList<>(vacantInfoMap.values());
+		// 出発時刻ごとに空席状況を作成して返却
+		List<FlightVacantInfoDto> flightVacantInfoList = new ArrayList<>(
+				flightListMap.size());
+		for (List<Flight> sameFlightList : flightListMap.values()) {
+			flightVacantInfoList.add(createFlightVacantInfo(sameFlightList, fares));
+		}
+		return flightVacantInfoList;
 	}
 
 }
@@ -41,16 +41,6 @@ import static com.example.atrs.ticket.TicketErrorCode.E_AR_B1_2001;
 @Service
 public class TicketSharedService {
 
-	/**
-	 * 通常時のピーク時期積算比率(%)。
-	 */
-	private static final int MULTIPLICATION_RATIO_IN_NORMAL_TIME = 100;
-
-	/**
-	 * 搭乗クラス情報提供クラス。
-	 */
-	private final BoardingClassProvider boardingClassProvider;
-
 	private final Clock clock;
 
 	/**
@@ -74,37 +64,36 @@ public class TicketSharedService {
 	private final Duration reserveIntervalTime;
 
 	public TicketSharedService(TicketProperties props, Clock clock,
-			BoardingClassProvider boardingClassProvider,
 			PeakTimeProvider peakTimeProvider, FlightMapper flightMapper) {
 		this.reserveIntervalTime = props.getReserveIntervalTime();
 		this.limitDay = props.getLimitDay();
 		this.clock = clock;
-		this.boardingClassProvider = boardingClassProvider;
 		this.peakTimeProvider = peakTimeProvider;
 		this.flightMapper = flightMapper;
 	}
 
 	/**
-	 * 基本運賃を計算する。
+	 * 参照データのスナップショットから基本運賃を計算する。
 	 *
+	 * @param referenceData 参照データのスナップショット
 	 * @param basicFareOfRoute 区間の基本運賃
 	 * @param boardingClassCd 搭乗クラスコード
 	 * @param depDate 搭乗日
 	 * @return 基本運賃
 	 */
-	public int calculateBasicFare(int basicFareOfRoute, BoardingClassCd boardingClassCd,
-			Date depDate) {
+	public int calculateBasicFare(ReferenceData referenceData, int basicFareOfRoute,
+			BoardingClassCd boardingClassCd, Date depDate) {
+		Assert.notNull(referenceData);
 		Assert.isTrue(basicFareOfRoute >= 0);
 		Assert.notNull(boardingClassCd);
 		Assert.notNull(depDate);
 
 		// 搭乗クラスの加算料金の取得
-		BoardingClass boardingClass = boardingClassProvider
-				.getBoardingClass(boardingClassCd);
+		BoardingClass boardingClass = referenceData.getBoardingClass(boardingClassCd);
 		int boardingClassFare = boardingClass.getExtraCharge();
 
 		// 搭乗日の料金積算比率の取得
-		int multiplicationRatio = getMultiplicationRatio(depDate);
+		int multiplicationRatio = getMultiplicationRatio(referenceData, depDate);
 
 		// 基本運賃の計算
 		int basicFare = (int) ((basicFareOfRoute + boardingClassFare)
@@ -190,6 +179,35 @@ public class TicketSharedService {
 				|| today.isAfter(rsrvAvailableEndDate));
 	}
 
+	/**
+	 * 復路フライトが往路フライトに対して予約可能な出発時刻かどうかを判定する。
+	 * <p>
+	 * 復路のフライトは往路のフライトの到着時刻より指定時間間隔以上経過した出発時刻から搭乗可能となる。
+	 * </p>
+	 *
+	 * @param outwardFlight 往路フライト情報
+	 * @param homewardFlight 復路フライト情報
+	 * @return 予約可能な場合true
+	 */
+	public boolean isReservableHomewardFlight(Flight outwardFlight,
+			Flight homewardFlight) {
+		Assert.notNull(outwardFlight);
+		Assert.notNull(homewardFlight);
+
+		// 往路のフライトの到着時刻
+		LocalDateTime outwardArriveDateTime = DateTimeUtil.toDateTime(
+				outwardFlight.getDepartureDate(),
+				outwardFlight.getFlightMaster().getArrivalTime());
+
+		// 復路のフライト出発時刻
+		LocalDateTime homewardDepartureDateTime = DateTimeUtil.toDateTime(
+				homewardFlight.getDepartureDate(),
+				homewardFlight.getFlightMaster().getDepartureTime());
+
+		return !outwardArriveDateTime.plusMinutes(reserveIntervalTime.toMinutes())
+				.isAfter(homewardDepartureDateTime);
+	}
+
 	/**
 	 * 搭乗日の有効性チェックを実行する。
 	 *
@@ -262,21 +280,15 @@ public class TicketSharedService {
 	/**
 	 * 搭乗日の料金積算比率を取得する。
 	 *
+	 * @param referenceData 参照データのスナップショット
 	 * @param departureDate 搭乗日
 	 * @return 搭乗日の料金積算比率
 	 */
-	private int getMultiplicationRatio(Date departureDate) {
-
-		// 該当するピーク時期情報を取得
-		PeakTime peakTime = peakTimeProvider.getPeakTime(departureDate);
-
-		// 該当するピーク時期が存在する場合、積算比率を返却
-		if (peakTime != null) {
-			return peakTime.getMultiplicationRatio();
-		}
+	private int getMultiplicationRatio(ReferenceData referenceData, Date departureDate) {
 
-		// 該当するピーク時期が存在しない場合は、通常時の積算比率を返却
-		return MULTIPLICATION_RATIO_IN_NORMAL_TIME;
+		// 該当するピーク時期が存在しない場合は、通常時の積算比率が返却される
+		return peakTimeProvider.ratioFor(referenceData,
+				DateTimeUtil.toLocalDate(departureDate).toEpochDay());
 	}
 
 	/**
@@ -289,21 +301,10 @@ public class TicketSharedService {
 	private void validateFlightDepartureDateForRoundTripFlight(Flight outwardFlight,
 			Flight homewardFlight) throws BusinessException {
 
-		// 往路のフライトの到着時刻
-		LocalDateTime outwardArriveDateTime = DateTimeUtil.toDateTime(
-				outwardFlight.getDepartureDate(),
-				outwardFlight.getFlightMaster().getArrivalTime());
-
-		// 復路のフライト出発時刻
-		LocalDateTime homewardDepartureDateTime = DateTimeUtil.toDateTime(
-				homewardFlight.getDepartureDate(),
-				homewardFlight.getFlightMaster().getDepartureTime());
-
 		// 選択した復路のフライトが搭乗範囲外の場合、業務例外をスロー
 		// (復路のフライトは往路のフライトの到着時刻より指定時間間隔以上経過した
 		// 出発時刻から搭乗可能となる)
-		if (outwardArriveDateTime.plusMinutes(reserveIntervalTime.toMinutes())
-				.isAfter(homewardDepartureDateTime)) {
+		if (!isReservableHomewardFlight(outwardFlight, homewardFlight)) {
 			throw new AtrsBusinessException(TicketErrorCode.E_AR_B2_2001);
 		}
 	}
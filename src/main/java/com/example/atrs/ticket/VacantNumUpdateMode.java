@@ -0,0 +1,42 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+/**
+ * 予約時の空席数更新方式の列挙型。
+ *
+ * @author NTT 電電太郎
+ */
+public enum VacantNumUpdateMode {
+
+	/**
+	 * フライト情報を排他ロックをかけて取得し、空席数を確認してから更新する方式。
+	 * <p>
+	 * 1区間あたり2回のSQLを実行する。
+	 * </p>
+	 */
+	SELECT_FOR_UPDATE,
+
+	/**
+	 * 空席数が搭乗者数以上の場合のみ空席数を減算する条件付き更新を行う方式。
+	 * <p>
+	 * 1区間あたり1回のSQLで確認と更新を行う。
+	 * </p>
+	 */
+	CONDITIONAL_UPDATE
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket.api;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import javax.validation.constraints.NotNull;
+
+import com.example.atrs.ticket.FlightType;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.terasoluna.gfw.common.codelist.ExistInCodeList;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * 期間指定の空席照会条件フォーム。
+ *
+ * @author NTT 電電太郎
+ */
+public class FlightCalendarCriteriaForm implements Serializable {
+
+	private static final long serialVersionUID = -1815227391840254006L;
+
+	@NotNull
+	@ExistInCodeList(codeListId = "CL_AIRPORT")
+	private String arrAirportCd;
+
+	@NotNull
+	@ExistInCodeList(codeListId = "CL_AIRPORT")
+	private String depAirportCd;
+
+	@NotNull
+	@DateTimeFormat(pattern = "yyyy/MM/dd")
+	private Date fromDate;
+
+	@NotNull
+	@DateTimeFormat(pattern = "yyyy/MM/dd")
+	private Date toDate;
+
+	@NotNull
+	private FlightType flightType;
+
+	public String getArrAirportCd() {
+		return arrAirportCd;
+	}
+
+	public void setArrAirportCd(String arrAirportCd) {
+		this.arrAirportCd = arrAirportCd;
+	}
+
+	public String getDepAirportCd() {
+		return depAirportCd;
+	}
+
+	public void setDepAirportCd(String depAirportCd) {
+		this.depAirportCd = depAirportCd;
+	}
+
+	public Date getFromDate() {
+		return fromDate;
+	}
+
+	public void setFromDate(Date fromDate) {
+		this.fromDate = fromDate;
+	}
+
+	public Date getToDate() {
+		return toDate;
+	}
+
+	public void setToDate(Date toDate) {
+		this.toDate = toDate;
+	}
+
+	public FlightType getFlightType() {
+		return flightType;
+	}
+
+	public void setFlightType(FlightType flightType) {
+		this.flightType = flightType;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SIMPLE_STYLE);
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket.api;
+
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import com.example.atrs.ticket.FlightSearchBusyException;
+import com.example.atrs.ticket.TicketProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * 空席照会を専用のスレッドプールで実行するクラス。
+ * <p>
+ * DB応答の遅延時に空席照会がWebサーバのワーカースレッドを占有し、ログインや予約の画面まで停止することを防ぐ。
+ * 実行待ちの件数と待ち時間には上限を設け、上限に達した場合は {@link FlightSearchBusyException} により即座に応答する。
+ * </p>
+ * <p>
+ * キュー長・実行中スレッド数は "executor.*" メトリクス(name=flightSearch)、待ち時間は "flight.search.queue.wait"、
+ * 拒否件数は "flight.search.rejected" メトリクスとして公開する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+public class FlightSearchExecutor {
+
+	/**
+	 * メトリクスのエグゼキュータ名。
+	 */
+	private static final String EXECUTOR_NAME = "flightSearch";
+
+	/**
+	 * 実行待ちの上限時間(ミリ秒)。
+	 */
+	private final long timeoutMillis;
+
+	/**
+	 * スレッドプール。
+	 */
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * 実行待ち時間。
+	 */
+	private final Timer waitTimer;
+
+	/**
+	 * 実行待ちの件数が上限に達したため拒否した件数。
+	 */
+	private final Counter saturatedCounter;
+
+	/**
+	 * 時間切れとなった件数。
+	 */
+	private final Counter timeoutCounter;
+
+	public FlightSearchExecutor(TicketProperties props, MeterRegistry meterRegistry) {
+		TicketProperties.SearchExecutorProperties executorProps = props
+				.getSearchExecutor();
+		this.timeoutMillis = executorProps.getTimeout().toMillis();
+		this.executor = new ThreadPoolExecutor(executorProps.getPoolSize(),
+				executorProps.getPoolSize(), 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(executorProps.getQueueCapacity()),
+				new CustomizableThreadFactory("flight-search-"),
+				new ThreadPoolExecutor.AbortPolicy());
+		new ExecutorServiceMetrics(this.executor, EXECUTOR_NAME, Collections.emptyList())
+				.bindTo(meterRegistry);
+		this.waitTimer = Timer.builder("flight.search.queue.wait")
+				.description("Time flight searches spend waiting for a worker")
+				.register(meterRegistry);
+		this.saturatedCounter = Counter.builder("flight.search.rejected")
+				.tag("reason", "saturated").register(meterRegistry);
+		this.timeoutCounter = Counter.builder("flight.search.rejected")
+				.tag("reason", "timeout").register(meterRegistry);
+	}
+
+	/**
+	 * 処理を専用のスレッドプールで実行する。
+	 * <p>
+	 * 処理で発生した例外は {@link DeferredResult#setErrorResult(Object)} で通知する。 時間切れの場合は実行待ちの処理を取り消し、
+	 * {@link FlightSearchBusyException} を通知する。 実行中の処理は中断せず、結果を破棄する。
+	 * </p>
+	 *
+	 * @param task 処理
+	 * @param <T> 処理結果の型
+	 * @return 処理結果
+	 * @throws FlightSearchBusyException 実行待ちの件数が上限に達している場合
+	 */
+	public <T> DeferredResult<T> submit(Supplier<T> task) {
+		DeferredResult<T> result = new DeferredResult<>(timeoutMillis);
+		long submittedAt = System.nanoTime();
+		Future<?> future;
+		try {
+			future = executor.submit(() -> {
+				waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+				if (result.isSetOrExpired()) {
+					return;
+				}
+				try {
+					result.setResult(task.get());
+				}
+				catch (RuntimeException e) {
+					result.setErrorResult(e);
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			saturatedCounter.increment();
+			throw new FlightSearchBusyException();
+		}
+		result.onTimeout(() -> {
+			timeoutCounter.increment();
+			if (future.cancel(false)) {
+				executor.purge();
+			}
+			result.setErrorResult(new FlightSearchBusyException());
+		});
+		return result;
+	}
+
+	/**
+	 * スレッドプールを停止する。
+	 */
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket.api;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.atrs.ticket.FareTypeVacantInfoDto;
+import com.example.atrs.ticket.FlightVacantInfoDto;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+/**
+ * 空席状況一覧リストをコンパクト形式で出力するメッセージコンバータ。
+ * <p>
+ * Acceptヘッダに {@value #MEDIA_TYPE_VALUE} が指定された場合のみ使用する。 空港名・搭乗日・時刻・運賃種別は辞書としてレスポンスごとに1回だけ出力し、
+ * 各便は辞書の添字と数値の運賃で表現する。
+ * </p>
+ *
+ * <pre>
+ * {
+ *   "airports": ["東京(羽田)", "大阪(伊丹)"],
+ *   "dates": ["2018/12/01"],
+ *   "times": ["07:00", "08:10"],
+ *   "fareTypes": [["RT", "往復割"], ["SM", "一般運賃"]],
+ *   "flights": [
+ *     // 便名, 搭乗クラスコード, 出発空港, 到着空港, 搭乗日, 出発時刻, 到着時刻, [運賃種別, 運賃, 空席数, ...]
+ *     ["ATR001", "N", 0, 1, 0, 0, 1, [0, 16500, 20, 1, 22000, 15]]
+ *   ]
+ * }
+ * </pre>
+ *
+ * @author NTT 電電太郎
+ */
+public class FlightVacantInfoCompactHttpMessageConverter
+		extends AbstractGenericHttpMessageConverter<List<FlightVacantInfoDto>> {
+
+	/**
+	 * コンパクト形式のメディアタイプ。
+	 */
+	public static final String MEDIA_TYPE_VALUE = "application/vnd.atrs.flights.compact+json";
+
+	/**
+	 * コンパクト形式のメディアタイプ。
+	 */
+	public static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+
+	/**
+	 * JSONファクトリ。
+	 */
+	private final JsonFactory jsonFactory;
+
+	public FlightVacantInfoCompactHttpMessageConverter(JsonFactory jsonFactory) {
+		super(MEDIA_TYPE);
+		setDefaultCharset(StandardCharsets.UTF_8);
+		this.jsonFactory = jsonFactory;
+	}
+
+	/**
+	 * Acceptヘッダでコンパクト形式が要求されているかどうかを判定する。
+	 *
+	 * @param accept Acceptヘッダ
+	 * @return コンパクト形式が要求されている場合はtrue
+	 */
+	public static boolean isRequested(String accept) {
+		return accept != null && accept.contains(MEDIA_TYPE_VALUE);
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return List.class.isAssignableFrom(clazz);
+	}
+
+	@Override
+	public boolean canRead(Class<?> clazz, MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * メディアタイプを指定しない場合や"*&#47;*"の場合にコンパクト形式が選択されないよう、明示的に要求された場合のみtrueを返却する。
+	 * </p>
+	 */
+	@Override
+	public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+		if (mediaType == null || !MEDIA_TYPE.equalsTypeAndSubtype(mediaType)) {
+			return false;
+		}
+		ResolvableType resolvableType = type != null ? ResolvableType.forType(type)
+				: ResolvableType.forClass(clazz);
+		return List.class.isAssignableFrom(resolvableType.toClass())
+				&& FlightVacantInfoDto.class
+						.equals(resolvableType.asCollection().resolveGeneric(0));
+	}
+
+	@Override
+	public List<FlightVacantInfoDto> read(Type type, Class<?> contextClass,
+			HttpInputMessage inputMessage) {
+		throw new HttpMessageNotReadableException("Compact format is write-only.",
+				inputMessage);
+	}
+
+	@Override
+	protected List<FlightVacantInfoDto> readInternal(
+			Class<? extends List<FlightVacantInfoDto>> clazz,
+			HttpInputMessage inputMessage) {
+		throw new HttpMessageNotReadableException("Compact format is write-only.",
+				inputMessage);
+	}
+
+	@Override
+	protected void writeInternal(List<FlightVacantInfoDto> flights, Type type,
+			HttpOutputMessage outputMessage) throws IOException {
+
+		// 辞書を作成
+		Dictionary airports = new Dictionary();
+		Dictionary dates = new Dictionary();
+		Dictionary times = new Dictionary();
+		Dictionary fareTypeCds = new Dictionary();
+		List<String> fareTypeNames = new ArrayList<>();
+		for (FlightVacantInfoDto flight : flights) {
+			airports.indexOf(flight.getDepAirportName());
+			airports.indexOf(flight.getArrAirportName());
+			dates.indexOf(flight.getDepDate());
+			times.indexOf(flight.getDepTime());
+			times.indexOf(flight.getArrTime());
+			for (Map.Entry<String, FareTypeVacantInfoDto> fareType : flight.getFareTypes()
+					.entrySet()) {
+				if (fareTypeCds.indexOf(fareType.getKey()) == fareTypeNames.size()) {
+					fareTypeNames.add(fareType.getValue().getFareTypeName());
+				}
+			}
+		}
+
+		try (JsonGenerator generator = jsonFactory.createGenerator(
+				StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+			generator.writeStartObject();
+			writeStringArray(generator, "airports", airports.values);
+			writeStringArray(generator, "dates", dates.values);
+			writeStringArray(generator, "times", times.values);
+
+			generator.writeArrayFieldStart("fareTypes");
+			for (int i = 0; i < fareTypeNames.size(); i++) {
+				generator.writeStartArray();
+				generator.writeString(fareTypeCds.values.get(i));
+				generator.writeString(fareTypeNames.get(i));
+				generator.writeEndArray();
+			}
+			generator.writeEndArray();
+
+			generator.writeArrayFieldStart("flights");
+			for (FlightVacantInfoDto flight : flights) {
+				generator.writeStartArray();
+				generator.writeString(flight.getFlightName());
+				generator.writeString(flight.getBoardingClassCd().name());
+				generator.writeNumber(airports.indexOf(flight.getDepAirportName()));
+				generator.writeNumber(airports.indexOf(flight.getArrAirportName()));
+				generator.writeNumber(dates.indexOf(flight.getDepDate()));
+				generator.writeNumber(times.indexOf(flight.getDepTime()));
+				generator.writeNumber(times.indexOf(flight.getArrTime()));
+				generator.writeStartArray();
+				for (Map.Entry<String, FareTypeVacantInfoDto> fareType : flight
+						.getFareTypes().entrySet()) {
+					FareTypeVacantInfoDto vacantInfo = fareType.getValue();
+					generator.writeNumber(fareTypeCds.indexOf(fareType.getKey()));
+					generator.writeNumber(vacantInfo.getFareAmount());
+					generator.writeNumber(vacantInfo.getVacantNum());
+				}
+				generator.writeEndArray();
+				generator.writeEndArray();
+			}
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}
+	}
+
+	/**
+	 * 文字列の配列を出力する。
+	 *
+	 * @param generator JSONジェネレータ
+	 * @param fieldName フィールド名
+	 * @param values 値
+	 * @throws IOException 出力に失敗した場合
+	 */
+	private static void writeStringArray(JsonGenerator generator, String fieldName,
+			List<String> values) throws IOException {
+		generator.writeArrayFieldStart(fieldName);
+		for (String value : values) {
+			generator.writeString(value);
+		}
+		generator.writeEndArray();
+	}
+
+	/**
+	 * 文字列と出現順の添字の辞書。
+	 */
+	private static final class Dictionary {
+
+		private final Map<String, Integer> index = new HashMap<>();
+
+		private final List<String> values = new ArrayList<>();
+
+		/**
+		 * 文字列の添字を取得する。未登録の場合は末尾に登録する。
+		 *
+		 * @param value 文字列
+		 * @return 添字
+		 */
+		int indexOf(String value) {
+			Integer i = index.get(value);
+			if (i == null) {
+				i = values.size();
+				index.put(value, i);
+				values.add(value);
+			}
+			return i;
+		}
+	}
+}
@@ -16,21 +16,39 @@
  */
 package com.example.atrs.ticket.api;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Locale;
+import java.util.function.Consumer;
+
+import javax.servlet.http.HttpServletResponse;
 
 import com.example.atrs.common.web.error.ErrorResultDto;
+import com.example.atrs.ticket.FlightCalendarCriteriaDto;
+import com.example.atrs.ticket.FlightCalendarDto;
 import com.example.atrs.ticket.FlightNotFoundException;
+import com.example.atrs.ticket.FlightSearchBusyException;
 import com.example.atrs.ticket.FlightVacantInfoDto;
+import com.example.atrs.ticket.RoundTripFlightVacantInfoDto;
+import com.example.atrs.ticket.RoundTripSearchCriteriaDto;
 import com.example.atrs.ticket.TicketSearchCriteriaDto;
 import com.example.atrs.ticket.TicketSearchService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.dozermapper.core.Mapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.terasoluna.gfw.common.exception.BusinessException;
 import org.terasoluna.gfw.common.message.ResultMessage;
 
 import org.springframework.context.MessageSource;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
@@ -43,6 +61,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
 /**
  * 空席状況取得WebAPIコントローラ。
@@ -53,33 +73,74 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 @RequestMapping("api")
 public class FlightsApiController {
 
+	/**
+	 * ロガー。
+	 */
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(FlightsApiController.class);
+
+	/**
+	 * 空港グループ指定の空席照会条件フォームのバリデータ。
+	 */
+	private final AirportGroupFlightSearchCriteriaValidator airportGroupFlightSearchCriteriaValidator;
+
 	/**
 	 * Beanマッパー。
 	 */
 	private final Mapper beanMapper;
 
+	/**
+	 * 期間指定の空席照会条件フォームのバリデータ。
+	 */
+	private final FlightCalendarCriteriaValidator flightCalendarCriteriaValidator;
+
 	/**
 	 * 空席照会条件フォームのバリデータ。
 	 */
 	private final FlightSearchCriteriaValidator flightSearchCriteriaValidator;
 
+	/**
+	 * 往復の空席照会条件フォームのバリデータ。
+	 */
+	private final RoundTripFlightSearchCriteriaValidator roundTripFlightSearchCriteriaValidator;
+
 	/**
 	 * メッセージソース。
 	 */
 	private final MessageSource messageSource;
 
+	/**
+	 * JSONマッパー。
+	 */
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * 空席照会エグゼキュータ。
+	 */
+	private final FlightSearchExecutor flightSearchExecutor;
+
 	/**
 	 * 空席照会サービス。
 	 */
 	private final TicketSearchService ticketSearchService;
 
 	public FlightsApiController(MessageSource messageSource, Mapper beanMapper,
+			ObjectMapper objectMapper,
 			TicketSearchService ticketSearchService,
-			FlightSearchCriteriaValidator flightSearchCriteriaValidator) {
+			FlightSearchExecutor flightSearchExecutor,
+			FlightSearchCriteriaValidator flightSearchCriteriaValidator,
+			FlightCalendarCriteriaValidator flightCalendarCriteriaValidator,
+			RoundTripFlightSearchCriteriaValidator roundTripFlightSearchCriteriaValidator,
+			AirportGroupFlightSearchCriteriaValidator airportGroupFlightSearchCriteriaValidator) {
 		this.messageSource = messageSource;
 		this.beanMapper = beanMapper;
+		this.objectMapper = objectMapper;
 		this.ticketSearchService = ticketSearchService;
+		this.flightSearchExecutor = flightSearchExecutor;
 		this.flightSearchCriteriaValidator = flightSearchCriteriaValidator;
+		this.flightCalendarCriteriaValidator = flightCalendarCriteriaValidator;
+		this.roundTripFlightSearchCriteriaValidator = roundTripFlightSearchCriteriaValidator;
+		this.airportGroupFlightSearchCriteriaValidator = airportGroupFlightSearchCriteriaValidator;
 	}
 
 	/**
@@ -91,26 +152,207 @@ public class FlightsApiController {
 	 * [応答HTTPステータスコード]
 	 * <ul>
 	 * <li>正常:200</li>
+	 * <li>空席状況に変更がない(If-None-MatchがETagと一致):304</li>
 	 * <li>空席照会条件不正:400</li>
 	 * <li>該当するフライトが存在しない:404</li>
 	 * <li>システムエラー:500</li>
 	 * </ul>
+	 * <p>
+	 * ETagは空席数のバージョンから求めるため、304の場合は空席照会を行わない。
+	 * Acceptヘッダに {@value FlightVacantInfoCompactHttpMessageConverter#MEDIA_TYPE_VALUE} を指定した場合はコンパクト形式で返却する。
+	 * </p>
 	 *
 	 * @param flightSearchCriteriaForm 空席照会条件フォーム
+	 * @param webRequest リクエスト
 	 * @return 空席状況一覧リスト
 	 */
 	@RequestMapping(value = "flights", method = RequestMethod.GET)
-	@ResponseBody
-	public List<FlightVacantInfoDto> getFlights(
-			@Validated FlightSearchCriteriaForm flightSearchCriteriaForm) {
+	public ResponseEntity<List<FlightVacantInfoDto>> getFlights(
+			@Validated FlightSearchCriteriaForm flightSearchCriteriaForm,
+			WebRequest webRequest) {
 
-		// 空席照会
 		TicketSearchCriteriaDto searchCriteriaDto = beanMapper
 				.map(flightSearchCriteriaForm, TicketSearchCriteriaDto.class);
+
+		// 空席状況に変更がない場合は304を返却
+		String eTag = getSearchResultETag(searchCriteriaDto, webRequest);
+		if (eTag != null && webRequest.checkNotModified(eTag)) {
+			return null;
+		}
+
+		// 空席照会
 		List<FlightVacantInfoDto> flights = ticketSearchService
 				.searchFlight(searchCriteriaDto);
+		return createFlightsResponse(flights, eTag);
+	}
+
+	/**
+	 * フライトの空席状況を非同期で取得する。
+	 * <ul>
+	 * <li>{@link #getFlights(FlightSearchCriteriaForm, WebRequest)} と同じ結果を返却する。</li>
+	 * <li>空席照会は専用のスレッドプールで実行し、Webサーバのワーカースレッドを占有しない。</li>
+	 * <li>実行待ちの件数が上限に達している場合は即座に、上限時間内に照会が完了しない場合は上限時間の経過時にエラーメッセージを返却する。</li>
+	 * </ul>
+	 * [応答HTTPステータスコード]
+	 * <ul>
+	 * <li>正常:200</li>
+	 * <li>空席状況に変更がない(If-None-MatchがETagと一致):304</li>
+	 * <li>空席照会条件不正:400</li>
+	 * <li>該当するフライトが存在しない:404</li>
+	 * <li>空席照会の混雑:503</li>
+	 * <li>システムエラー:500</li>
+	 * </ul>
+	 *
+	 * @param flightSearchCriteriaForm 空席照会条件フォーム
+	 * @param webRequest リクエスト
+	 * @return 空席状況一覧リスト
+	 */
+	@RequestMapping(value = "flights/async", method = RequestMethod.GET)
+	public DeferredResult<ResponseEntity<List<FlightVacantInfoDto>>> getFlightsAsync(
+			@Validated FlightSearchCriteriaForm flightSearchCriteriaForm,
+			WebRequest webRequest) {
+
+		TicketSearchCriteriaDto searchCriteriaDto = beanMapper
+				.map(flightSearchCriteriaForm, TicketSearchCriteriaDto.class);
+
+		// 空席状況に変更がない場合は304を返却
+		String eTag = getSearchResultETag(searchCriteriaDto, webRequest);
+		if (eTag != null && webRequest.checkNotModified(eTag)) {
+			return null;
+		}
+
+		// 空席照会
+		return flightSearchExecutor.submit(() -> createFlightsResponse(
+				ticketSearchService.searchFlight(searchCriteriaDto), eTag));
+	}
 
-		return flights;
+	/**
+	 * フライトの空席状況をストリーミングで取得する。
+	 * <ul>
+	 * <li>空席照会条件に合致するフライト情報から空席状況を1件ずつ生成し、JSON配列の要素としてレスポンスに書き込む。</li>
+	 * <li>フライト情報は出発時刻ごとのチャンク単位でトランザクション外で取得するため、クライアントへの書き込みに時間がかかってもDB接続を占有しない。</li>
+	 * <li>空席照会条件が不正な場合、該当するフライトが存在しない場合は書き込み開始前にエラーメッセージを返却する。</li>
+	 * <li>書き込み開始後に照会に失敗した場合は、ステータスコード(200)を変更できないため、エラーを記録してJSON配列を閉じずにレスポンスを終了する。
+	 * エラーメッセージは書き込まない。 クライアントはJSON配列が閉じられていない(JSONとして不正な)場合、照会結果が不完全であると判断すること。</li>
+	 * </ul>
+	 * [応答HTTPステータスコード]
+	 * <ul>
+	 * <li>正常:200</li>
+	 * <li>空席照会条件不正:400</li>
+	 * <li>該当するフライトが存在しない:404</li>
+	 * <li>システムエラー:500</li>
+	 * </ul>
+	 *
+	 * @param flightSearchCriteriaForm 空席照会条件フォーム
+	 * @param response HTTPレスポンス
+	 * @throws IOException レスポンスの書き込みに失敗した場合
+	 */
+	@RequestMapping(value = "flights/stream", method = RequestMethod.GET)
+	public void getFlightsStream(
+			@Validated FlightSearchCriteriaForm flightSearchCriteriaForm,
+			HttpServletResponse response) throws IOException {
+
+		TicketSearchCriteriaDto searchCriteriaDto = beanMapper
+				.map(flightSearchCriteriaForm, TicketSearchCriteriaDto.class);
+		FlightVacantInfoArrayWriter writer = new FlightVacantInfoArrayWriter(
+				objectMapper, response);
+		try {
+			ticketSearchService.searchFlight(searchCriteriaDto, writer);
+		}
+		catch (RuntimeException e) {
+			if (!writer.isStarted()) {
+				throw e;
+			}
+			// 書き込み開始後はエラーメッセージを追記せず、JSON配列を閉じずに終了する
+			LOGGER.error("Flight search stream aborted. ({} elements written)",
+					writer.getCount(), e);
+			writer.abort();
+			return;
+		}
+		writer.finish();
+	}
+
+	/**
+	 * 空港グループを指定してフライトの空席状況を取得する。
+	 * <ul>
+	 * <li>出発空港・到着空港に空港グループコード(例: TYO=HND,NRT)を指定した場合、グループに属する全ての空港間の空席状況一覧リストを返却する。</li>
+	 * <li>空席状況一覧リストは出発時刻の昇順に並べる。</li>
+	 * <li>空席照会条件が不正な場合、該当するフライトが存在しない場合はエラーメッセージを返却する。</li>
+	 * </ul>
+	 * [応答HTTPステータスコード]
+	 * <ul>
+	 * <li>正常:200</li>
+	 * <li>空席照会条件不正:400</li>
+	 * <li>該当するフライトが存在しない:404</li>
+	 * <li>システムエラー:500</li>
+	 * </ul>
+	 *
+	 * @param airportGroupFlightSearchCriteriaForm 空港グループ指定の空席照会条件フォーム
+	 * @return 空席状況一覧リスト
+	 */
+	@RequestMapping(value = "flights/airport-group", method = RequestMethod.GET)
+	@ResponseBody
+	public List<FlightVacantInfoDto> getAirportGroupFlights(
+			@Validated AirportGroupFlightSearchCriteriaForm airportGroupFlightSearchCriteriaForm) {
+
+		TicketSearchCriteriaDto searchCriteriaDto = beanMapper.map(
+				airportGroupFlightSearchCriteriaForm, TicketSearchCriteriaDto.class);
+		return ticketSearchService.searchFlightByAirportGroup(searchCriteriaDto);
+	}
+
+	/**
+	 * 往復のフライトの空席状況を取得する。
+	 * <ul>
+	 * <li>往路・復路の空席状況一覧リストと、往路フライトごとに予約可能な復路フライトの組み合わせを返却する。</li>
+	 * <li>復路は往路の到着時刻から予約可能時間間隔以上経過して出発するフライトのみを返却する。</li>
+	 * <li>空席照会条件が不正な場合、該当するフライトが存在しない場合はエラーメッセージを返却する。</li>
+	 * </ul>
+	 * [応答HTTPステータスコード]
+	 * <ul>
+	 * <li>正常:200</li>
+	 * <li>空席照会条件不正:400</li>
+	 * <li>該当するフライトが存在しない:404</li>
+	 * <li>システムエラー:500</li>
+	 * </ul>
+	 *
+	 * @param roundTripFlightSearchCriteriaForm 往復の空席照会条件フォーム
+	 * @return 往復の空席照会結果
+	 */
+	@RequestMapping(value = "flights/roundtrip", method = RequestMethod.GET)
+	@ResponseBody
+	public RoundTripFlightVacantInfoDto getRoundTripFlights(
+			@Validated RoundTripFlightSearchCriteriaForm roundTripFlightSearchCriteriaForm) {
+
+		RoundTripSearchCriteriaDto searchCriteriaDto = beanMapper
+				.map(roundTripFlightSearchCriteriaForm, RoundTripSearchCriteriaDto.class);
+		return ticketSearchService.searchRoundTripFlight(searchCriteriaDto);
+	}
+
+	/**
+	 * 期間指定でフライトの空席状況を取得する。
+	 * <ul>
+	 * <li>照会期間・全搭乗クラスについて、搭乗日・運賃種別ごとの空席数と運賃を返却する。</li>
+	 * <li>照会条件が不正な場合、該当するフライトが存在しない場合はエラーメッセージを返却する。</li>
+	 * </ul>
+	 * [応答HTTPステータスコード]
+	 * <ul>
+	 * <li>正常:200</li>
+	 * <li>照会条件不正:400</li>
+	 * <li>該当するフライトが存在しない:404</li>
+	 * <li>システムエラー:500</li>
+	 * </ul>
+	 *
+	 * @param flightCalendarCriteriaForm 期間指定の空席照会条件フォーム
+	 * @return 期間指定の空席照会結果
+	 */
+	@RequestMapping(value = "flights/calendar", method = RequestMethod.GET)
+	@ResponseBody
+	public FlightCalendarDto getFlightCalendar(
+			@Validated FlightCalendarCriteriaForm flightCalendarCriteriaForm) {
+
+		FlightCalendarCriteriaDto searchCriteriaDto = beanMapper
+				.map(flightCalendarCriteriaForm, FlightCalendarCriteriaDto.class);
+		return ticketSearchService.searchFlightCalendar(searchCriteriaDto);
 	}
 
 	/**
@@ -167,6 +409,33 @@ public class FlightsApiController {
 		return result;
 	}
 
+	/**
+	 * 空席照会が混み合っている場合の例外ハンドリングを行う。
+	 * <p>
+	 * エラー情報にエラーメッセージを設定して返却する。
+	 * </p>
+	 *
+	 * @param e 空席照会混雑業務例外
+	 * @param locale ロケールオブジェクト
+	 * @return エラー情報
+	 */
+	@ExceptionHandler(FlightSearchBusyException.class)
+	@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+	@ResponseBody
+	public ErrorResultDto handleFlightSearchBusyException(FlightSearchBusyException e,
+			Locale locale) {
+
+		ErrorResultDto result = new ErrorResultDto();
+
+		// メッセージ設定
+		for (ResultMessage resultMessage : e.getResultMessages().getList()) {
+			result.add(messageSource.getMessage(
+					new DefaultMessageSourceResolvable(resultMessage.getCode()), locale));
+		}
+
+		return result;
+	}
+
 	/**
 	 * 空席照会条件に合致するフライト情報が存在しない場合の例外ハンドリングを行う。
 	 * <p>
@@ -204,4 +473,138 @@ public class FlightsApiController {
 		binder.addValidators(flightSearchCriteriaValidator);
 	}
 
+	/**
+	 * 期間指定の空席照会条件フォームのバリデータをバインダに追加する。
+	 *
+	 * @param binder バインダ
+	 */
+	@InitBinder("flightCalendarCriteriaForm")
+	public void initBinderForFlightCalendarCriteria(WebDataBinder binder) {
+		binder.addValidators(flightCalendarCriteriaValidator);
+	}
+
+	/**
+	 * 往復の空席照会条件フォームのバリデータをバインダに追加する。
+	 *
+	 * @param binder バインダ
+	 */
+	@InitBinder("roundTripFlightSearchCriteriaForm")
+	public void initBinderForRoundTripFlightSearchCriteria(WebDataBinder binder) {
+		binder.addValidators(roundTripFlightSearchCriteriaValidator);
+	}
+
+	/**
+	 * 空港グループ指定の空席照会条件フォームのバリデータをバインダに追加する。
+	 *
+	 * @param binder バインダ
+	 */
+	@InitBinder("airportGroupFlightSearchCriteriaForm")
+	public void initBinderForAirportGroupFlightSearchCriteria(WebDataBinder binder) {
+		binder.addValidators(airportGroupFlightSearchCriteriaValidator);
+	}
+
+	/**
+	 * 空席照会結果のETagを取得する。
+	 * <p>
+	 * コンパクト形式が要求された場合は、表現ごとに異なるETagとする。
+	 * </p>
+	 *
+	 * @param searchCriteriaDto 空席照会の検索条件
+	 * @param webRequest リクエスト
+	 * @return ETag。該当する区間が存在しない場合はnull。
+	 */
+	private String getSearchResultETag(TicketSearchCriteriaDto searchCriteriaDto,
+			WebRequest webRequest) {
+		String eTag = ticketSearchService.getSearchResultETag(searchCriteriaDto);
+		if (eTag != null && FlightVacantInfoCompactHttpMessageConverter
+				.isRequested(webRequest.getHeader(HttpHeaders.ACCEPT))) {
+			eTag = eTag.substring(0, eTag.length() - 1) + "-c\"";
+		}
+		return eTag;
+	}
+
+	/**
+	 * 空席状況一覧リストのレスポンスを作成する。
+	 *
+	 * @param flights 空席状況一覧リスト
+	 * @param eTag ETag
+	 * @return レスポンス
+	 */
+	private ResponseEntity<List<FlightVacantInfoDto>> createFlightsResponse(
+			List<FlightVacantInfoDto> flights, String eTag) {
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+				.cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT);
+		if (eTag != null) {
+			builder.eTag(eTag);
+		}
+		return builder.body(flights);
+	}
+
+	/**
+	 * 空席状況をJSON配列の要素として1件ずつレスポンスに書き込むクラス。
+	 * <p>
+	 * 最初の要素を受け取るまでレスポンスには何も書き込まない。 書き込み開始後に中断した場合は、書き込み済みの要素を送信し、
+	 * JSON配列を閉じずに終了する。
+	 * </p>
+	 */
+	private static final class FlightVacantInfoArrayWriter
+			implements Consumer<FlightVacantInfoDto> {
+
+		private final ObjectMapper objectMapper;
+
+		private final HttpServletResponse response;
+
+		private JsonGenerator generator;
+
+		private int count;
+
+		FlightVacantInfoArrayWriter(ObjectMapper objectMapper,
+				HttpServletResponse response) {
+			this.objectMapper = objectMapper;
+			this.response = response;
+		}
+
+		@Override
+		public void accept(FlightVacantInfoDto flightVacantInfo) {
+			try {
+				if (generator == null) {
+					response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+					generator = objectMapper.getFactory()
+							.createGenerator(response.getOutputStream());
+					generator.writeStartArray();
+				}
+				objectMapper.writeValue(generator, flightVacantInfo);
+				count++;
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		boolean isStarted() {
+			return generator != null;
+		}
+
+		int getCount() {
+			return count;
+		}
+
+		void finish() throws IOException {
+			generator.writeEndArray();
+			generator.close();
+		}
+
+		void abort() {
+			try {
+				// 閉じていないJSON配列を補完しないようにする
+				generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+				generator.close();
+			}
+			catch (IOException e) {
+				// クライアントが切断済みの場合
+				LOGGER.debug("Failed to close aborted flight search stream.", e);
+			}
+		}
+	}
+
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket.api;
+
+import java.util.Locale;
+
+import com.example.atrs.auth.AuthLoginUserDetails;
+import com.example.atrs.common.web.error.ErrorResultDto;
+import com.example.atrs.ticket.ReservationHistoryDto;
+import com.example.atrs.ticket.ReservationHistoryService;
+
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.stereotype.Controller;
+import org.springframework.validation.BindException;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 予約履歴取得WebAPIコントローラ。
+ *
+ * @author NTT 電電太郎
+ */
+@Controller
+@RequestMapping("api")
+public class ReservationHistoryApiController {
+
+	/**
+	 * メッセージソース。
+	 */
+	private final MessageSource messageSource;
+
+	/**
+	 * 予約履歴サービス。
+	 */
+	private final ReservationHistoryService reservationHistoryService;
+
+	public ReservationHistoryApiController(MessageSource messageSource,
+			ReservationHistoryService reservationHistoryService) {
+		this.messageSource = messageSource;
+		this.reservationHistoryService = reservationHistoryService;
+	}
+
+	/**
+	 * ログイン中の会員が予約代表者である予約履歴を取得する。
+	 * <ul>
+	 * <li>予約日・予約番号の降順で、指定件数分の予約情報(予約フライト情報・搭乗者情報を含む)を返却する。</li>
+	 * <li>次ページが存在する場合は、次ページの取得に指定する予約日・予約番号を返却する。</li>
+	 * </ul>
+	 * [応答HTTPステータスコード]
+	 * <ul>
+	 * <li>正常:200</li>
+	 * <li>取得条件不正:400</li>
+	 * <li>システムエラー:500</li>
+	 * </ul>
+	 *
+	 * @param criteriaForm 予約履歴の取得条件フォーム
+	 * @param userDetails ログイン情報を保持するオブジェクト
+	 * @return 予約履歴
+	 */
+	@RequestMapping(value = "reservations", method = RequestMethod.GET)
+	@ResponseBody
+	public ReservationHistoryDto getReservations(
+			@Validated ReservationHistoryCriteriaForm criteriaForm,
+			@AuthenticationPrincipal AuthLoginUserDetails userDetails) {
+
+		return reservationHistoryService.findHistory(userDetails.getUsername(),
+				criteriaForm.getAfterReserveDate(), criteriaForm.getAfterReserveNo(),
+				criteriaForm.getSize());
+	}
+
+	/**
+	 * 入力値に不正な値が指定された場合の例外ハンドリングを行う。
+	 * <p>
+	 * エラー情報にエラーメッセージを設定して返却する。
+	 * </p>
+	 *
+	 * @param e バインド例外
+	 * @param locale ロケールオブジェクト
+	 * @return エラー情報
+	 */
+	@ExceptionHandler(BindException.class)
+	@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+	@ResponseBody
+	public ErrorResultDto handleBindException(BindException e, Locale locale) {
+
+		ErrorResultDto result = new ErrorResultDto();
+
+		// メッセージ設定
+		for (FieldError fieldError : e.getBindingResult().getFieldErrors()) {
+			result.add(messageSource.getMessage(fieldError, locale));
+		}
+		for (ObjectError objectError : e.getBindingResult().getGlobalErrors()) {
+			result.add(messageSource.getMessage(objectError, locale));
+		}
+
+		return result;
+	}
+}
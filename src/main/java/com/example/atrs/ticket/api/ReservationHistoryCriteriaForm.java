@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket.api;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+import com.example.atrs.common.validate.FixedLength;
+import com.example.atrs.common.validate.HalfWidthNumber;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * 予約履歴の取得条件フォーム。
+ * <p>
+ * 次ページを取得する場合は、前ページの応答に含まれる予約日・予約番号を両方指定する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+public class ReservationHistoryCriteriaForm implements Serializable {
+
+	private static final long serialVersionUID = 4425170987035528214L;
+
+	@DateTimeFormat(pattern = "yyyy/MM/dd")
+	private Date afterReserveDate;
+
+	@FixedLength(10)
+	@HalfWidthNumber
+	private String afterReserveNo;
+
+	@Min(1)
+	@Max(100)
+	private int size = 20;
+
+	public Date getAfterReserveDate() {
+		return afterReserveDate;
+	}
+
+	public void setAfterReserveDate(Date afterReserveDate) {
+		this.afterReserveDate = afterReserveDate;
+	}
+
+	public String getAfterReserveNo() {
+		return afterReserveNo;
+	}
+
+	public void setAfterReserveNo(String afterReserveNo) {
+		this.afterReserveNo = afterReserveNo;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public void setSize(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * 予約日・予約番号が両方指定されているか、両方省略されているかを判定する。
+	 *
+	 * @return 両方指定されているか、両方省略されている場合はtrue
+	 */
+	@AssertTrue
+	public boolean isAfterKeyPaired() {
+		return (afterReserveDate == null) == (afterReserveNo == null);
+	}
+}
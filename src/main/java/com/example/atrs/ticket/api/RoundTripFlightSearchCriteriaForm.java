@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket.api;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import javax.validation.constraints.NotNull;
+
+import com.example.atrs.ticket.BoardingClassCd;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.terasoluna.gfw.common.codelist.ExistInCodeList;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * 往復の空席照会条件フォーム。
+ *
+ * @author NTT 電電太郎
+ */
+public class RoundTripFlightSearchCriteriaForm implements Serializable {
+
+	private static final long serialVersionUID = 6071485412335760215L;
+
+	@NotNull
+	@ExistInCodeList(codeListId = "CL_AIRPORT")
+	private String arrAirportCd;
+
+	@NotNull
+	private BoardingClassCd boardingClassCd;
+
+	@NotNull
+	@ExistInCodeList(codeListId = "CL_AIRPORT")
+	private String depAirportCd;
+
+	@NotNull
+	@DateTimeFormat(pattern = "yyyy/MM/dd")
+	private Date homewardDate;
+
+	@NotNull
+	@DateTimeFormat(pattern = "yyyy/MM/dd")
+	private Date outwardDate;
+
+	public String getArrAirportCd() {
+		return arrAirportCd;
+	}
+
+	public void setArrAirportCd(String arrAirportCd) {
+		this.arrAirportCd = arrAirportCd;
+	}
+
+	public BoardingClassCd getBoardingClassCd() {
+		return boardingClassCd;
+	}
+
+	public void setBoardingClassCd(BoardingClassCd boardingClassCd) {
+		this.boardingClassCd = boardingClassCd;
+	}
+
+	public String getDepAirportCd() {
+		return depAirportCd;
+	}
+
+	public void setDepAirportCd(String depAirportCd) {
+		this.depAirportCd = depAirportCd;
+	}
+
+	public Date getHomewardDate() {
+		return homewardDate;
+	}
+
+	public void setHomewardDate(Date homewardDate) {
+		this.homewardDate = homewardDate;
+	}
+
+	public Date getOutwardDate() {
+		return outwardDate;
+	}
+
+	public void setOutwardDate(Date outwardDate) {
+		this.outwardDate = outwardDate;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SIMPLE_STYLE);
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket.web;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.example.atrs.ticket.TicketProperties;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.annotation.SessionScope;
+
+/**
+ * セッションで確保中の座席確保IDを保持するクラス。
+ * <p>
+ * 座席確保IDは画面の非表示項目で受け渡すため、本クラスが保持していない座席確保IDは他のセッションの座席確保IDとみなし、引き継ぎ・解放の対象としない。
+ * セッションで同時に確保できる件数は "ticket.seat-hold.max-per-session" 件までとし、超える場合は古い座席確保から解放する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+@SessionScope
+public class SeatHoldSession implements Serializable {
+
+	private static final long serialVersionUID = 2710457939214318265L;
+
+	/**
+	 * セッションで同時に確保できる件数。
+	 */
+	private final int maxHolds;
+
+	/**
+	 * 確保中の座席確保ID(確保した順)。
+	 */
+	private final Set<String> holdIds = new LinkedHashSet<>();
+
+	public SeatHoldSession(TicketProperties props) {
+		this.maxHolds = props.getSeatHold().getMaxPerSession();
+	}
+
+	/**
+	 * 座席を確保し、座席確保IDを保持する。
+	 * <p>
+	 * 以前に確保した座席確保IDがセッションのものであれば解放対象とする。 さらに上限を超える場合は古い座席確保IDから解放対象に加える。
+	 * 座席の確保に失敗した場合は保持している座席確保IDを変更しない。
+	 * </p>
+	 *
+	 * @param previousHoldId 以前に確保した座席確保ID(画面から受け取った値)
+	 * @param holder 解放対象の座席確保IDリストを受け取り、解放と確保を行って新しい座席確保IDを返す処理
+	 * @return 新しい座席確保ID
+	 */
+	public synchronized String hold(String previousHoldId,
+			Function<List<String>, String> holder) {
+		List<String> releaseHoldIds = new ArrayList<>();
+		if (owns(previousHoldId)) {
+			releaseHoldIds.add(previousHoldId);
+		}
+		for (String holdId : holdIds) {
+			if (holdIds.size() - releaseHoldIds.size() < maxHolds) {
+				break;
+			}
+			if (!releaseHoldIds.contains(holdId)) {
+				releaseHoldIds.add(holdId);
+			}
+		}
+
+		String holdId = holder.apply(releaseHoldIds);
+		holdIds.removeAll(releaseHoldIds);
+		holdIds.add(holdId);
+		return holdId;
+	}
+
+	/**
+	 * 座席確保IDをセッションで確保したかどうかを判定する。
+	 *
+	 * @param holdId 座席確保ID
+	 * @return セッションで確保した場合はtrue
+	 */
+	public synchronized boolean owns(String holdId) {
+		return StringUtils.hasText(holdId) && holdIds.contains(holdId);
+	}
+
+	/**
+	 * 予約へ引き継いだ座席確保IDを削除する。
+	 *
+	 * @param holdId 座席確保ID
+	 */
+	public synchronized void remove(String holdId) {
+		holdIds.remove(holdId);
+	}
+}
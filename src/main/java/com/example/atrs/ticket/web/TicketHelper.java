@@ -24,12 +24,11 @@ import java.util.Map;
 import com.example.atrs.common.util.DateTimeUtil;
 import com.example.atrs.common.web.exception.BadRequestException;
 import com.example.atrs.ticket.BoardingClassCd;
-import com.example.atrs.ticket.BoardingClassProvider;
 import com.example.atrs.ticket.FareTypeCd;
-import com.example.atrs.ticket.FareTypeProvider;
 import com.example.atrs.ticket.Flight;
-import com.example.atrs.ticket.FlightMasterProvider;
 import com.example.atrs.ticket.FlightType;
+import com.example.atrs.ticket.ReferenceData;
+import com.example.atrs.ticket.ReferenceDataRegistry;
 
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
@@ -43,26 +42,12 @@ import org.springframework.util.CollectionUtils;
 public class TicketHelper {
 
 	/**
-	 * 搭乗クラス情報提供クラス。
+	 * 参照データ保持クラス。
 	 */
-	private final BoardingClassProvider boardingClassProvider;
+	private final ReferenceDataRegistry referenceDataRegistry;
 
-	/**
-	 * 運賃種別情報提供クラス。
-	 */
-	private final FareTypeProvider fareTypeProvider;
-
-	/**
-	 * フライト基本情報提供クラス。
-	 */
-	private final FlightMasterProvider flightMasterProvider;
-
-	public TicketHelper(BoardingClassProvider boardingClassProvider,
-			FlightMasterProvider flightMasterProvider,
-			FareTypeProvider fareTypeProvider) {
-		this.boardingClassProvider = boardingClassProvider;
-		this.flightMasterProvider = flightMasterProvider;
-		this.fareTypeProvider = fareTypeProvider;
+	public TicketHelper(ReferenceDataRegistry referenceDataRegistry) {
+		this.referenceDataRegistry = referenceDataRegistry;
 	}
 
 	/**
@@ -107,6 +92,9 @@ public class TicketHelper {
 
 	/**
 	 * 選択フライト情報フォームをフライト情報に変換する。
+	 * <p>
+	 * フライト基本情報・運賃種別情報・搭乗クラス情報は、1つの参照データのスナップショットから取得する。
+	 * </p>
 	 *
 	 * @param selectFlightFormList 選択フライト情報フォームのリスト
 	 * @return フライト情報のリスト
@@ -114,17 +102,17 @@ public class TicketHelper {
 	public List<Flight> toFlightList(List<SelectFlightForm> selectFlightFormList) {
 
 		List<Flight> flightList = new ArrayList<>();
+		ReferenceData referenceData = referenceDataRegistry.getSnapshot();
 
 		for (SelectFlightForm selectFlightForm : selectFlightFormList) {
 			Flight flight = new Flight();
 			flight.setDepartureDate(selectFlightForm.getDepDate());
 			String flightName = selectFlightForm.getFlightName();
-			flight.setFlightMaster(flightMasterProvider.getFlightMaster(flightName));
+			flight.setFlightMaster(referenceData.getFlightMaster(flightName));
 			FareTypeCd fareTypeCd = selectFlightForm.getFareTypeCd();
-			flight.setFareType(fareTypeProvider.getFareType(fareTypeCd));
+			flight.setFareType(referenceData.getFareType(fareTypeCd));
 			BoardingClassCd boardingClassCd = selectFlightForm.getBoardingClassCd();
-			flight.setBoardingClass(
-					boardingClassProvider.getBoardingClass(boardingClassCd));
+			flight.setBoardingClass(referenceData.getBoardingClass(boardingClassCd));
 
 			flightList.add(flight);
 		}
@@ -198,9 +198,10 @@ public class TicketReserveController {
 			BindingResult result, Model model) throws BadRequestException {
 
 		if (result.hasFieldErrors("selectFlightFormList*")
-				|| result.hasFieldErrors("flightType")) {
+				|| result.hasFieldErrors("flightType")
+				|| result.hasFieldErrors("holdId")) {
 
-			// 非表示項目(選択フライト情報、フライト種別)に検証エラーがある場合は
+			// 非表示項目(選択フライト情報、フライト種別、座席確保ID)に検証エラーがある場合は
 			// 改ざんとみなす
 			throw new BadRequestException("selectFlightFormList is invalid.");
 		}
@@ -75,6 +75,20 @@ public class TicketReserveForm implements IReservationFlightForm, Serializable {
 	@NotNull
 	private FlightType flightType;
 
+	/**
+	 * 座席確保ID(非表示項目)。 {@link SeatHoldSession} が保持していない値は使用しない。
+	 */
+	@Size(max = 36)
+	@HalfWidth
+	private String holdId;
+
+	/**
+	 * 冪等キー(非表示項目)。
+	 */
+	@Size(max = 36)
+	@HalfWidth
+	private String idempotencyKey;
+
 	/**
 	 * 搭乗者情報フォームリスト。
 	 */
@@ -188,6 +202,42 @@ public class TicketReserveForm implements IReservationFlightForm, Serializable {
 		this.flightType = flightType;
 	}
 
+	/**
+	 * 座席確保IDを取得する。
+	 *
+	 * @return 座席確保ID
+	 */
+	public String getHoldId() {
+		return holdId;
+	}
+
+	/**
+	 * 座席確保IDを設定する。
+	 *
+	 * @param holdId 座席確保ID
+	 */
+	public void setHoldId(String holdId) {
+		this.holdId = holdId;
+	}
+
+	/**
+	 * 冪等キーを取得する。
+	 *
+	 * @return 冪等キー
+	 */
+	public String getIdempotencyKey() {
+		return idempotencyKey;
+	}
+
+	/**
+	 * 冪等キーを設定する。
+	 *
+	 * @param idempotencyKey 冪等キー
+	 */
+	public void setIdempotencyKey(String idempotencyKey) {
+		this.idempotencyKey = idempotencyKey;
+	}
+
 	/**
 	 * 搭乗者情報フォームリストを取得する。
 	 *
@@ -24,21 +24,27 @@ import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import com.example.atrs.common.util.DateTimeUtil;
 import com.example.atrs.common.web.exception.BadRequestException;
 import com.example.atrs.member.Member;
 import com.example.atrs.auth.AuthLoginUserDetails;
+import com.example.atrs.ticket.FareMatrix;
 import com.example.atrs.ticket.Flight;
 import com.example.atrs.ticket.FlightMaster;
 import com.example.atrs.ticket.FlightMasterProvider;
 import com.example.atrs.ticket.FlightType;
 import com.example.atrs.ticket.InvalidFlightException;
 import com.example.atrs.ticket.Passenger;
+import com.example.atrs.ticket.ReferenceData;
+import com.example.atrs.ticket.ReferenceDataRegistry;
 import com.example.atrs.ticket.Reservation;
 import com.example.atrs.ticket.ReserveFlight;
 import com.example.atrs.ticket.Route;
+import com.example.atrs.ticket.TicketProperties;
 import com.example.atrs.ticket.TicketReserveDto;
+import com.example.atrs.ticket.TicketReserveRetryTemplate;
 import com.example.atrs.ticket.TicketReserveService;
 import com.example.atrs.ticket.TicketSharedService;
 import com.github.dozermapper.core.Mapper;
@@ -61,16 +67,46 @@ public class TicketReserveHelper {
 
 	private final Clock clock;
 
+	/**
+	 * 運賃表。
+	 */
+	private final FareMatrix fareMatrix;
+
 	/**
 	 * フライト基本情報提供クラス。
 	 */
 	private final FlightMasterProvider flightMasterProvider;
 
+	/**
+	 * 参照データ保持クラス。
+	 */
+	private final ReferenceDataRegistry referenceDataRegistry;
+
+	/**
+	 * 座席確保を使用するかどうか。
+	 */
+	private final boolean seatHoldEnabled;
+
+	/**
+	 * セッションの座席確保ID保持クラス。
+	 */
+	private final SeatHoldSession seatHoldSession;
+
+	/**
+	 * チケット予約の冪等キー保持クラス。
+	 */
+	private final TicketReserveIdempotencyStore ticketReserveIdempotencyStore;
+
 	/**
 	 * チケット予約サービス。
 	 */
 	private final TicketReserveService ticketReserveService;
 
+	/**
+	 * 予約登録の再実行クラス。
+	 */
+	private final TicketReserveRetryTemplate ticketReserveRetryTemplate;
+
 	/**
 	 * チケット予約共通サービス。
 	 */
@@ -78,13 +114,23 @@ public class TicketReserveHelper {
 
 	public TicketReserveHelper(Mapper beanMapper, Clock clock,
 			TicketReserveService ticketReserveService,
+			TicketReserveRetryTemplate ticketReserveRetryTemplate,
 			TicketSharedService ticketSharedService,
-			FlightMasterProvider flightMasterProvider) {
+			FlightMasterProvider flightMasterProvider, FareMatrix fareMatrix,
+			ReferenceDataRegistry referenceDataRegistry, TicketProperties props,
+			TicketReserveIdempotencyStore ticketReserveIdempotencyStore,
+			SeatHoldSession seatHoldSession) {
 		this.beanMapper = beanMapper;
 		this.clock = clock;
+		this.fareMatrix = fareMatrix;
 		this.ticketReserveService = ticketReserveService;
+		this.ticketReserveRetryTemplate = ticketReserveRetryTemplate;
 		this.ticketSharedService = ticketSharedService;
 		this.flightMasterProvider = flightMasterProvider;
+		this.referenceDataRegistry = referenceDataRegistry;
+		this.seatHoldEnabled = props.getSeatHold().isEnabled();
+		this.ticketReserveIdempotencyStore = ticketReserveIdempotencyStore;
+		this.seatHoldSession = seatHoldSession;
 	}
 
 	/**
@@ -141,6 +187,7 @@ public class TicketReserveHelper {
 	public List<SelectFlightDto> createSelectFlightDtoList(List<Flight> flightList) {
 
 		List<SelectFlightDto> selectFlightDtoList = new ArrayList<>();
+		ReferenceData referenceData = referenceDataRegistry.getSnapshot();
 		for (int i = 0; i < flightList.size(); i++) {
 			// フライト情報から選択フライト情報DTOを生成
 			SelectFlightDto selectFlight = beanMapper.map(flightList.get(i),
@@ -150,11 +197,11 @@ public class TicketReserveHelper {
 			selectFlight.setLineType(i == 0 ? LineType.OUTWARD : LineType.HOMEWARD);
 
 			// 運賃を算出し設定
-			int basicFare = flightList.get(i).getFlightMaster().getRoute().getBasicFare();
-			int baseFare = ticketSharedService.calculateBasicFare(basicFare,
-					selectFlight.getBoardingClassCd(), selectFlight.getDepartureDate());
-			int discountRate = flightList.get(i).getFareType().getDiscountRate();
-			int fare = ticketSharedService.calculateFare(baseFare, discountRate);
+			Route route = flightList.get(i).getFlightMaster().getRoute();
+			int fare = fareMatrix
+					.getFares(referenceData, route, selectFlight.getBoardingClassCd(),
+							selectFlight.getDepartureDate())
+					.getFare(flightList.get(i).getFareType().getFareTypeCd());
 			selectFlight.setFare(fare);
 
 			selectFlightDtoList.add(selectFlight);
@@ -202,6 +249,9 @@ public class TicketReserveHelper {
 
 	/**
 	 * チケットを予約する。
+	 * <p>
+	 * 同じ冪等キーで予約済みの場合は、予約せずに最初の予約結果を返却する。
+	 * </p>
 	 *
 	 * @param ticketReserveForm チケット予約フォーム
 	 * @param flightList フライト情報リスト
@@ -210,6 +260,21 @@ public class TicketReserveHelper {
 	public ReserveCompleteOutputDto reserve(TicketReserveForm ticketReserveForm,
 			List<Flight> flightList) {
 
+		return ticketReserveIdempotencyStore.execute(
+				ticketReserveForm.getIdempotencyKey(),
+				() -> doReserve(ticketReserveForm, flightList));
+	}
+
+	/**
+	 * 予約情報を登録し、チケット予約完了画面出力用DTOを生成する。
+	 *
+	 * @param ticketReserveForm チケット予約フォーム
+	 * @param flightList フライト情報リスト
+	 * @return チケット予約完了画面出力用DTO
+	 */
+	private ReserveCompleteOutputDto doReserve(TicketReserveForm ticketReserveForm,
+			List<Flight> flightList) {
+
 		// 予約情報生成
 		Reservation reservation = createReservation(ticketReserveForm, flightList);
 
@@ -220,8 +285,12 @@ public class TicketReserveHelper {
 		Date now = Date.from(Instant.now(this.clock));
 		reservation.setReserveDate(now);
 		reservation.setTotalFare(calculateTotalFare(flightList, reservation));
-		TicketReserveDto ticketReserveDto = ticketReserveService
-				.registerReservation(reservation);
+		// (セッションで確保済みの座席は予約へ引き継ぐ。デッドロック・直列化失敗の場合は新しいトランザクションで再実行)
+		String holdId = seatHoldSession.owns(ticketReserveForm.getHoldId())
+				? ticketReserveForm.getHoldId() : null;
+		TicketReserveDto ticketReserveDto = ticketReserveRetryTemplate.execute(
+				() -> ticketReserveService.registerReservation(reservation, holdId));
+		seatHoldSession.remove(holdId);
 
 		// 画面出力DTO生成
 		ReserveCompleteOutputDto outputDto = new ReserveCompleteOutputDto();
@@ -251,6 +320,21 @@ public class TicketReserveHelper {
 		// 予約情報の業務ロジックチェック
 		ticketReserveService.validateReservation(reservation);
 
+		// 予約確定まで座席を確保
+		// (修正後に再確認した場合は以前に確保した座席を解放して確保し直す。
+		// セッションの確保件数が上限に達している場合は古い座席を解放する)
+		if (seatHoldEnabled) {
+			String holdId = seatHoldSession.hold(ticketReserveForm.getHoldId(),
+					releaseHoldIds -> ticketReserveRetryTemplate.execute(
+							() -> ticketReserveService.holdSeats(reservation,
+									releaseHoldIds)));
+			ticketReserveForm.setHoldId(holdId);
+		}
+
+		// 予約の二重送信を判定する冪等キーを払い出し
+		// (修正後に再確認した場合は別の予約として払い出し直す)
+		ticketReserveForm.setIdempotencyKey(UUID.randomUUID().toString());
+
 		// 予約チケットの合計金額取得
 		int totalFare = calculateTotalFare(flightList, reservation);
 
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket.web;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.example.atrs.ticket.TicketProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * チケット予約の冪等キーと予約結果を保持するクラス。
+ * <p>
+ * 申し込み内容確認画面で払い出した冪等キーをキーとして予約結果を一定時間保持し、二重送信やブラウザの再送信で同じ冪等キーの予約が
+ * 要求された場合は、予約処理を実行せずに最初の予約結果を返却する。 最初の予約が処理中の場合は完了を待ち合わせる。
+ * 予約が失敗した場合は冪等キーを削除し、再送信で予約をやり直せるようにする。
+ * </p>
+ * <p>
+ * 冪等キーはJVMのメモリ上で保持するため、DBのロックは取得しない。 同じセッションの要求が同じJVMに振り分けられることを前提とする。
+ * 件数・ヒット率は "cache.*" メトリクス(name=reserveIdempotency)、予約結果を再利用した件数は "ticket.reserve.replayed"
+ * メトリクスとして公開する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@Component
+public class TicketReserveIdempotencyStore {
+
+	/**
+	 * メトリクスのキャッシュ名。
+	 */
+	private static final String CACHE_NAME = "reserveIdempotency";
+
+	/**
+	 * 冪等キーを使用するかどうか。
+	 */
+	private final boolean enabled;
+
+	/**
+	 * 冪等キーと予約結果の関係。
+	 */
+	private final Cache<String, CompletableFuture<ReserveCompleteOutputDto>> cache;
+
+	/**
+	 * 予約結果を再利用した件数。
+	 */
+	private final Counter replayedCounter;
+
+	public TicketReserveIdempotencyStore(TicketProperties props,
+			MeterRegistry meterRegistry) {
+		TicketProperties.IdempotencyProperties idempotencyProps = props
+				.getIdempotency();
+		this.enabled = idempotencyProps.isEnabled();
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(idempotencyProps.getMaximumSize())
+				.expireAfterWrite(idempotencyProps.getTtl().toMillis(),
+						TimeUnit.MILLISECONDS)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+		this.replayedCounter = Counter.builder("ticket.reserve.replayed")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * 冪等キーに該当する予約結果を返却し、存在しない場合は予約処理を実行して結果を保持する。
+	 * <p>
+	 * 冪等キーが指定されていない場合は、予約処理をそのまま実行する。
+	 * </p>
+	 *
+	 * @param idempotencyKey 冪等キー
+	 * @param action 予約処理
+	 * @return 予約結果
+	 */
+	public ReserveCompleteOutputDto execute(String idempotencyKey,
+			Supplier<ReserveCompleteOutputDto> action) {
+		Assert.notNull(action);
+
+		if (!enabled || !StringUtils.hasText(idempotencyKey)) {
+			return action.get();
+		}
+
+		ConcurrentMap<String, CompletableFuture<ReserveCompleteOutputDto>> map = cache
+				.asMap();
+		CompletableFuture<ReserveCompleteOutputDto> created = new CompletableFuture<>();
+		CompletableFuture<ReserveCompleteOutputDto> existing = map
+				.putIfAbsent(idempotencyKey, created);
+		if (existing != null) {
+			replayedCounter.increment();
+			return await(existing);
+		}
+
+		try {
+			ReserveCompleteOutputDto outputDto = action.get();
+			created.complete(outputDto);
+			return outputDto;
+		}
+		catch (RuntimeException e) {
+			// 待ち合わせ中の要求には同じ例外を通知し、以降の要求では予約をやり直す
+			map.remove(idempotencyKey, created);
+			created.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * 処理中または処理済みの予約結果を取得する。
+	 *
+	 * @param future 予約結果
+	 * @return 予約結果
+	 */
+	private ReserveCompleteOutputDto await(
+			CompletableFuture<ReserveCompleteOutputDto> future) {
+		try {
+			return future.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,17 @@
+-- インベントリ(ticket.inventory.enabled=true)を使用する場合のみ適用する
+-- 空席数の更新ごとに索引を更新するため、FLIGHT・FLIGHT_VACANT_BUCKETの更新はHOT更新とならない
+CREATE OR REPLACE FUNCTION TOUCH_VACANT_NUM_UPDATED_AT() RETURNS TRIGGER AS $$
+BEGIN
+  -- 更新時点の日時(トランザクション開始日時ではない)
+  NEW.VACANT_NUM_UPDATED_AT := CAST(CLOCK_TIMESTAMP() AS TIMESTAMP);
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS TR_FLIGHT_1 ON FLIGHT;
+DROP TRIGGER IF EXISTS TR_FLIGHT_VACANT_BUCKET_1 ON FLIGHT_VACANT_BUCKET;
+CREATE TRIGGER TR_FLIGHT_1 BEFORE UPDATE OF VACANT_NUM ON FLIGHT FOR EACH ROW WHEN (OLD.VACANT_NUM IS DISTINCT FROM NEW.VACANT_NUM) EXECUTE PROCEDURE TOUCH_VACANT_NUM_UPDATED_AT();
+CREATE TRIGGER TR_FLIGHT_VACANT_BUCKET_1 BEFORE UPDATE OF VACANT_NUM ON FLIGHT_VACANT_BUCKET FOR EACH ROW WHEN (OLD.VACANT_NUM IS DISTINCT FROM NEW.VACANT_NUM) EXECUTE PROCEDURE TOUCH_VACANT_NUM_UPDATED_AT();
+
+CREATE INDEX IF NOT EXISTS IX_FLIGHT_1 ON FLIGHT (VACANT_NUM_UPDATED_AT);
+CREATE INDEX IF NOT EXISTS IX_FLIGHT_VACANT_BUCKET_1 ON FLIGHT_VACANT_BUCKET (VACANT_NUM_UPDATED_AT);
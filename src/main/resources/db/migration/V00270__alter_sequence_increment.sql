@@ -0,0 +1,4 @@
+ALTER SEQUENCE SQ_MEMBER_1 INCREMENT BY 50;
+ALTER SEQUENCE SQ_RESERVATION_1 INCREMENT BY 50;
+ALTER SEQUENCE SQ_RESERVE_FLIGHT_1 INCREMENT BY 50;
+ALTER SEQUENCE SQ_PASSENGER_1 INCREMENT BY 50;
@@ -0,0 +1,13 @@
+CREATE TABLE SEAT_HOLD (
+  HOLD_ID VARCHAR(36) NOT NULL,
+  DEPARTURE_DATE DATE NOT NULL,
+  FLIGHT_NAME VARCHAR(6) NOT NULL,
+  BOARDING_CLASS_CD VARCHAR(1) NOT NULL,
+  FARE_TYPE_CD VARCHAR(4) NOT NULL,
+  HOLD_NUM INT NOT NULL,
+  EXPIRY_DATE_TIME TIMESTAMP NOT NULL
+);
+
+ALTER TABLE SEAT_HOLD ADD CONSTRAINT PK_SEAT_HOLD PRIMARY KEY (HOLD_ID,DEPARTURE_DATE,FLIGHT_NAME,BOARDING_CLASS_CD,FARE_TYPE_CD);
+ALTER TABLE SEAT_HOLD ADD CONSTRAINT FK_SEAT_HOLD_1 FOREIGN KEY (DEPARTURE_DATE,FLIGHT_NAME,BOARDING_CLASS_CD,FARE_TYPE_CD) REFERENCES FLIGHT (DEPARTURE_DATE,FLIGHT_NAME,BOARDING_CLASS_CD,FARE_TYPE_CD);
+CREATE INDEX IX_SEAT_HOLD_1 ON SEAT_HOLD (EXPIRY_DATE_TIME);
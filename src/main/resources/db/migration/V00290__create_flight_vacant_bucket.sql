@@ -0,0 +1,19 @@
+CREATE TABLE HOT_FLIGHT (
+  FLIGHT_NAME VARCHAR(6) NOT NULL,
+  BUCKET_NUM INT NOT NULL
+);
+
+CREATE TABLE FLIGHT_VACANT_BUCKET (
+  DEPARTURE_DATE DATE NOT NULL,
+  FLIGHT_NAME VARCHAR(6) NOT NULL,
+  BOARDING_CLASS_CD VARCHAR(1) NOT NULL,
+  FARE_TYPE_CD VARCHAR(4) NOT NULL,
+  BUCKET_NO INT NOT NULL,
+  VACANT_NUM INT NOT NULL
+);
+
+ALTER TABLE HOT_FLIGHT ADD CONSTRAINT PK_HOT_FLIGHT PRIMARY KEY (FLIGHT_NAME);
+ALTER TABLE HOT_FLIGHT ADD CONSTRAINT FK_HOT_FLIGHT_1 FOREIGN KEY (FLIGHT_NAME) REFERENCES FLIGHT_MASTER (FLIGHT_NAME);
+ALTER TABLE HOT_FLIGHT ADD CONSTRAINT CK_HOT_FLIGHT_1 CHECK (BUCKET_NUM > 0);
+ALTER TABLE FLIGHT_VACANT_BUCKET ADD CONSTRAINT PK_FLIGHT_VACANT_BUCKET PRIMARY KEY (DEPARTURE_DATE,FLIGHT_NAME,BOARDING_CLASS_CD,FARE_TYPE_CD,BUCKET_NO);
+ALTER TABLE FLIGHT_VACANT_BUCKET ADD CONSTRAINT FK_FLIGHT_VACANT_BUCKET_1 FOREIGN KEY (DEPARTURE_DATE,FLIGHT_NAME,BOARDING_CLASS_CD,FARE_TYPE_CD) REFERENCES FLIGHT (DEPARTURE_DATE,FLIGHT_NAME,BOARDING_CLASS_CD,FARE_TYPE_CD);
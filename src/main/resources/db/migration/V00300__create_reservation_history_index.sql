@@ -0,0 +1,3 @@
+CREATE INDEX IX_RESERVATION_1 ON RESERVATION (REP_CUSTOMER_NO,RESERVE_DATE,RESERVE_NO);
+CREATE INDEX IX_RESERVE_FLIGHT_1 ON RESERVE_FLIGHT (RESERVE_NO,RESERVE_FLIGHT_NO);
+CREATE INDEX IX_PASSENGER_1 ON PASSENGER (RESERVE_FLIGHT_NO,PASSENGER_NO);
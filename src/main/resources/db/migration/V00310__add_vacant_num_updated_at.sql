@@ -0,0 +1,3 @@
+-- 更新日時の記録(トリガー・索引)はインベントリを使用する場合のみ db/inventory で作成する
+ALTER TABLE FLIGHT ADD COLUMN VACANT_NUM_UPDATED_AT TIMESTAMP;
+ALTER TABLE FLIGHT_VACANT_BUCKET ADD COLUMN VACANT_NUM_UPDATED_AT TIMESTAMP;
@@ -392,7 +392,6 @@
         url: contextPath + 'api/flights',
         data: param,
         dataType: 'json',
-        cache: false,
         timeout: 15000
       }).done(function (data) {
 
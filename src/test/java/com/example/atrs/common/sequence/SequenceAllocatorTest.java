@@ -0,0 +1,159 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.common.sequence;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link SequenceAllocator} のテスト。
+ *
+ * @author NTT 電電太郎
+ */
+public class SequenceAllocatorTest {
+
+	private static final String SEQUENCE_NAME = "sq_test_1";
+
+	private SequenceMapper sequenceMapper;
+
+	private SequenceAllocator sequenceAllocator;
+
+	/**
+	 * NEXTVALで払い出す値。
+	 */
+	private AtomicLong nextval;
+
+	private ExecutorService executor;
+
+	@Before
+	public void setup() {
+		SequenceDefinition definition = new SequenceDefinition();
+		definition.setIncrement(10);
+		definition.setMaximumValue(9999999999L);
+		nextval = new AtomicLong(1);
+		sequenceMapper = mock(SequenceMapper.class);
+		when(sequenceMapper.findDefinition(SEQUENCE_NAME)).thenReturn(definition);
+		when(sequenceMapper.nextval(SEQUENCE_NAME))
+				.thenAnswer(invocation -> nextval.getAndAdd(10));
+		sequenceAllocator = new SequenceAllocator(sequenceMapper);
+		executor = Executors.newFixedThreadPool(8);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void fetchBlockOnlyWhenExhausted() {
+		for (long expected = 1; expected <= 25; expected++) {
+			assertThat(sequenceAllocator.next(SEQUENCE_NAME)).isEqualTo(expected);
+		}
+
+		verify(sequenceMapper, times(3)).nextval(SEQUENCE_NAME);
+		verify(sequenceMapper, times(1)).findDefinition(SEQUENCE_NAME);
+	}
+
+	@Test
+	public void nextNoIsZeroPadded() {
+		assertThat(sequenceAllocator.nextNo(SEQUENCE_NAME)).isEqualTo("0000000001");
+	}
+
+	@Test
+	public void nextCountSpansBlocks() {
+		sequenceAllocator.next(SEQUENCE_NAME, 8);
+
+		assertThat(sequenceAllocator.next(SEQUENCE_NAME, 5)).containsExactly(9, 10,
+				11, 12, 13);
+	}
+
+	@Test
+	public void capAtMaximumValue() {
+		SequenceDefinition definition = new SequenceDefinition();
+		definition.setIncrement(10);
+		definition.setMaximumValue(5);
+		when(sequenceMapper.findDefinition("sq_small_1")).thenReturn(definition);
+		when(sequenceMapper.nextval("sq_small_1")).thenReturn(1L)
+				.thenThrow(new IllegalStateException("reached maximum value"));
+
+		assertThat(sequenceAllocator.next("sq_small_1", 5)).containsExactly(1, 2, 3,
+				4, 5);
+		assertThatThrownBy(() -> sequenceAllocator.next("sq_small_1"))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void retryAfterNextvalFailure() {
+		sequenceAllocator.next(SEQUENCE_NAME, 10);
+		doThrow(new IllegalStateException("connection refused"))
+				.doAnswer(invocation -> nextval.getAndAdd(10)).when(sequenceMapper)
+				.nextval(SEQUENCE_NAME);
+
+		assertThatThrownBy(() -> sequenceAllocator.next(SEQUENCE_NAME))
+				.isInstanceOf(IllegalStateException.class);
+		assertThat(sequenceAllocator.next(SEQUENCE_NAME)).isEqualTo(11);
+	}
+
+	@Test
+	public void fetchEachBlockOnceUnderContention() throws Exception {
+		int threads = 8;
+		int perThread = 1000;
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<long[]>> futures = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				long[] values = new long[perThread];
+				for (int j = 0; j < perThread; j++) {
+					values[j] = sequenceAllocator.next(SEQUENCE_NAME);
+				}
+				return values;
+			}));
+		}
+		start.countDown();
+
+		Set<Long> values = new HashSet<>();
+		for (Future<long[]> future : futures) {
+			for (long value : future.get(30, TimeUnit.SECONDS)) {
+				values.add(value);
+			}
+		}
+		assertThat(values).hasSize(threads * perThread);
+		assertThat(values).allMatch(v -> v >= 1 && v <= threads * perThread);
+		verify(sequenceMapper, times(threads * perThread / 10)).nextval(SEQUENCE_NAME);
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import com.example.atrs.common.util.DateTimeUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * {@link FareMatrix} のテスト。
+ *
+ * @author NTT 電電太郎
+ */
+public class FareMatrixTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2019, 1, 1);
+
+	private static final int LIMIT_DAY = 10;
+
+	private Route route;
+
+	private ReferenceData referenceData;
+
+	private FareMatrix fareMatrix;
+
+	@Before
+	public void setup() {
+		route = route(1, 20000);
+		referenceData = referenceData(1, route);
+
+		TicketProperties props = new TicketProperties();
+		props.setLimitDay(LIMIT_DAY);
+		Clock clock = Clock.fixed(TODAY.atStartOfDay(ZoneId.systemDefault()).toInstant(),
+				ZoneId.systemDefault());
+		ReferenceDataRegistry registry = mock(ReferenceDataRegistry.class);
+		PeakTimeProvider peakTimeProvider = new PeakTimeProvider(props, clock, registry);
+		peakTimeProvider.prepare(referenceData);
+		TicketSharedService ticketSharedService = new TicketSharedService(props, clock,
+				peakTimeProvider, mock(FlightMapper.class));
+		fareMatrix = new FareMatrix(props, clock, registry, ticketSharedService);
+	}
+
+	@Test
+	public void calculateFaresOfEachFareType() {
+		fareMatrix.prepare(referenceData);
+
+		FareMatrix.Fares normal = fareMatrix.getFares(referenceData, route,
+				BoardingClassCd.N, date(1));
+		assertThat(normal.getBasicFare()).isEqualTo(20000);
+		assertThat(normal.getFare(FareTypeCd.OW)).isEqualTo(20000);
+		assertThat(normal.getFare(FareTypeCd.RT)).isEqualTo(18000);
+		assertThat(normal.getFormattedFare(FareTypeCd.RT)).isEqualTo("18,000");
+		// 参照データに存在しない運賃種別
+		assertThat(normal.getFare(FareTypeCd.SOW)).isZero();
+		assertThat(normal.getFormattedFare(FareTypeCd.SOW)).isNull();
+
+		// ピーク時期・搭乗クラスの加算料金
+		FareMatrix.Fares peak = fareMatrix.getFares(referenceData, route,
+				BoardingClassCd.S, date(2));
+		assertThat(peak.getBasicFare()).isEqualTo(37500);
+		assertThat(peak.getFare(FareTypeCd.RT)).isEqualTo(33800);
+	}
+
+	@Test
+	public void agreeWithCalculationInsideAndOutsideTable() {
+		FareMatrix.Fares[] calculated = new FareMatrix.Fares[LIMIT_DAY + 6];
+		for (int day = 0; day < calculated.length; day++) {
+			calculated[day] = fareMatrix.getFares(referenceData, route, BoardingClassCd.S,
+					date(day));
+		}
+
+		fareMatrix.prepare(referenceData);
+
+		for (int day = 0; day < calculated.length; day++) {
+			assertSameFares(fareMatrix.getFares(referenceData, route, BoardingClassCd.S,
+					date(day)), calculated[day]);
+		}
+	}
+
+	@Test
+	public void calculateFromOtherReferenceData() {
+		fareMatrix.prepare(referenceData);
+		Route raised = route(1, 30000);
+		ReferenceData reloaded = referenceData(2, raised);
+
+		assertThat(fareMatrix.getFares(reloaded, raised, BoardingClassCd.N, date(1))
+				.getBasicFare()).isEqualTo(30000);
+		assertThat(fareMatrix.getFares(referenceData, route, BoardingClassCd.N, date(1))
+				.getBasicFare()).isEqualTo(20000);
+
+		fareMatrix.prepare(reloaded);
+
+		assertThat(fareMatrix.getFares(reloaded, raised, BoardingClassCd.N, date(1))
+				.getBasicFare()).isEqualTo(30000);
+		assertThat(fareMatrix.getFares(referenceData, route, BoardingClassCd.N, date(1))
+				.getBasicFare()).isEqualTo(20000);
+	}
+
+	private static void assertSameFares(FareMatrix.Fares actual,
+			FareMatrix.Fares expected) {
+		assertThat(actual.getBasicFare()).isEqualTo(expected.getBasicFare());
+		for (FareTypeCd fareTypeCd : FareTypeCd.values()) {
+			assertThat(actual.getFare(fareTypeCd)).isEqualTo(expected.getFare(fareTypeCd));
+			assertThat(actual.getFormattedFare(fareTypeCd))
+					.isEqualTo(expected.getFormattedFare(fareTypeCd));
+		}
+	}
+
+	private static Date date(int day) {
+		return DateTimeUtil.toDate(TODAY.plusDays(day));
+	}
+
+	private static ReferenceData referenceData(long version, Route route) {
+		PeakTime peakTime = new PeakTime();
+		peakTime.setPeakStartDate(date(2));
+		peakTime.setPeakEndDate(date(LIMIT_DAY + 3));
+		peakTime.setMultiplicationRatio(150);
+		return new ReferenceData(version, 0,
+				Arrays.asList(boardingClass(BoardingClassCd.N, 0),
+						boardingClass(BoardingClassCd.S, 5000)),
+				Arrays.asList(fareType(FareTypeCd.OW, 0), fareType(FareTypeCd.RT, 10)),
+				Collections.emptyList(), Collections.singletonList(route),
+				Collections.singletonList(peakTime));
+	}
+
+	private static Route route(int routeNo, int basicFare) {
+		Route route = new Route();
+		route.setRouteNo(routeNo);
+		route.setBasicFare(basicFare);
+		route.setDepartureAirport(airport("HND"));
+		route.setArrivalAirport(airport("ITM"));
+		return route;
+	}
+
+	private static Airport airport(String code) {
+		Airport airport = new Airport();
+		airport.setCode(code);
+		return airport;
+	}
+
+	private static BoardingClass boardingClass(BoardingClassCd boardingClassCd,
+			int extraCharge) {
+		BoardingClass boardingClass = new BoardingClass();
+		boardingClass.setBoardingClassCd(boardingClassCd);
+		boardingClass.setExtraCharge(extraCharge);
+		return boardingClass;
+	}
+
+	private static FareType fareType(FareTypeCd fareTypeCd, int discountRate) {
+		FareType fareType = new FareType();
+		fareType.setFareTypeCd(fareTypeCd);
+		fareType.setDiscountRate(discountRate);
+		return fareType;
+	}
+}
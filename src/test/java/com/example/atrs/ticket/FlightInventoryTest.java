@@ -0,0 +1,266 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import com.example.atrs.common.util.DateTimeUtil;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link FlightInventory} のテスト。
+ *
+ * @author NTT 電電太郎
+ */
+public class FlightInventoryTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2019, 1, 1);
+
+	private static final Date LOADED_AT = new Date(1546300800000L);
+
+	private FlightMapper flightMapper;
+
+	private FlightVacantNumVersionRegistry flightVacantNumVersionRegistry;
+
+	private Route route;
+
+	private ReferenceData referenceData;
+
+	private FlightInventory flightInventory;
+
+	/**
+	 * DBから読み込むフライト情報。
+	 */
+	private List<Flight> dbFlightList;
+
+	/**
+	 * DBから読み込んだ後、再ロードが完了するまでの間にコミットされる変更。
+	 */
+	private Runnable afterRead;
+
+	@Before
+	public void setup() {
+		route = new Route();
+		route.setRouteNo(1);
+		FlightMaster late = flightMaster("NTT002", "1200");
+		FlightMaster early = flightMaster("NTT001", "0800");
+
+		BoardingClass boardingClass = new BoardingClass();
+		boardingClass.setBoardingClassCd(BoardingClassCd.N);
+		referenceData = new ReferenceData(1, LOADED_AT.getTime(),
+				Collections.singletonList(boardingClass),
+				Arrays.asList(fareType(FareTypeCd.OW, 1), fareType(FareTypeCd.RT, 2)),
+				Arrays.asList(late, early), Collections.emptyList(),
+				Collections.emptyList());
+
+		dbFlightList = new ArrayList<>();
+		dbFlightList.add(flight(TODAY.plusDays(3), "NTT001", FareTypeCd.OW, 100));
+		dbFlightList.add(flight(TODAY.plusDays(3), "NTT002", FareTypeCd.OW, 50));
+		dbFlightList.add(flight(TODAY.plusDays(3), "NTT002", FareTypeCd.RT, 20));
+		afterRead = () -> {
+		};
+
+		flightMapper = mock(FlightMapper.class);
+		when(flightMapper.findCurrentTimestamp()).thenReturn(LOADED_AT);
+		doAnswer(invocation -> {
+			ResultHandler<Flight> handler = invocation.getArgument(2);
+			DefaultResultContext<Flight> context = new DefaultResultContext<>();
+			for (Flight flight : dbFlightList) {
+				context.nextResultObject(flight);
+				handler.handleResult(context);
+			}
+			afterRead.run();
+			return null;
+		}).when(flightMapper).findByDepartureDateRange(any(), any(), any());
+
+		TicketProperties props = new TicketProperties();
+		props.setLimitDay(30);
+		props.getInventory().setEnabled(true);
+		props.getInventory().setRefreshOverlap(Duration.ofMinutes(1));
+		Clock clock = Clock.fixed(
+				TODAY.atStartOfDay(ZoneId.systemDefault()).toInstant(),
+				ZoneId.systemDefault());
+		flightVacantNumVersionRegistry = mock(FlightVacantNumVersionRegistry.class);
+		flightInventory = new FlightInventory(props, clock, flightMapper,
+				mock(ReferenceDataRegistry.class), flightVacantNumVersionRegistry);
+	}
+
+	@Test
+	public void findInDisplayAndDepartureTimeOrder() {
+		flightInventory.reload(referenceData);
+
+		List<Flight> flightList = flightInventory.findByVacantSeatSearchCriteria(
+				referenceData, criteria(TODAY.plusDays(3)));
+
+		assertThat(flightList).extracting(f -> f.getFareType().getFareTypeCd(),
+				f -> f.getFlightMaster().getFlightName(), Flight::getVacantNum)
+				.containsExactly(
+						tuple(FareTypeCd.OW, "NTT001", 100),
+						tuple(FareTypeCd.OW, "NTT002", 50),
+						tuple(FareTypeCd.RT, "NTT002", 20));
+	}
+
+	@Test
+	public void returnNullOutsideLoadedRange() {
+		flightInventory.reload(referenceData);
+
+		assertThat(flightInventory.findByVacantSeatSearchCriteria(referenceData,
+				criteria(TODAY.minusDays(1)))).isNull();
+		assertThat(flightInventory.findByVacantSeatSearchCriteria(referenceData,
+				criteria(TODAY.plusDays(31)))).isNull();
+		assertThat(flightInventory.findByVacantSeatSearchCriteria(referenceData,
+				criteria(TODAY.plusDays(30)))).isEmpty();
+	}
+
+	@Test
+	public void returnNullForOtherReferenceData() {
+		flightInventory.reload(referenceData);
+		ReferenceData reloaded = new ReferenceData(2, LOADED_AT.getTime(),
+				Collections.emptyList(), Collections.emptyList(),
+				Collections.emptyList(), Collections.emptyList(),
+				Collections.emptyList());
+
+		assertThat(flightInventory.findByVacantSeatSearchCriteria(reloaded,
+				criteria(TODAY.plusDays(3)))).isNull();
+
+		flightInventory.prepare(reloaded);
+
+		assertThat(flightInventory.findByVacantSeatSearchCriteria(referenceData,
+				criteria(TODAY.plusDays(3)))).isNull();
+		assertThat(flightInventory.findByVacantSeatSearchCriteria(reloaded,
+				criteria(TODAY.plusDays(3)))).isEmpty();
+	}
+
+	@Test
+	public void applyVacantNumChange() {
+		flightInventory.reload(referenceData);
+
+		flightInventory.onVacantNumChanged(event(TODAY.plusDays(3), "NTT001", -3));
+		flightInventory.onVacantNumChanged(event(TODAY.plusDays(3), "NTT002", -80));
+
+		assertThat(vacantNums(TODAY.plusDays(3))).containsExactly(97, 0, 20);
+	}
+
+	@Test
+	public void applyChangesCommittedDuringReload() {
+		flightInventory.reload(referenceData);
+		afterRead = () -> flightInventory
+				.onVacantNumChanged(event(TODAY.plusDays(3), "NTT001", -2));
+
+		flightInventory.reload(referenceData);
+
+		assertThat(vacantNums(TODAY.plusDays(3))).containsExactly(98, 50, 20);
+	}
+
+	@Test
+	public void refreshOverwritesWithDatabaseValues() {
+		flightInventory.reload(referenceData);
+		Date since = new Date(LOADED_AT.getTime() - Duration.ofMinutes(1).toMillis());
+		Date refreshedAt = new Date(LOADED_AT.getTime() + 5000);
+		when(flightMapper.findCurrentTimestamp()).thenReturn(refreshedAt);
+		when(flightMapper.findByVacantNumUpdatedSince(eq(since), any(), any()))
+				.thenReturn(Arrays.asList(
+						flight(TODAY.plusDays(3), "NTT001", FareTypeCd.OW, 100),
+						flight(TODAY.plusDays(3), "NTT002", FareTypeCd.OW, 7)));
+
+		flightInventory.refresh();
+
+		assertThat(vacantNums(TODAY.plusDays(3))).containsExactly(100, 7, 20);
+		Date depDate = DateTimeUtil.toDate(TODAY.plusDays(3));
+		verify(flightVacantNumVersionRegistry).increment(depDate, "NTT002",
+				BoardingClassCd.N);
+		verify(flightVacantNumVersionRegistry, never()).increment(depDate, "NTT001",
+				BoardingClassCd.N);
+	}
+
+	private List<Integer> vacantNums(LocalDate depDate) {
+		List<Integer> vacantNums = new ArrayList<>();
+		for (Flight flight : flightInventory
+				.findByVacantSeatSearchCriteria(referenceData, criteria(depDate))) {
+			vacantNums.add(flight.getVacantNum());
+		}
+		return vacantNums;
+	}
+
+	private VacantSeatSearchCriteriaDto criteria(LocalDate depDate) {
+		int beforeDayNum = (int) (depDate.toEpochDay() - TODAY.toEpochDay());
+		return new VacantSeatSearchCriteriaDto(DateTimeUtil.toDate(depDate), route,
+				BoardingClassCd.N, beforeDayNum,
+				Arrays.asList(FareTypeCd.RT, FareTypeCd.OW));
+	}
+
+	private FlightMaster flightMaster(String flightName, String departureTime) {
+		FlightMaster flightMaster = new FlightMaster();
+		flightMaster.setFlightName(flightName);
+		flightMaster.setDepartureTime(departureTime);
+		flightMaster.setRoute(route);
+		return flightMaster;
+	}
+
+	private static FareType fareType(FareTypeCd fareTypeCd, int displayOrder) {
+		FareType fareType = new FareType();
+		fareType.setFareTypeCd(fareTypeCd);
+		fareType.setDisplayOrder(displayOrder);
+		fareType.setRsrvAvailableStartDayNum(355);
+		fareType.setRsrvAvailableEndDayNum(0);
+		return fareType;
+	}
+
+	private static Flight flight(LocalDate depDate, String flightName,
+			FareTypeCd fareTypeCd, int vacantNum) {
+		FlightMaster flightMaster = new FlightMaster();
+		flightMaster.setFlightName(flightName);
+		BoardingClass boardingClass = new BoardingClass();
+		boardingClass.setBoardingClassCd(BoardingClassCd.N);
+		FareType fareType = new FareType();
+		fareType.setFareTypeCd(fareTypeCd);
+		Flight flight = new Flight();
+		flight.setDepartureDate(DateTimeUtil.toDate(depDate));
+		flight.setFlightMaster(flightMaster);
+		flight.setBoardingClass(boardingClass);
+		flight.setFareType(fareType);
+		flight.setVacantNum(vacantNum);
+		return flight;
+	}
+
+	private static FlightVacantNumChangedEvent event(LocalDate depDate,
+			String flightName, int delta) {
+		return new FlightVacantNumChangedEvent(DateTimeUtil.toDate(depDate), flightName,
+				BoardingClassCd.N, FareTypeCd.OW, delta);
+	}
+}
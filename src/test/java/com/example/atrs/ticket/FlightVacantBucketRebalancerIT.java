@@ -0,0 +1,199 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 予約(空席数の減算)と並行して実行した空席数バケットの再配分のテスト。
+ * <p>
+ * 1つの人気便のフライトに対して複数のスレッドから空席数を減算し、同時に再配分を繰り返し実行する。
+ * 空席数の合計が減算件数だけ減っていること、減算の終了後の再配分で空席数が全てのバケットに均等に配分されることを検証する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class FlightVacantBucketRebalancerIT {
+
+	private static final String FLIGHT_NAME = "NTT001";
+
+	private static final int BUCKET_NUM = 8;
+
+	private static final int RESERVER_THREADS = 16;
+
+	private static final long DURATION_MILLIS = 10000;
+
+	private static final int INITIAL_VACANT_NUM = 1000000;
+
+	@Autowired
+	FlightVacantBucketService flightVacantBucketService;
+
+	@Autowired
+	FlightVacantBucketRebalancer flightVacantBucketRebalancer;
+
+	@Autowired
+	TicketProperties ticketProperties;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	private Flight flight;
+
+	private int originalVacantNum;
+
+	@Before
+	public void setup() {
+		Date departureDate = jdbcTemplate.queryForObject(
+				"SELECT MIN(departure_date) FROM flight WHERE flight_name = ? AND departure_date > CURRENT_DATE AND boarding_class_cd = 'N' AND fare_type_cd = 'OW'",
+				Date.class, FLIGHT_NAME);
+		flight = new Flight();
+		flight.setDepartureDate(departureDate);
+		FlightMaster flightMaster = new FlightMaster();
+		flightMaster.setFlightName(FLIGHT_NAME);
+		flight.setFlightMaster(flightMaster);
+		BoardingClass boardingClass = new BoardingClass();
+		boardingClass.setBoardingClassCd(BoardingClassCd.N);
+		flight.setBoardingClass(boardingClass);
+		FareType fareType = new FareType();
+		fareType.setFareTypeCd(FareTypeCd.OW);
+		flight.setFareType(fareType);
+
+		originalVacantNum = totalVacantNum();
+		jdbcTemplate.update(
+				"INSERT INTO hot_flight (flight_name, bucket_num) VALUES (?, ?) ON CONFLICT (flight_name) DO UPDATE SET bucket_num = EXCLUDED.bucket_num",
+				FLIGHT_NAME, BUCKET_NUM);
+		flightVacantBucketService.load();
+		flightVacantBucketRebalancer.rebalance();
+		jdbcTemplate.update(
+				"UPDATE flight SET vacant_num = vacant_num + ? WHERE departure_date = ? AND flight_name = ? AND boarding_class_cd = 'N' AND fare_type_cd = 'OW'",
+				INITIAL_VACANT_NUM, departureDate, FLIGHT_NAME);
+	}
+
+	@After
+	public void tearDown() {
+		jdbcTemplate.update("DELETE FROM hot_flight WHERE flight_name = ?", FLIGHT_NAME);
+		flightVacantBucketService.load();
+		flightVacantBucketService
+				.mergeObsoleteBucket(Date.valueOf(LocalDate.now()));
+		jdbcTemplate.update(
+				"UPDATE flight SET vacant_num = ? WHERE departure_date = ? AND flight_name = ? AND boarding_class_cd = 'N' AND fare_type_cd = 'OW'",
+				originalVacantNum, flight.getDepartureDate(), FLIGHT_NAME);
+	}
+
+	@Test
+	public void decrementWhileRebalancing() throws Exception {
+		int before = totalVacantNum();
+		TransactionTemplate transactionTemplate = new TransactionTemplate(
+				transactionManager);
+		AtomicBoolean running = new AtomicBoolean(true);
+		ExecutorService executor = Executors.newFixedThreadPool(RESERVER_THREADS + 1);
+		List<Future<Integer>> reserverList = new ArrayList<>();
+		for (int i = 0; i < RESERVER_THREADS; i++) {
+			reserverList.add(executor.submit(() -> {
+				int count = 0;
+				while (running.get()) {
+					transactionTemplate.execute(status -> {
+						flightVacantBucketService.decrementVacantNum(flight, 1);
+						return null;
+					});
+					count++;
+				}
+				return count;
+			}));
+		}
+		Future<Integer> rebalancer = executor.submit(() -> {
+			int count = 0;
+			while (running.get()) {
+				flightVacantBucketRebalancer.rebalance();
+				count++;
+			}
+			return count;
+		});
+
+		Thread.sleep(DURATION_MILLIS);
+		running.set(false);
+		int decremented = 0;
+		for (Future<Integer> reserver : reserverList) {
+			decremented += reserver.get();
+		}
+		int rebalanced = rebalancer.get();
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+
+		int total = totalVacantNum();
+		assertThat(decremented).isPositive();
+		assertThat(rebalanced).isPositive();
+		assertThat(total).isEqualTo(before - decremented);
+
+		// 競合がなければ、バケット間の偏りは閾値未満となり、フライト情報にはバケット数未満の端数のみ残る
+		flightVacantBucketRebalancer.rebalance();
+		List<Integer> bucketVacantNums = bucketVacantNums();
+		assertThat(bucketVacantNums).hasSize(BUCKET_NUM);
+		assertThat(Collections.max(bucketVacantNums) - Collections.min(bucketVacantNums))
+				.isLessThan(ticketProperties.getVacantBucket().getRebalanceThreshold());
+		assertThat(flightVacantNum()).isLessThan(BUCKET_NUM);
+		assertThat(totalVacantNum()).isEqualTo(total);
+	}
+
+	private List<Integer> bucketVacantNums() {
+		return jdbcTemplate.queryForList(
+				"SELECT vacant_num FROM flight_vacant_bucket WHERE departure_date = ? AND flight_name = ? AND boarding_class_cd = 'N' AND fare_type_cd = 'OW'",
+				Integer.class, flight.getDepartureDate(), FLIGHT_NAME);
+	}
+
+	private int flightVacantNum() {
+		return jdbcTemplate.queryForObject(
+				"SELECT vacant_num FROM flight WHERE departure_date = ? AND flight_name = ? AND boarding_class_cd = 'N' AND fare_type_cd = 'OW'",
+				Integer.class, flight.getDepartureDate(), FLIGHT_NAME);
+	}
+
+	private int totalVacantNum() {
+		return jdbcTemplate.queryForObject(
+				"SELECT f.vacant_num + COALESCE((SELECT SUM(b.vacant_num) FROM flight_vacant_bucket b WHERE b.departure_date = f.departure_date AND b.flight_name = f.flight_name AND b.boarding_class_cd = f.boarding_class_cd AND b.fare_type_cd = f.fare_type_cd), 0) FROM flight f WHERE f.departure_date = ? AND f.flight_name = ? AND f.boarding_class_cd = 'N' AND f.fare_type_cd = 'OW'",
+				Integer.class, flight.getDepartureDate(), FLIGHT_NAME);
+	}
+}
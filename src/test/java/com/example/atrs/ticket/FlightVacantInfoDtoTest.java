@@ -0,0 +1,74 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * {@link FlightVacantInfoDto} のテスト。
+ *
+ * @author NTT 電電太郎
+ */
+public class FlightVacantInfoDtoTest {
+
+	private static final FareTypeVacantInfoDto OW = new FareTypeVacantInfoDto("片道運賃",
+			"10,000円", 10000, 5);
+
+	private static final FareTypeVacantInfoDto RT = new FareTypeVacantInfoDto("往復運賃",
+			"9,000円", 9000, 3);
+
+	@Test
+	public void keepFareTypesInGivenOrder() {
+		Map<String, FareTypeVacantInfoDto> fareTypes = new LinkedHashMap<>();
+		fareTypes.put(FareTypeCd.RT.getCode(), RT);
+		fareTypes.put(FareTypeCd.OW.getCode(), OW);
+
+		FlightVacantInfoDto vacantInfo = flightVacantInfo(fareTypes);
+
+		assertThat(vacantInfo.getFareTypes()).containsExactly(
+				entry(FareTypeCd.RT.getCode(), RT), entry(FareTypeCd.OW.getCode(), OW));
+		assertThat(vacantInfo.getFlightName()).isEqualTo("NTT001");
+		assertThat(vacantInfo.getDepTime()).isEqualTo("08:00");
+	}
+
+	@Test
+	public void fareTypesCannotBeModified() {
+		Map<String, FareTypeVacantInfoDto> fareTypes = new LinkedHashMap<>();
+		fareTypes.put(FareTypeCd.OW.getCode(), OW);
+		FlightVacantInfoDto vacantInfo = flightVacantInfo(fareTypes);
+
+		// 生成元のマップを変更しても影響しない
+		fareTypes.put(FareTypeCd.RT.getCode(), RT);
+
+		assertThat(vacantInfo.getFareTypes()).containsOnlyKeys(FareTypeCd.OW.getCode());
+		assertThatThrownBy(() -> vacantInfo.getFareTypes().put(FareTypeCd.RT.getCode(), RT))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	private static FlightVacantInfoDto flightVacantInfo(
+			Map<String, FareTypeVacantInfoDto> fareTypes) {
+		return new FlightVacantInfoDto("NTT001", "羽田", "伊丹", "2019/01/01", "08:00",
+				"09:10", BoardingClassCd.N, fareTypes);
+	}
+}
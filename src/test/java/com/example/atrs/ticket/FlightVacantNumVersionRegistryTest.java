@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Date;
+
+import com.example.atrs.common.util.DateTimeUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link FlightVacantNumVersionRegistry} のテスト。
+ *
+ * @author NTT 電電太郎
+ */
+public class FlightVacantNumVersionRegistryTest {
+
+	private static final Date DEP_DATE = DateTimeUtil.toDate(LocalDate.of(2019, 1, 4));
+
+	private TicketProperties props;
+
+	private Clock clock;
+
+	private Instant now;
+
+	private ReferenceDataRegistry referenceDataRegistry;
+
+	private FlightMasterProvider flightMasterProvider;
+
+	private Route route;
+
+	@Before
+	public void setup() {
+		props = new TicketProperties();
+		now = LocalDate.of(2019, 1, 1).atStartOfDay(ZoneId.systemDefault())
+				.toInstant();
+		clock = mock(Clock.class);
+		when(clock.getZone()).thenReturn(ZoneId.systemDefault());
+		when(clock.instant()).thenAnswer(invocation -> now);
+		when(clock.millis()).thenAnswer(invocation -> now.toEpochMilli());
+
+		referenceDataRegistry = mock(ReferenceDataRegistry.class);
+		when(referenceDataRegistry.getSnapshot()).thenReturn(referenceData(1));
+
+		route = new Route();
+		route.setRouteNo(1);
+		FlightMaster flightMaster = new FlightMaster();
+		flightMaster.setFlightName("NTT001");
+		flightMaster.setRoute(route);
+		flightMasterProvider = mock(FlightMasterProvider.class);
+		when(flightMasterProvider.getFlightMaster("NTT001")).thenReturn(flightMaster);
+	}
+
+	@Test
+	public void changeWhenVacantNumChanged() {
+		FlightVacantNumVersionRegistry registry = registry();
+		String before = registry.getETag(DEP_DATE, route, BoardingClassCd.N);
+
+		registry.increment(DEP_DATE, "NTT001", BoardingClassCd.N);
+
+		assertThat(registry.getETag(DEP_DATE, route, BoardingClassCd.N))
+				.isNotEqualTo(before);
+	}
+
+	@Test
+	public void changeWhenReferenceDataReloaded() {
+		FlightVacantNumVersionRegistry registry = registry();
+		String before = registry.getETag(DEP_DATE, route, BoardingClassCd.N);
+
+		when(referenceDataRegistry.getSnapshot()).thenReturn(referenceData(2));
+
+		assertThat(registry.getETag(DEP_DATE, route, BoardingClassCd.N))
+				.isNotEqualTo(before);
+	}
+
+	@Test
+	public void changeAfterMaxAgeWithoutInventory() {
+		props.getSearchEtag().setMaxAge(Duration.ofSeconds(10));
+		FlightVacantNumVersionRegistry registry = registry();
+		String before = registry.getETag(DEP_DATE, route, BoardingClassCd.N);
+
+		now = now.plusSeconds(9);
+		assertThat(registry.getETag(DEP_DATE, route, BoardingClassCd.N))
+				.isEqualTo(before);
+
+		now = now.plusSeconds(1);
+		assertThat(registry.getETag(DEP_DATE, route, BoardingClassCd.N))
+				.isNotEqualTo(before);
+	}
+
+	@Test
+	public void keepAfterMaxAgeWithInventory() {
+		props.getInventory().setEnabled(true);
+		FlightVacantNumVersionRegistry registry = registry();
+		String before = registry.getETag(DEP_DATE, route, BoardingClassCd.N);
+
+		now = now.plusSeconds(60);
+
+		assertThat(registry.getETag(DEP_DATE, route, BoardingClassCd.N))
+				.isEqualTo(before);
+	}
+
+	private FlightVacantNumVersionRegistry registry() {
+		return new FlightVacantNumVersionRegistry(props, clock, flightMasterProvider,
+				referenceDataRegistry);
+	}
+
+	private static ReferenceData referenceData(long version) {
+		return new ReferenceData(version, 0, Collections.emptyList(),
+				Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+				Collections.emptyList());
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.example.atrs.common.util.DateTimeUtil;
+import com.example.atrs.ticket.PeakTimeProvider.RatioTable;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link PeakTimeProvider} のテスト。
+ * <p>
+ * 事前計算した積算比率表の参照結果が、ピーク時期の走査結果と一致することを確認する。
+ * </p>
+ *
+ * @author NTT 電電太郎
+ */
+public class PeakTimeProviderTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2019, 1, 1);
+
+	private static final long BASE = TODAY.toEpochDay();
+
+	private static final int DAYS = 31;
+
+	@Test
+	public void includeStartAndEndDate() {
+		ReferenceData referenceData = referenceData(
+				peakTime(TODAY.plusDays(5), TODAY.plusDays(7), 150));
+		RatioTable table = PeakTimeProvider.build(referenceData, BASE, DAYS);
+
+		assertThat(table.ratioFor(BASE + 4)).isEqualTo(100);
+		assertThat(table.ratioFor(BASE + 5)).isEqualTo(150);
+		assertThat(table.ratioFor(BASE + 7)).isEqualTo(150);
+		assertThat(table.ratioFor(BASE + 8)).isEqualTo(100);
+		assertAgreeWithScan(referenceData, BASE - 10, BASE + DAYS + 10);
+	}
+
+	@Test
+	public void applyLargestRatioOfOverlappingPeakTimes() {
+		ReferenceData referenceData = referenceData(
+				peakTime(TODAY.plusDays(3), TODAY.plusDays(10), 120),
+				peakTime(TODAY.plusDays(8), TODAY.plusDays(12), 180),
+				peakTime(TODAY.plusDays(9), TODAY.plusDays(9), 110));
+		RatioTable table = PeakTimeProvider.build(referenceData, BASE, DAYS);
+
+		assertThat(table.ratioFor(BASE + 7)).isEqualTo(120);
+		assertThat(table.ratioFor(BASE + 8)).isEqualTo(180);
+		assertThat(table.ratioFor(BASE + 9)).isEqualTo(180);
+		assertThat(table.ratioFor(BASE + 12)).isEqualTo(180);
+		assertThat(table.ratioFor(BASE + 13)).isEqualTo(100);
+		assertAgreeWithScan(referenceData, BASE - 10, BASE + DAYS + 10);
+	}
+
+	@Test
+	public void scanOutsideWindow() {
+		ReferenceData referenceData = referenceData(
+				peakTime(TODAY.minusDays(20), TODAY.minusDays(1), 130),
+				peakTime(TODAY.plusDays(DAYS - 1), TODAY.plusDays(DAYS + 5), 140),
+				peakTime(TODAY.plusDays(100), TODAY.plusDays(110), 160));
+		RatioTable table = PeakTimeProvider.build(referenceData, BASE, DAYS);
+
+		assertThat(table.ratioFor(BASE - 1)).isEqualTo(130);
+		assertThat(table.ratioFor(BASE)).isEqualTo(100);
+		assertThat(table.ratioFor(BASE + DAYS - 1)).isEqualTo(140);
+		assertThat(table.ratioFor(BASE + DAYS)).isEqualTo(140);
+		assertThat(table.ratioFor(BASE + 105)).isEqualTo(160);
+		assertThat(table.ratioFor(BASE + 111)).isEqualTo(100);
+		assertAgreeWithScan(referenceData, BASE - 30, BASE + 120);
+	}
+
+	@Test
+	public void agreeWithScanForRandomPeakTimes() {
+		Random random = new Random(20190101L);
+		for (int trial = 0; trial < 200; trial++) {
+			List<PeakTime> peakTimeList = new ArrayList<>();
+			int count = random.nextInt(6);
+			for (int i = 0; i < count; i++) {
+				LocalDate start = TODAY.plusDays(random.nextInt(80) - 20);
+				LocalDate end = start.plusDays(random.nextInt(15));
+				peakTimeList.add(peakTime(start, end, 100 + random.nextInt(100)));
+			}
+			ReferenceData referenceData = referenceData(
+					peakTimeList.toArray(new PeakTime[0]));
+
+			assertAgreeWithScan(referenceData, BASE - 30, BASE + 90);
+		}
+	}
+
+	@Test
+	public void scanSnapshotOtherThanPrepared() {
+		ReferenceData prepared = referenceData(
+				peakTime(TODAY.plusDays(1), TODAY.plusDays(1), 150));
+		ReferenceData reloaded = referenceData(
+				peakTime(TODAY.plusDays(1), TODAY.plusDays(1), 200));
+		ReferenceDataRegistry registry = mock(ReferenceDataRegistry.class);
+		when(registry.getSnapshot()).thenReturn(prepared);
+		TicketProperties props = new TicketProperties();
+		props.setLimitDay(DAYS - 1);
+		PeakTimeProvider peakTimeProvider = new PeakTimeProvider(props,
+				Clock.fixed(TODAY.atStartOfDay(ZoneId.systemDefault()).toInstant(),
+						ZoneId.systemDefault()),
+				registry);
+		peakTimeProvider.prepare(prepared);
+
+		assertThat(peakTimeProvider.ratioFor(BASE + 1)).isEqualTo(150);
+		assertThat(peakTimeProvider.ratioFor(reloaded, BASE + 1)).isEqualTo(200);
+	}
+
+	/**
+	 * 積算比率表の参照結果と、積算比率表を持たない(走査のみ)場合の結果と、単純な走査の結果が一致することを確認する。
+	 */
+	private static void assertAgreeWithScan(ReferenceData referenceData, long from,
+			long to) {
+		RatioTable table = PeakTimeProvider.build(referenceData, BASE, DAYS);
+		for (long epochDay = from; epochDay <= to; epochDay++) {
+			RatioTable scanOnly = PeakTimeProvider.build(referenceData, epochDay, 0);
+			int expected = naiveRatio(referenceData, epochDay);
+			assertThat(table.ratioFor(epochDay)).as("table %s", epochDay)
+					.isEqualTo(expected);
+			assertThat(scanOnly.ratioFor(epochDay)).as("scan %s", epochDay)
+					.isEqualTo(expected);
+		}
+	}
+
+	private static int naiveRatio(ReferenceData referenceData, long epochDay) {
+		int ratio = -1;
+		LocalDate date = LocalDate.ofEpochDay(epochDay);
+		for (PeakTime peakTime : referenceData.getPeakTimeList()) {
+			LocalDate start = DateTimeUtil.toLocalDate(peakTime.getPeakStartDate());
+			LocalDate end = DateTimeUtil.toLocalDate(peakTime.getPeakEndDate());
+			if (!date.isBefore(start) && !date.isAfter(end)) {
+				ratio = Math.max(ratio, peakTime.getMultiplicationRatio());
+			}
+		}
+		return ratio < 0 ? 100 : ratio;
+	}
+
+	private static ReferenceData referenceData(PeakTime... peakTimes) {
+		return new ReferenceData(1, 0, Collections.emptyList(), Collections.emptyList(),
+				Collections.emptyList(), Collections.emptyList(),
+				Arrays.asList(peakTimes));
+	}
+
+	private static PeakTime peakTime(LocalDate start, LocalDate end, int ratio) {
+		PeakTime peakTime = new PeakTime();
+		peakTime.setPeakStartDate(DateTimeUtil.toDate(start));
+		peakTime.setPeakEndDate(DateTimeUtil.toDate(end));
+		peakTime.setMultiplicationRatio(ratio);
+		return peakTime;
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.example.atrs.common.codelist.CodeListReloader;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link ReferenceDataHealthIndicator} のテスト。
+ *
+ * @author NTT 電電太郎
+ */
+public class ReferenceDataHealthIndicatorTest {
+
+	private ReferenceDataRegistry referenceDataRegistry;
+
+	private CodeListReloader codeListReloader;
+
+	private ReferenceDataWarmUp referenceDataWarmUp;
+
+	private ReferenceDataHealthIndicator healthIndicator;
+
+	/**
+	 * 参照データのロード結果。
+	 */
+	private CompletableFuture<ReferenceData> referenceDataLoad;
+
+	/**
+	 * コードリストのロードの完了を待機する。
+	 */
+	private CountDownLatch codeListLoaded;
+
+	@Before
+	public void setup() {
+		referenceDataLoad = new CompletableFuture<>();
+		codeListLoaded = new CountDownLatch(1);
+		referenceDataRegistry = mock(ReferenceDataRegistry.class);
+		when(referenceDataRegistry.loadAsync(any())).thenReturn(referenceDataLoad);
+		when(referenceDataRegistry.getLoadTimes()).thenReturn(Collections.emptyMap());
+		codeListReloader = mock(CodeListReloader.class);
+		doAnswer(invocation -> {
+			codeListLoaded.await(10, TimeUnit.SECONDS);
+			return null;
+		}).when(codeListReloader).load();
+		referenceDataWarmUp = new ReferenceDataWarmUp(referenceDataRegistry,
+				codeListReloader);
+		healthIndicator = new ReferenceDataHealthIndicator(referenceDataRegistry,
+				codeListReloader, referenceDataWarmUp);
+	}
+
+	@Test
+	public void downBeforeWarmUp() {
+		Health health = healthIndicator.health();
+
+		assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+		assertThat(health.getDetails()).containsEntry("warmUp", "NOT_STARTED");
+	}
+
+	@Test
+	public void startWaitsUntilLoadedAndThenUp() throws Exception {
+		Thread warmUpThread = new Thread(referenceDataWarmUp::start);
+		warmUpThread.start();
+		awaitState("LOADING");
+
+		Health loading = healthIndicator.health();
+		assertThat(loading.getStatus()).isEqualTo(Status.DOWN);
+		assertThat(loading.getDetails()).containsEntry("warmUp", "LOADING");
+		assertThat(warmUpThread.isAlive()).isTrue();
+
+		ReferenceData referenceData = new ReferenceData(1, 0, Collections.emptyList(),
+				Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+				Collections.emptyList());
+		when(referenceDataRegistry.isLoaded()).thenReturn(true);
+		when(referenceDataRegistry.getSnapshot()).thenReturn(referenceData);
+		when(codeListReloader.isLoaded()).thenReturn(true);
+		referenceDataLoad.complete(referenceData);
+		codeListLoaded.countDown();
+		warmUpThread.join(10000);
+
+		assertThat(warmUpThread.isAlive()).isFalse();
+		assertThat(referenceDataWarmUp.getElapsed()).isGreaterThanOrEqualTo(0);
+		Health loaded = healthIndicator.health();
+		assertThat(loaded.getStatus()).isEqualTo(Status.UP);
+		assertThat(loaded.getDetails()).containsEntry("warmUp", "COMPLETED")
+				.containsEntry("version", 1L);
+	}
+
+	@Test
+	public void failStartWhenWarmUpFailed() {
+		referenceDataLoad.completeExceptionally(new IllegalStateException("db down"));
+		codeListLoaded.countDown();
+
+		assertThatThrownBy(referenceDataWarmUp::start)
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("Failed to warm up reference data.")
+				.hasCauseInstanceOf(IllegalStateException.class);
+
+		Health health = healthIndicator.health();
+		assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+		assertThat(health.getDetails()).containsEntry("warmUp", "FAILED");
+	}
+
+	private void awaitState(String state) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!state.equals(referenceDataWarmUp.getState())
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.example.atrs.member.Gender;
+import com.example.atrs.member.Member;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terasoluna.gfw.common.exception.SystemException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * {@link ReservationJournal} のテスト。
+ *
+ * @author NTT 電電太郎
+ */
+public class ReservationJournalTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private TicketProperties props;
+
+	private ReservationJournal journal;
+
+	@Before
+	public void setup() throws Exception {
+		props = new TicketProperties();
+		props.getJournal().setEnabled(true);
+		props.getJournal().setDirectory(folder.getRoot().getPath());
+		props.getJournal().setSegmentSize(1024);
+		journal = open();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		journal.close();
+	}
+
+	@Test
+	public void appendAndReadRoundTrip() {
+		Reservation reservation = reservation("0000000001", "0000000123");
+		journal.append(reservation, 42L);
+
+		ReservationJournal.Batch batch = journal.read(0, 10);
+		assertThat(batch.getRecordList()).hasSize(1);
+		ReservationJournal.Record record = batch.getRecordList().get(0);
+		assertThat(record.getTxid()).isEqualTo(42L);
+		assertThat(batch.getNextPosition()).isEqualTo(record.getNextPosition());
+
+		Reservation decoded = record.getReservation();
+		assertThat(decoded.getReserveNo()).isEqualTo("0000000001");
+		assertThat(decoded.getReserveDate()).isEqualTo(reservation.getReserveDate());
+		assertThat(decoded.getTotalFare()).isEqualTo(32000);
+		assertThat(decoded.getRepFamilyName()).isEqualTo("電電");
+		assertThat(decoded.getRepGender()).isEqualTo(Gender.F);
+		assertThat(decoded.getRepTel()).isNull();
+		assertThat(decoded.getRepMail()).isEqualTo("taro@example.com");
+		assertThat(decoded.getRepMember().getMembershipNumber()).isEqualTo("0000000123");
+
+		ReserveFlight reserveFlight = decoded.getReserveFlightList().get(0);
+		assertThat(reserveFlight.getReserveNo()).isEqualTo("0000000001");
+		assertThat(reserveFlight.getReserveFlightNo()).isEqualTo(7);
+		assertThat(reserveFlight.getFlight().getFlightMaster().getFlightName())
+				.isEqualTo("ATR10");
+		assertThat(reserveFlight.getFlight().getBoardingClass().getBoardingClassCd())
+				.isEqualTo(BoardingClassCd.S);
+		assertThat(reserveFlight.getFlight().getFareType().getFareTypeCd())
+				.isEqualTo(FareTypeCd.RT);
+		assertThat(reserveFlight.getPassengerList()).extracting("passengerNo",
+				"reserveFlightNo", "givenName").containsExactly(
+						tuple(11, 7, "太郎"),
+						tuple(12, 7, "花子"));
+		assertThat(reserveFlight.getPassengerList().get(1).getMember()).isNull();
+	}
+
+	@Test
+	public void recoverEndAfterReopen() throws Exception {
+		for (int i = 1; i <= 3; i++) {
+			journal.append(reservation(reserveNo(i), null), i);
+		}
+		journal.close();
+
+		journal = open();
+		journal.append(reservation(reserveNo(4), null), 4L);
+
+		assertThat(reserveNos(journal.read(0, 10))).containsExactly(reserveNo(1),
+				reserveNo(2), reserveNo(3), reserveNo(4));
+	}
+
+	@Test
+	public void appendAcrossSegmentsAndCheckpoint() throws Exception {
+		for (int i = 1; i <= 20; i++) {
+			journal.append(reservation(reserveNo(i), null), i);
+		}
+		assertThat(segmentFiles().size()).isGreaterThan(1);
+
+		List<String> reserveNos = new ArrayList<>();
+		long position = 0;
+		for (;;) {
+			ReservationJournal.Batch batch = journal.read(position, 3);
+			if (batch.getNextPosition() == position) {
+				break;
+			}
+			reserveNos.addAll(reserveNos(batch));
+			position = batch.getNextPosition();
+		}
+		assertThat(reserveNos).hasSize(20).startsWith(reserveNo(1))
+				.endsWith(reserveNo(20));
+
+		journal.checkpoint(position);
+		assertThat(segmentFiles()).hasSize(1);
+		journal.close();
+
+		journal = open();
+		assertThat(journal.getCheckpointPosition()).isEqualTo(position);
+		assertThat(journal.read(position, 10).getRecordList()).isEmpty();
+	}
+
+	@Test
+	public void ignoreTornRecordOnRecovery() throws Exception {
+		journal.append(reservation(reserveNo(1), null), 1L);
+		journal.append(reservation(reserveNo(2), null), 2L);
+		long end = journal.read(0, 10).getNextPosition();
+		journal.close();
+
+		// 長さのみ書き込まれ、本体とCRCが一致しないレコードを末尾に追加
+		try (FileChannel channel = FileChannel.open(segmentFiles().get(0),
+				StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocate(8);
+			buffer.putInt(100).putInt(12345).flip();
+			channel.write(buffer, end);
+		}
+
+		journal = open();
+		assertThat(reserveNos(journal.read(0, 10))).containsExactly(reserveNo(1),
+				reserveNo(2));
+		journal.append(reservation(reserveNo(3), null), 3L);
+		assertThat(reserveNos(journal.read(0, 10))).containsExactly(reserveNo(1),
+				reserveNo(2), reserveNo(3));
+	}
+
+	@Test
+	public void rejectAppendAfterClose() throws Exception {
+		journal.close();
+
+		assertThatThrownBy(() -> journal.append(reservation(reserveNo(1), null), 1L))
+				.isInstanceOf(SystemException.class);
+	}
+
+	@Test
+	public void deadLetterKeepsPayload() throws Exception {
+		journal.append(reservation(reserveNo(1), null), 9L);
+		ReservationJournal.Record record = journal.read(0, 10).getRecordList().get(0);
+
+		Path path = journal.deadLetter(record, "test");
+
+		byte[] payload = Files.readAllBytes(path);
+		assertThat(ReservationJournalCodec.txidOf(payload)).isEqualTo(9L);
+		assertThat(ReservationJournalCodec.decode(payload).getReserveNo())
+				.isEqualTo(reserveNo(1));
+	}
+
+	@Test
+	public void rejectUnsupportedVersion() {
+		byte[] payload = ReservationJournalCodec
+				.encode(reservation(reserveNo(1), null), 1L);
+		payload[0] = (byte) (ReservationJournalCodec.FORMAT_VERSION + 1);
+
+		assertThatThrownBy(() -> ReservationJournalCodec.decode(payload))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	private ReservationJournal open() throws IOException {
+		ReservationJournal opened = new ReservationJournal(props,
+				new SimpleMeterRegistry());
+		opened.open();
+		return opened;
+	}
+
+	private List<Path> segmentFiles() throws IOException {
+		try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+			return files.filter(p -> p.getFileName().toString().endsWith(".journal"))
+					.sorted().collect(Collectors.toList());
+		}
+	}
+
+	private static List<String> reserveNos(ReservationJournal.Batch batch) {
+		return batch.getRecordList().stream()
+				.map(r -> r.getReservation().getReserveNo())
+				.collect(Collectors.toList());
+	}
+
+	private static String reserveNo(int i) {
+		return String.format("%010d", i);
+	}
+
+	private static Reservation reservation(String reserveNo, String membershipNumber) {
+		Reservation reservation = new Reservation();
+		reservation.setReserveNo(reserveNo);
+		reservation.setReserveDate(new Date(1546300800000L));
+		reservation.setTotalFare(32000);
+		reservation.setRepFamilyName("電電");
+		reservation.setRepGivenName("太郎");
+		reservation.setRepAge(30);
+		reservation.setRepGender(Gender.F);
+		reservation.setRepMail("taro@example.com");
+		if (membershipNumber != null) {
+			Member member = new Member();
+			member.setMembershipNumber(membershipNumber);
+			reservation.setRepMember(member);
+		}
+
+		FlightMaster flightMaster = new FlightMaster();
+		flightMaster.setFlightName("ATR10");
+		BoardingClass boardingClass = new BoardingClass();
+		boardingClass.setBoardingClassCd(BoardingClassCd.S);
+		FareType fareType = new FareType();
+		fareType.setFareTypeCd(FareTypeCd.RT);
+		Flight flight = new Flight();
+		flight.setDepartureDate(new Date(1548979200000L));
+		flight.setFlightMaster(flightMaster);
+		flight.setBoardingClass(boardingClass);
+		flight.setFareType(fareType);
+
+		ReserveFlight reserveFlight = new ReserveFlight();
+		reserveFlight.setReserveFlightNo(7);
+		reserveFlight.setFlight(flight);
+		List<Passenger> passengerList = new ArrayList<>();
+		passengerList.add(passenger(11, "太郎", membershipNumber));
+		passengerList.add(passenger(12, "花子", null));
+		reserveFlight.setPassengerList(passengerList);
+		reservation.setReserveFlightList(Collections.singletonList(reserveFlight));
+		return reservation;
+	}
+
+	private static Passenger passenger(int passengerNo, String givenName,
+			String membershipNumber) {
+		Passenger passenger = new Passenger();
+		passenger.setPassengerNo(passengerNo);
+		passenger.setFamilyName("電電");
+		passenger.setGivenName(givenName);
+		passenger.setAge(30);
+		passenger.setGender(Gender.M);
+		if (membershipNumber != null) {
+			Member member = new Member();
+			member.setMembershipNumber(membershipNumber);
+			passenger.setMember(member);
+		}
+		return passenger;
+	}
+}
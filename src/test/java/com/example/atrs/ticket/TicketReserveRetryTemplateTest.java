@@ -0,0 +1,128 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.CannotSerializeTransactionException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link TicketReserveRetryTemplate} のテスト。
+ *
+ * @author NTT 電電太郎
+ */
+public class TicketReserveRetryTemplateTest {
+
+	private MeterRegistry meterRegistry;
+
+	private TicketReserveRetryTemplate retryTemplate;
+
+	private AtomicInteger attempts;
+
+	@Before
+	public void setup() {
+		TicketProperties props = new TicketProperties();
+		props.getReserveRetry().setMaxAttempts(3);
+		props.getReserveRetry().setInitialBackoff(Duration.ofMillis(1));
+		props.getReserveRetry().setMaxBackoff(Duration.ofMillis(2));
+		meterRegistry = new SimpleMeterRegistry();
+		retryTemplate = new TicketReserveRetryTemplate(props, meterRegistry);
+		attempts = new AtomicInteger();
+	}
+
+	@Test
+	public void retryUntilSuccess() {
+		String result = retryTemplate.execute(() -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw new DeadlockLoserDataAccessException("deadlock", null);
+			}
+			if (attempts.get() == 2) {
+				throw new CannotSerializeTransactionException("serialization");
+			}
+			return "reserved";
+		});
+
+		assertThat(result).isEqualTo("reserved");
+		assertThat(attempts).hasValue(3);
+		assertThat(count("ticket.reserve.retry")).isEqualTo(2.0);
+		assertThat(meterRegistry.counter("ticket.reserve.aborted", "cause", "deadlock")
+				.count()).isEqualTo(1.0);
+		assertThat(meterRegistry
+				.counter("ticket.reserve.aborted", "cause", "serialization").count())
+						.isEqualTo(1.0);
+		assertThat(count("ticket.reserve.retry.exhausted")).isZero();
+	}
+
+	@Test
+	public void throwLastExceptionWhenExhausted() {
+		CannotAcquireLockException last = new CannotAcquireLockException("lock 3");
+
+		assertThatThrownBy(() -> retryTemplate.execute(() -> {
+			if (attempts.incrementAndGet() < 3) {
+				throw new CannotAcquireLockException("lock " + attempts.get());
+			}
+			throw last;
+		})).isSameAs(last);
+		assertThat(attempts).hasValue(3);
+		assertThat(count("ticket.reserve.retry")).isEqualTo(2.0);
+		assertThat(count("ticket.reserve.retry.exhausted")).isEqualTo(1.0);
+		assertThat(meterRegistry.counter("ticket.reserve.aborted", "cause", "lock")
+				.count()).isEqualTo(3.0);
+	}
+
+	@Test
+	public void notRetryOtherExceptions() {
+		assertThatThrownBy(() -> retryTemplate.execute(() -> {
+			attempts.incrementAndGet();
+			throw new DataIntegrityViolationException("duplicate");
+		})).isInstanceOf(DataIntegrityViolationException.class);
+		assertThat(attempts).hasValue(1);
+		assertThat(count("ticket.reserve.retry")).isZero();
+	}
+
+	@Test
+	public void stopRetryingWhenInterrupted() {
+		Thread.currentThread().interrupt();
+		try {
+			assertThatThrownBy(() -> retryTemplate.execute(() -> {
+				attempts.incrementAndGet();
+				throw new DeadlockLoserDataAccessException("deadlock", null);
+			})).isInstanceOf(DeadlockLoserDataAccessException.class);
+			assertThat(attempts).hasValue(1);
+			assertThat(Thread.currentThread().isInterrupted()).isTrue();
+		}
+		finally {
+			Thread.interrupted();
+		}
+	}
+
+	private double count(String name) {
+		return meterRegistry.counter(name).count();
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.example.atrs.common.sequence.SequenceAllocator;
+import com.example.atrs.common.util.DateTimeUtil;
+import com.example.atrs.member.MemberMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link TicketReserveService} のテスト。
+ *
+ * @author NTT 電電太郎
+ */
+public class TicketReserveServiceTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2019, 1, 1);
+
+	private FlightMapper flightMapper;
+
+	private SeatHoldMapper seatHoldMapper;
+
+	private TicketReserveService ticketReserveService;
+
+	@Before
+	public void setup() {
+		flightMapper = mock(FlightMapper.class);
+		when(flightMapper.decrementVacantNum(any(), anyInt())).thenReturn(10);
+		seatHoldMapper = mock(SeatHoldMapper.class);
+		when(seatHoldMapper.insertList(anyList()))
+				.thenAnswer(invocation -> invocation.<List<?>> getArgument(0).size());
+
+		Clock clock = Clock.fixed(TODAY.atStartOfDay(ZoneId.systemDefault()).toInstant(),
+				ZoneId.systemDefault());
+		ticketReserveService = new TicketReserveService(new TicketProperties(), clock,
+				mock(FareMatrix.class), flightMapper,
+				mock(FlightVacantBucketService.class), mock(MemberMapper.class),
+				mock(ReferenceDataRegistry.class), mock(ReservationMapper.class),
+				mock(ReservationJournal.class), seatHoldMapper,
+				mock(SequenceAllocator.class), mock(TicketSharedService.class),
+				mock(ApplicationEventPublisher.class));
+	}
+
+	@Test
+	public void restoreAndDecrementInOneLockOrder() throws Exception {
+		SeatHold before = seatHold(1, "NTT001", FareTypeCd.OW);
+		SeatHold after = seatHold(3, "NTT001", FareTypeCd.OW);
+		when(seatHoldMapper.deleteAndFindByHoldId("previous"))
+				.thenReturn(Arrays.asList(after, before));
+
+		ticketReserveService.holdSeats(reservation(2, "NTT002", FareTypeCd.OW),
+				Collections.singletonList("previous"));
+
+		InOrder inOrder = inOrder(seatHoldMapper, flightMapper);
+		inOrder.verify(seatHoldMapper)
+				.restoreVacantNum(eq(Collections.singletonList(before)));
+		inOrder.verify(flightMapper).decrementVacantNum(
+				argThat(f -> f.getFlightMaster().getFlightName().equals("NTT002")),
+				eq(1));
+		inOrder.verify(seatHoldMapper)
+				.restoreVacantNum(eq(Collections.singletonList(after)));
+	}
+
+	@Test
+	public void orderFareTypesByCode() throws Exception {
+		// 序数はRT < EDだが、主キーの順(コードの文字列順)はED < RT
+		SeatHold released = seatHold(1, "NTT001", FareTypeCd.ED);
+		when(seatHoldMapper.deleteAndFindByHoldId("previous"))
+				.thenReturn(Collections.singletonList(released));
+
+		ticketReserveService.holdSeats(reservation(1, "NTT001", FareTypeCd.RT),
+				Collections.singletonList("previous"));
+
+		InOrder inOrder = inOrder(seatHoldMapper, flightMapper);
+		inOrder.verify(seatHoldMapper)
+				.restoreVacantNum(eq(Collections.singletonList(released)));
+		inOrder.verify(flightMapper).decrementVacantNum(any(), eq(1));
+	}
+
+	private static SeatHold seatHold(int day, String flightName, FareTypeCd fareTypeCd) {
+		SeatHold seatHold = new SeatHold();
+		seatHold.setHoldId("previous");
+		seatHold.setDepartureDate(DateTimeUtil.toDate(TODAY.plusDays(day)));
+		seatHold.setFlightName(flightName);
+		seatHold.setBoardingClassCd(BoardingClassCd.N);
+		seatHold.setFareTypeCd(fareTypeCd);
+		seatHold.setHoldNum(2);
+		return seatHold;
+	}
+
+	private static Reservation reservation(int day, String flightName,
+			FareTypeCd fareTypeCd) {
+		FlightMaster flightMaster = new FlightMaster();
+		flightMaster.setFlightName(flightName);
+		BoardingClass boardingClass = new BoardingClass();
+		boardingClass.setBoardingClassCd(BoardingClassCd.N);
+		FareType fareType = new FareType();
+		fareType.setFareTypeCd(fareTypeCd);
+		Flight flight = new Flight();
+		flight.setDepartureDate(DateTimeUtil.toDate(TODAY.plusDays(day)));
+		flight.setFlightMaster(flightMaster);
+		flight.setBoardingClass(boardingClass);
+		flight.setFareType(fareType);
+		ReserveFlight reserveFlight = new ReserveFlight();
+		reserveFlight.setFlight(flight);
+		reserveFlight.setPassengerList(Collections.singletonList(new Passenger()));
+		Reservation reservation = new Reservation();
+		reservation.setReserveFlightList(Collections.singletonList(reserveFlight));
+		return reservation;
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket.api;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.atrs.ticket.BoardingClassCd;
+import com.example.atrs.ticket.FareTypeVacantInfoDto;
+import com.example.atrs.ticket.FlightVacantInfoDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link FlightVacantInfoCompactHttpMessageConverter} のテスト。
+ *
+ * @author NTT 電電太郎
+ */
+public class FlightVacantInfoCompactHttpMessageConverterTest {
+
+	private static final Type FLIGHT_LIST_TYPE = new ParameterizedTypeReference<List<FlightVacantInfoDto>>() {
+	}.getType();
+
+	private ObjectMapper objectMapper;
+
+	private FlightVacantInfoCompactHttpMessageConverter converter;
+
+	@Before
+	public void setup() {
+		objectMapper = new ObjectMapper();
+		converter = new FlightVacantInfoCompactHttpMessageConverter(
+				objectMapper.getFactory());
+	}
+
+	@Test
+	public void writeOnlyWhenExplicitlyRequested() {
+		assertThat(converter.canWrite(FLIGHT_LIST_TYPE, List.class,
+				FlightVacantInfoCompactHttpMessageConverter.MEDIA_TYPE)).isTrue();
+		assertThat(converter.canWrite(FLIGHT_LIST_TYPE, List.class, MediaType.ALL))
+				.isFalse();
+		assertThat(converter.canWrite(FLIGHT_LIST_TYPE, List.class, null)).isFalse();
+		assertThat(converter.canWrite(FLIGHT_LIST_TYPE, List.class,
+				MediaType.APPLICATION_JSON)).isFalse();
+		assertThat(converter.canWrite(
+				new ParameterizedTypeReference<List<String>>() {
+				}.getType(), List.class,
+				FlightVacantInfoCompactHttpMessageConverter.MEDIA_TYPE)).isFalse();
+		assertThat(converter.canRead(FLIGHT_LIST_TYPE, null,
+				FlightVacantInfoCompactHttpMessageConverter.MEDIA_TYPE)).isFalse();
+	}
+
+	@Test
+	public void isRequested() {
+		assertThat(FlightVacantInfoCompactHttpMessageConverter.isRequested(
+				"application/vnd.atrs.flights.compact+json, application/json")).isTrue();
+		assertThat(FlightVacantInfoCompactHttpMessageConverter
+				.isRequested("application/json")).isFalse();
+		assertThat(FlightVacantInfoCompactHttpMessageConverter.isRequested(null))
+				.isFalse();
+	}
+
+	@Test
+	public void writeDictionariesOnceAndFlightsAsIndexes() throws Exception {
+		Map<String, FareTypeVacantInfoDto> first = new LinkedHashMap<>();
+		first.put("RT", new FareTypeVacantInfoDto("往復割", "16,500", 16500, 20));
+		first.put("SM", new FareTypeVacantInfoDto("一般運賃", "22,000", 22000, 15));
+		Map<String, FareTypeVacantInfoDto> second = new LinkedHashMap<>();
+		second.put("SM", new FareTypeVacantInfoDto("一般運賃", "24,000", 24000, 0));
+		List<FlightVacantInfoDto> flights = Arrays.asList(
+				new FlightVacantInfoDto("ATR001", "東京(羽田)", "大阪(伊丹)", "2018/12/01",
+						"07:00", "08:10", BoardingClassCd.N, first),
+				new FlightVacantInfoDto("ATR003", "東京(羽田)", "大阪(伊丹)", "2018/12/01",
+						"08:10", "09:20", BoardingClassCd.N, second));
+
+		JsonNode root = write(flights);
+
+		assertThat(texts(root.get("airports"))).containsExactly("東京(羽田)", "大阪(伊丹)");
+		assertThat(texts(root.get("dates"))).containsExactly("2018/12/01");
+		assertThat(texts(root.get("times"))).containsExactly("07:00", "08:10", "09:20");
+		assertThat(root.get("fareTypes").toString())
+				.isEqualTo("[[\"RT\",\"往復割\"],[\"SM\",\"一般運賃\"]]");
+		assertThat(root.get("flights").toString()).isEqualTo(
+				"[[\"ATR001\",\"N\",0,1,0,0,1,[0,16500,20,1,22000,15]],"
+						+ "[\"ATR003\",\"N\",0,1,0,1,2,[1,24000,0]]]");
+	}
+
+	@Test
+	public void writeEmptyList() throws Exception {
+		JsonNode root = write(Collections.emptyList());
+
+		assertThat(root.get("flights").size()).isZero();
+		assertThat(root.get("fareTypes").size()).isZero();
+	}
+
+	private JsonNode write(List<FlightVacantInfoDto> flights) throws Exception {
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		converter.write(flights, FLIGHT_LIST_TYPE,
+				FlightVacantInfoCompactHttpMessageConverter.MEDIA_TYPE, outputMessage);
+		assertThat(outputMessage.getHeaders().getContentType()
+				.isCompatibleWith(FlightVacantInfoCompactHttpMessageConverter.MEDIA_TYPE))
+						.isTrue();
+		return objectMapper
+				.readTree(outputMessage.getBodyAsString(StandardCharsets.UTF_8));
+	}
+
+	private static String[] texts(JsonNode array) {
+		String[] texts = new String[array.size()];
+		for (int i = 0; i < texts.length; i++) {
+			texts[i] = array.get(i).asText();
+		}
+		return texts;
+	}
+}
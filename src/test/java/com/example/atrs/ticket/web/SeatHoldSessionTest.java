@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket.web;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.example.atrs.ticket.TicketProperties;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link SeatHoldSession} のテスト。
+ *
+ * @author NTT 電電太郎
+ */
+public class SeatHoldSessionTest {
+
+	private SeatHoldSession seatHoldSession;
+
+	private List<List<String>> releasedList;
+
+	@Before
+	public void setup() {
+		TicketProperties props = new TicketProperties();
+		props.getSeatHold().setMaxPerSession(2);
+		seatHoldSession = new SeatHoldSession(props);
+		releasedList = new ArrayList<>();
+	}
+
+	@Test
+	public void releaseOwnedPreviousHold() {
+		String first = hold(null, "h1");
+		String second = hold(first, "h2");
+
+		assertThat(releasedList).containsExactly(Collections.emptyList(),
+				Collections.singletonList("h1"));
+		assertThat(seatHoldSession.owns(first)).isFalse();
+		assertThat(seatHoldSession.owns(second)).isTrue();
+	}
+
+	@Test
+	public void ignoreHoldOfOtherSession() {
+		hold("other-session-hold", "h1");
+
+		assertThat(releasedList).containsExactly(Collections.emptyList());
+		assertThat(seatHoldSession.owns("other-session-hold")).isFalse();
+	}
+
+	@Test
+	public void releaseOldestHoldOverLimit() {
+		hold(null, "h1");
+		hold(null, "h2");
+		hold(null, "h3");
+
+		assertThat(releasedList.get(2)).containsExactly("h1");
+		assertThat(seatHoldSession.owns("h1")).isFalse();
+		assertThat(seatHoldSession.owns("h2")).isTrue();
+		assertThat(seatHoldSession.owns("h3")).isTrue();
+	}
+
+	@Test
+	public void keepHoldsWhenHoldFails() {
+		hold(null, "h1");
+
+		assertThatThrownBy(() -> seatHoldSession.hold("h1", releaseHoldIds -> {
+			throw new IllegalStateException("no seats");
+		})).isInstanceOf(IllegalStateException.class);
+		assertThat(seatHoldSession.owns("h1")).isTrue();
+	}
+
+	@Test
+	public void removeTakenOverHold() {
+		hold(null, "h1");
+
+		seatHoldSession.remove("h1");
+		seatHoldSession.remove(null);
+
+		assertThat(seatHoldSession.owns("h1")).isFalse();
+	}
+
+	private String hold(String previousHoldId, String newHoldId) {
+		return seatHoldSession.hold(previousHoldId, releaseHoldIds -> {
+			releasedList.add(new ArrayList<>(releaseHoldIds));
+			return newHoldId;
+		});
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014-2018 NTT Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.example.atrs.ticket.web;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.example.atrs.ticket.TicketProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link TicketReserveIdempotencyStore} のテスト。
+ *
+ * @author NTT 電電太郎
+ */
+public class TicketReserveIdempotencyStoreTest {
+
+	private MeterRegistry meterRegistry;
+
+	private TicketReserveIdempotencyStore idempotencyStore;
+
+	private AtomicInteger reserveCount;
+
+	private ExecutorService executor;
+
+	@Before
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		idempotencyStore = new TicketReserveIdempotencyStore(new TicketProperties(),
+				meterRegistry);
+		reserveCount = new AtomicInteger();
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void replaySameKey() {
+		ReserveCompleteOutputDto first = idempotencyStore.execute("key-1", this::reserve);
+		ReserveCompleteOutputDto second = idempotencyStore.execute("key-1",
+				this::reserve);
+
+		assertThat(second).isSameAs(first);
+		assertThat(reserveCount).hasValue(1);
+		assertThat(meterRegistry.counter("ticket.reserve.replayed").count())
+				.isEqualTo(1.0);
+	}
+
+	@Test
+	public void reserveEachTimeWithoutKey() {
+		idempotencyStore.execute(null, this::reserve);
+		idempotencyStore.execute("", this::reserve);
+
+		assertThat(reserveCount).hasValue(2);
+	}
+
+	@Test
+	public void reserveEachTimeWhenDisabled() {
+		TicketProperties props = new TicketProperties();
+		props.getIdempotency().setEnabled(false);
+		idempotencyStore = new TicketReserveIdempotencyStore(props, meterRegistry);
+
+		idempotencyStore.execute("key-1", this::reserve);
+		idempotencyStore.execute("key-1", this::reserve);
+
+		assertThat(reserveCount).hasValue(2);
+	}
+
+	@Test
+	public void retryAfterFailure() {
+		assertThatThrownBy(() -> idempotencyStore.execute("key-1", () -> {
+			throw new IllegalStateException("no seats");
+		})).isInstanceOf(IllegalStateException.class);
+
+		ReserveCompleteOutputDto outputDto = idempotencyStore.execute("key-1",
+				this::reserve);
+
+		assertThat(outputDto.getReserveNo()).isEqualTo("0000000001");
+	}
+
+	@Test
+	public void waitForInFlightReservation() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<ReserveCompleteOutputDto> first = executor
+				.submit(() -> idempotencyStore.execute("key-1", () -> {
+					started.countDown();
+					await(release);
+					return reserve();
+				}));
+		assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+		Thread releaser = new Thread(() -> {
+			sleep(50);
+			release.countDown();
+		});
+		releaser.start();
+		ReserveCompleteOutputDto second = idempotencyStore.execute("key-1",
+				this::reserve);
+
+		assertThat(second).isSameAs(first.get(10, TimeUnit.SECONDS));
+		assertThat(reserveCount).hasValue(1);
+		releaser.join();
+	}
+
+	@Test
+	public void propagateFailureToWaiter() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.submit(() -> idempotencyStore.execute("key-1", () -> {
+			started.countDown();
+			await(release);
+			throw new IllegalStateException("no seats");
+		}));
+		assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+		Thread releaser = new Thread(() -> {
+			sleep(50);
+			release.countDown();
+		});
+		releaser.start();
+
+		assertThatThrownBy(() -> idempotencyStore.execute("key-1", this::reserve))
+				.isInstanceOf(IllegalStateException.class).hasMessage("no seats");
+		assertThat(reserveCount).hasValue(0);
+		releaser.join();
+	}
+
+	private ReserveCompleteOutputDto reserve() {
+		ReserveCompleteOutputDto outputDto = new ReserveCompleteOutputDto();
+		outputDto.setReserveNo(String.format("%010d", reserveCount.incrementAndGet()));
+		return outputDto;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}